@@ -0,0 +1,69 @@
+import { API_BASE_URL, LS_jwt_KEY } from './baseApi'
+
+// Minimal Server-Sent Events reader over fetch, so the bearer token can be
+// sent as a header (EventSource cannot set headers). Reconnects with the
+// server-provided retry delay until the returned function is called.
+export function openEventStream (path, { getState, onEvent, onOpen }) {
+  const controller = new AbortController()
+  let retryMs = 5000
+  let stopped = false
+
+  const token = () => {
+    let jwt = getState?.()?.auth?.jwt
+    if (!jwt && typeof localStorage !== 'undefined') jwt = localStorage.getItem(LS_jwt_KEY) || null
+    return jwt
+  }
+
+  const dispatchBlock = (block) => {
+    let event = 'message'
+    const data = []
+    for (const line of block.split('\n')) {
+      if (!line || line.startsWith(':')) continue
+      const idx = line.indexOf(':')
+      const field = idx === -1 ? line : line.slice(0, idx)
+      const value = idx === -1 ? '' : line.slice(idx + 1).replace(/^ /, '')
+      if (field === 'event') event = value
+      else if (field === 'data') data.push(value)
+      else if (field === 'retry' && /^\d+$/.test(value)) retryMs = Number(value)
+    }
+    if (!data.length) return
+    let payload = data.join('\n')
+    try { payload = JSON.parse(payload) } catch {}
+    onEvent?.(event, payload)
+  }
+
+  const run = async () => {
+    while (!stopped) {
+      try {
+        const jwt = token()
+        const res = await fetch(`${API_BASE_URL}${path}`, {
+          headers: { Accept: 'text/event-stream', ...(jwt ? { Authorization: `Bearer ${jwt}` } : {}) },
+          signal: controller.signal,
+        })
+        if (!res.ok || !res.body) throw new Error(`stream ${res.status}`)
+        onOpen?.()
+        const reader = res.body.pipeThrough(new TextDecoderStream()).getReader()
+        let buffer = ''
+        for (;;) {
+          const { value, done } = await reader.read()
+          if (done) break
+          buffer += value.replace(/\r\n?/g, '\n')
+          let end
+          while ((end = buffer.indexOf('\n\n')) !== -1) {
+            dispatchBlock(buffer.slice(0, end))
+            buffer = buffer.slice(end + 2)
+          }
+        }
+      } catch (e) {
+        if (stopped || e?.name === 'AbortError') return
+      }
+      if (!stopped) await new Promise((resolve) => setTimeout(resolve, retryMs))
+    }
+  }
+
+  run()
+  return () => {
+    stopped = true
+    controller.abort()
+  }
+}
@@ -0,0 +1,56 @@
+import { API_BASE_URL, LS_jwt_KEY } from './baseApi'
+
+// Polls an incremental timeline endpoint (…/updates?since=<cursor>) while a
+// screen is open. Sends the last ETag as If-None-Match so an unchanged work
+// order costs a 304, and only calls onUpdate when entries arrived. The server
+// re-sends entries from a short window before the cursor (they can commit
+// late), so onUpdate must skip entries it already has by id.
+// Skips ticks while the tab is hidden. Returns a function that stops polling.
+export function pollTimeline (path, { cursor, getState, onUpdate, intervalMs = 15000 }) {
+  let since = cursor || ''
+  let etag = null
+  let stopped = false
+  let timer = null
+  const controller = new AbortController()
+
+  const token = () => {
+    let jwt = getState?.()?.auth?.jwt
+    if (!jwt && typeof localStorage !== 'undefined') jwt = localStorage.getItem(LS_jwt_KEY) || null
+    return jwt
+  }
+
+  const tick = async () => {
+    if (stopped) return
+    if (typeof document === 'undefined' || document.visibilityState !== 'hidden') {
+      try {
+        const jwt = token()
+        const query = since ? `?since=${encodeURIComponent(since)}` : ''
+        const res = await fetch(`${API_BASE_URL}${path}${query}`, {
+          headers: {
+            Accept: 'application/json',
+            ...(jwt ? { Authorization: `Bearer ${jwt}` } : {}),
+            ...(etag ? { 'If-None-Match': etag } : {}),
+          },
+          signal: controller.signal,
+        })
+        if (res.ok) {
+          const body = await res.json()
+          etag = res.headers.get('ETag')
+          if (body?.cursor) since = body.cursor
+          const hasNew = (body?.progress?.length || 0) + (body?.assignments?.length || 0) > 0
+          if (hasNew || body?.instruction) onUpdate?.(body)
+        }
+      } catch (e) {
+        if (stopped || e?.name === 'AbortError') return
+      }
+    }
+    if (!stopped) timer = setTimeout(tick, intervalMs)
+  }
+
+  timer = setTimeout(tick, intervalMs)
+  return () => {
+    stopped = true
+    clearTimeout(timer)
+    controller.abort()
+  }
+}
@@ -220,6 +220,7 @@ export const adminApi = baseApi.injectEndpoints({
         overdueInvoices: r?.overdueInvoices ?? 0,
         totalRevenue: Number(r?.totalRevenue ?? 0),
         outstandingReceivables: Number(r?.outstandingReceivables ?? 0),
+        receivablesAging: r?.receivablesAging ?? null,
       }),
       providesTags: ['Office'],
     }),
@@ -1,6 +1,7 @@
 // features/fe/feApi.js
 import { baseApi } from '../../api/baseApi'
 import { requireFields } from '../../api/error'
+import { pollTimeline } from '../../api/timelinePoll'
 import { normaliseArray } from '../../utils/apiShape'
 
 export const feApi = baseApi.injectEndpoints({
@@ -104,7 +105,32 @@ export const feApi = baseApi.injectEndpoints({
 
     getWorkOrderDetail: b.query({
       query: (id) => ({ url: `/fe/wo/${id}`, method: 'GET' }),
-      providesTags: (_r, _e, id) => [{ type: 'WorkOrders', id }]
+      providesTags: (_r, _e, id) => [{ type: 'WorkOrders', id }],
+      // While the job is open, fetch only entries newer than the cursor (GET /fe/wo/{id}/updates)
+      async onCacheEntryAdded (id, { updateCachedData, cacheDataLoaded, cacheEntryRemoved, getState }) {
+        let stop = () => {}
+        try {
+          const { data } = await cacheDataLoaded
+          stop = pollTimeline(`/fe/wo/${id}/updates`, {
+            cursor: data?.cursor,
+            getState,
+            onUpdate: (delta) => {
+              updateCachedData((draft) => {
+                const progress = Array.isArray(draft.progress) ? draft.progress : (draft.progress = [])
+                const seen = new Set(progress.map((p) => p.id))
+                progress.push(...(delta.progress || []).filter((p) => !seen.has(p.id)))
+                if (delta.instruction) draft.instruction = delta.instruction
+                if (draft.workOrder && delta.status) draft.workOrder.status = delta.status
+                draft.cursor = delta.cursor
+              })
+            }
+          })
+        } catch {
+          // cache entry removed before the initial load finished
+        }
+        await cacheEntryRemoved
+        stop()
+      }
     }),
   }),
   overrideExisting: true
@@ -1,6 +1,8 @@
 // features/office/officeApi.js
 import { baseApi } from '../../api/baseApi'
 import { requireFields } from '../../api/error'
+import { openEventStream } from '../../api/eventStream'
+import { pollTimeline } from '../../api/timelinePoll'
 import { downloadBlob, extractFilename } from '../../utils/file'
 import { normaliseArray, normalisePage } from '../../utils/apiShape'
 
@@ -755,7 +757,45 @@ export const officeApi = baseApi.injectEndpoints({
     // GET /office/wo/{id}/timeline
     woTimeline: b.query({
       query: (id) => ({ url: `/office/wo/${id}/timeline`, method: 'GET' }),
-      providesTags: (_r,_e,id) => [{ type:'WorkOrders', id }]
+      providesTags: (_r,_e,id) => [{ type:'WorkOrders', id }],
+      // While the timeline is open, fetch only entries newer than the cursor (GET /office/wo/{id}/timeline/updates)
+      async onCacheEntryAdded (id, { updateCachedData, cacheDataLoaded, cacheEntryRemoved, getState, dispatch }) {
+        let stop = () => {}
+        try {
+          const { data } = await cacheDataLoaded
+          stop = pollTimeline(`/office/wo/${id}/timeline/updates`, {
+            cursor: data?.cursor,
+            getState,
+            onUpdate: (delta) => {
+              updateCachedData((draft) => {
+                const progress = Array.isArray(draft.progress) ? draft.progress : (draft.progress = [])
+                const seen = new Set(progress.map((p) => p.id))
+                const added = (delta.progress || []).filter((p) => !seen.has(p.id))
+                progress.push(...added)
+                // Full timeline lists assignments newest first; updates re-send recent entries, so skip known ids
+                const known = new Set((draft.assignments || []).map((a) => a.id))
+                const fresh = (delta.assignments || []).filter((a) => !known.has(a.id))
+                draft.assignments = fresh.reverse().concat(draft.assignments || [])
+                if (draft.workOrder && delta.status) draft.workOrder.status = delta.status
+                if (added.length) {
+                  const summary = draft.progressSummary || (draft.progressSummary = {})
+                  const last = added[added.length - 1]
+                  summary.totalUpdates = (summary.totalUpdates || 0) + added.length
+                  summary.photoCount = (summary.photoCount || 0) + added.reduce((n, p) => n + (p.attachments?.length || 0), 0)
+                  summary.lastUpdatedAt = last.createdAt
+                  summary.lastStatus = last.status
+                }
+                draft.cursor = delta.cursor
+              })
+              dispatch(officeApi.util.invalidateTags(['WorkOrderSummary']))
+            },
+          })
+        } catch {
+          // cache entry removed before the initial load finished
+        }
+        await cacheEntryRemoved
+        stop()
+      },
     }),
 
     getWoCompletionReport: b.query({
@@ -803,7 +843,7 @@ export const officeApi = baseApi.injectEndpoints({
           upcomingDue: normaliseList(res?.upcomingDue)
         }
       },
-      providesTags: ['WorkOrders']
+      providesTags: ['WorkOrders', 'WorkOrderSummary']
     }),
 
     getDispatchBoard: b.query({
@@ -814,16 +854,66 @@ export const officeApi = baseApi.injectEndpoints({
       }),
       transformResponse: (res) => normaliseArray(res),
       providesTags: ['WorkOrders'],
+      // Apply row-level deltas pushed by /office/wo/dispatch-board/stream while the board is open
+      async onCacheEntryAdded ({ limit = 15 } = {}, { updateCachedData, cacheDataLoaded, cacheEntryRemoved, getState, dispatch }) {
+        let close = () => {}
+        try {
+          await cacheDataLoaded
+          let connected = false
+          close = openEventStream('/office/wo/dispatch-board/stream', {
+            getState,
+            onOpen: () => {
+              // Changes may have been missed while disconnected; reload once on reconnect
+              if (connected) dispatch(officeApi.util.invalidateTags(['WorkOrders']))
+              connected = true
+            },
+            onEvent: (event, delta) => {
+              if (event !== 'wo' || !delta?.workOrderId) return
+              let refill = false
+              updateCachedData((rows) => {
+                const idx = rows.findIndex((r) => r.workOrderId === delta.workOrderId)
+                if (delta.type === 'REMOVE' || !delta.row) {
+                  // A full page may have more rows on the server; reload to pull the next one in
+                  if (idx !== -1) {
+                    refill = rows.length >= limit
+                    rows.splice(idx, 1)
+                  }
+                  return
+                }
+                if (idx !== -1) rows[idx] = delta.row
+                else rows.push(delta.row)
+                // Same order as the server: due date first (undated last), then id
+                rows.sort((a, b) => {
+                  if (a.dueDate !== b.dueDate) {
+                    if (!a.dueDate) return 1
+                    if (!b.dueDate) return -1
+                    return a.dueDate < b.dueDate ? -1 : 1
+                  }
+                  return a.workOrderId - b.workOrderId
+                })
+                if (rows.length > limit) rows.length = limit
+              })
+              dispatch(officeApi.util.invalidateTags([refill ? 'WorkOrders' : 'WorkOrderSummary']))
+            },
+          })
+        } catch {
+          // cache entry removed before the initial load finished
+        }
+        await cacheEntryRemoved
+        close()
+      },
     }),
 
-    // POST /office/wo/{id}/assign { feId, note? }
+    // POST /office/wo/{id}/assign { feId, note?, startDate?, dueDate? }
     woAssign: b.mutation({
-      async queryFn ({ id, feId, note }, _api, _extra, baseQuery) {
+      async queryFn ({ id, feId, note, startDate, dueDate }, _api, _extra, baseQuery) {
         try { requireFields({ id, feId }, ['id','feId']) } catch (e) {
           return { error: { status: 0, data: { message: e.message } } }
         }
-        const res = await baseQuery({ url: `/office/wo/${id}/assign`, method: 'POST', body: { feId, note } })
-        return res.error ? { error: res.error } : { data: null }
+        const res = await baseQuery({ url: `/office/wo/${id}/assign`, method: 'POST', body: { feId, note, startDate, dueDate } })
+        if (res.error) return { error: res.error }
+        // Set when the engineer was already booked in the work order's window (overbooking allowed)
+        return { data: { capacityWarning: res.meta?.response?.headers?.get('X-Capacity-Warning') ?? null } }
       },
       invalidatesTags: ['WorkOrders','Stocks','Ledger']
     }),
@@ -906,6 +996,12 @@ export const officeApi = baseApi.injectEndpoints({
       invalidatesTags: ['WorkOrders','Invoices']
     }),
 
+    // POST /office/wo/{woId}/completion/retry — re-run a failed invoice/PDF/delivery stage
+    woRetryCompletion: b.mutation({
+      query: (woId) => ({ url: `/office/wo/${woId}/completion/retry`, method: 'POST' }),
+      invalidatesTags: (_r, _e, woId) => [{ type: 'WorkOrders', id: woId }, 'Invoices']
+    }),
+
     receiveStock: b.mutation({
       async queryFn (body, _api, _extra, baseQuery) {
         try { requireFields(body, ['itemId','storeId','qty']) } catch (e) {
@@ -1072,6 +1168,7 @@ export const {
   useLazyGetWoProgressAttachmentQuery,
   useWoIssueItemMutation,
   useWoCompleteMutation,
+  useWoRetryCompletionMutation,
   useReceiveStockMutation,
   useWoReturnItemMutation,
   useAttachProposalDocumentMutation,
@@ -263,7 +263,7 @@ export default function OfficeDashboard () {
           <MetricCard
             icon={<CurrencyRupeeRoundedIcon fontSize="small" />}
             label="Outstanding receivables"
-            hint="Invoices sent but not yet paid"
+            hint="Issued invoices not yet paid"
             value={formatCurrency(summary?.outstandingReceivables)}
             tone="success.main"
             loading={summaryLoading}
@@ -575,8 +575,13 @@ export default function OfficeDashboard () {
             Follow up on overdue invoices
           </Typography>
           <Typography variant="body2" color="text.secondary" sx={{ mt: 0.5 }}>
-            {formatNumber(summary?.overdueInvoices)} invoice{summary?.overdueInvoices === 1 ? '' : 's'} have been in <strong>Sent</strong> status for more than 30 days. Call the customer or resend the invoice with updated payment instructions.
+            {formatNumber(summary?.overdueInvoices)} invoice{summary?.overdueInvoices === 1 ? ' is' : 's are'} past the 30-day payment terms ({formatCurrency(summary?.receivablesAging?.overdueTotal)}). Call the customer or resend the invoice with updated payment instructions.
           </Typography>
+          {summary?.receivablesAging && (
+            <Typography variant="caption" color="text.secondary" sx={{ display: 'block', mt: 0.5 }}>
+              Ageing: 0–30 days {formatCurrency(summary.receivablesAging.days0To30)} • 31–60 {formatCurrency(summary.receivablesAging.days31To60)} • 61–90 {formatCurrency(summary.receivablesAging.days61To90)} • 90+ {formatCurrency(summary.receivablesAging.days90Plus)}
+            </Typography>
+          )}
         </Alert>
       )}
     </Stack>
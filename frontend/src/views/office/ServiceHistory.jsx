@@ -68,11 +68,12 @@ const normaliseServiceRow = (service) => {
     return null
   }
 
-  const invoiceNo = pick('invoiceNo', 'invoiceNumber', 'invoice', 'invNo')
-  const proformaNo = pick('pinvNo', 'proformaNo', 'proforma', 'pinv')
+  // List rows carry these as flat summary fields; the meta blob is only present on full records
+  const invoiceNo = service.invoiceNo || pick('invoiceNo', 'invoiceNumber', 'invoice', 'invNo')
+  const proformaNo = service.proformaNo || pick('pinvNo', 'proformaNo', 'proforma', 'pinv')
   const invoiceDate = pick('invoiceDate', 'invoice_date', 'invDate')
   const proformaDate = pick('pinvDate', 'proformaDate', 'pinv_date')
-  const serviceType = pick('serviceType', 'service_type', 'serviceTypeCode')
+  const serviceType = service.serviceType || pick('serviceType', 'service_type', 'serviceTypeCode')
   const status = service.status || pick('status', 'invoiceStatus', 'pinvStatus')
 
   const safeNumber = (value) => {
@@ -11,6 +11,7 @@ import {
   useProposalRejectMutation,
   useWoAssignMutation,
   useWoCompleteMutation,
+  useWoRetryCompletionMutation,
   useWoTimelineQuery,
   useLazyGetWoProgressAttachmentQuery,
   useLazyGetWoCompletionReportQuery,
@@ -245,11 +246,18 @@ export default function WorkOrders () {
     setPoUrl('');
   };
 
-  async function handleAssign(feId) {
+  async function handleAssign(feId, { startDate, dueDate } = {}) {
     if (!assignModal.wo?.id || !feId) return;
     try {
-      await assignWo({ id: assignModal.wo.id, feId, note: assignNote || undefined }).unwrap();
+      const res = await assignWo({
+        id: assignModal.wo.id,
+        feId,
+        note: assignNote || undefined,
+        startDate: startDate || undefined,
+        dueDate: dueDate || undefined
+      }).unwrap();
       toast.success('Work order assigned');
+      if (res?.capacityWarning) toast(res.capacityWarning);
       closeAssignModal();
       refetchWos();
       refetchSummary();
@@ -738,18 +746,25 @@ export default function WorkOrders () {
 
 function AssignDialog ({ open, onClose, workOrder, engineers, note, onNoteChange, onAssign }) {
   const [selectedFe, setSelectedFe] = useState('')
+  const [startDate, setStartDate] = useState('')
+  const [dueDate, setDueDate] = useState('')
 
   useEffect(() => {
     if (open) {
       setSelectedFe('');
+      // The engineer is booked for this window; without a due date nothing is booked
+      setStartDate(workOrder?.startDate || '');
+      setDueDate(workOrder?.dueDate || '');
     }
   }, [open, workOrder?.id])
 
+  const invalidWindow = Boolean(startDate && dueDate && dueDate < startDate)
+
   const handleAssign = () => {
-    if (!selectedFe) return
+    if (!selectedFe || invalidWindow) return
     const numeric = Number(selectedFe)
     const value = Number.isFinite(numeric) && numeric > 0 ? numeric : selectedFe
-    onAssign(value)
+    onAssign(value, { startDate, dueDate })
   }
 
   return (
@@ -771,6 +786,28 @@ function AssignDialog ({ open, onClose, workOrder, engineers, note, onNoteChange
               <MenuItem key={fe.id} value={fe.id}>{fe.user?.displayName || fe.name || `FE #${fe.id}`}</MenuItem>
             ))}
           </TextField>
+          <Stack direction={{ xs: 'column', sm: 'row' }} spacing={2}>
+            <TextField
+              label='Start date'
+              type='date'
+              value={startDate}
+              onChange={(event) => setStartDate(event.target.value)}
+              onKeyDown={focusNextInputOnEnter}
+              fullWidth
+              InputLabelProps={{ shrink: true }}
+            />
+            <TextField
+              label='Due date'
+              type='date'
+              value={dueDate}
+              onChange={(event) => setDueDate(event.target.value)}
+              onKeyDown={focusNextInputOnEnter}
+              error={invalidWindow}
+              helperText={invalidWindow ? 'Due date is before the start date' : ' '}
+              fullWidth
+              InputLabelProps={{ shrink: true }}
+            />
+          </Stack>
           <TextField
             label='Note to engineer'
             multiline
@@ -785,7 +822,7 @@ function AssignDialog ({ open, onClose, workOrder, engineers, note, onNoteChange
       </DialogContent>
       <DialogActions>
         <Button variant='text' color='inherit' onClick={onClose} startIcon={<CloseRoundedIcon fontSize='small' />}>Cancel</Button>
-        <Button variant='contained' onClick={handleAssign} startIcon={<AssignmentIndRoundedIcon fontSize='small' />} disabled={!selectedFe}>
+        <Button variant='contained' onClick={handleAssign} startIcon={<AssignmentIndRoundedIcon fontSize='small' />} disabled={!selectedFe || invalidWindow}>
           Assign
         </Button>
       </DialogActions>
@@ -849,6 +886,7 @@ function TimelineDialog ({ open, onClose, workOrder }) {
   const { data, isFetching, error, refetch } = useWoTimelineQuery(woId, { skip })
   const [downloadProgressAttachment, { isFetching: isDownloadingAttachment }] = useLazyGetWoProgressAttachmentQuery()
   const [downloadCompletionReport, { isFetching: isDownloadingReport }] = useLazyGetWoCompletionReportQuery()
+  const [retryCompletion, { isLoading: isRetryingCompletion }] = useWoRetryCompletionMutation()
 
   const timelineWo = data?.workOrder || workOrder || {}
   const sr = timelineWo?.serviceRequest || workOrder?.serviceRequest || {}
@@ -896,6 +934,21 @@ function TimelineDialog ({ open, onClose, workOrder }) {
   const summaryLastStatus = progressSummary?.lastStatus ? statusLabel(progressSummary.lastStatus) : (progress.length ? statusLabel(progress[progress.length - 1]?.status) : 'Update')
   const canDownloadReport = String(timelineWo?.status || workOrder?.status || '').toUpperCase() === 'COMPLETED'
 
+  const completionStage = timelineWo?.completionStage
+  const completionError = timelineWo?.completionError
+  const completionFailed = Boolean(completionError) && completionStage !== 'DONE'
+
+  async function handleRetryCompletion () {
+    if (!woId) return
+    try {
+      await retryCompletion(woId).unwrap()
+      toast.success('Retry queued')
+      refetch()
+    } catch (err) {
+      toast.error(String(err?.data?.message || err?.error || 'Unable to retry'))
+    }
+  }
+
   async function handleDownloadAttachment (progressId, attachment) {
     if (!woId || !progressId || !attachment?.id) return
     try {
@@ -932,6 +985,20 @@ function TimelineDialog ({ open, onClose, workOrder }) {
             <CardContent>
               <Typography variant='body2' color='text.secondary'>Assigned to {fe?.user?.displayName || fe?.name || '—'}</Typography>
               {sr?.srn && <Typography variant='body2' color='text.secondary' sx={{ mt: 0.5 }}>Service request {sr.srn}</Typography>}
+              {completionStage && (
+                <Stack direction='row' spacing={1} alignItems='center' sx={{ mt: 1 }}>
+                  <Chip
+                    size='small'
+                    label={completionStage === 'DONE' ? 'Invoice delivered' : `Invoice: ${statusLabel(completionStage)} ${completionFailed ? 'failed' : 'pending'}`}
+                    color={completionStage === 'DONE' ? 'success' : completionFailed ? 'error' : 'default'}
+                    variant={completionStage === 'DONE' || completionFailed ? 'filled' : 'outlined'}
+                  />
+                  {completionFailed && (
+                    <Button size='small' onClick={handleRetryCompletion} disabled={isRetryingCompletion}>Retry now</Button>
+                  )}
+                </Stack>
+              )}
+              {completionFailed && <Typography variant='caption' color='error' sx={{ display: 'block', mt: 0.5 }}>{completionError}</Typography>}
             </CardContent>
           </Card>
 
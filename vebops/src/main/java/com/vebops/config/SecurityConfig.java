@@ -1,6 +1,7 @@
 package com.vebops.config;
 
 import com.vebops.security.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -37,6 +38,8 @@ public class SecurityConfig {
             .cors(cors -> {})
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Async re-dispatches (e.g. a finished SSE stream) belong to a request that was already authorised
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/auth/**", "/actuator/**").permitAll()
                 .requestMatchers("/admin/office").hasAnyRole("ADMIN","BACK_OFFICE","SUPER_ADMIN")
                 .requestMatchers("/admin/**").hasRole("ADMIN")
@@ -57,7 +60,7 @@ public class SecurityConfig {
         cfg.setAllowedOrigins(List.of("http://localhost:5173"));
         cfg.setAllowedMethods(List.of("GET","POST","PUT","DELETE","OPTIONS","PATCH"));
         cfg.setAllowedHeaders(List.of("*"));
-        cfg.setExposedHeaders(List.of("Content-Disposition","Content-Type","Content-Length"));
+        cfg.setExposedHeaders(List.of("Content-Disposition","Content-Type","Content-Length","ETag","X-Capacity-Warning"));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", cfg);
         return source;
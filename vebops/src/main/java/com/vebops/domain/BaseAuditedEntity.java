@@ -0,0 +1,42 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Audit timestamps and Jackson configuration shared by every persisted
+ * entity; the id and how it is generated are declared by
+ * {@link BaseEntity} (database identity) and {@link BasePooledEntity}
+ * (pooled table generator).  When serializing JPA entities, Hibernate
+ * sometimes returns proxies (e.g. ByteBuddyInterceptor) for lazily loaded
+ * associations.  Without ignoring these special fields, Jackson will attempt
+ * to introspect them which results in an {@link org.springframework.http.converter.HttpMessageConversionException}
+ * complaining about {@code ByteBuddyInterceptor}.  By ignoring the
+ * {@code hibernateLazyInitializer} and {@code handler} properties we
+ * allow serialization to proceed even when associations are still
+ * proxies.  See https://stackoverflow.com/a/52754263 for details.
+ */
+@MappedSuperclass
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public abstract class BaseAuditedEntity {
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    public abstract Long getId();
+    public abstract void setId(Long id);
+
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
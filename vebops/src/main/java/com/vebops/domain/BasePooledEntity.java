@@ -0,0 +1,33 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * Base class for high-volume child rows (work order, invoice, proposal and
+ * purchase order lines, kits and kit items).  Ids come from the
+ * {@value #POOL_TABLE} table in blocks of {@value #ALLOCATION_SIZE}, so
+ * Hibernate knows them before inserting and can send a whole set of lines as
+ * one JDBC batch ({@code hibernate.jdbc.batch_size}) instead of one
+ * round-trip per row.  The pool is shared by all these tables; ids stay
+ * unique per table but are not contiguous.  {@link com.vebops.service.IdPoolSeeder}
+ * moves the pool past the ids the tables were given under
+ * {@code AUTO_INCREMENT}.
+ */
+@MappedSuperclass
+public abstract class BasePooledEntity extends BaseAuditedEntity {
+
+    public static final String POOL_TABLE = "id_pools";
+    public static final String POOL = "line_items";
+    public static final int ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pooled_ids")
+    @TableGenerator(name = "pooled_ids", table = POOL_TABLE, pkColumnName = "pool", valueColumnName = "next_val",
+        pkColumnValue = POOL, allocationSize = ALLOCATION_SIZE)
+    private Long id;
+
+    @Override
+    public Long getId() { return id; }
+    @Override
+    public void setId(Long id) { this.id = id; }
+}
@@ -0,0 +1,19 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Filter;
+
+/**
+ * Tenant-scoped variant of {@link BasePooledEntity}; the counterpart of
+ * {@link BaseTenantEntity} for rows created in bulk.
+ */
+@MappedSuperclass
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+public abstract class BasePooledTenantEntity extends BasePooledEntity {
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    public Long getTenantId() { return tenantId; }
+    public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+}
@@ -0,0 +1,58 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import com.vebops.domain.enums.CapacitySlotKind;
+
+/**
+ * A block of days (both ends inclusive) in which an engineer, or every member
+ * of a team, is not free. Work order slots are written by assignment; leave
+ * and holds are entered by dispatchers.
+ */
+@Entity
+@Table(name = "capacity_slots",
+    indexes = {
+        @Index(name = "idx_capacity_tenant_end", columnList = "tenant_id,end_date"),
+        @Index(name = "idx_capacity_fe_end", columnList = "tenant_id,fe_id,end_date"),
+        @Index(name = "idx_capacity_wo", columnList = "tenant_id,wo_id")
+    }
+)
+public class CapacitySlot extends BaseTenantEntity {
+
+    @Column(name = "fe_id")
+    private Long feId;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CapacitySlotKind kind;
+
+    @Column(name = "wo_id")
+    private Long workOrderId;
+
+    @Column(length = 255)
+    private String note;
+
+    public Long getFeId() { return feId; }
+    public void setFeId(Long feId) { this.feId = feId; }
+    public Long getTeamId() { return teamId; }
+    public void setTeamId(Long teamId) { this.teamId = teamId; }
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    public CapacitySlotKind getKind() { return kind; }
+    public void setKind(CapacitySlotKind kind) { this.kind = kind; }
+    public Long getWorkOrderId() { return workOrderId; }
+    public void setWorkOrderId(Long workOrderId) { this.workOrderId = workOrderId; }
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+}
@@ -0,0 +1,51 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Workload counters for one field engineer, kept current by the work order
+ * service on assignment, progress and completion and reconciled nightly.
+ * Backs the back-office performance view so it never scans work orders.
+ */
+@Entity
+@Table(name = "fe_stats",
+    uniqueConstraints = @UniqueConstraint(name = "uk_fe_stats_fe", columnNames = {"tenant_id", "fe_id"}),
+    indexes = @Index(name = "idx_fe_stats_tenant", columnList = "tenant_id")
+)
+public class FeStats extends BaseTenantEntity {
+
+    @Column(name = "fe_id", nullable = false)
+    private Long feId;
+
+    @Column(nullable = false)
+    private long activeCount;
+
+    @Column(nullable = false)
+    private long overdueCount;
+
+    @Column(name = "completed_last_30", nullable = false)
+    private long completedLast30;
+
+    @Column(nullable = false)
+    private long completedCount;
+
+    private Double avgCompletionDays;
+
+    private Instant lastProgressAt;
+
+    public Long getFeId() { return feId; }
+    public void setFeId(Long feId) { this.feId = feId; }
+    public long getActiveCount() { return activeCount; }
+    public void setActiveCount(long activeCount) { this.activeCount = activeCount; }
+    public long getOverdueCount() { return overdueCount; }
+    public void setOverdueCount(long overdueCount) { this.overdueCount = overdueCount; }
+    public long getCompletedLast30() { return completedLast30; }
+    public void setCompletedLast30(long completedLast30) { this.completedLast30 = completedLast30; }
+    public long getCompletedCount() { return completedCount; }
+    public void setCompletedCount(long completedCount) { this.completedCount = completedCount; }
+    public Double getAvgCompletionDays() { return avgCompletionDays; }
+    public void setAvgCompletionDays(Double avgCompletionDays) { this.avgCompletionDays = avgCompletionDays; }
+    public Instant getLastProgressAt() { return lastProgressAt; }
+    public void setLastProgressAt(Instant lastProgressAt) { this.lastProgressAt = lastProgressAt; }
+}
@@ -49,6 +49,10 @@ public class Invoice extends BaseTenantEntity {
     @Column(length = 512)
     private String pdfUrl;
 
+    // SHA-256 of the invoice and line fields the stored PDF was rendered from
+    @Column(length = 64)
+    private String pdfHash;
+
     public String getInvoiceNo() { return invoiceNo; }
     public void setInvoiceNo(String invoiceNo) { this.invoiceNo = invoiceNo; }
     public WorkOrder getWorkOrder() { return workOrder; }
@@ -69,4 +73,6 @@ public class Invoice extends BaseTenantEntity {
     public void setTotal(BigDecimal total) { this.total = total; }
     public String getPdfUrl() { return pdfUrl; }
     public void setPdfUrl(String pdfUrl) { this.pdfUrl = pdfUrl; }
+    public String getPdfHash() { return pdfHash; }
+    public void setPdfHash(String pdfHash) { this.pdfHash = pdfHash; }
 }
@@ -10,7 +10,7 @@ import java.math.BigDecimal;
         @Index(name = "idx_invoice_line_invoice", columnList = "invoice_id")
     }
 )
-public class InvoiceLine extends BaseTenantEntity {
+public class InvoiceLine extends BasePooledTenantEntity {
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "invoice_id", nullable = false)
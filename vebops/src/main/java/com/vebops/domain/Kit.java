@@ -6,7 +6,7 @@ import com.vebops.domain.enums.ServiceTypeCode;
 
 @Entity
 @Table(name = "kits", indexes = @Index(name = "idx_kit_tenant", columnList = "tenant_id"))
-public class Kit extends BaseTenantEntity {
+public class Kit extends BasePooledTenantEntity {
 
     /**
      * Unique code identifying the kit. Historically VebOps did not expose a
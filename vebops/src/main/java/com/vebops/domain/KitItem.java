@@ -7,7 +7,7 @@ import java.math.BigDecimal;
 @Table(name = "kit_items",
     uniqueConstraints = @UniqueConstraint(name = "uk_kit_item", columnNames = {"tenant_id","kit_id","item_id"}),
     indexes = @Index(name = "idx_kit_item_tenant", columnList = "tenant_id"))
-public class KitItem extends BaseTenantEntity {
+public class KitItem extends BasePooledTenantEntity {
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "kit_id", nullable = false)
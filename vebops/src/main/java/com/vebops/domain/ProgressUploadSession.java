@@ -0,0 +1,65 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+import com.vebops.domain.enums.UploadSessionStatus;
+
+/**
+ * A resumable, chunked upload of a field engineer progress photo. Chunks are
+ * stored as separate objects in storage and {@code receivedBytes} records the
+ * last acknowledged offset, so a client that lost its connection can ask for
+ * the session and continue from there. On completion the chunks become a
+ * {@link WorkOrderProgressAttachment} of a new progress entry.
+ */
+@Entity
+@Table(name = "progress_upload_sessions",
+    indexes = {
+        @Index(name = "idx_upload_session_tenant", columnList = "tenant_id"),
+        @Index(name = "idx_upload_session_expiry", columnList = "expires_at")
+    }
+)
+public class ProgressUploadSession extends BaseTenantEntity {
+
+    @Column(name = "work_order_id", nullable = false)
+    private Long workOrderId;
+
+    @Column(name = "fe_id", nullable = false)
+    private Long feId;
+
+    @Column(nullable = false, length = 160)
+    private String filename;
+
+    @Column(nullable = false, length = 120)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private Long receivedBytes = 0L;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private UploadSessionStatus status = UploadSessionStatus.OPEN;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public Long getWorkOrderId() { return workOrderId; }
+    public void setWorkOrderId(Long workOrderId) { this.workOrderId = workOrderId; }
+    public Long getFeId() { return feId; }
+    public void setFeId(Long feId) { this.feId = feId; }
+    public String getFilename() { return filename; }
+    public void setFilename(String filename) { this.filename = filename; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+    public Long getReceivedBytes() { return receivedBytes; }
+    public void setReceivedBytes(Long receivedBytes) { this.receivedBytes = receivedBytes; }
+    public UploadSessionStatus getStatus() { return status; }
+    public void setStatus(UploadSessionStatus status) { this.status = status; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -9,7 +9,8 @@ import com.vebops.domain.enums.*;
 @Table(name = "proposals",
     indexes = {
         @Index(name = "idx_proposal_tenant", columnList = "tenant_id"),
-        @Index(name = "idx_proposal_customer", columnList = "customer_id")
+        @Index(name = "idx_proposal_customer", columnList = "customer_id"),
+        @Index(name = "idx_proposal_tenant_created", columnList = "tenant_id,created_at")
     }
 )
 public class Proposal extends BaseTenantEntity {
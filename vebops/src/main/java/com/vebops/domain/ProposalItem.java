@@ -6,7 +6,7 @@ import java.math.BigDecimal;
 @Entity
 @Table(name = "proposal_items",
     indexes = @Index(name = "idx_proposal_item_tenant", columnList = "tenant_id"))
-public class ProposalItem extends BaseTenantEntity {
+public class ProposalItem extends BasePooledTenantEntity {
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "proposal_id", nullable = false)
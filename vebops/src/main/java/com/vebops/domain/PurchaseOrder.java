@@ -14,7 +14,8 @@ import java.time.LocalDate;
 @Table(name = "purchase_orders",
     indexes = {
         @Index(name = "idx_po_tenant", columnList = "tenant_id"),
-        @Index(name = "idx_po_service", columnList = "service_id")
+        @Index(name = "idx_po_service", columnList = "service_id"),
+        @Index(name = "idx_po_tenant_created", columnList = "tenant_id,created_at")
     }
 )
 public class PurchaseOrder extends BaseTenantEntity {
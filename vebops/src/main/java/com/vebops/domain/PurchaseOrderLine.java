@@ -14,7 +14,7 @@ import java.math.BigDecimal;
         @Index(name = "idx_po_line_po", columnList = "purchase_order_id")
     }
 )
-public class PurchaseOrderLine extends BaseTenantEntity {
+public class PurchaseOrderLine extends BasePooledTenantEntity {
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "purchase_order_id", nullable = false)
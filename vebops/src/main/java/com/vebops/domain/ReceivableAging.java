@@ -0,0 +1,67 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Unpaid invoice amounts of one customer, split by days since the invoice
+ * date. Recomputed for the customer whenever one of their invoices changes
+ * status and for everyone by the nightly aging run, so dashboards read
+ * receivables without touching invoices. Tenant figures are the sum of the
+ * tenant's rows.
+ */
+@Entity
+@Table(name = "receivable_aging",
+    uniqueConstraints = @UniqueConstraint(name = "uk_aging_customer", columnNames = {"tenant_id", "customer_id"}),
+    indexes = @Index(name = "idx_aging_tenant", columnList = "tenant_id")
+)
+public class ReceivableAging extends BaseTenantEntity {
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "days_0_30", nullable = false, precision = 18, scale = 2)
+    private BigDecimal days0To30 = BigDecimal.ZERO;
+
+    @Column(name = "days_31_60", nullable = false, precision = 18, scale = 2)
+    private BigDecimal days31To60 = BigDecimal.ZERO;
+
+    @Column(name = "days_61_90", nullable = false, precision = 18, scale = 2)
+    private BigDecimal days61To90 = BigDecimal.ZERO;
+
+    @Column(name = "days_90_plus", nullable = false, precision = 18, scale = 2)
+    private BigDecimal days90Plus = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private long invoiceCount;
+
+    @Column(nullable = false)
+    private long overdueCount;
+
+    @Column(precision = 18, scale = 2, nullable = false)
+    private BigDecimal overdueTotal = BigDecimal.ZERO;
+
+    // Day the buckets were computed for
+    @Column(nullable = false)
+    private LocalDate asOf;
+
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+    public BigDecimal getDays0To30() { return days0To30; }
+    public void setDays0To30(BigDecimal days0To30) { this.days0To30 = days0To30; }
+    public BigDecimal getDays31To60() { return days31To60; }
+    public void setDays31To60(BigDecimal days31To60) { this.days31To60 = days31To60; }
+    public BigDecimal getDays61To90() { return days61To90; }
+    public void setDays61To90(BigDecimal days61To90) { this.days61To90 = days61To90; }
+    public BigDecimal getDays90Plus() { return days90Plus; }
+    public void setDays90Plus(BigDecimal days90Plus) { this.days90Plus = days90Plus; }
+    public long getInvoiceCount() { return invoiceCount; }
+    public void setInvoiceCount(long invoiceCount) { this.invoiceCount = invoiceCount; }
+    public long getOverdueCount() { return overdueCount; }
+    public void setOverdueCount(long overdueCount) { this.overdueCount = overdueCount; }
+    public BigDecimal getOverdueTotal() { return overdueTotal; }
+    public void setOverdueTotal(BigDecimal overdueTotal) { this.overdueTotal = overdueTotal; }
+    public LocalDate getAsOf() { return asOf; }
+    public void setAsOf(LocalDate asOf) { this.asOf = asOf; }
+}
@@ -0,0 +1,36 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Paid invoice totals of one tenant for one calendar month, bucketed by the
+ * invoice's creation date. Adjusted by {@code RevenueRollupService} whenever an
+ * invoice moves into or out of PAID and rebuilt nightly, so revenue series and
+ * month-to-date figures never scan invoices.
+ */
+@Entity
+@Table(name = "revenue_monthly",
+    uniqueConstraints = @UniqueConstraint(name = "uk_revenue_tenant_month", columnNames = {"tenant_id", "month_start"}),
+    indexes = @Index(name = "idx_revenue_month", columnList = "month_start")
+)
+public class RevenueMonthly extends BaseTenantEntity {
+
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "paid_total", nullable = false, precision = 18, scale = 2)
+    private BigDecimal paidTotal = BigDecimal.ZERO;
+
+    @Column(name = "paid_count", nullable = false)
+    private long paidCount;
+
+    public LocalDate getMonthStart() { return monthStart; }
+    public void setMonthStart(LocalDate monthStart) { this.monthStart = monthStart; }
+    public BigDecimal getPaidTotal() { return paidTotal; }
+    public void setPaidTotal(BigDecimal paidTotal) { this.paidTotal = paidTotal; }
+    public long getPaidCount() { return paidCount; }
+    public void setPaidCount(long paidCount) { this.paidCount = paidCount; }
+}
@@ -1,22 +1,48 @@
 package com.vebops.domain;
 
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.Instant;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * A simple Service entity representing a customer‑facing service
  * (installation, supply, etc.). It captures the buyer and consignee
  * information along with free‑form JSON blobs for items, meta and
  * totals. This approach makes it easy to evolve the shape of the
  * service payload without needing to alter the database schema.
+ *
+ * <p>The link keys inside {@code metaJson} (work order, service request and
+ * proposal ids) are mirrored into indexed columns whenever the entity is
+ * saved, so reverse lookups such as "which service belongs to WO X" are a
+ * single indexed query instead of a scan over parsed JSON. The fields the
+ * service history grid shows (document numbers, type, status and grand
+ * total) are mirrored the same way so the list can be read without the
+ * JSON blobs.</p>
  */
 @Entity
 @Table(name = "services", indexes = {
         @Index(name = "idx_service_tenant", columnList = "tenant_id"),
-        @Index(name = "idx_service_created", columnList = "created_at")
+        @Index(name = "idx_service_created", columnList = "created_at"),
+        @Index(name = "idx_service_tenant_created", columnList = "tenant_id,created_at"),
+        @Index(name = "idx_service_wo", columnList = "tenant_id,work_order_id"),
+        @Index(name = "idx_service_sr", columnList = "tenant_id,service_request_id"),
+        @Index(name = "idx_service_proposal", columnList = "tenant_id,proposal_id")
 })
+@EntityListeners(Service.MetaKeysListener.class)
 public class Service extends BaseTenantEntity {
 
+    private static final ObjectMapper META_MAPPER = new ObjectMapper();
+
+    /**
+     * Bump whenever {@link #syncMetaKeys()} starts mirroring another field so
+     * the startup backfill revisits rows synced by an older version.
+     */
+    public static final int META_KEYS_VERSION = 2;
+
     // Buyer
     @Column(length = 128)
     private String buyerName;
@@ -69,6 +95,36 @@ public class Service extends BaseTenantEntity {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
+    // Link keys mirrored from metaJson; maintained by MetaKeysListener.
+    @Column(name = "work_order_id")
+    private Long workOrderId;
+    @Column(name = "service_request_id")
+    private Long serviceRequestId;
+    @Column(name = "proposal_id")
+    private Long proposalId;
+
+    // List summary mirrored from metaJson/totalsJson; maintained by MetaKeysListener.
+    @Column(name = "invoice_no", length = 64)
+    private String invoiceNo;
+    @Column(name = "proforma_no", length = 64)
+    private String proformaNo;
+    @Column(name = "service_type", length = 64)
+    private String serviceType;
+    @Column(name = "status", length = 32)
+    private String status;
+    @Column(name = "grand_total", precision = 18, scale = 2)
+    private BigDecimal grandTotal;
+
+    // Version of syncMetaKeys() that last wrote the mirrored columns; null for
+    // rows written before they existed.
+    @Column(name = "meta_keys_version")
+    private Integer metaKeysVersion;
+
+    // Version of the service_items mapping that last wrote this service's fact
+    // rows (see ServiceItemService); null until it has been mapped.
+    @Column(name = "item_facts_version")
+    private Integer itemFactsVersion;
+
     public String getBuyerName() { return buyerName; }
     public void setBuyerName(String buyerName) { this.buyerName = buyerName; }
     public String getBuyerGst() { return buyerGst; }
@@ -106,4 +162,110 @@ public class Service extends BaseTenantEntity {
 
     public String getBuyerEmail() { return buyerEmail; }
     public void setBuyerEmail(String buyerEmail) { this.buyerEmail = buyerEmail; }
-}
\ No newline at end of file
+
+    public Long getWorkOrderId() { return workOrderId; }
+    public Long getServiceRequestId() { return serviceRequestId; }
+    public Long getProposalId() { return proposalId; }
+    public String getInvoiceNo() { return invoiceNo; }
+    public String getProformaNo() { return proformaNo; }
+    public String getServiceType() { return serviceType; }
+    public String getStatus() { return status; }
+    public BigDecimal getGrandTotal() { return grandTotal; }
+    @JsonIgnore
+    public Integer getItemFactsVersion() { return itemFactsVersion; }
+    public void setItemFactsVersion(Integer itemFactsVersion) { this.itemFactsVersion = itemFactsVersion; }
+    @JsonIgnore
+    public boolean isMetaKeysSynced() { return metaKeysVersion != null && metaKeysVersion >= META_KEYS_VERSION; }
+
+    /**
+     * Copy the link keys and list summary out of {@code metaJson} and
+     * {@code totalsJson} into their columns. Accepts the same aliases the
+     * controllers and the service history page always have ({@code woId},
+     * {@code srId}, {@code invNo}, {@code grand}, ...) and numeric or string
+     * values.
+     */
+    public void syncMetaKeys() {
+        JsonNode meta = readJson(metaJson);
+        JsonNode totals = readJson(totalsJson);
+        this.workOrderId = metaLong(meta, "workOrderId", "woId");
+        this.serviceRequestId = metaLong(meta, "serviceRequestId", "srId");
+        this.proposalId = metaLong(meta, "proposalId", "proposalID");
+        this.invoiceNo = metaText(meta, 64, "invoiceNo", "invoiceNumber", "invoice", "invNo");
+        this.proformaNo = metaText(meta, 64, "pinvNo", "proformaNo", "proforma", "pinv");
+        this.serviceType = metaText(meta, 64, "serviceType", "service_type", "serviceTypeCode");
+        this.status = metaText(meta, 32, "status", "invoiceStatus", "pinvStatus");
+        this.grandTotal = metaDecimal(totals, "grandTotal", "grand", "total", "netTotal");
+        // Same contact fallbacks the controller applies when normalising a payload
+        String contact = metaText(meta, 64,
+            "buyerContact", "contact", "mobile", "phone", "buyerMobile", "customerMobile", "customerContact");
+        if ((buyerContact == null || buyerContact.isBlank()) && contact != null) this.buyerContact = contact;
+        String email = metaText(meta, 190, "buyerEmail", "email", "contactEmail", "customerEmail");
+        if ((buyerEmail == null || buyerEmail.isBlank()) && email != null) this.buyerEmail = email;
+        this.metaKeysVersion = META_KEYS_VERSION;
+    }
+
+    private static JsonNode readJson(String json) {
+        if (json == null || json.isBlank()) return null;
+        try {
+            return META_MAPPER.readTree(json);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private static String metaText(JsonNode meta, int max, String... keys) {
+        if (meta == null || !meta.isObject()) return null;
+        for (String key : keys) {
+            JsonNode v = meta.get(key);
+            if (v == null || v.isNull() || v.isContainerNode()) continue;
+            String text = v.asText().trim();
+            if (!text.isEmpty()) return text.length() > max ? text.substring(0, max) : text;
+        }
+        return null;
+    }
+
+    private static BigDecimal metaDecimal(JsonNode node, String... keys) {
+        if (node == null || !node.isObject()) return null;
+        for (String key : keys) {
+            JsonNode v = node.get(key);
+            if (v == null || v.isNull()) continue;
+            try {
+                if (v.isNumber()) return v.decimalValue().setScale(2, java.math.RoundingMode.HALF_UP);
+                if (v.isTextual() && !v.textValue().isBlank()) {
+                    return new BigDecimal(v.textValue().trim()).setScale(2, java.math.RoundingMode.HALF_UP);
+                }
+            } catch (NumberFormatException ignored) {
+                // fall through to the next alias
+            }
+        }
+        return null;
+    }
+
+    private static Long metaLong(JsonNode meta, String... keys) {
+        if (meta == null || !meta.isObject()) return null;
+        for (String key : keys) {
+            JsonNode v = meta.get(key);
+            if (v == null || v.isNull()) continue;
+            if (v.isIntegralNumber()) return v.longValue();
+            if (v.isNumber()) return v.asLong();
+            if (v.isTextual()) {
+                String trimmed = v.textValue().trim();
+                if (trimmed.isEmpty()) continue;
+                try {
+                    return Long.parseLong(trimmed);
+                } catch (NumberFormatException ignored) {
+                    // fall through to the next alias
+                }
+            }
+        }
+        return null;
+    }
+
+    public static class MetaKeysListener {
+        @PrePersist
+        @PreUpdate
+        public void beforeSave(Service service) {
+            service.syncMetaKeys();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One invoiced line of a {@link Service}, normalised out of
+ * {@code Service.itemsJson} so sales can be aggregated in the database.
+ * Rows are rewritten whenever the service's items are saved; the JSON stays
+ * the source of truth for rendering.
+ */
+@Entity
+@Table(name = "service_items",
+    indexes = {
+        @Index(name = "idx_service_item_service", columnList = "service_id"),
+        @Index(name = "idx_service_item_sold", columnList = "tenant_id,sold_on"),
+        @Index(name = "idx_service_item_key", columnList = "tenant_id,item_key,sold_on"),
+        @Index(name = "idx_service_item_kit", columnList = "tenant_id,kit_id,sold_on"),
+        @Index(name = "idx_service_item_hsn", columnList = "tenant_id,hsn_sac,sold_on"),
+        @Index(name = "idx_service_item_state", columnList = "tenant_id,buyer_state,sold_on"),
+        @Index(name = "idx_service_item_month", columnList = "tenant_id,sold_month")
+    }
+)
+public class ServiceItem extends BaseTenantEntity {
+
+    @Column(name = "service_id", nullable = false)
+    private Long serviceId;
+
+    @Column(nullable = false)
+    private Integer lineNo;
+
+    // Catalogue kit the line was picked from, when its code matches one
+    @Column(name = "kit_id")
+    private Long kitId;
+
+    // Code when present, otherwise the line name; the grouping key for "by item"
+    @Column(name = "item_key", nullable = false, length = 128)
+    private String itemKey;
+
+    @Column(length = 64)
+    private String code;
+
+    @Column(length = 255)
+    private String name;
+
+    @Column(name = "hsn_sac", length = 32)
+    private String hsnSac;
+
+    @Column(nullable = false, precision = 18, scale = 3)
+    private BigDecimal qty = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal rate = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 5, scale = 2)
+    private BigDecimal discountPct = BigDecimal.ZERO;
+
+    // Line total after discount, before tax
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    @Column(name = "buyer_state", length = 64)
+    private String buyerState;
+
+    @Column(name = "sold_on", nullable = false)
+    private LocalDate soldOn;
+
+    // yyyymm of soldOn, so monthly roll-ups group on a plain indexed column
+    @Column(name = "sold_month", nullable = false)
+    private Integer soldMonth;
+
+    public Long getServiceId() { return serviceId; }
+    public void setServiceId(Long serviceId) { this.serviceId = serviceId; }
+    public Integer getLineNo() { return lineNo; }
+    public void setLineNo(Integer lineNo) { this.lineNo = lineNo; }
+    public Long getKitId() { return kitId; }
+    public void setKitId(Long kitId) { this.kitId = kitId; }
+    public String getItemKey() { return itemKey; }
+    public void setItemKey(String itemKey) { this.itemKey = itemKey; }
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getHsnSac() { return hsnSac; }
+    public void setHsnSac(String hsnSac) { this.hsnSac = hsnSac; }
+    public BigDecimal getQty() { return qty; }
+    public void setQty(BigDecimal qty) { this.qty = qty; }
+    public BigDecimal getRate() { return rate; }
+    public void setRate(BigDecimal rate) { this.rate = rate; }
+    public BigDecimal getDiscountPct() { return discountPct; }
+    public void setDiscountPct(BigDecimal discountPct) { this.discountPct = discountPct; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public String getBuyerState() { return buyerState; }
+    public void setBuyerState(String buyerState) { this.buyerState = buyerState; }
+    public LocalDate getSoldOn() { return soldOn; }
+    public void setSoldOn(LocalDate soldOn) { this.soldOn = soldOn; }
+    public Integer getSoldMonth() { return soldMonth; }
+    public void setSoldMonth(Integer soldMonth) { this.soldMonth = soldMonth; }
+}
@@ -9,7 +9,8 @@ import com.vebops.domain.enums.*;
     uniqueConstraints = @UniqueConstraint(name = "uk_srn", columnNames = {"tenant_id","srn"}),
     indexes = {
         @Index(name = "idx_sr_tenant", columnList = "tenant_id"),
-        @Index(name = "idx_sr_customer", columnList = "customer_id")
+        @Index(name = "idx_sr_customer", columnList = "customer_id"),
+        @Index(name = "idx_sr_tenant_created", columnList = "tenant_id,created_at")
     }
 )
 @EntityListeners(ServiceRequest.EntityListener.class)
@@ -0,0 +1,40 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * A single physical copy of file content, addressed by its SHA-256 digest.
+ * Blobs are shared across every logical path (see {@link StoredObject}) that
+ * holds identical bytes; {@code refCount} tracks how many logical paths
+ * currently point at the blob so the physical file can be dropped once the
+ * last reference is released.
+ */
+@Entity
+@Table(name = "stored_blobs",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_blob_sha256", columnNames = "sha256")
+    }
+)
+public class StoredBlob extends BaseEntity {
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount = 0L;
+
+    @Version
+    private Long version;
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+    public Long getRefCount() { return refCount; }
+    public void setRefCount(Long refCount) { this.refCount = refCount; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
@@ -0,0 +1,38 @@
+package com.vebops.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * Maps a logical storage path such as
+ * {@code t=<tenantId>/service=<serviceId>/doc=<docId>/<filename>} onto the
+ * content-addressed {@link StoredBlob} holding its bytes. Several logical
+ * paths may share one blob when the same content is written more than once.
+ */
+@Entity
+@Table(name = "stored_objects",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stored_object_key", columnNames = "storage_key")
+    },
+    indexes = {
+        @Index(name = "idx_stored_object_tenant", columnList = "tenant_id"),
+        @Index(name = "idx_stored_object_sha", columnList = "sha256")
+    }
+)
+public class StoredObject extends BaseTenantEntity {
+
+    @Column(name = "storage_key", nullable = false, length = 512)
+    private String storageKey;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private Long size;
+
+    public String getStorageKey() { return storageKey; }
+    public void setStorageKey(String storageKey) { this.storageKey = storageKey; }
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+}
@@ -1,6 +1,7 @@
 package com.vebops.domain;
 
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 import com.vebops.domain.enums.*;
 
@@ -12,7 +13,10 @@ import com.vebops.domain.enums.*;
     
     indexes = {
         @Index(name = "idx_wo_tenant", columnList = "tenant_id"),
-        @Index(name = "idx_wo_sr", columnList = "sr_id")
+        @Index(name = "idx_wo_sr", columnList = "sr_id"),
+        @Index(name = "idx_wo_tenant_created", columnList = "tenant_id,created_at"),
+        @Index(name = "idx_wo_tenant_fe", columnList = "tenant_id,assigned_fe_id"),
+        @Index(name = "idx_wo_completion_due", columnList = "completion_stage,completion_next_at")
     }
 )
 @EntityListeners(WorkOrder.EntityListener.class)
@@ -44,6 +48,31 @@ public class WorkOrder extends BaseTenantEntity {
     @JoinColumn(name = "assigned_team_id")
     private Team assignedTeam;
 
+    // Head of the progress timeline, kept here by WorkOrderService.addProgress so
+    // dashboards and the dispatch board don't look it up per work order.
+    @Column(name = "last_progress_at")
+    private Instant lastProgressAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_progress_status", length = 32)
+    private WOProgressStatus lastProgressStatus;
+
+    // Invoice/PDF/delivery stages still to run after completion, driven by
+    // WorkOrderCompletionPipeline. completionNextAt is null once the stage is
+    // DONE or has used up its attempts (see completionError).
+    @Enumerated(EnumType.STRING)
+    @Column(name = "completion_stage", length = 16)
+    private CompletionStage completionStage;
+
+    @Column(name = "completion_attempts", nullable = false)
+    private int completionAttempts;
+
+    @Column(name = "completion_next_at")
+    private Instant completionNextAt;
+
+    @Column(name = "completion_error", length = 500)
+    private String completionError;
+
     // --- Guard: require SR and approved proposal ---
     public static class EntityListener {
         @PrePersist
@@ -84,4 +113,27 @@ public class WorkOrder extends BaseTenantEntity {
     public void setAssignedFE(FieldEngineer assignedFE) { this.assignedFE = assignedFE; }
     public Team getAssignedTeam() { return assignedTeam; }
     public void setAssignedTeam(Team assignedTeam) { this.assignedTeam = assignedTeam; }
+    public Instant getLastProgressAt() { return lastProgressAt; }
+    public WOProgressStatus getLastProgressStatus() { return lastProgressStatus; }
+
+    public CompletionStage getCompletionStage() { return completionStage; }
+    public void setCompletionStage(CompletionStage completionStage) { this.completionStage = completionStage; }
+
+    public int getCompletionAttempts() { return completionAttempts; }
+    public void setCompletionAttempts(int completionAttempts) { this.completionAttempts = completionAttempts; }
+
+    public Instant getCompletionNextAt() { return completionNextAt; }
+    public void setCompletionNextAt(Instant completionNextAt) { this.completionNextAt = completionNextAt; }
+
+    public String getCompletionError() { return completionError; }
+    public void setCompletionError(String completionError) { this.completionError = completionError; }
+
+    /** Move the latest-progress fields forward; entries older than the current head are ignored. */
+    public void recordProgress(Instant at, WOProgressStatus status) {
+        if (at == null) return;
+        if (lastProgressAt == null || !at.isBefore(lastProgressAt)) {
+            this.lastProgressAt = at;
+            this.lastProgressStatus = status;
+        }
+    }
 }
@@ -10,7 +10,7 @@ import java.math.BigDecimal;
         @Index(name = "idx_wo_item_wo", columnList = "wo_id")
     }
 )
-public class WorkOrderItem extends BaseTenantEntity {
+public class WorkOrderItem extends BasePooledTenantEntity {
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "wo_id", nullable = false)
@@ -42,6 +42,14 @@ public class WorkOrderProgressAttachment extends BaseTenantEntity {
     @JsonIgnore
     private byte[] data;
 
+    /**
+     * Logical key in file storage for photos received through the chunked
+     * upload API. Such attachments have no inline {@link #data}.
+     */
+    @Column(name = "storage_key", length = 512)
+    @JsonIgnore
+    private String storageKey;
+
     @Column(nullable = false)
     private Instant uploadedAt = Instant.now();
 
@@ -85,6 +93,14 @@ public class WorkOrderProgressAttachment extends BaseTenantEntity {
         this.data = data;
     }
 
+    public String getStorageKey() {
+        return storageKey;
+    }
+
+    public void setStorageKey(String storageKey) {
+        this.storageKey = storageKey;
+    }
+
     public Instant getUploadedAt() {
         return uploadedAt;
     }
@@ -0,0 +1,7 @@
+package com.vebops.domain.enums;
+
+public enum CapacitySlotKind {
+    WORK_ORDER, // booked by an assignment
+    LEAVE,
+    HOLD        // reserved by a dispatcher
+}
@@ -0,0 +1,13 @@
+package com.vebops.domain.enums;
+
+/**
+ * Post-completion work still pending on a COMPLETED work order, run in this
+ * order by {@code WorkOrderCompletionPipeline}. Each stage commits on its own,
+ * so a failed delivery never re-generates the invoice.
+ */
+public enum CompletionStage {
+    INVOICE,  // generate the invoice from issued items
+    PDF,      // render and store the invoice PDF
+    DELIVERY, // email the stored PDF to the customer
+    DONE
+}
@@ -0,0 +1,4 @@
+package com.vebops.domain.enums;
+public enum UploadSessionStatus {
+    OPEN, COMPLETED
+}
@@ -1,8 +1,13 @@
 package com.vebops.dto;
 
+import java.time.LocalDate;
+
 import jakarta.validation.constraints.*;
 
 public class AssignFERequest {
     @NotNull public Long feId;
     public String note;
+    // Optional booking window; kept from the work order when omitted
+    public LocalDate startDate;
+    public LocalDate dueDate;
 }
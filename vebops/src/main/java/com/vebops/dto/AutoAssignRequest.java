@@ -0,0 +1,8 @@
+package com.vebops.dto;
+
+import java.util.List;
+
+/** Work orders to auto-assign; empty or missing means the unassigned backlog. */
+public class AutoAssignRequest {
+    public List<Long> woIds;
+}
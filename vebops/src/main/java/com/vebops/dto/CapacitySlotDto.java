@@ -0,0 +1,22 @@
+package com.vebops.dto;
+
+import java.time.LocalDate;
+
+import com.vebops.domain.CapacitySlot;
+import com.vebops.domain.enums.CapacitySlotKind;
+
+public record CapacitySlotDto(
+        Long id,
+        Long feId,
+        Long teamId,
+        LocalDate startDate,
+        LocalDate endDate,
+        CapacitySlotKind kind,
+        Long workOrderId,
+        String note
+) {
+    public static CapacitySlotDto from(CapacitySlot s) {
+        return new CapacitySlotDto(s.getId(), s.getFeId(), s.getTeamId(), s.getStartDate(), s.getEndDate(),
+                s.getKind(), s.getWorkOrderId(), s.getNote());
+    }
+}
@@ -0,0 +1,17 @@
+package com.vebops.dto;
+
+import java.time.LocalDate;
+
+import com.vebops.domain.enums.CapacitySlotKind;
+
+import jakarta.validation.constraints.*;
+
+/** Leave or hold for an engineer or a whole team; exactly one of feId/teamId. */
+public class CapacitySlotRequest {
+    public Long feId;
+    public Long teamId;
+    @NotNull public LocalDate startDate;
+    @NotNull public LocalDate endDate;
+    public CapacitySlotKind kind;
+    @Size(max = 255) public String note;
+}
@@ -0,0 +1,10 @@
+package com.vebops.dto;
+
+import java.util.List;
+
+/**
+ * One page of a list read in cursor mode. There is no total count: pass
+ * {@code nextCursor} back as {@code cursor} to read the following page while
+ * {@code hasMore} is true.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasMore, int size) {}
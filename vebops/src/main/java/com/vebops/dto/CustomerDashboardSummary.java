@@ -16,5 +16,6 @@ public record CustomerDashboardSummary(
         long completedWorkOrders,
         long pendingInvoices,
         BigDecimal outstandingAmount,
-        Instant lastProgressAt
+        Instant lastProgressAt,
+        ReceivableAgingDto receivablesAging
 ) {}
@@ -30,4 +30,5 @@ public class DashboardSummary {
 
     public BigDecimal totalRevenue;
     public BigDecimal outstandingReceivables;
+    public ReceivableAgingDto receivablesAging;
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.vebops.dto;
+
+/**
+ * Row-level change pushed to open dispatch boards. {@code UPSERT} carries the
+ * work order's current row; {@code REMOVE} means it is no longer active and
+ * should drop off the board.
+ */
+public record DispatchBoardDelta(Type type, Long workOrderId, String change, DispatchBoardRow row) {
+
+    public enum Type { UPSERT, REMOVE }
+}
@@ -0,0 +1,21 @@
+package com.vebops.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Unpaid invoice amounts split by days since the invoice date, plus the part
+ * already marked OVERDUE. Served from the {@code receivable_aging} rollup.
+ */
+public record ReceivableAgingDto(
+        BigDecimal days0To30,
+        BigDecimal days31To60,
+        BigDecimal days61To90,
+        BigDecimal days90Plus,
+        BigDecimal total,
+        long invoiceCount,
+        long overdueCount,
+        BigDecimal overdueTotal
+) {
+    public static final ReceivableAgingDto EMPTY = new ReceivableAgingDto(
+        BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0L, 0L, BigDecimal.ZERO);
+}
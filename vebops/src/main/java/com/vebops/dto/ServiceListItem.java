@@ -0,0 +1,25 @@
+package com.vebops.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Row of the service history grid. Carries only the columns the grid shows;
+ * the items, meta and totals JSON are loaded by {@code GET /office/services/{id}}.
+ * Document numbers, type, status and grand total come from the summary columns
+ * mirrored out of the JSON on save.
+ */
+public record ServiceListItem(
+        Long id,
+        String buyerName,
+        String buyerGst,
+        String buyerContact,
+        String buyerEmail,
+        String consigneeName,
+        String invoiceNo,
+        String proformaNo,
+        String serviceType,
+        String status,
+        BigDecimal grandTotal,
+        Instant createdAt
+) {}
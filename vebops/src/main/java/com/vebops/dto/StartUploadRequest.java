@@ -0,0 +1,13 @@
+package com.vebops.dto;
+
+import jakarta.validation.constraints.*;
+
+/**
+ * Opens a resumable progress photo upload. The declared size is fixed for the
+ * lifetime of the session; chunks are then sent with PUT at increasing offsets.
+ */
+public class StartUploadRequest {
+    @Size(max = 160) public String filename;
+    @Size(max = 120) public String contentType;
+    @NotNull @Positive public Long size;
+}
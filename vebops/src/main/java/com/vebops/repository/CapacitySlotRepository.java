@@ -0,0 +1,36 @@
+package com.vebops.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vebops.domain.CapacitySlot;
+
+@Repository
+public interface CapacitySlotRepository extends JpaRepository<CapacitySlot, Long> {
+
+    List<CapacitySlot> findByTenantIdAndEndDateGreaterThanEqual(Long tenantId, LocalDate endDate);
+
+    List<CapacitySlot> findByTenantIdAndWorkOrderId(Long tenantId, Long workOrderId);
+
+    Optional<CapacitySlot> findByTenantIdAndId(Long tenantId, Long id);
+
+    /** Slots of the engineer, or of a team they are in, overlapping {@code [from, to]}, other than the work order's own. */
+    @Query("""
+        select s from CapacitySlot s
+        where s.tenantId = :tenantId and s.endDate >= :from and s.startDate <= :to
+          and (s.workOrderId is null or s.workOrderId <> :workOrderId)
+          and (s.feId = :feId or s.teamId in (
+                select m.team.id from TeamMember m where m.tenantId = :tenantId and m.fieldEngineer.id = :feId))
+    """)
+    List<CapacitySlot> findOverlapping(@Param("tenantId") Long tenantId,
+                                       @Param("feId") Long feId,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to,
+                                       @Param("workOrderId") Long workOrderId);
+}
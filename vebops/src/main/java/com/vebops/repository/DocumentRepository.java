@@ -1,6 +1,8 @@
 package com.vebops.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.*;
 import com.vebops.domain.enums.*;
@@ -15,4 +17,14 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     );
     // Convenience overloads
     List<Document> findByTenantIdAndEntityId(Long tenantId, Long entityId);
+
+    /**
+     * Keyset page of documents still holding an inline base64 PDF. Only ids are
+     * selected so a batch does not pull the LOB column for every row.
+     */
+    @Query("select d.id from Document d where d.id > :afterId and d.url like 'data:application/pdf;base64,%' order by d.id")
+    List<Long> findDataUrlIdsAfter(@Param("afterId") Long afterId, Pageable page);
+
+    @Query("select d.id from Document d where d.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
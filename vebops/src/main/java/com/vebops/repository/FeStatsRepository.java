@@ -0,0 +1,72 @@
+package com.vebops.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vebops.domain.FeStats;
+import com.vebops.domain.enums.FEStatus;
+
+@Repository
+public interface FeStatsRepository extends JpaRepository<FeStats, Long> {
+
+    Optional<FeStats> findByTenantIdAndFeId(Long tenantId, Long feId);
+
+    List<FeStats> findByTenantId(Long tenantId);
+
+    // Insert or overwrite in one statement, so two refreshes of a new engineer never collide on uk_fe_stats_fe
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        insert into fe_stats (tenant_id, fe_id, active_count, overdue_count, completed_last_30, completed_count,
+                              avg_completion_days, last_progress_at, created_at, updated_at)
+        values (:tenantId, :feId, :active, :overdue, :completedLast30, :completed, :avgDays, :lastProgressAt, :now, :now)
+        on duplicate key update active_count = :active, overdue_count = :overdue, completed_last_30 = :completedLast30,
+                                completed_count = :completed, avg_completion_days = :avgDays,
+                                last_progress_at = :lastProgressAt, updated_at = :now
+    """)
+    int upsert(@Param("tenantId") Long tenantId,
+               @Param("feId") Long feId,
+               @Param("active") long active,
+               @Param("overdue") long overdue,
+               @Param("completedLast30") long completedLast30,
+               @Param("completed") long completed,
+               @Param("avgDays") Double avgDays,
+               @Param("lastProgressAt") Instant lastProgressAt,
+               @Param("now") Instant now);
+
+    // Progress without a status change only moves the engineer's latest activity forward
+    @Modifying
+    @Query("""
+        update FeStats s set s.lastProgressAt = :at
+        where s.tenantId = :tenantId and s.feId = :feId and (s.lastProgressAt is null or s.lastProgressAt < :at)
+    """)
+    int touchLastProgress(@Param("tenantId") Long tenantId, @Param("feId") Long feId, @Param("at") Instant at);
+
+    /** One row per engineer of the tenant with its stats, if any have been computed yet. */
+    interface PerformanceRow {
+        Long getFeId();
+        String getName();
+        String getEmail();
+        FEStatus getStatus();
+        Long getActiveCount();
+        Long getOverdueCount();
+        Long getCompletedLast30();
+        Double getAvgCompletionDays();
+        Instant getLastProgressAt();
+    }
+
+    @Query("""
+        select f.id as feId, u.displayName as name, u.email as email, f.status as status,
+               s.activeCount as activeCount, s.overdueCount as overdueCount, s.completedLast30 as completedLast30,
+               s.avgCompletionDays as avgCompletionDays, s.lastProgressAt as lastProgressAt
+        from FieldEngineer f
+        left join f.user u
+        left join FeStats s on s.tenantId = f.tenantId and s.feId = f.id
+        where f.tenantId = :tenantId
+    """)
+    List<PerformanceRow> findPerformanceRows(@Param("tenantId") Long tenantId);
+}
@@ -7,11 +7,18 @@ import org.springframework.stereotype.Repository;
 import java.util.*;
 import com.vebops.domain.enums.*;
 import com.vebops.domain.FieldEngineer;
+import jakarta.persistence.LockModeType;
 
 @Repository
 public interface FieldEngineerRepository extends JpaRepository<FieldEngineer, Long> {
     List<FieldEngineer> findByTenantId(Long tenantId);
+
+    @Query("select f from FieldEngineer f left join fetch f.user where f.tenantId = :tenantId")
+    List<FieldEngineer> findWithUserByTenantId(@org.springframework.data.repository.query.Param("tenantId") Long tenantId);
     List<FieldEngineer> findByTenantIdAndStatus(Long tenantId, FEStatus status);
+
+    @Query("select distinct f.tenantId from FieldEngineer f")
+    List<Long> findDistinctTenantIds();
     @EntityGraph(attributePaths = "user") // join user to avoid lazy proxy at mapping time
     Page<FieldEngineer> findByTenantId(Long tenantId, Pageable pageable);
 
@@ -20,4 +27,10 @@ public interface FieldEngineerRepository extends JpaRepository<FieldEngineer, Lo
     boolean existsByTenantIdAndUserId(Long tenantId, Long userId);
     long countByUserId(Long userId);
     java.util.Optional<FieldEngineer> findFirstByTenantIdAndUser_Id(Long tenantId, Long userId);
+
+    // Serialises capacity bookings of one engineer
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f from FieldEngineer f where f.tenantId = :tenantId and f.id = :id")
+    Optional<FieldEngineer> lockByTenantIdAndId(@org.springframework.data.repository.query.Param("tenantId") Long tenantId,
+                                                @org.springframework.data.repository.query.Param("id") Long id);
 }
@@ -33,4 +33,63 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     // add this method
     Optional<Invoice> findByTenantIdAndWorkOrder_Id(Long tenantId, Long workOrderId);
 
+
+    /** One tenant's total and count of invoices in a status, as the revenue rollup stores them per month. */
+    interface TenantTotal {
+        Long getTenantId();
+        BigDecimal getTotal();
+        Long getCount();
+    }
+
+    @Query("select min(i.createdAt) from Invoice i where i.status = :status")
+    Instant findFirstCreatedAt(@Param("status") InvoiceStatus status);
+
+    @Query("""
+        select i.tenantId as tenantId, coalesce(sum(i.total), 0) as total, count(i) as count
+        from Invoice i
+        where i.status = :status and i.createdAt >= :from and i.createdAt < :to
+        group by i.tenantId
+    """)
+    List<TenantTotal> sumByTenantCreatedBetween(@Param("status") InvoiceStatus status,
+                                                @Param("from") Instant from,
+                                                @Param("to") Instant to);
+
+    /** An unpaid invoice as the receivable aging buckets see it. */
+    interface ReceivableRow {
+        Long getCustomerId();
+        java.time.LocalDate getInvoiceDate();
+        BigDecimal getTotal();
+        InvoiceStatus getStatus();
+    }
+
+    @Query("""
+        select i.customer.id as customerId, i.invoiceDate as invoiceDate, i.total as total, i.status as status
+        from Invoice i where i.tenantId = :tenantId and i.status in :statuses
+    """)
+    List<ReceivableRow> findReceivableRows(@Param("tenantId") Long tenantId,
+                                           @Param("statuses") Collection<InvoiceStatus> statuses);
+
+    @Query("""
+        select i.customer.id as customerId, i.invoiceDate as invoiceDate, i.total as total, i.status as status
+        from Invoice i where i.tenantId = :tenantId and i.customer.id = :customerId and i.status in :statuses
+    """)
+    List<ReceivableRow> findReceivableRows(@Param("tenantId") Long tenantId,
+                                           @Param("customerId") Long customerId,
+                                           @Param("statuses") Collection<InvoiceStatus> statuses);
+
+    @Query("select distinct i.tenantId from Invoice i where i.status in :statuses")
+    List<Long> findDistinctTenantIdsByStatusIn(@Param("statuses") Collection<InvoiceStatus> statuses);
+
+    // Aging run: invoices past their due date that are still plain SENT
+    @Query("select i.id from Invoice i where i.status = :status and i.invoiceDate < :dueBefore order by i.id")
+    List<Long> findIdsDueBefore(@Param("status") InvoiceStatus status,
+                                @Param("dueBefore") java.time.LocalDate dueBefore,
+                                org.springframework.data.domain.Limit limit);
+
+    @Modifying
+    @Query("update Invoice i set i.status = :to, i.updatedAt = :now where i.id in :ids and i.status = :from")
+    int moveStatus(@Param("ids") Collection<Long> ids,
+                   @Param("from") InvoiceStatus from,
+                   @Param("to") InvoiceStatus to,
+                   @Param("now") Instant now);
 }
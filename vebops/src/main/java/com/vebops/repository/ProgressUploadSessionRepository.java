@@ -0,0 +1,16 @@
+package com.vebops.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.vebops.domain.ProgressUploadSession;
+
+@Repository
+public interface ProgressUploadSessionRepository extends JpaRepository<ProgressUploadSession, Long> {
+    Optional<ProgressUploadSession> findByTenantIdAndId(Long tenantId, Long id);
+    List<ProgressUploadSession> findTop100ByExpiresAtBefore(Instant cutoff);
+}
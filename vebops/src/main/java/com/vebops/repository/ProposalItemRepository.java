@@ -1,11 +1,20 @@
 package com.vebops.repository;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.util.*;
 import com.vebops.domain.ProposalItem;
 
 @Repository
 public interface ProposalItemRepository extends JpaRepository<ProposalItem, Long> {
     List<ProposalItem> findByTenantIdAndProposal_Id(Long tenantId, Long proposalId);
+
+    // Material (item-backed) share of a proposal
+    @Query("""
+        select coalesce(sum(pi.amount), 0) from ProposalItem pi
+        where pi.tenantId = :tenantId and pi.proposal.id = :proposalId and pi.item is not null
+    """)
+    BigDecimal sumMaterialAmount(@Param("tenantId") Long tenantId, @Param("proposalId") Long proposalId);
 }
@@ -2,9 +2,14 @@ package com.vebops.repository;
 
 import java.util.*;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.vebops.domain.Proposal;
@@ -19,7 +24,14 @@ public interface ProposalRepository extends JpaRepository<Proposal, Long> {
     Page<Proposal> findByTenantId(Long tenantId, Pageable pageable);
     Page<Proposal> findByTenantIdAndStatus(Long tenantId, ProposalStatus status, Pageable pageable);
     Page<Proposal> findByTenantIdAndCustomer_Id(Long tenantId, Long customerId, Pageable pageable);
+    // Keyset (cursor mode) variants: seek instead of OFFSET, no COUNT
+    Window<Proposal> findByTenantId(Long tenantId, ScrollPosition position, Sort sort, Limit limit);
+    Window<Proposal> findByTenantIdAndStatus(Long tenantId, ProposalStatus status, ScrollPosition position, Sort sort, Limit limit);
+    Window<Proposal> findByTenantIdAndCustomer_Id(Long tenantId, Long customerId, ScrollPosition position, Sort sort, Limit limit);
     Optional<Proposal> findTopByTenantIdAndCustomer_IdOrderByCreatedAtDesc(Long tenantId, Long customerId);
     long countByStatus(ProposalStatus status);
     long countByTenantIdAndStatus(Long tenantId, ProposalStatus status);
+
+    @Query("select p.id from Proposal p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
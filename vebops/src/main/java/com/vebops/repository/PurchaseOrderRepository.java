@@ -3,8 +3,12 @@ package com.vebops.repository;
 import com.vebops.domain.PurchaseOrder;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +16,9 @@ import org.springframework.data.repository.query.Param;
 public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
     Page<PurchaseOrder> findByTenantId(Long tenantId, Pageable pageable);
     Page<PurchaseOrder> findByTenantIdAndService_Id(Long tenantId, Long serviceId, Pageable pageable);
+    // Keyset (cursor mode) variants: seek instead of OFFSET, no COUNT
+    Window<PurchaseOrder> findByTenantId(Long tenantId, ScrollPosition position, Sort sort, Limit limit);
+    Window<PurchaseOrder> findByTenantIdAndService_Id(Long tenantId, Long serviceId, ScrollPosition position, Sort sort, Limit limit);
     @Query("select po from PurchaseOrder po where po.tenantId = :tenantId and (" +
             "lower(po.supplierName) like lower(concat('%', :keyword, '%')) or " +
             "lower(po.voucherNumber) like lower(concat('%', :keyword, '%')) or " +
@@ -0,0 +1,81 @@
+package com.vebops.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vebops.domain.ReceivableAging;
+
+@Repository
+public interface ReceivableAgingRepository extends JpaRepository<ReceivableAging, Long> {
+
+    Optional<ReceivableAging> findByTenantIdAndCustomerId(Long tenantId, Long customerId);
+
+    List<ReceivableAging> findByTenantId(Long tenantId);
+
+    @Query("select distinct a.tenantId from ReceivableAging a")
+    List<Long> findDistinctTenantIds();
+
+    /** Bucket sums over a set of customer rows. */
+    interface Totals {
+        BigDecimal getDays0To30();
+        BigDecimal getDays31To60();
+        BigDecimal getDays61To90();
+        BigDecimal getDays90Plus();
+        Long getInvoiceCount();
+        Long getOverdueCount();
+        BigDecimal getOverdueTotal();
+    }
+
+    @Query("""
+        select sum(a.days0To30) as days0To30, sum(a.days31To60) as days31To60,
+               sum(a.days61To90) as days61To90, sum(a.days90Plus) as days90Plus,
+               sum(a.invoiceCount) as invoiceCount, sum(a.overdueCount) as overdueCount,
+               sum(a.overdueTotal) as overdueTotal
+        from ReceivableAging a where a.tenantId = :tenantId
+    """)
+    Totals sumForTenant(@Param("tenantId") Long tenantId);
+
+    @Query("""
+        select sum(a.days0To30) as days0To30, sum(a.days31To60) as days31To60,
+               sum(a.days61To90) as days61To90, sum(a.days90Plus) as days90Plus,
+               sum(a.invoiceCount) as invoiceCount, sum(a.overdueCount) as overdueCount,
+               sum(a.overdueTotal) as overdueTotal
+        from ReceivableAging a
+    """)
+    Totals sumAll();
+
+    // Insert or overwrite in one statement, so concurrent refreshes and nightly runs never collide on uk_aging_customer
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        insert into receivable_aging (tenant_id, customer_id, days_0_30, days_31_60, days_61_90, days_90_plus,
+                                      invoice_count, overdue_count, overdue_total, as_of, created_at, updated_at)
+        values (:tenantId, :customerId, :d30, :d60, :d90, :d90Plus, :invoiceCount, :overdueCount, :overdueTotal,
+                :asOf, :now, :now)
+        on duplicate key update days_0_30 = :d30, days_31_60 = :d60, days_61_90 = :d90, days_90_plus = :d90Plus,
+                                invoice_count = :invoiceCount, overdue_count = :overdueCount,
+                                overdue_total = :overdueTotal, as_of = :asOf, updated_at = :now
+    """)
+    int upsert(@Param("tenantId") Long tenantId,
+               @Param("customerId") Long customerId,
+               @Param("d30") BigDecimal d30,
+               @Param("d60") BigDecimal d60,
+               @Param("d90") BigDecimal d90,
+               @Param("d90Plus") BigDecimal d90Plus,
+               @Param("invoiceCount") long invoiceCount,
+               @Param("overdueCount") long overdueCount,
+               @Param("overdueTotal") BigDecimal overdueTotal,
+               @Param("asOf") LocalDate asOf,
+               @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from ReceivableAging a where a.tenantId = :tenantId and a.customerId in :customerIds")
+    int deleteCustomers(@Param("tenantId") Long tenantId, @Param("customerIds") Collection<Long> customerIds);
+}
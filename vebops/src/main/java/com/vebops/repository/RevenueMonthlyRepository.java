@@ -0,0 +1,51 @@
+package com.vebops.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vebops.domain.RevenueMonthly;
+
+@Repository
+public interface RevenueMonthlyRepository extends JpaRepository<RevenueMonthly, Long> {
+
+    // Atomic add, so concurrent payments in the same month never lose an update
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        insert into revenue_monthly (tenant_id, month_start, paid_total, paid_count, created_at, updated_at)
+        values (:tenantId, :monthStart, :amount, :count, :now, :now)
+        on duplicate key update paid_total = paid_total + :amount, paid_count = paid_count + :count, updated_at = :now
+    """)
+    int addPaid(@Param("tenantId") Long tenantId,
+                @Param("monthStart") LocalDate monthStart,
+                @Param("amount") BigDecimal amount,
+                @Param("count") long count,
+                @Param("now") Instant now);
+
+    /** Paid total of all tenants for one month. */
+    interface MonthTotal {
+        LocalDate getMonthStart();
+        BigDecimal getTotal();
+    }
+
+    @Query("""
+        select r.monthStart as monthStart, sum(r.paidTotal) as total
+        from RevenueMonthly r
+        where r.monthStart >= :from
+        group by r.monthStart
+        order by r.monthStart
+    """)
+    List<MonthTotal> sumByMonthFrom(@Param("from") LocalDate from);
+
+    @Query("select coalesce(sum(r.paidTotal), 0) from RevenueMonthly r where r.monthStart = :monthStart")
+    BigDecimal sumPaidTotal(@Param("monthStart") LocalDate monthStart);
+
+    @Modifying
+    @Query("delete from RevenueMonthly r")
+    int deleteAllRows();
+}
@@ -0,0 +1,96 @@
+package com.vebops.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vebops.domain.ServiceItem;
+
+@Repository
+public interface ServiceItemRepository extends JpaRepository<ServiceItem, Long> {
+
+    /** One aggregated row of a sales breakdown. */
+    interface SalesRow {
+        String getGroupKey();
+        String getLabel();
+        BigDecimal getQty();
+        BigDecimal getAmount();
+        Long getLines();
+    }
+
+    @Modifying
+    @Query("delete from ServiceItem i where i.serviceId = :serviceId")
+    int deleteByServiceId(@Param("serviceId") Long serviceId);
+
+    @Modifying
+    @Query("delete from ServiceItem i where i.serviceId in :serviceIds")
+    int deleteByServiceIdIn(@Param("serviceIds") List<Long> serviceIds);
+
+    /**
+     * Keyset page of services whose fact rows were written by an older mapping
+     * version, or never. Services without lines are included, so they are
+     * marked once and not picked again.
+     */
+    @Query("""
+        select s.id from Service s
+        where s.id > :afterId and (s.itemFactsVersion is null or s.itemFactsVersion < :version)
+        order by s.id
+    """)
+    List<Long> findServiceIdsWithStaleItemsAfter(@Param("afterId") Long afterId, @Param("version") int version, Pageable page);
+
+    @Modifying
+    @Query("update Service s set s.itemFactsVersion = :version where s.id = :serviceId")
+    int markItemFacts(@Param("serviceId") Long serviceId, @Param("version") int version);
+
+    @Query("""
+        select i.itemKey as groupKey, max(i.name) as label, sum(i.qty) as qty, sum(i.amount) as amount, count(i) as lines
+        from ServiceItem i
+        where i.tenantId = :tenantId and i.soldOn between :from and :to
+        group by i.itemKey
+        order by sum(i.amount) desc
+    """)
+    List<SalesRow> salesByItem(@Param("tenantId") Long tenantId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+        select cast(i.kitId as string) as groupKey, max(i.name) as label, sum(i.qty) as qty, sum(i.amount) as amount, count(i) as lines
+        from ServiceItem i
+        where i.tenantId = :tenantId and i.kitId is not null and i.soldOn between :from and :to
+        group by i.kitId
+        order by sum(i.amount) desc
+    """)
+    List<SalesRow> salesByKit(@Param("tenantId") Long tenantId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+        select i.hsnSac as groupKey, i.hsnSac as label, sum(i.qty) as qty, sum(i.amount) as amount, count(i) as lines
+        from ServiceItem i
+        where i.tenantId = :tenantId and i.soldOn between :from and :to
+        group by i.hsnSac
+        order by sum(i.amount) desc
+    """)
+    List<SalesRow> salesByHsn(@Param("tenantId") Long tenantId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+        select i.buyerState as groupKey, i.buyerState as label, sum(i.qty) as qty, sum(i.amount) as amount, count(i) as lines
+        from ServiceItem i
+        where i.tenantId = :tenantId and i.soldOn between :from and :to
+        group by i.buyerState
+        order by sum(i.amount) desc
+    """)
+    List<SalesRow> salesByState(@Param("tenantId") Long tenantId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+        select cast(i.soldMonth as string) as groupKey, cast(i.soldMonth as string) as label, sum(i.qty) as qty, sum(i.amount) as amount, count(i) as lines
+        from ServiceItem i
+        where i.tenantId = :tenantId and i.soldOn between :from and :to
+        group by i.soldMonth
+        order by i.soldMonth
+    """)
+    List<SalesRow> salesByMonth(@Param("tenantId") Long tenantId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -13,33 +13,98 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
                                                                 org.springframework.data.domain.Pageable pageable);
 
     /**
-     * Search for services belonging to a tenant using a keyword. The keyword is
-     * matched against the buyer name, buyer GSTIN, buyer contact, and
-     * consignee name fields. The search is case‑insensitive and uses a
-     * simple LIKE pattern. This method supports pagination and returns a
-     * page of results. When no matches are found an empty page is returned.
+     * Resolve the service linked to a service request and/or work order. These
+     * use the indexed link columns mirrored from the meta JSON, so no JSON is
+     * read to answer them.
      */
-    @org.springframework.data.jpa.repository.Query("""
-        SELECT s FROM Service s
-        WHERE s.tenantId = :tenantId AND (
-              LOWER(COALESCE(s.buyerName, '')) LIKE LOWER(CONCAT('%', :keyword, '%'))
-           OR LOWER(COALESCE(s.buyerGst, '')) LIKE LOWER(CONCAT('%', :keyword, '%'))
-           OR LOWER(COALESCE(s.buyerContact, '')) LIKE LOWER(CONCAT('%', :keyword, '%'))
-           OR LOWER(COALESCE(s.buyerEmail, ''))   LIKE LOWER(CONCAT('%', :keyword, '%'))
-           OR LOWER(COALESCE(s.consigneeName, '')) LIKE LOWER(CONCAT('%', :keyword, '%'))
-        )
-    """)
-    org.springframework.data.domain.Page<Service> searchByTenantIdAndKeyword(
+    java.util.Optional<Service> findFirstByTenantIdAndServiceRequestIdAndWorkOrderIdOrderByCreatedAtDesc(
+        Long tenantId, Long serviceRequestId, Long workOrderId);
+    java.util.Optional<Service> findFirstByTenantIdAndServiceRequestIdOrderByCreatedAtDesc(Long tenantId, Long serviceRequestId);
+    java.util.Optional<Service> findFirstByTenantIdAndWorkOrderIdOrderByCreatedAtDesc(Long tenantId, Long workOrderId);
+
+    /** Keyset page of services whose mirrored columns were written by an older sync version (or never). */
+    @org.springframework.data.jpa.repository.Query(
+        "SELECT s FROM Service s WHERE s.id > :afterId AND (s.metaKeysVersion IS NULL OR s.metaKeysVersion < :version) ORDER BY s.id")
+    java.util.List<Service> findUnsyncedMetaKeysAfter(
+        @org.springframework.data.repository.query.Param("afterId") Long afterId,
+        @org.springframework.data.repository.query.Param("version") int version,
+        org.springframework.data.domain.Pageable pageable);
+
+    /**
+     * Service history grid rows. Reads only the summary columns, never the
+     * items/meta/totals JSON.
+     */
+    @org.springframework.data.jpa.repository.Query(value = """
+        SELECT new com.vebops.dto.ServiceListItem(s.id, s.buyerName, s.buyerGst, s.buyerContact, s.buyerEmail,
+               s.consigneeName, s.invoiceNo, s.proformaNo, s.serviceType, s.status, s.grandTotal, s.createdAt)
+        FROM Service s WHERE s.tenantId = :tenantId
+    """, countQuery = "SELECT COUNT(s) FROM Service s WHERE s.tenantId = :tenantId")
+    org.springframework.data.domain.Page<com.vebops.dto.ServiceListItem> findListItemsByTenantId(
         @org.springframework.data.repository.query.Param("tenantId") Long tenantId,
-        @org.springframework.data.repository.query.Param("keyword") String keyword,
         org.springframework.data.domain.Pageable pageable);
 
     /**
-     * Fetch the most recent services for a tenant ordered by creation timestamp. This is
-     * primarily used when attempting to resolve contextual links (service request / work
-     * order) without issuing broad LIKE queries on the meta JSON column.
+     * Keyset (cursor mode) pages of grid rows ordered by (createdAt, id): rows
+     * strictly after the given key, limited by the pageable's size. The first
+     * page passes a key beyond every row.
      */
-    java.util.List<Service> findTop50ByTenantIdOrderByCreatedAtDesc(Long tenantId);
+    @org.springframework.data.jpa.repository.Query("""
+        SELECT new com.vebops.dto.ServiceListItem(s.id, s.buyerName, s.buyerGst, s.buyerContact, s.buyerEmail,
+               s.consigneeName, s.invoiceNo, s.proformaNo, s.serviceType, s.status, s.grandTotal, s.createdAt)
+        FROM Service s WHERE s.tenantId = :tenantId
+          AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id))
+        ORDER BY s.createdAt DESC, s.id DESC
+    """)
+    java.util.List<com.vebops.dto.ServiceListItem> findListItemsBefore(
+        @org.springframework.data.repository.query.Param("tenantId") Long tenantId,
+        @org.springframework.data.repository.query.Param("createdAt") java.time.Instant createdAt,
+        @org.springframework.data.repository.query.Param("id") Long id,
+        org.springframework.data.domain.Pageable pageable);
+
+    @org.springframework.data.jpa.repository.Query("""
+        SELECT new com.vebops.dto.ServiceListItem(s.id, s.buyerName, s.buyerGst, s.buyerContact, s.buyerEmail,
+               s.consigneeName, s.invoiceNo, s.proformaNo, s.serviceType, s.status, s.grandTotal, s.createdAt)
+        FROM Service s WHERE s.tenantId = :tenantId
+          AND (s.createdAt > :createdAt OR (s.createdAt = :createdAt AND s.id > :id))
+        ORDER BY s.createdAt ASC, s.id ASC
+    """)
+    java.util.List<com.vebops.dto.ServiceListItem> findListItemsAfter(
+        @org.springframework.data.repository.query.Param("tenantId") Long tenantId,
+        @org.springframework.data.repository.query.Param("createdAt") java.time.Instant createdAt,
+        @org.springframework.data.repository.query.Param("id") Long id,
+        org.springframework.data.domain.Pageable pageable);
+
+    @org.springframework.data.jpa.repository.Query("""
+        SELECT new com.vebops.dto.ServiceListItem(s.id, s.buyerName, s.buyerGst, s.buyerContact, s.buyerEmail,
+               s.consigneeName, s.invoiceNo, s.proformaNo, s.serviceType, s.status, s.grandTotal, s.createdAt)
+        FROM Service s WHERE s.tenantId = :tenantId AND s.id IN :ids
+    """)
+    java.util.List<com.vebops.dto.ServiceListItem> findListItemsByTenantIdAndIdIn(
+        @org.springframework.data.repository.query.Param("tenantId") Long tenantId,
+        @org.springframework.data.repository.query.Param("ids") java.util.Collection<Long> ids);
 
     java.util.Optional<Service> findByTenantIdAndId(Long tenantId, Long id);
+
+    /** Searchable buyer/consignee columns only; used to build the in-memory search index. */
+    interface SearchFields {
+        Long getId();
+        String getBuyerName();
+        String getBuyerGst();
+        String getBuyerContact();
+        String getBuyerEmail();
+        String getBuyerAddress();
+        String getBuyerPin();
+        String getBuyerState();
+        String getConsigneeName();
+        java.time.Instant getCreatedAt();
+    }
+
+    @org.springframework.data.jpa.repository.Query("""
+        SELECT s.id AS id, s.buyerName AS buyerName, s.buyerGst AS buyerGst, s.buyerContact AS buyerContact,
+               s.buyerEmail AS buyerEmail, s.buyerAddress AS buyerAddress, s.buyerPin AS buyerPin,
+               s.buyerState AS buyerState, s.consigneeName AS consigneeName, s.createdAt AS createdAt
+        FROM Service s WHERE s.tenantId = :tenantId
+    """)
+    java.util.List<SearchFields> findSearchFieldsByTenantId(
+        @org.springframework.data.repository.query.Param("tenantId") Long tenantId);
 }
\ No newline at end of file
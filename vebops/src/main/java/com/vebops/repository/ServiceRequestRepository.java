@@ -2,8 +2,12 @@ package com.vebops.repository;
 
 import java.util.*;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
@@ -51,6 +55,14 @@ public interface ServiceRequestRepository extends JpaRepository<ServiceRequest,
     List<ServiceRequest> findByTenantIdAndCustomer_Id(Long tenantId, Long customerId);
     Page<ServiceRequest> findByTenantIdAndCustomer_Id(Long tenantId, Long customerId, Pageable pageable);
 
+    /**
+     * Keyset ("cursor") variants of the listing queries above. They seek past
+     * the given position instead of using OFFSET and do not run a COUNT.
+     */
+    Window<ServiceRequest> findByTenantId(Long tenantId, ScrollPosition position, Sort sort, Limit limit);
+    Window<ServiceRequest> findByTenantIdAndStatus(Long tenantId, SRStatus status, ScrollPosition position, Sort sort, Limit limit);
+    Window<ServiceRequest> findByTenantIdAndCustomer_Id(Long tenantId, Long customerId, ScrollPosition position, Sort sort, Limit limit);
+
     /**
      * Returns the most recent service request created from the given proposal if
      * one exists.  The combination of tenantId and proposal id is unique because
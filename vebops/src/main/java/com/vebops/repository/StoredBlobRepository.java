@@ -0,0 +1,47 @@
+package com.vebops.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vebops.domain.StoredBlob;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<StoredBlob> findBySha256(String sha256);
+
+    // Blobs still referenced; a zero-count row is only waiting for its after-commit purge
+    @Query("select b.sha256 from StoredBlob b where b.sha256 in :shas and b.refCount > 0")
+    List<String> findExistingShas(@Param("shas") Collection<String> shas);
+
+    // Atomic increment that creates the row on first reference, so concurrent
+    // first uploads of the same content never race on uk_blob_sha256
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        insert into stored_blobs (sha256, size, ref_count, version, created_at, updated_at)
+        values (:sha, :size, 1, 0, :now, :now)
+        on duplicate key update ref_count = ref_count + 1, version = version + 1, updated_at = :now
+    """)
+    int addReference(@Param("sha") String sha, @Param("size") long size, @Param("now") Instant now);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        update stored_blobs set ref_count = ref_count - 1, version = version + 1, updated_at = :now
+        where sha256 = :sha and ref_count > 0
+    """)
+    int dropReference(@Param("sha") String sha, @Param("now") Instant now);
+
+    @Query("select b.refCount from StoredBlob b where b.sha256 = :sha")
+    Long findRefCount(@Param("sha") String sha);
+}
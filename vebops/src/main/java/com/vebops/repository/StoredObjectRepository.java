@@ -0,0 +1,25 @@
+package com.vebops.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vebops.domain.StoredObject;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, Long> {
+    Optional<StoredObject> findByStorageKey(String storageKey);
+    List<StoredObject> findByStorageKeyStartingWith(String prefix);
+
+    @Query("select o from StoredObject o where o.id > :afterId order by o.id")
+    List<StoredObject> findPageAfter(@Param("afterId") Long afterId, Pageable page);
+
+    @Query("select o.storageKey from StoredObject o where o.storageKey in :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+}
@@ -9,4 +9,13 @@ import com.vebops.domain.TeamMember;
 public interface TeamMemberRepository extends JpaRepository<TeamMember, Long> {
     List<TeamMember> findByTenantIdAndTeam_Id(Long tenantId, Long teamId);
         boolean existsByTenantIdAndTeam_IdAndFieldEngineer_Id(Long tenantId, Long teamId, Long feId);
+
+    /** Team id / engineer id pairs for a tenant, without loading either entity. */
+    interface Membership {
+        Long getTeamId();
+        Long getFeId();
+    }
+
+    @Query("select m.team.id as teamId, m.fieldEngineer.id as feId from TeamMember m where m.tenantId = :tenantId")
+    List<Membership> findMemberships(@org.springframework.data.repository.query.Param("tenantId") Long tenantId);
 }
@@ -2,10 +2,24 @@ package com.vebops.repository;
 
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
 import java.util.*;
 import com.vebops.domain.WorkOrderAssignment;
 
 @Repository
 public interface WorkOrderAssignmentRepository extends JpaRepository<WorkOrderAssignment, Long> {
     List<WorkOrderAssignment> findByTenantIdAndWorkOrder_IdOrderByAssignedAtDesc(Long tenantId, Long woId);
+
+    /** Assignments after a {@code (createdAt, id)} position, oldest first, with engineer and team. */
+    @Query("""
+        select a from WorkOrderAssignment a
+        left join fetch a.fieldEngineer fe left join fetch fe.user
+        left join fetch a.team
+        where a.tenantId = :tenantId and a.workOrder.id = :woId
+          and (a.createdAt > :after or (a.createdAt = :after and a.id > :afterId))
+        order by a.createdAt, a.id
+    """)
+    List<WorkOrderAssignment> findTimelineAfter(@Param("tenantId") Long tenantId, @Param("woId") Long woId,
+                                                @Param("after") Instant after, @Param("afterId") Long afterId);
 }
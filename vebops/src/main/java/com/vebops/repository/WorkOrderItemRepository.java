@@ -1,11 +1,31 @@
 package com.vebops.repository;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.util.*;
 import com.vebops.domain.WorkOrderItem;
 
 @Repository
 public interface WorkOrderItemRepository extends JpaRepository<WorkOrderItem, Long> {
     List<WorkOrderItem> findByTenantIdAndWorkOrder_Id(Long tenantId, Long woId);
+    List<WorkOrderItem> findByTenantIdAndWorkOrder_IdIn(Long tenantId, Collection<Long> woIds);
+
+    /** An issued work order item with the item fields an invoice line copies. */
+    interface IssuedLine {
+        Long getId();
+        Long getItemId();
+        String getItemName();
+        BigDecimal getRate();
+        BigDecimal getQtyIssued();
+    }
+
+    @Query("""
+        select wi.id as id, i.id as itemId, i.name as itemName, i.rate as rate, wi.qtyIssued as qtyIssued
+        from WorkOrderItem wi join wi.item i
+        where wi.tenantId = :tenantId and wi.workOrder.id = :woId and wi.qtyIssued > 0
+        order by wi.id
+    """)
+    List<IssuedLine> findIssuedLines(@Param("tenantId") Long tenantId, @Param("woId") Long woId);
 }
@@ -5,6 +5,8 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.vebops.domain.WorkOrderProgressAttachment;
 
@@ -12,4 +14,7 @@ public interface WorkOrderProgressAttachmentRepository extends JpaRepository<Wor
     List<WorkOrderProgressAttachment> findByTenantIdAndProgress_Id(Long tenantId, Long progressId);
     List<WorkOrderProgressAttachment> findByTenantIdAndProgress_IdIn(Long tenantId, Collection<Long> progressIds);
     Optional<WorkOrderProgressAttachment> findByTenantIdAndId(Long tenantId, Long id);
+
+    @Query("select a.storageKey from WorkOrderProgressAttachment a where a.storageKey in :keys")
+    List<String> findExistingStorageKeys(@Param("keys") Collection<String> keys);
 }
@@ -2,12 +2,40 @@ package com.vebops.repository;
 
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
 import java.util.*;
 import com.vebops.domain.WorkOrderProgress;
+import com.vebops.domain.enums.WOProgressStatus;
 
 @Repository
 public interface WorkOrderProgressRepository extends JpaRepository<WorkOrderProgress, Long> {
     List<WorkOrderProgress> findByTenantIdAndWorkOrder_IdOrderByCreatedAtAsc(Long tenantId, Long woId);
 
     Optional<WorkOrderProgress> findTop1ByTenantIdAndWorkOrder_IdOrderByCreatedAtDesc(Long tenantId, Long woId);
+
+    interface TimelineEntry {
+        Long getWorkOrderId();
+        WOProgressStatus getStatus();
+        Instant getCreatedAt();
+    }
+
+    /** Timeline entries of the given work orders, newest first within each work order. */
+    @Query("""
+        select p.workOrder.id as workOrderId, p.status as status, p.createdAt as createdAt
+        from WorkOrderProgress p where p.workOrder.id in :woIds
+        order by p.workOrder.id, p.createdAt desc, p.id desc
+    """)
+    List<TimelineEntry> findTimelineNewestFirst(@Param("woIds") Collection<Long> woIds);
+
+    /** Progress entries after a {@code (createdAt, id)} position, oldest first, with the reporting engineer. */
+    @Query("""
+        select p from WorkOrderProgress p
+        left join fetch p.byFE fe left join fetch fe.user
+        where p.tenantId = :tenantId and p.workOrder.id = :woId
+          and (p.createdAt > :after or (p.createdAt = :after and p.id > :afterId))
+        order by p.createdAt, p.id
+    """)
+    List<WorkOrderProgress> findTimelineAfter(@Param("tenantId") Long tenantId, @Param("woId") Long woId,
+                                              @Param("after") Instant after, @Param("afterId") Long afterId);
 }
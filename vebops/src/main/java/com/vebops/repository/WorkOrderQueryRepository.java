@@ -2,8 +2,12 @@ package com.vebops.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.vebops.domain.WorkOrder;
@@ -11,4 +15,5 @@ import com.vebops.domain.WorkOrder;
 public interface WorkOrderQueryRepository extends JpaRepository<WorkOrder, Long> {
     List<WorkOrder> findByTenantIdAndAssignedFE_Id(Long tenantId, Long feId);
     Page<WorkOrder> findByTenantIdAndAssignedFE_Id(Long tenantId, Long feId, Pageable pageable);
+    Window<WorkOrder> findByTenantIdAndAssignedFE_Id(Long tenantId, Long feId, ScrollPosition position, Sort sort, Limit limit);
 }
@@ -1,11 +1,17 @@
 package com.vebops.repository;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.vebops.domain.WorkOrder;
@@ -22,11 +28,229 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long> {
     Page<WorkOrder> findByTenantId(Long tenantId, Pageable pageable);
     Page<WorkOrder> findByTenantIdAndStatus(Long tenantId, WOStatus status, Pageable pageable);
     Page<WorkOrder> findByTenantIdAndServiceRequest_Id(Long tenantId, Long srId, Pageable pageable);
+    // Keyset (cursor mode) variants: seek instead of OFFSET, no COUNT
+    Window<WorkOrder> findByTenantId(Long tenantId, ScrollPosition position, Sort sort, Limit limit);
+    Window<WorkOrder> findByTenantIdAndStatus(Long tenantId, WOStatus status, ScrollPosition position, Sort sort, Limit limit);
+    Window<WorkOrder> findByTenantIdAndServiceRequest_Id(Long tenantId, Long srId, ScrollPosition position, Sort sort, Limit limit);
     long countByStatus(WOStatus status);
     long countByTenantIdAndStatus(Long tenantId, WOStatus status);
-    long countByTenantIdAndStatusInAndDueDateBefore(Long tenantId, Collection<WOStatus> statuses, LocalDate date);
-    Optional<WorkOrder> findTop1ByTenantIdOrderByUpdatedAtDesc(Long tenantId);
-    List<WorkOrder> findTop25ByTenantIdAndStatusOrderByUpdatedAtDesc(Long tenantId, WOStatus status);
-    List<WorkOrder> findTop100ByTenantIdAndStatusInOrderByUpdatedAtDesc(Long tenantId, Collection<WOStatus> statuses);
-    List<WorkOrder> findTop50ByTenantIdAndStatusInOrderByDueDateAsc(Long tenantId, Collection<WOStatus> statuses);
+
+    /** Per-status totals for the work order summary, with how many of each are past due. */
+    interface StatusCount {
+        WOStatus getStatus();
+        Long getTotal();
+        Long getOverdue();
+    }
+
+    @Query("""
+        select w.status as status, count(w) as total,
+               sum(case when w.dueDate < :today then 1 else 0 end) as overdue
+        from WorkOrder w where w.tenantId = :tenantId
+        group by w.status
+    """)
+    List<StatusCount> countByStatus(@Param("tenantId") Long tenantId, @Param("today") LocalDate today);
+
+    /** Timestamps of a work order; used for the latest update and completion durations. */
+    interface WorkOrderTimes {
+        String getWan();
+        Instant getCreatedAt();
+        Instant getUpdatedAt();
+    }
+
+    @Query("select w.wan as wan, w.createdAt as createdAt, w.updatedAt as updatedAt from WorkOrder w where w.tenantId = :tenantId order by w.updatedAt desc")
+    List<WorkOrderTimes> findLatestUpdated(@Param("tenantId") Long tenantId, Pageable pageable);
+
+    @Query("""
+        select w.wan as wan, w.createdAt as createdAt, w.updatedAt as updatedAt
+        from WorkOrder w where w.tenantId = :tenantId and w.status = :status
+        order by w.updatedAt desc
+    """)
+    List<WorkOrderTimes> findLatestUpdatedByStatus(@Param("tenantId") Long tenantId, @Param("status") WOStatus status,
+                                                   Pageable pageable);
+
+    /** Active work order with its engineer's display fields, for the summary's load and due lists. */
+    interface SummaryRow {
+        Long getId();
+        String getWan();
+        WOStatus getStatus();
+        LocalDate getDueDate();
+        Instant getUpdatedAt();
+        Long getFeId();
+        String getFeName();
+        String getFeEmail();
+        String getCustomerName();
+    }
+
+    @Query("""
+        select w.id as id, w.wan as wan, w.status as status, w.dueDate as dueDate, w.updatedAt as updatedAt,
+               fe.id as feId, u.displayName as feName, u.email as feEmail, c.name as customerName
+        from WorkOrder w
+        join w.assignedFE fe
+        left join fe.user u
+        left join w.serviceRequest sr
+        left join sr.customer c
+        where w.tenantId = :tenantId and w.status in :statuses
+        order by w.updatedAt desc
+    """)
+    List<SummaryRow> findAssignedSummaryRows(@Param("tenantId") Long tenantId,
+                                             @Param("statuses") Collection<WOStatus> statuses,
+                                             Pageable pageable);
+
+    @Query("""
+        select w.id as id, w.wan as wan, w.status as status, w.dueDate as dueDate, w.updatedAt as updatedAt,
+               fe.id as feId, u.displayName as feName, u.email as feEmail, c.name as customerName
+        from WorkOrder w
+        left join w.assignedFE fe
+        left join fe.user u
+        left join w.serviceRequest sr
+        left join sr.customer c
+        where w.tenantId = :tenantId and w.status in :statuses and w.dueDate is not null
+        order by w.dueDate asc, w.id asc
+    """)
+    List<SummaryRow> findDueSummaryRows(@Param("tenantId") Long tenantId,
+                                        @Param("statuses") Collection<WOStatus> statuses,
+                                        Pageable pageable);
+
+    /** Dispatch board row: a work order with its customer, site and engineer, read in one query. */
+    interface DispatchView {
+        Long getId();
+        String getWan();
+        WOStatus getStatus();
+        LocalDate getDueDate();
+        Instant getUpdatedAt();
+        Instant getLastProgressAt();
+        String getCustomerName();
+        String getCustomerAddress();
+        String getSiteAddress();
+        ServiceTypeCode getServiceType();
+        String getFeName();
+        String getFeEmail();
+    }
+
+    @Query("""
+        select w.id as id, w.wan as wan, w.status as status, w.dueDate as dueDate, w.updatedAt as updatedAt,
+               w.lastProgressAt as lastProgressAt, c.name as customerName, c.address as customerAddress,
+               sr.siteAddress as siteAddress, sr.serviceType as serviceType,
+               u.displayName as feName, u.email as feEmail
+        from WorkOrder w
+        join w.serviceRequest sr
+        left join sr.customer c
+        left join w.assignedFE fe
+        left join fe.user u
+        where w.tenantId = :tenantId and w.status in :statuses
+        order by w.dueDate asc nulls last, w.id asc
+    """)
+    List<DispatchView> findDispatchViews(@Param("tenantId") Long tenantId,
+                                         @Param("statuses") Collection<WOStatus> statuses,
+                                         Pageable pageable);
+
+    @Query("""
+        select w.id as id, w.wan as wan, w.status as status, w.dueDate as dueDate, w.updatedAt as updatedAt,
+               w.lastProgressAt as lastProgressAt, c.name as customerName, c.address as customerAddress,
+               sr.siteAddress as siteAddress, sr.serviceType as serviceType,
+               u.displayName as feName, u.email as feEmail
+        from WorkOrder w
+        join w.serviceRequest sr
+        left join sr.customer c
+        left join w.assignedFE fe
+        left join fe.user u
+        where w.tenantId = :tenantId and w.id = :id
+    """)
+    Optional<DispatchView> findDispatchView(@Param("tenantId") Long tenantId, @Param("id") Long id);
+
+    /** What a timeline poll needs before deciding whether anything changed. */
+    interface TimelineHead {
+        Long getId();
+        WOStatus getStatus();
+        Instant getUpdatedAt();
+        Long getAssignedFeId();
+    }
+
+    @Query("""
+        select w.id as id, w.status as status, w.updatedAt as updatedAt, fe.id as assignedFeId
+        from WorkOrder w left join w.assignedFE fe
+        where w.tenantId = :tenantId and w.id = :id
+    """)
+    Optional<TimelineHead> findTimelineHead(@Param("tenantId") Long tenantId, @Param("id") Long id);
+
+    /** Fields the engineer performance view aggregates, for every assigned work order of a tenant. */
+    interface FeWorkloadView {
+        Long getFeId();
+        WOStatus getStatus();
+        LocalDate getDueDate();
+        Instant getCreatedAt();
+        Instant getUpdatedAt();
+        Instant getLastProgressAt();
+    }
+
+    @Query("""
+        select w.assignedFE.id as feId, w.status as status, w.dueDate as dueDate, w.createdAt as createdAt,
+               w.updatedAt as updatedAt, w.lastProgressAt as lastProgressAt
+        from WorkOrder w where w.tenantId = :tenantId and w.assignedFE is not null
+    """)
+    List<FeWorkloadView> findFeWorkloadViews(@Param("tenantId") Long tenantId);
+
+    @Query("""
+        select w.assignedFE.id as feId, w.status as status, w.dueDate as dueDate, w.createdAt as createdAt,
+               w.updatedAt as updatedAt, w.lastProgressAt as lastProgressAt
+        from WorkOrder w where w.tenantId = :tenantId and w.assignedFE.id = :feId
+    """)
+    List<FeWorkloadView> findFeWorkloadViews(@Param("tenantId") Long tenantId, @Param("feId") Long feId);
+
+    /** Active work order and its engineer; seeds the auto-assignment engine. */
+    interface ActiveAssignment {
+        Long getId();
+        Long getFeId();
+        LocalDate getDueDate();
+    }
+
+    @Query("""
+        select w.id as id, w.assignedFE.id as feId, w.dueDate as dueDate
+        from WorkOrder w where w.tenantId = :tenantId and w.assignedFE is not null and w.status in :statuses
+    """)
+    List<ActiveAssignment> findActiveAssignments(@Param("tenantId") Long tenantId,
+                                                 @Param("statuses") Collection<WOStatus> statuses);
+
+    /** Unassigned new work orders, earliest due first; the backlog for batch auto-assignment. */
+    @Query("""
+        select w from WorkOrder w
+        where w.tenantId = :tenantId and w.status = com.vebops.domain.enums.WOStatus.NEW and w.assignedFE is null
+        order by w.dueDate asc nulls last, w.id asc
+    """)
+    List<WorkOrder> findUnassignedBacklog(@Param("tenantId") Long tenantId, Pageable pageable);
+
+    /** Keyset page of work orders that have progress entries but no denormalised head yet. */
+    @Query("""
+        select w.id from WorkOrder w
+        where w.id > :afterId and w.lastProgressAt is null
+          and exists (select 1 from WorkOrderProgress p where p.workOrder = w)
+        order by w.id
+    """)
+    List<Long> findIdsMissingLastProgressAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Bulk update so backfilling does not bump updatedAt
+    @Modifying
+    @Query("""
+        update WorkOrder w set w.lastProgressAt = :at, w.lastProgressStatus = :status
+        where w.id = :id and (w.lastProgressAt is null or w.lastProgressAt < :at)
+    """)
+    int updateLastProgress(@Param("id") Long id, @Param("at") Instant at, @Param("status") WOProgressStatus status);
+
+    // Completion pipeline: work orders whose next stage is due, oldest first
+    @Query("""
+        select w.id from WorkOrder w
+        where w.completionStage in :stages and w.completionNextAt <= :now
+        order by w.completionNextAt
+    """)
+    List<Long> findCompletionDue(@Param("stages") Collection<CompletionStage> stages,
+                                 @Param("now") Instant now,
+                                 Limit limit);
+
+    // Lease a due work order to one worker by pushing its next run past the lease
+    @Modifying
+    @Query("""
+        update WorkOrder w set w.completionNextAt = :leaseUntil
+        where w.id = :id and w.completionNextAt <= :now
+    """)
+    int claimCompletion(@Param("id") Long id, @Param("now") Instant now, @Param("leaseUntil") Instant leaseUntil);
 }
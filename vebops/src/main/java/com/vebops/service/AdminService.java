@@ -1,14 +1,9 @@
 package com.vebops.service;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.YearMonth;
-import java.time.ZoneId;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,12 +23,10 @@ import org.springframework.util.StringUtils;
 
 import com.vebops.context.TenantContext;
 import com.vebops.domain.EmailTemplate;
-import com.vebops.domain.Invoice;
 import com.vebops.domain.Subscription;
 import com.vebops.domain.Tenant;
 import com.vebops.domain.User;
 import com.vebops.domain.UserRole;
-import com.vebops.domain.enums.InvoiceStatus;
 import com.vebops.domain.enums.RoleCode;
 import com.vebops.domain.enums.SubscriptionStatus;
 import com.vebops.domain.enums.FEStatus;
@@ -61,7 +54,6 @@ import com.vebops.exception.NotFoundException;
 import com.vebops.repository.CustomerRepository;
 import com.vebops.repository.EmailTemplateRepository;
 import com.vebops.repository.FieldEngineerRepository;
-import com.vebops.repository.InvoiceRepository;
 import com.vebops.repository.RoleRepository;
 import com.vebops.repository.SubscriptionRepository;
 import com.vebops.repository.TenantRepository;
@@ -92,7 +84,7 @@ public class AdminService {
     private final RoleRepository roleRepo;
     private final UserRoleRepository userRoleRepo;
     private final PasswordEncoder encoder;
-    private final InvoiceRepository invoiceRepo;
+    private final RevenueRollupService revenue;
     private final EmailService emailService;
     private final JwtUtil jwtUtil;
     private final EmailTemplateRepository emailTemplateRepo;
@@ -108,7 +100,7 @@ public class AdminService {
                         RoleRepository roleRepo,
                         UserRoleRepository userRoleRepo,
                         PasswordEncoder encoder,
-                        InvoiceRepository invoiceRepo,
+                        RevenueRollupService revenue,
                         EmailService emailService,
                         JwtUtil jwtUtil,
                         EmailTemplateRepository emailTemplateRepo,
@@ -123,7 +115,7 @@ public class AdminService {
         this.roleRepo = roleRepo;
         this.userRoleRepo = userRoleRepo;
         this.encoder = encoder;
-        this.invoiceRepo = invoiceRepo;
+        this.revenue = revenue;
         this.emailService = emailService;
         this.jwtUtil = jwtUtil;
         this.emailTemplateRepo = emailTemplateRepo;
@@ -248,10 +240,7 @@ public class AdminService {
         }
         res.subscriptions.active = active;
         res.subscriptions.inactive = Math.max(inactive, 0);
-        LocalDate firstDay = YearMonth.now().atDay(1);
-        Instant mtdCutoff = firstDay.atStartOfDay(ZoneId.systemDefault()).toInstant();
-        BigDecimal revenue = invoiceRepo.sumTotalByStatusAndCreatedAtAfter(InvoiceStatus.PAID, mtdCutoff);
-        res.revenueMTD = revenue != null ? revenue : BigDecimal.ZERO;
+        res.revenueMTD = revenue.monthToDate();
         return ResponseEntity.ok(res);
     }
 
@@ -392,18 +381,7 @@ public class AdminService {
 
     public ResponseEntity<RevenueSeriesResponse> revenueSeries(int months) {
         int m = Math.max(1, Math.min(months, 24));
-        var cutoff = YearMonth.now().minusMonths(m - 1).atDay(1)
-                    .atStartOfDay(java.time.ZoneId.systemDefault()).toInstant();
-        var all = invoiceRepo.findAll();
-        var buckets = new LinkedHashMap<YearMonth, java.math.BigDecimal>();
-        for (int i = 0; i < m; i++) buckets.put(YearMonth.now().minusMonths(m - 1 - i), java.math.BigDecimal.ZERO);
-        for (Invoice inv : all) {
-            if (inv.getStatus() == InvoiceStatus.PAID && inv.getCreatedAt().isAfter(cutoff)) {
-                var ym = YearMonth.from(inv.getCreatedAt().atZone(java.time.ZoneId.systemDefault()));
-                buckets.put(ym, buckets.getOrDefault(ym, java.math.BigDecimal.ZERO)
-                                        .add(inv.getTotal() == null ? java.math.BigDecimal.ZERO : inv.getTotal()));
-            }
-        }
+        var buckets = revenue.series(m);
         var res = new RevenueSeriesResponse();
         for (var e : buckets.entrySet()) {
             var mt = new RevenueSeriesResponse.MonthTotal();
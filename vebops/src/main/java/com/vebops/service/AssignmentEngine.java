@@ -0,0 +1,232 @@
+package com.vebops.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.vebops.domain.FieldEngineer;
+import com.vebops.domain.enums.FEStatus;
+import com.vebops.domain.enums.WOStatus;
+import com.vebops.repository.FieldEngineerRepository;
+import com.vebops.repository.WorkOrderRepository;
+
+/**
+ * Picks the field engineer for automatic assignment. Each tenant's engineers
+ * are kept in memory, ranked by load: active work orders, then overdue ones,
+ * then work due within {@value #DUE_SOON_DAYS} days, then whether the engineer
+ * has a home (van) store for auto-issued material. Only AVAILABLE engineers
+ * are ranked, so a pick is the head of a sorted set.
+ *
+ * <p>The work order service reports assignments and completions as they
+ * happen, so the ranking moves with every change. If the surrounding
+ * transaction rolls back, the tenant is dropped and rebuilt from the database
+ * on next use; if it commits, the change is applied once more, in case the
+ * tenant was rebuilt from rows that did not include it yet. Rebuilds and
+ * changes of one tenant are serialised on a per-tenant lock.</p>
+ *
+ * <p>Tenants are also rebuilt every {@link #REBUILD_AFTER} so that work
+ * orders age into "due soon" and "overdue", and whenever an engineer's record
+ * is changed ({@link #invalidate(Long)}). The ranking is per JVM: with several
+ * application nodes, assignments made on another node are only seen after that
+ * rebuild, so picks can be briefly uneven between nodes.</p>
+ */
+@Component
+public class AssignmentEngine {
+
+    static final int DUE_SOON_DAYS = 3;
+    static final Duration REBUILD_AFTER = Duration.ofMinutes(5);
+
+    private static final EnumSet<WOStatus> ACTIVE_WO_STATUSES = EnumSet.of(
+        WOStatus.NEW,
+        WOStatus.ASSIGNED,
+        WOStatus.IN_PROGRESS,
+        WOStatus.ON_HOLD
+    );
+
+    /** Ranking snapshot of one engineer. Replaced, never mutated, so it can sit in a sorted set. */
+    record Load(Long feId, int active, int overdue, int dueSoon, boolean homeStore) {}
+
+    static final Comparator<Load> LEAST_LOADED = Comparator
+        .comparingInt(Load::active)
+        .thenComparingInt(Load::overdue)
+        .thenComparingInt(Load::dueSoon)
+        .thenComparing(Load::homeStore, Comparator.reverseOrder())
+        .thenComparing(Load::feId);
+
+    private final FieldEngineerRepository engineers;
+    private final WorkOrderRepository workOrders;
+    private final Clock clock;
+    private final Map<Long, TenantLoads> tenants = new ConcurrentHashMap<>();
+    private final Map<Long, Object> locks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AssignmentEngine(FieldEngineerRepository engineers, WorkOrderRepository workOrders) {
+        this(engineers, workOrders, Clock.systemDefaultZone());
+    }
+
+    AssignmentEngine(FieldEngineerRepository engineers, WorkOrderRepository workOrders, Clock clock) {
+        this.engineers = engineers;
+        this.workOrders = workOrders;
+        this.clock = clock;
+    }
+
+    /** Least-loaded available engineer of the tenant, if any. */
+    public Optional<Long> pick(Long tenantId) {
+        synchronized (lock(tenantId)) {
+            TenantLoads loads = loads(tenantId);
+            return loads.ranked.isEmpty() ? Optional.empty() : Optional.of(loads.ranked.first().feId());
+        }
+    }
+
+    /**
+     * Available engineers of the tenant, least loaded first. A copy, so callers
+     * can run further checks (e.g. capacity) without holding the tenant's lock.
+     */
+    public List<Long> ranked(Long tenantId) {
+        synchronized (lock(tenantId)) {
+            return loads(tenantId).ranked.stream().map(Load::feId).toList();
+        }
+    }
+
+    /** A work order was (re)assigned to {@code feId}; moves it off any previous engineer. */
+    public void assigned(Long tenantId, Long workOrderId, Long feId, LocalDate dueDate) {
+        Consumer<TenantLoads> change = loads -> {
+            loads.unassign(workOrderId);
+            loads.assign(workOrderId, feId, dueDate);
+        };
+        apply(tenantId, change);
+        settleOnCompletion(tenantId, change);
+    }
+
+    /** A work order left the active set (completed). */
+    public void completed(Long tenantId, Long workOrderId) {
+        Consumer<TenantLoads> change = loads -> loads.unassign(workOrderId);
+        apply(tenantId, change);
+        settleOnCompletion(tenantId, change);
+    }
+
+    /** Forget a tenant, e.g. after an engineer was added, removed or changed status. */
+    public void invalidate(Long tenantId) {
+        tenants.remove(tenantId);
+    }
+
+    private Object lock(Long tenantId) {
+        return locks.computeIfAbsent(tenantId, t -> new Object());
+    }
+
+    // Changes are idempotent (unassign, then assign), so applying one twice is harmless
+    private void apply(Long tenantId, Consumer<TenantLoads> change) {
+        synchronized (lock(tenantId)) {
+            TenantLoads loads = tenants.get(tenantId);
+            if (loads != null) change.accept(loads);
+        }
+    }
+
+    // Caller holds lock(tenantId)
+    private TenantLoads loads(Long tenantId) {
+        TenantLoads current = tenants.get(tenantId);
+        if (current != null && current.builtAt.plus(REBUILD_AFTER).isAfter(clock.instant())) {
+            return current;
+        }
+        TenantLoads fresh = build(tenantId);
+        tenants.put(tenantId, fresh);
+        return fresh;
+    }
+
+    private TenantLoads build(Long tenantId) {
+        TenantLoads loads = new TenantLoads(LocalDate.now(clock), clock.instant());
+        for (FieldEngineer fe : engineers.findByTenantId(tenantId)) {
+            loads.engineers.put(fe.getId(), new Engineer(fe.getStatus() == FEStatus.AVAILABLE, fe.getHomeStore() != null));
+        }
+        for (WorkOrderRepository.ActiveAssignment a : workOrders.findActiveAssignments(tenantId, ACTIVE_WO_STATUSES)) {
+            Engineer e = loads.engineers.get(a.getFeId());
+            if (e == null) continue;
+            e.dueDates.put(a.getId(), Optional.ofNullable(a.getDueDate()));
+            loads.owner.put(a.getId(), a.getFeId());
+        }
+        loads.engineers.keySet().forEach(loads::rerank);
+        return loads;
+    }
+
+    private void settleOnCompletion(Long tenantId, Consumer<TenantLoads> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) apply(tenantId, change);
+                else invalidate(tenantId);
+            }
+        });
+    }
+
+    private static final class Engineer {
+        final boolean available;
+        final boolean homeStore;
+        final Map<Long, Optional<LocalDate>> dueDates = new HashMap<>();
+        Load load;
+
+        Engineer(boolean available, boolean homeStore) {
+            this.available = available;
+            this.homeStore = homeStore;
+        }
+    }
+
+    private static final class TenantLoads {
+        final LocalDate today;
+        final Instant builtAt;
+        final Map<Long, Engineer> engineers = new HashMap<>();
+        final Map<Long, Long> owner = new HashMap<>();
+        final TreeSet<Load> ranked = new TreeSet<>(LEAST_LOADED);
+
+        TenantLoads(LocalDate today, Instant builtAt) {
+            this.today = today;
+            this.builtAt = builtAt;
+        }
+
+        void assign(Long workOrderId, Long feId, LocalDate dueDate) {
+            Engineer e = engineers.get(feId);
+            if (e == null) return;
+            e.dueDates.put(workOrderId, Optional.ofNullable(dueDate));
+            owner.put(workOrderId, feId);
+            rerank(feId);
+        }
+
+        void unassign(Long workOrderId) {
+            Long feId = owner.remove(workOrderId);
+            if (feId == null) return;
+            engineers.get(feId).dueDates.remove(workOrderId);
+            rerank(feId);
+        }
+
+        // O(k) in the engineer's own active work orders plus O(log n) to re-seat them in the ranking
+        void rerank(Long feId) {
+            Engineer e = engineers.get(feId);
+            if (e.load != null) ranked.remove(e.load);
+            int overdue = 0;
+            int dueSoon = 0;
+            LocalDate soon = today.plusDays(DUE_SOON_DAYS);
+            for (Optional<LocalDate> due : e.dueDates.values()) {
+                if (due.isEmpty()) continue;
+                if (due.get().isBefore(today)) overdue++;
+                else if (!due.get().isAfter(soon)) dueSoon++;
+            }
+            e.load = new Load(feId, e.dueDates.size(), overdue, dueSoon, e.homeStore);
+            if (e.available) ranked.add(e.load);
+        }
+    }
+}
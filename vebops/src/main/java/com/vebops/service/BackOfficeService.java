@@ -8,11 +8,11 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -27,11 +27,14 @@ import java.time.temporal.ChronoUnit;
 import org.springframework.http.*;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -101,7 +104,10 @@ import com.vebops.repository.WorkOrderProgressRepository;
 import com.vebops.repository.WorkOrderProgressAttachmentRepository;
 import com.vebops.repository.WorkOrderQueryRepository;
 import com.vebops.repository.WorkOrderRepository;
+import com.vebops.util.Cursors;
+import com.vebops.util.ETags;
 import com.vebops.util.PdfUtil;
+import com.vebops.util.TtlCache;
 
 /**
  * Service encapsulating all back office operations originally defined in
@@ -121,6 +127,10 @@ public class BackOfficeService {
         WOStatus.ON_HOLD
     );
 
+    // Dashboards poll the summary; a few seconds of staleness keeps open tabs from multiplying the load
+    private static final Duration WO_SUMMARY_TTL = Duration.ofSeconds(15);
+    private final TtlCache<Long, Map<String, Object>> woSummaries = new TtlCache<>(WO_SUMMARY_TTL);
+
     private final IntakeService intake;
     private final ProposalService proposals;
     private final WorkOrderService workOrders;
@@ -157,12 +167,18 @@ public class BackOfficeService {
     private final InventoryService inventoryService;
     private final DocumentRepository docRepo;
     private final FileStorageService fileStorageService;
+    private final FileDownloadService downloads;
     private final ProposalDocumentService proposalDocs;
     private final ProposalSharingService proposalShare;
     private final DocumentSequenceService sequenceService;
     // Removed unused customerRepo: customers repository is injected separately
     private final TenantGuard tenantGuard;
     private final EmailTemplateRepository emailTemplateRepo;
+    private final FeStatsService feStats;
+    private final DispatchBoardStream dispatchStream;
+    private final AssignmentEngine assignmentEngine;
+    private final CapacityCalendar capacity;
+    private final WorkOrderCompletionPipeline completion;
 
     public BackOfficeService(IntakeService intake,
                              ProposalService proposals,
@@ -199,8 +215,11 @@ public class BackOfficeService {
                              PortalAccountManager portalAccountManager,
                              InventoryService inventoryService
                              , DocumentSequenceService sequenceService, DocumentRepository docRepo, FileStorageService fileStorageService,
-                             ProposalDocumentService proposalDocs, ProposalSharingService proposalShare,
-                             /* removed unused customerRepo */ TenantGuard tenantGuard, EmailTemplateRepository emailTemplateRepo) {
+                             FileDownloadService downloads, ProposalDocumentService proposalDocs, ProposalSharingService proposalShare,
+                             /* removed unused customerRepo */ TenantGuard tenantGuard, EmailTemplateRepository emailTemplateRepo,
+                             FeStatsService feStats, DispatchBoardStream dispatchStream,
+                             AssignmentEngine assignmentEngine, CapacityCalendar capacity,
+                             WorkOrderCompletionPipeline completion) {
         this.intake = intake;
         this.proposals = proposals;
         this.workOrders = workOrders;
@@ -238,10 +257,16 @@ public class BackOfficeService {
         this.sequenceService = sequenceService;
         this.docRepo = docRepo;
         this.fileStorageService = fileStorageService;
+        this.downloads = downloads;
         this.proposalDocs = proposalDocs;
         this.proposalShare = proposalShare;
         this.tenantGuard = tenantGuard;
         this.emailTemplateRepo = emailTemplateRepo;
+        this.feStats = feStats;
+        this.dispatchStream = dispatchStream;
+        this.assignmentEngine = assignmentEngine;
+        this.capacity = capacity;
+        this.completion = completion;
     }
 
     private Long tenant() { return TenantContext.getTenantId(); }
@@ -394,6 +419,7 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         fe.setUser(u);
         fe.setStatus(FEStatus.AVAILABLE);
         feRepo.save(fe);
+        assignmentEngine.invalidate(tid);
 
         // 4) ensure FE role in this tenant
         if (!userRoleRepo.existsByUser_IdAndTenantIdAndRoleCode(u.getId(), tid, RoleCode.FE)) {
@@ -445,6 +471,26 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         return ResponseEntity.ok(result);
     }
 
+    /** Cursor-mode variant of {@link #listServiceRequests}; see {@link Cursors}. */
+    public ResponseEntity<CursorPage<ServiceRequest>> scrollServiceRequests(SRStatus status, Long customerId, int size,
+                                                                            String sort, String cursor) {
+        final Long tid = tenant();
+        Sort sortSpec = Cursors.sort(sort, "createdAt", "createdAt", "id");
+        ScrollPosition position = Cursors.scrollPosition(cursor, sortSpec);
+        Limit limit = cursorLimit(size);
+        Window<ServiceRequest> window;
+        if (status != null) {
+            window = srRepo.findByTenantIdAndStatus(tid, status, position, sortSpec, limit);
+        } else if (customerId != null) {
+            window = srRepo.findByTenantIdAndCustomer_Id(tid, customerId, position, sortSpec, limit);
+        } else {
+            window = srRepo.findByTenantId(tid, position, sortSpec, limit);
+        }
+        window.getContent().forEach(this::hydrateServiceRequest);
+        return ResponseEntity.ok(Cursors.page(window, sortSpec, limit.max(),
+                ServiceRequest::getCreatedAt, ServiceRequest::getId));
+    }
+
     public ResponseEntity<ServiceRequest> getServiceRequest(Long id) {
         ServiceRequest sr = srRepo.findById(id)
                 .orElseThrow(() -> new NotFoundException("ServiceRequest not found"));
@@ -491,6 +537,7 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         if (updated) {
             users.save(user);
             feRepo.save(fe);
+            assignmentEngine.invalidate(fe.getTenantId());
         }
         return ResponseEntity.noContent().build();
     }
@@ -511,6 +558,25 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         return ResponseEntity.ok(result);
     }
 
+    /** Cursor-mode variant of {@link #listProposals}; see {@link Cursors}. */
+    public ResponseEntity<CursorPage<Proposal>> scrollProposals(ProposalStatus status, Long customerId, int size,
+                                                                String sort, String cursor) {
+        Long tid = tenant();
+        Sort sortSpec = Cursors.sort(sort, "id", "createdAt", "id");
+        ScrollPosition position = Cursors.scrollPosition(cursor, sortSpec);
+        Limit limit = cursorLimit(size);
+        Window<Proposal> window;
+        if (status != null) {
+            window = proposalRepo.findByTenantIdAndStatus(tid, status, position, sortSpec, limit);
+        } else if (customerId != null) {
+            window = proposalRepo.findByTenantIdAndCustomer_Id(tid, customerId, position, sortSpec, limit);
+        } else {
+            window = proposalRepo.findByTenantId(tid, position, sortSpec, limit);
+        }
+        window.getContent().forEach(this::hydrateProposal);
+        return ResponseEntity.ok(Cursors.page(window, sortSpec, limit.max(), Proposal::getCreatedAt, Proposal::getId));
+    }
+
     public ResponseEntity<Map<String, Object>> getProposal(Long id) {
         Long tid = tenant();
         Proposal p = proposalRepo.findByTenantIdAndId(tid, id)
@@ -646,6 +712,27 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         return ResponseEntity.ok(result);
     }
 
+    /** Cursor-mode variant of {@link #listWOs}; see {@link Cursors}. */
+    public ResponseEntity<CursorPage<WorkOrder>> scrollWOs(WOStatus status, Long feId, Long srId, int size,
+                                                           String sort, String cursor) {
+        Long tid = tenant();
+        Sort sortSpec = Cursors.sort(sort, "id", "createdAt", "id");
+        ScrollPosition position = Cursors.scrollPosition(cursor, sortSpec);
+        Limit limit = cursorLimit(size);
+        Window<WorkOrder> window;
+        if (feId != null) {
+            window = woQueryRepo.findByTenantIdAndAssignedFE_Id(tid, feId, position, sortSpec, limit);
+        } else if (status != null) {
+            window = workOrderRepo.findByTenantIdAndStatus(tid, status, position, sortSpec, limit);
+        } else if (srId != null) {
+            window = workOrderRepo.findByTenantIdAndServiceRequest_Id(tid, srId, position, sortSpec, limit);
+        } else {
+            window = workOrderRepo.findByTenantId(tid, position, sortSpec, limit);
+        }
+        window.getContent().forEach(this::hydrateWorkOrder);
+        return ResponseEntity.ok(Cursors.page(window, sortSpec, limit.max(), WorkOrder::getCreatedAt, WorkOrder::getId));
+    }
+
     public ResponseEntity<WorkOrder> getWO(Long id) {
         WorkOrder wo = workOrderRepo.findById(id).orElseThrow(() -> new NotFoundException("WO not found"));
         if (!tenant().equals(wo.getTenantId())) throw new BusinessException("Cross-tenant access");
@@ -685,6 +772,11 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         return PageRequest.of(safePage, safeSize, sortSpec);
     }
 
+    // Same page-size bounds as buildPageRequest
+    private Limit cursorLimit(int size) {
+        return Limit.of(Math.max(1, Math.min(size, 200)));
+    }
+
     private PurchaseOrderDtos.ListItem toPurchaseOrderListItem(PurchaseOrder po) {
         PurchaseOrderDtos.ListItem row = new PurchaseOrderDtos.ListItem();
         row.id = po.getId();
@@ -954,27 +1046,67 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
                 }
             }
         });
-        Map<Long, List<WorkOrderProgressAttachment>> attachmentsByProgress = Map.of();
-        List<Long> progressIds = progress.stream()
-            .map(WorkOrderProgress::getId)
-            .filter(idVal -> idVal != null)
-            .toList();
-        if (!progressIds.isEmpty()) {
-            attachmentsByProgress = progressAttachmentRepo
-                .findByTenantIdAndProgress_IdIn(tid, progressIds)
-                .stream()
-                .filter(att -> att.getProgress() != null && att.getProgress().getId() != null)
-                .collect(Collectors.groupingBy(att -> att.getProgress().getId()));
-        }
+        Map<Long, List<WorkOrderProgressAttachment>> attachmentsByProgress = attachmentsByProgress(tid, progress);
 
         Map<String, Object> out = new HashMap<>();
         out.put("workOrder", wo);
         out.put("assignments", assignments);
         out.put("progress", summariseProgress(progress, attachmentsByProgress));
         out.put("progressSummary", buildProgressSummary(progress, attachmentsByProgress));
+        // Starting point for polling /timeline/updates
+        out.put("cursor", Cursors.encodeTimeline(
+            TimelineUpdates.advance(Cursors.TimelinePosition.START, progress, assignments)));
         return ResponseEntity.ok(out);
     }
 
+    /**
+     * Timeline entries added after the {@code since} cursor: new progress
+     * entries and assignments, both oldest first, plus the cursor to send next
+     * time. Answers 304 when the work order has not changed since the
+     * {@code If-None-Match} tag was issued.
+     */
+    public ResponseEntity<Map<String, Object>> woTimelineUpdates(Long id, String since, String ifNoneMatch) {
+        Long tid = tenant();
+        WorkOrderRepository.TimelineHead head = workOrderRepo.findTimelineHead(tid, id)
+            .orElseThrow(() -> new NotFoundException("WO not found"));
+        Cursors.TimelinePosition from = Cursors.decodeTimeline(since);
+        String etag = TimelineUpdates.etag(head, Cursors.encodeTimeline(from));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, TimelineUpdates.CACHE_CONTROL).build();
+        }
+
+        Cursors.TimelinePosition read = TimelineUpdates.rewind(from);
+        List<WorkOrderProgress> progress = woProgressRepo.findTimelineAfter(tid, id, read.progressAt(), read.progressId());
+        List<WorkOrderAssignment> assignments = woAssignRepo.findTimelineAfter(tid, id, read.assignedAt(), read.assignmentId());
+        String cursor = Cursors.encodeTimeline(TimelineUpdates.advance(from, progress, assignments));
+
+        Map<String, Object> out = new HashMap<>();
+        out.put("workOrderId", head.getId());
+        out.put("status", head.getStatus() != null ? head.getStatus().name() : null);
+        out.put("updatedAt", head.getUpdatedAt());
+        out.put("assignments", assignments);
+        out.put("progress", summariseProgress(progress, attachmentsByProgress(tid, progress)));
+        out.put("cursor", cursor);
+        return ResponseEntity.ok()
+            .eTag(TimelineUpdates.etag(head, cursor))
+            .header(HttpHeaders.CACHE_CONTROL, TimelineUpdates.CACHE_CONTROL)
+            .body(out);
+    }
+
+    private Map<Long, List<WorkOrderProgressAttachment>> attachmentsByProgress(Long tid, List<WorkOrderProgress> progress) {
+        List<Long> progressIds = progress.stream()
+            .map(WorkOrderProgress::getId)
+            .filter(idVal -> idVal != null)
+            .toList();
+        if (progressIds.isEmpty()) return Map.of();
+        return progressAttachmentRepo
+            .findByTenantIdAndProgress_IdIn(tid, progressIds)
+            .stream()
+            .filter(att -> att.getProgress() != null && att.getProgress().getId() != null)
+            .collect(Collectors.groupingBy(att -> att.getProgress().getId()));
+    }
+
     public ResponseEntity<byte[]> downloadProgressAttachment(Long woId, Long progressId, Long attachmentId) {
         Long tid = tenant();
         WorkOrderProgressAttachment attachment = progressAttachmentRepo
@@ -994,21 +1126,30 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         if (!progressId.equals(progress.getId())) {
             throw new BusinessException("Attachment does not belong to the progress entry");
         }
-        byte[] data = attachment.getData();
-        if (data == null) {
-            data = new byte[0];
-        }
+        byte[] data = attachmentBytes(attachment);
         String filename = attachment.getFilename() != null ? attachment.getFilename() : "progress-photo";
         String contentType = attachment.getContentType();
         if (contentType == null || contentType.isBlank()) {
             contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
         }
         return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename.replace("\"", "") + "\"")
+            .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename.replace("\"", "_") + "\"")
             .contentType(MediaType.parseMediaType(contentType))
             .body(data);
     }
 
+    private byte[] attachmentBytes(WorkOrderProgressAttachment attachment) {
+        byte[] data = attachment.getData();
+        if (data == null && attachment.getStorageKey() != null) {
+            try {
+                data = fileStorageService.readStored(attachment.getStorageKey());
+            } catch (java.io.IOException e) {
+                throw new NotFoundException("Attachment file not found");
+            }
+        }
+        return data != null ? data : new byte[0];
+    }
+
     public ResponseEntity<byte[]> completionReport(Long workOrderId) {
         Long tid = tenant();
         WorkOrder wo = workOrderRepo.findById(workOrderId)
@@ -1136,10 +1277,43 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
     }
 
     public ResponseEntity<Void> assignFe(Long id, AssignFERequest body) {
-        workOrders.assignFe(tenant(), id, body.feId, body.note);
+        Long tid = tenant();
+        workOrders.assignFe(tid, id, body.feId, body.note, body.startDate, body.dueDate);
+        // Overbooking is allowed unless vebops.capacity.overbooking=REFUSE; tell the dispatcher about it
+        List<CapacitySlotDto> overlaps = workOrderRepo.findById(id)
+            .map(wo -> capacity.conflicts(wo, body.feId))
+            .orElse(List.of());
+        if (!overlaps.isEmpty()) {
+            return ResponseEntity.noContent()
+                .header("X-Capacity-Warning", "Engineer has " + overlaps.size() + " overlapping booking(s)")
+                .build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // ----- Capacity calendar -----
+    public ResponseEntity<List<FieldEngineerDto>> freeEngineers(LocalDate from, int days, Long teamId) {
+        return ResponseEntity.ok(capacity.freeEngineers(tenant(), from, days, teamId));
+    }
+
+    public ResponseEntity<List<CapacitySlotDto>> capacitySlots(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) throw new BusinessException("to must not be before from");
+        return ResponseEntity.ok(capacity.slots(tenant(), from, to));
+    }
+
+    public ResponseEntity<CapacitySlotDto> addCapacitySlot(CapacitySlotRequest req) {
+        return ResponseEntity.ok(capacity.addSlot(tenant(), req));
+    }
+
+    public ResponseEntity<Void> removeCapacitySlot(Long id) {
+        capacity.removeSlot(tenant(), id);
         return ResponseEntity.noContent().build();
     }
 
+    public ResponseEntity<Map<Long, Long>> autoAssign(AutoAssignRequest body) {
+        return ResponseEntity.ok(workOrders.autoAssignBacklog(tenant(), body != null ? body.woIds : null));
+    }
+
     public ResponseEntity<Void> addProgress(Long id, ProgressRequest req) {
         WorkOrderService.ProgressAttachment attachment;
         try {
@@ -1153,29 +1327,32 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
 
     public ResponseEntity<Map<String, Object>> woSummary() {
         Long tenantId = tenant();
+        return ResponseEntity.ok(woSummaries.get(tenantId, () -> buildWoSummary(tenantId)));
+    }
+
+    private Map<String, Object> buildWoSummary(Long tenantId) {
+        LocalDate today = LocalDate.now();
 
         Map<String, Long> counts = new LinkedHashMap<>();
-        long total = 0L;
         for (WOStatus status : WOStatus.values()) {
-            long count = workOrderRepo.countByTenantIdAndStatus(tenantId, status);
-            counts.put(status.name(), count);
+            counts.put(status.name(), 0L);
+        }
+        long total = 0L;
+        long activeCount = 0L;
+        long overdue = 0L;
+        for (WorkOrderRepository.StatusCount row : workOrderRepo.countByStatus(tenantId, today)) {
+            long count = row.getTotal() != null ? row.getTotal() : 0L;
+            counts.put(row.getStatus().name(), count);
             total += count;
+            if (ACTIVE_WO_STATUSES.contains(row.getStatus())) {
+                activeCount += count;
+                overdue += row.getOverdue() != null ? row.getOverdue() : 0L;
+            }
         }
 
-        long activeCount = counts.entrySet().stream()
-            .filter(entry -> ACTIVE_WO_STATUSES.contains(WOStatus.valueOf(entry.getKey())))
-            .mapToLong(Map.Entry::getValue)
-            .sum();
-
-        long overdue = workOrderRepo.countByTenantIdAndStatusInAndDueDateBefore(
-            tenantId,
-            ACTIVE_WO_STATUSES,
-            LocalDate.now()
-        );
-
-        Optional<WorkOrder> latest = workOrderRepo.findTop1ByTenantIdOrderByUpdatedAtDesc(tenantId);
-        Instant lastUpdatedAt = latest.map(WorkOrder::getUpdatedAt).orElse(null);
-        String lastUpdatedWan = latest.map(WorkOrder::getWan).orElse(null);
+        List<WorkOrderRepository.WorkOrderTimes> latest = workOrderRepo.findLatestUpdated(tenantId, PageRequest.of(0, 1));
+        Instant lastUpdatedAt = latest.isEmpty() ? null : latest.get(0).getUpdatedAt();
+        String lastUpdatedWan = latest.isEmpty() ? null : latest.get(0).getWan();
 
         double avgCompletionDays = computeAverageCompletionDays(tenantId);
         double completionRate = total == 0
@@ -1193,14 +1370,15 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         body.put("avgCompletionDays", avgCompletionDays);
         body.put("lastUpdatedAt", lastUpdatedAt);
         body.put("lastUpdatedWan", lastUpdatedWan);
-        body.put("engineerLoads", buildEngineerLoads(tenantId));
-        body.put("upcomingDue", buildUpcomingDue(tenantId));
-        return ResponseEntity.ok(body);
+        body.put("engineerLoads", buildEngineerLoads(tenantId, today));
+        body.put("upcomingDue", buildUpcomingDue(tenantId, today));
+        // Shared between callers while cached
+        return Collections.unmodifiableMap(body);
     }
 
     private double computeAverageCompletionDays(Long tenantId) {
-        List<WorkOrder> recentCompleted = workOrderRepo
-            .findTop25ByTenantIdAndStatusOrderByUpdatedAtDesc(tenantId, WOStatus.COMPLETED);
+        List<WorkOrderRepository.WorkOrderTimes> recentCompleted = workOrderRepo
+            .findLatestUpdatedByStatus(tenantId, WOStatus.COMPLETED, PageRequest.of(0, 25));
         if (recentCompleted.isEmpty()) {
             return 0d;
         }
@@ -1221,29 +1399,20 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         return BigDecimal.valueOf(average).setScale(1, RoundingMode.HALF_UP).doubleValue();
     }
 
-    private List<Map<String, Object>> buildEngineerLoads(Long tenantId) {
-        List<WorkOrder> active = workOrderRepo
-            .findTop100ByTenantIdAndStatusInOrderByUpdatedAtDesc(tenantId, ACTIVE_WO_STATUSES);
+    private List<Map<String, Object>> buildEngineerLoads(Long tenantId, LocalDate today) {
+        List<WorkOrderRepository.SummaryRow> active = workOrderRepo
+            .findAssignedSummaryRows(tenantId, ACTIVE_WO_STATUSES, PageRequest.of(0, 100));
         if (active.isEmpty()) {
             return List.of();
         }
-        LocalDate today = LocalDate.now();
         Map<Long, EngineerLoadAccumulator> accumulator = new LinkedHashMap<>();
-        for (WorkOrder workOrder : active) {
-            FieldEngineer fe = workOrder.getAssignedFE();
-            if (fe == null || fe.getId() == null) {
-                continue;
-            }
-            fe.getId();
-            if (fe.getUser() != null) {
-                fe.getUser().getDisplayName();
-            }
+        for (WorkOrderRepository.SummaryRow workOrder : active) {
             EngineerLoadAccumulator load = accumulator.computeIfAbsent(
-                fe.getId(),
-                id -> new EngineerLoadAccumulator(id, resolveEngineerName(fe))
+                workOrder.getFeId(),
+                id -> new EngineerLoadAccumulator(id, engineerLabel(id, workOrder.getFeName(), workOrder.getFeEmail()))
             );
             load.activeCount++;
-            if (isOverdue(workOrder, today)) {
+            if (isOverdue(workOrder.getStatus(), workOrder.getDueDate(), today)) {
                 load.overdueCount++;
             }
             LocalDate dueDate = workOrder.getDueDate();
@@ -1264,74 +1433,41 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
             .collect(Collectors.toList());
     }
 
-    private List<Map<String, Object>> buildUpcomingDue(Long tenantId) {
-        List<WorkOrder> dueSoon = workOrderRepo
-            .findTop50ByTenantIdAndStatusInOrderByDueDateAsc(tenantId, ACTIVE_WO_STATUSES);
-        if (dueSoon.isEmpty()) {
-            return List.of();
-        }
-        LocalDate today = LocalDate.now();
-        List<Map<String, Object>> list = new ArrayList<>();
-        for (WorkOrder workOrder : dueSoon) {
-            LocalDate due = workOrder.getDueDate();
-            if (due == null) {
-                continue;
-            }
-            FieldEngineer fe = workOrder.getAssignedFE();
-            if (fe != null) {
-                fe.getId();
-                if (fe.getUser() != null) {
-                    fe.getUser().getDisplayName();
-                }
-            }
-            ServiceRequest sr = workOrder.getServiceRequest();
-            if (sr != null) {
-                sr.getId();
-                if (sr.getCustomer() != null) {
-                    sr.getCustomer().getId();
-                    sr.getCustomer().getName();
-                }
-            }
+    private List<Map<String, Object>> buildUpcomingDue(Long tenantId, LocalDate today) {
+        List<WorkOrderRepository.SummaryRow> dueSoon = workOrderRepo
+            .findDueSummaryRows(tenantId, ACTIVE_WO_STATUSES, PageRequest.of(0, 50));
+        List<Map<String, Object>> list = new ArrayList<>(dueSoon.size());
+        for (WorkOrderRepository.SummaryRow workOrder : dueSoon) {
             Map<String, Object> view = new HashMap<>();
             view.put("id", workOrder.getId());
             view.put("wan", workOrder.getWan());
             view.put("status", workOrder.getStatus() != null ? workOrder.getStatus().name() : null);
-            view.put("dueDate", due);
-            view.put("overdue", isOverdue(workOrder, today));
-            view.put("assignedFe", resolveEngineerName(fe));
-            view.put("customer", sr != null && sr.getCustomer() != null ? sr.getCustomer().getName() : null);
+            view.put("dueDate", workOrder.getDueDate());
+            view.put("overdue", isOverdue(workOrder.getStatus(), workOrder.getDueDate(), today));
+            view.put("assignedFe", workOrder.getFeId() != null
+                ? engineerLabel(workOrder.getFeId(), workOrder.getFeName(), workOrder.getFeEmail())
+                : null);
+            view.put("customer", workOrder.getCustomerName());
             list.add(view);
         }
-        list.sort(Comparator.comparing((Map<String, Object> m) -> (LocalDate) m.get("dueDate")));
         return list;
     }
 
-    private boolean isOverdue(WorkOrder workOrder, LocalDate today) {
-        if (workOrder == null) {
+    private static boolean isOverdue(WOStatus status, LocalDate due, LocalDate today) {
+        if (status == WOStatus.COMPLETED) {
             return false;
         }
-        if (workOrder.getStatus() == WOStatus.COMPLETED) {
-            return false;
-        }
-        LocalDate due = workOrder.getDueDate();
         return due != null && due.isBefore(today);
     }
 
-    private String resolveEngineerName(FieldEngineer fe) {
-        if (fe == null) {
-            return null;
-        }
-        String name = fe.getName();
-        if (name != null && !name.isBlank()) {
-            return name;
+    private static String engineerLabel(Long feId, String displayName, String email) {
+        if (displayName != null && !displayName.isBlank()) {
+            return displayName;
         }
-        if (fe.getUser() != null && fe.getUser().getDisplayName() != null && !fe.getUser().getDisplayName().isBlank()) {
-            return fe.getUser().getDisplayName();
+        if (email != null) {
+            return email;
         }
-        if (fe.getUser() != null && fe.getUser().getEmail() != null) {
-            return fe.getUser().getEmail();
-        }
-        return "Engineer #" + fe.getId();
+        return "Engineer #" + feId;
     }
 
     private static final class EngineerLoadAccumulator {
@@ -1369,6 +1505,12 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         return ResponseEntity.noContent().build();
     }
 
+    /** Re-run a failed or stalled completion stage (invoice, PDF, delivery) now. */
+    public ResponseEntity<Void> retryCompletion(Long woId) {
+        completion.retry(tenant(), woId);
+        return ResponseEntity.accepted().build();
+    }
+
     // ----- Invoices -----
     public ResponseEntity<Void> sendInvoice(Long invoiceId, SendInvoiceRequest req) {
         // Determine delivery channel based on request. If a WhatsApp number is
@@ -1505,6 +1647,31 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         return ResponseEntity.ok(mapped);
     }
 
+    /**
+     * Cursor-mode variant of {@link #listPurchaseOrders}; see {@link Cursors}.
+     * Keyword search stays on offset paging.
+     */
+    public ResponseEntity<CursorPage<PurchaseOrderDtos.ListItem>> scrollPurchaseOrders(Long serviceId,
+                                                                                       String keyword,
+                                                                                       int size,
+                                                                                       String sort,
+                                                                                       String cursor) {
+        if (keyword != null && !keyword.isBlank()) {
+            throw new BusinessException("Cursor paging is not available for keyword search");
+        }
+        Long tenantId = tenant();
+        Sort sortSpec = Cursors.sort(sort, "createdAt", "createdAt", "id");
+        ScrollPosition position = Cursors.scrollPosition(cursor, sortSpec);
+        Limit limit = cursorLimit(size);
+        Window<PurchaseOrder> window = serviceId != null
+                ? purchaseOrderRepo.findByTenantIdAndService_Id(tenantId, serviceId, position, sortSpec, limit)
+                : purchaseOrderRepo.findByTenantId(tenantId, position, sortSpec, limit);
+        CursorPage<PurchaseOrder> rows = Cursors.page(window, sortSpec, limit.max(),
+                PurchaseOrder::getCreatedAt, PurchaseOrder::getId);
+        List<PurchaseOrderDtos.ListItem> mapped = rows.content().stream().map(this::toPurchaseOrderListItem).toList();
+        return ResponseEntity.ok(new CursorPage<>(mapped, rows.nextCursor(), rows.hasMore(), rows.size()));
+    }
+
     public ResponseEntity<PurchaseOrderDtos.Detail> getPurchaseOrder(Long id) {
         Long tenantId = tenant();
         PurchaseOrder po = purchaseOrderRepo.findByTenantIdAndId(tenantId, id)
@@ -2087,6 +2254,7 @@ public ResponseEntity<CreateCustomerResponse> createCustomer(CreateCustomerReque
         }
         Long userId = (fe.getUser() != null) ? fe.getUser().getId() : null;
         feRepo.delete(fe);
+        assignmentEngine.invalidate(tid);
         if (deleteUserIfOrphan && userId != null) {
             boolean linkedElsewhere =
                     feRepo.countByUserId(userId) > 0
@@ -2212,39 +2380,8 @@ public ResponseEntity<Resource> downloadProposalDocument(Long proposalId, Long d
     throw new BusinessException("Document does not belong to this proposal");
   }
 
-  Path path = fileStorageService
-      .loadProposalDoc(tid, proposalId, docId, d.getFilename())
-      .toPath();
-  if (!Files.exists(path)) throw new NotFoundException("File not found on disk");
-
-  try {
-    long size = Files.size(path);
-
-    // detect true mime (pdf, png, docx, etc.)
-    String ct = Files.probeContentType(path);
-    if (ct == null || ct.isBlank()) ct = "application/octet-stream";
-    MediaType mediaType = MediaType.parseMediaType(ct);
-
-    InputStreamResource body = new InputStreamResource(Files.newInputStream(path, StandardOpenOption.READ));
-
-    HttpHeaders headers = new HttpHeaders();
-    headers.setContentType(mediaType);
-    headers.setContentLength(size);
-    headers.setContentDisposition(
-        ContentDisposition.attachment()
-            .filename(d.getFilename(), StandardCharsets.UTF_8)
-            .build()
-    );
-    headers.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Disposition");
-    // stop proxies/CDNs from re-encoding or "optimizing"
-    headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate, no-transform");
-    headers.add(HttpHeaders.PRAGMA, "no-cache");
-    headers.add(HttpHeaders.EXPIRES, "0");
-
-    return new ResponseEntity<>(body, headers, HttpStatus.OK);
-  } catch (IOException e) {
-    throw new BusinessException("Failed to read file");
-  }
+  StoredFile file = fileStorageService.loadProposalDoc(tid, proposalId, docId, d.getFilename());
+  return downloads.file(file, d.getFilename(), null, false);
 }
 
     // add near other invoice helpers
@@ -2300,9 +2437,9 @@ public ResponseEntity<Void> sendProposalEmail(Long proposalId, ProposalShareRequ
         latest = proposalDocs.latestPdf(tid, p.getId());
         if (latest == null) throw new BusinessException("Generate the proposal PDF first");
         // Load the file back for attachment
-        java.io.File file = fileStorageService.loadProposalDoc(tid, p.getId(), latest.getId(), latest.getFilename());
-        try (var in = new java.io.FileInputStream(file)) {
-            pdfBytes = in.readAllBytes();
+        StoredFile file = fileStorageService.loadProposalDoc(tid, p.getId(), latest.getId(), latest.getFilename());
+        try {
+            pdfBytes = file.readAllBytes();
         } catch (java.io.IOException e) {
             throw new BusinessException("Failed to read proposal PDF for email");
         }
@@ -2351,169 +2488,36 @@ public ResponseEntity<Void> sendProposalEmail(Long proposalId, ProposalShareRequ
 }
 
 
-}
 
     public ResponseEntity<List<DispatchBoardRow>> dispatchBoard(int limit) {
         Long tid = tenant();
         int size = Math.max(1, Math.min(limit, 50));
-        List<WorkOrder> upcoming = workOrderRepo.findTop50ByTenantIdAndStatusInOrderByDueDateAsc(tid, ACTIVE_WO_STATUSES);
+        // One query with the customer, site and engineer joined in; the latest
+        // progress time is denormalised onto the work order.
+        List<WorkOrderRepository.DispatchView> upcoming =
+                workOrderRepo.findDispatchViews(tid, ACTIVE_WO_STATUSES, PageRequest.of(0, size));
         LocalDate today = LocalDate.now();
         List<DispatchBoardRow> rows = upcoming.stream()
-                .sorted(Comparator.comparing(wo -> Optional.ofNullable(wo.getDueDate()).orElse(LocalDate.MAX)))
-                .limit(size)
-                .map(wo -> {
-                    ServiceRequest sr = wo.getServiceRequest();
-                    String customerName = null;
-                    String serviceType = null;
-                    String siteAddress = null;
-                    if (sr != null) {
-                        sr.getSrn();
-                        if (sr.getCustomer() != null) {
-                            sr.getCustomer().getName();
-                            sr.getCustomer().getAddress();
-                            customerName = sr.getCustomer().getName();
-                            siteAddress = sr.getSiteAddress();
-                            if (siteAddress == null || siteAddress.isBlank()) {
-                                siteAddress = sr.getCustomer().getAddress();
-                            }
-                        }
-                        if (sr.getServiceType() != null) {
-                            serviceType = sr.getServiceType().name();
-                        }
-                        if (siteAddress == null || siteAddress.isBlank()) {
-                            siteAddress = sr.getSiteAddress();
-                        }
-                    }
-
-                    FieldEngineer fe = wo.getAssignedFE();
-                    String feName = null;
-                    String feEmail = null;
-                    if (fe != null) {
-                        fe.getId();
-                        feName = fe.getName();
-                        if (fe.getUser() != null) {
-                            fe.getUser().getDisplayName();
-                            feEmail = fe.getUser().getEmail();
-                        }
-                    }
-
-                    LocalDate dueDate = wo.getDueDate();
-                    Long daysUntilDue = null;
-                    boolean overdue = false;
-                    if (dueDate != null) {
-                        daysUntilDue = ChronoUnit.DAYS.between(today, dueDate);
-                        overdue = dueDate.isBefore(today);
-                    }
-
-                    Instant lastProgress = latestProgressInstant(tid, wo.getId());
-                    if (lastProgress == null) {
-                        lastProgress = wo.getUpdatedAt();
-                    }
-
-                    return new DispatchBoardRow(
-                            wo.getId(),
-                            wo.getWan(),
-                            wo.getStatus() != null ? wo.getStatus().name() : null,
-                            dueDate,
-                            daysUntilDue,
-                            overdue,
-                            customerName,
-                            serviceType,
-                            siteAddress,
-                            feName,
-                            feEmail,
-                            lastProgress,
-                            wo.getUpdatedAt()
-                    );
-                })
+                .map(wo -> DispatchBoardStream.row(wo, today))
                 .toList();
 
         return ResponseEntity.ok(rows);
     }
 
-    public ResponseEntity<List<FieldEngineerPerformanceDto>> fieldEngineerPerformance() {
-        Long tid = tenant();
-        List<FieldEngineer> engineers = feRepo.findByTenantId(tid);
-        LocalDate today = LocalDate.now();
-        Instant now = Instant.now();
-        Instant last30 = now.minus(Duration.ofDays(30));
-
-        List<FieldEngineerPerformanceDto> rows = new ArrayList<>(engineers.size());
-        for (FieldEngineer fe : engineers) {
-            if (fe.getUser() != null) {
-                fe.getUser().getDisplayName();
-                fe.getUser().getEmail();
-            }
-            List<WorkOrder> assigned = workOrderRepo.findByTenantIdAndAssignedFE_Id(tid, fe.getId());
-            long active = assigned.stream()
-                    .filter(wo -> wo.getStatus() != null && ACTIVE_WO_STATUSES.contains(wo.getStatus()))
-                    .count();
-            long overdue = assigned.stream()
-                    .filter(wo -> wo.getStatus() != null && ACTIVE_WO_STATUSES.contains(wo.getStatus()))
-                    .filter(wo -> wo.getDueDate() != null && wo.getDueDate().isBefore(today))
-                    .count();
-            List<WorkOrder> completed = assigned.stream()
-                    .filter(wo -> wo.getStatus() == WOStatus.COMPLETED)
-                    .toList();
-            long completedLast30 = completed.stream()
-                    .filter(wo -> Optional.ofNullable(wo.getUpdatedAt()).orElse(Instant.EPOCH).isAfter(last30))
-                    .count();
-            Double averageCompletion = null;
-            if (!completed.isEmpty()) {
-                double avg = completed.stream()
-                        .mapToDouble(wo -> {
-                            Instant start = Optional.ofNullable(wo.getCreatedAt()).orElse(wo.getUpdatedAt());
-                            Instant end = Optional.ofNullable(wo.getUpdatedAt()).orElse(start);
-                            if (start == null || end == null) {
-                                return 0d;
-                            }
-                            double minutes = Duration.between(start, end).toMinutes();
-                            return minutes / (60d * 24d);
-                        })
-                        .average()
-                        .orElse(0d);
-                averageCompletion = Math.round(avg * 10d) / 10d;
-            }
-
-            Instant lastProgress = null;
-            for (WorkOrder wo : assigned) {
-                Instant progress = latestProgressInstant(tid, wo.getId());
-                if (progress == null) {
-                    progress = wo.getUpdatedAt();
-                }
-                if (progress != null && (lastProgress == null || progress.isAfter(lastProgress))) {
-                    lastProgress = progress;
-                }
-            }
-
-            rows.add(new FieldEngineerPerformanceDto(
-                    fe.getId(),
-                    fe.getName(),
-                    fe.getUser() != null ? fe.getUser().getEmail() : null,
-                    fe.getStatus() != null ? fe.getStatus().name() : null,
-                    active,
-                    overdue,
-                    completedLast30,
-                    averageCompletion,
-                    lastProgress
-            ));
-        }
-
-        rows.sort(Comparator
-                .comparingLong(FieldEngineerPerformanceDto::activeWorkOrders).reversed()
-                .thenComparingLong(FieldEngineerPerformanceDto::overdueWorkOrders).reversed()
-                .thenComparing(FieldEngineerPerformanceDto::name, Comparator.nullsLast(String::compareToIgnoreCase)));
-
-        return ResponseEntity.ok(rows);
+    /** Live row-level updates for the dispatch board; see {@link DispatchBoardStream}. */
+    public ResponseEntity<SseEmitter> dispatchBoardStream() {
+        SseEmitter emitter = dispatchStream.subscribe(tenant());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Stop nginx-style proxies from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(emitter);
     }
 
-    private Instant latestProgressInstant(Long tenantId, Long woId) {
-        if (tenantId == null || woId == null) {
-            return null;
-        }
-        return woProgressRepo.findTop1ByTenantIdAndWorkOrder_IdOrderByCreatedAtDesc(tenantId, woId)
-                .map(WorkOrderProgress::getCreatedAt)
-                .orElse(null);
+    public ResponseEntity<List<FieldEngineerPerformanceDto>> fieldEngineerPerformance() {
+        // Served from fe_stats, maintained by FeStatsService
+        return ResponseEntity.ok(feStats.performance(tenant()));
     }
 
 }
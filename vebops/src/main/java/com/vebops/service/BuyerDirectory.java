@@ -0,0 +1,299 @@
+package com.vebops.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.vebops.domain.Service;
+import com.vebops.repository.ServiceRepository;
+
+/**
+ * Per-tenant directory of distinct buyers seen on services, used by the buyer
+ * autocomplete. A buyer profile is identified by name and contact and carries
+ * the details of its most recent service. Profiles are reachable through a
+ * prefix trie over the buyer name (whole and per word), GSTIN, contact and
+ * email; every trie node keeps the ids of its {@value #TOP_K} most recently
+ * used profiles, so a lookup is a walk down the prefix and a copy of that list.
+ *
+ * <p>Like {@link ServiceSearchIndex}, a tenant's directory is built from the
+ * database on first use and kept current by {@link #record(Service)} on save.
+ * Once it is older than {@code vebops.search.refresh-seconds}, or after
+ * {@link #refresh(Long)}, a replacement is built in the background while
+ * lookups keep using the current one, so buyers saved on other nodes appear
+ * and buyers whose services were all deleted go away. Recency only moves
+ * forward, so the bounded per-node lists stay exact.</p>
+ */
+@Component
+public class BuyerDirectory {
+
+    /** Largest page the autocomplete endpoint may request. */
+    static final int TOP_K = 50;
+    // Deeper prefixes are not indexed; longer queries are cut to this length and filtered
+    private static final int MAX_DEPTH = 24;
+
+    /** Buyer details returned to the service form. */
+    public record Profile(String buyerName, String buyerGst, String buyerAddress, String buyerPin,
+                          String buyerState, String buyerContact, String buyerEmail, Instant lastUsedAt) {}
+
+    private static final Logger log = LoggerFactory.getLogger(BuyerDirectory.class);
+
+    private final ServiceRepository services;
+    private final Duration refreshAfter;
+    private final Executor rebuilds;
+    private final Map<Long, TenantDirectory> tenants = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BuyerDirectory(ServiceRepository services,
+                          @Value("${vebops.search.refresh-seconds:1800}") long refreshSeconds) {
+        this(services, Duration.ofSeconds(refreshSeconds), Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    BuyerDirectory(ServiceRepository services, Duration refreshAfter, Executor rebuilds) {
+        this.services = services;
+        this.refreshAfter = refreshAfter;
+        this.rebuilds = rebuilds;
+    }
+
+    /** Up to {@code limit} distinct buyers matching {@code prefix}, most recently used first. */
+    public List<Profile> lookup(Long tenantId, String prefix, int limit) {
+        String p = normalise(prefix);
+        if (p.isEmpty() || limit <= 0) return List.of();
+        return directory(tenantId, true).lookup(p, Math.min(limit, TOP_K));
+    }
+
+    /** Fold a saved service's buyer into the directory. */
+    public void record(Service s) {
+        if (s == null || s.getTenantId() == null) return;
+        Instant at = s.getCreatedAt() != null ? s.getCreatedAt() : Instant.now();
+        Profile p = new Profile(s.getBuyerName(), s.getBuyerGst(), s.getBuyerAddress(),
+            s.getBuyerPin(), s.getBuyerState(), s.getBuyerContact(), s.getBuyerEmail(), at);
+        TenantDirectory d = directory(s.getTenantId(), false);
+        d.put(p);
+        TenantDirectory next = d.next;
+        if (next != null) next.put(p);
+    }
+
+    /** Rebuild the tenant in the background, e.g. after its services were found deleted. */
+    public void refresh(Long tenantId) {
+        TenantDirectory d = tenants.get(tenantId);
+        if (d != null) rebuild(tenantId, d);
+    }
+
+    private TenantDirectory directory(Long tenantId, boolean load) {
+        TenantDirectory d = tenants.computeIfAbsent(tenantId, t -> new TenantDirectory());
+        if (!load) return d;
+        if (d.staleAfter(refreshAfter)) {
+            rebuild(tenantId, d);
+            d = tenants.get(tenantId);
+        }
+        // Only the first load of a tenant is waited on; rebuilds never block a lookup
+        d.ensureLoaded(tenantId);
+        return d;
+    }
+
+    // Load a replacement off the lookup path and swap it in; saves meanwhile go to both
+    private void rebuild(Long tenantId, TenantDirectory current) {
+        if (!current.loaded || current.next != null) return;
+        TenantDirectory fresh = new TenantDirectory();
+        synchronized (current) {
+            if (current.next != null) return;
+            current.next = fresh;
+        }
+        rebuilds.execute(() -> {
+            try {
+                fresh.ensureLoaded(tenantId);
+                tenants.replace(tenantId, current, fresh);
+            } catch (RuntimeException ex) {
+                log.warn("Rebuilding the buyer directory of tenant {} failed: {}", tenantId, ex.getMessage());
+                // Stale again right away, so the next lookup retries
+                current.loadedAt = System.nanoTime() - refreshAfter.toNanos() - 1;
+                current.next = null;
+            }
+        });
+    }
+
+    static String profileKey(Profile p) {
+        return normalise(p.buyerName()) + "|" + normalise(p.buyerContact());
+    }
+
+    private static String normalise(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> terms(Profile p) {
+        Set<String> out = new LinkedHashSet<>();
+        String name = normalise(p.buyerName());
+        if (!name.isEmpty()) {
+            out.add(name);
+            for (String word : name.split("[\\s,./()&-]+")) {
+                if (!word.isEmpty()) out.add(word);
+            }
+        }
+        for (String v : new String[] { p.buyerGst(), p.buyerContact(), p.buyerEmail() }) {
+            String n = normalise(v);
+            if (!n.isEmpty()) out.add(n);
+        }
+        return out;
+    }
+
+    private static boolean newer(Profile a, Profile b) {
+        return b == null || a.lastUsedAt().compareTo(b.lastUsedAt()) >= 0;
+    }
+
+    private final class TenantDirectory {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Profile> profiles = new HashMap<>();
+        private final Node root = new Node();
+        private volatile boolean loaded;
+        private volatile long loadedAt;
+        // Replacement being built; saves are applied to it as well
+        private volatile TenantDirectory next;
+
+        boolean staleAfter(Duration ttl) {
+            return loaded && System.nanoTime() - loadedAt > ttl.toNanos();
+        }
+
+        void ensureLoaded(Long tenantId) {
+            if (loaded) return;
+            lock.writeLock().lock();
+            try {
+                if (loaded) return;
+                for (ServiceRepository.SearchFields f : services.findSearchFieldsByTenantId(tenantId)) {
+                    if (f.getCreatedAt() == null) continue;
+                    put(new Profile(f.getBuyerName(), f.getBuyerGst(), f.getBuyerAddress(), f.getBuyerPin(),
+                        f.getBuyerState(), f.getBuyerContact(), f.getBuyerEmail(), f.getCreatedAt()));
+                }
+                loadedAt = System.nanoTime();
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void put(Profile p) {
+            String key = profileKey(p);
+            if ("|".equals(key)) return;
+            lock.writeLock().lock();
+            try {
+                Profile existing = profiles.get(key);
+                if (!newer(p, existing)) return;
+                profiles.put(key, p);
+                // A profile's terms come from its key fields plus GSTIN/email, which may change
+                Set<String> terms = terms(p);
+                if (existing != null) terms.addAll(terms(existing));
+                for (String term : terms) {
+                    Node node = root;
+                    int depth = Math.min(term.length(), MAX_DEPTH);
+                    for (int i = 0; i < depth; i++) {
+                        node = node.child(term.charAt(i), true);
+                        node.offer(key);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<Profile> lookup(String prefix, int limit) {
+            lock.readLock().lock();
+            try {
+                Node node = root;
+                int depth = Math.min(prefix.length(), MAX_DEPTH);
+                for (int i = 0; i < depth && node != null; i++) {
+                    node = node.child(prefix.charAt(i), false);
+                }
+                if (node == null) return List.of();
+                List<Profile> out = new ArrayList<>(Math.min(limit, node.size));
+                for (int i = 0; i < node.size && out.size() < limit; i++) {
+                    Profile p = profiles.get(node.top[i]);
+                    // Stale entries (GSTIN/email edited away) and over-long prefixes are filtered here
+                    if (!matches(p, prefix)) continue;
+                    out.add(p);
+                }
+                return out;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private boolean matches(Profile p, String prefix) {
+            for (String term : terms(p)) {
+                if (term.startsWith(prefix)) return true;
+            }
+            return false;
+        }
+
+        /** Ordering of node lists: most recently used profile first. */
+        private int compare(String a, String b) {
+            return profiles.get(b).lastUsedAt().compareTo(profiles.get(a).lastUsedAt());
+        }
+
+        /**
+         * Trie node with children in parallel sorted arrays (most nodes have one
+         * or two) and a bounded, recency-ordered list of profile keys.
+         */
+        private final class Node {
+            private char[] labels = new char[0];
+            private Node[] children = new Node[0];
+            private String[] top = new String[2];
+            private int size;
+
+            Node child(char c, boolean create) {
+                int i = Arrays.binarySearch(labels, c);
+                if (i >= 0) return children[i];
+                if (!create) return null;
+                int at = -i - 1;
+                char[] l = new char[labels.length + 1];
+                Node[] n = new Node[children.length + 1];
+                System.arraycopy(labels, 0, l, 0, at);
+                System.arraycopy(children, 0, n, 0, at);
+                l[at] = c;
+                n[at] = new Node();
+                System.arraycopy(labels, at, l, at + 1, labels.length - at);
+                System.arraycopy(children, at, n, at + 1, children.length - at);
+                labels = l;
+                children = n;
+                return n[at];
+            }
+
+            // Called after profiles has been updated with the key's new recency
+            void offer(String key) {
+                int pos = -1;
+                for (int i = 0; i < size; i++) {
+                    if (top[i].equals(key)) { pos = i; break; }
+                }
+                if (pos >= 0) {
+                    System.arraycopy(top, pos + 1, top, pos, size - pos - 1);
+                    size--;
+                }
+                int at = 0;
+                while (at < size && compare(top[at], key) <= 0) at++;
+                if (at >= TOP_K) return;
+                if (size == top.length) {
+                    top = Arrays.copyOf(top, Math.min(TOP_K, top.length * 2));
+                }
+                int moved = Math.min(size, top.length - 1) - at;
+                System.arraycopy(top, at, top, at + 1, moved);
+                top[at] = key;
+                size = Math.min(size + 1, TOP_K);
+            }
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.vebops.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.vebops.domain.CapacitySlot;
+import com.vebops.domain.WorkOrder;
+import com.vebops.domain.enums.CapacitySlotKind;
+import com.vebops.domain.enums.FEStatus;
+import com.vebops.dto.CapacitySlotDto;
+import com.vebops.dto.CapacitySlotRequest;
+import com.vebops.dto.FieldEngineerDto;
+import com.vebops.exception.BusinessException;
+import com.vebops.exception.NotFoundException;
+import com.vebops.repository.CapacitySlotRepository;
+import com.vebops.repository.FieldEngineerRepository;
+import com.vebops.repository.TeamMemberRepository;
+import com.vebops.util.IntervalTree;
+
+/**
+ * Engineer and team capacity by day. Slots (work order bookings, leave and
+ * holds) are stored in {@code capacity_slots}; each tenant's current and
+ * future slots are also held in an {@link IntervalTree} over epoch days, so
+ * "who is busy between these dates" is a single overlap query and "who is
+ * free" is the tenant's available engineers minus that set. A team slot
+ * blocks every member of the team.
+ *
+ * <p>Assignments book the work order's window ({@code startDate}, or today,
+ * through {@code dueDate}) for the engineer. Overlapping bookings are either
+ * reported or refused depending on {@code vebops.capacity.overbooking}.
+ * When refused, the check runs against {@code capacity_slots} under a row lock
+ * on the engineer, so two bookings of the same engineer cannot both pass.</p>
+ *
+ * <p>In-memory changes are applied after the writing transaction commits. A
+ * tenant's calendar is reloaded after {@code vebops.capacity.refresh-seconds},
+ * which picks up slots written by other nodes or by bulk deletes, and
+ * immediately after {@link #invalidate(Long)}.</p>
+ */
+@Service
+public class CapacityCalendar {
+
+    private static final Logger log = LoggerFactory.getLogger(CapacityCalendar.class);
+
+    /** Slots that ended longer ago than this are not kept in memory. */
+    static final int HISTORY_DAYS = 31;
+
+    public enum Overbooking { WARN, REFUSE }
+
+    private final CapacitySlotRepository slots;
+    private final TeamMemberRepository members;
+    private final FieldEngineerRepository engineers;
+    private final Overbooking overbooking;
+    private final Duration refreshAfter;
+    private final Map<Long, TenantCalendar> tenants = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CapacityCalendar(CapacitySlotRepository slots,
+                            TeamMemberRepository members,
+                            FieldEngineerRepository engineers,
+                            @Value("${vebops.capacity.overbooking:WARN}") Overbooking overbooking,
+                            @Value("${vebops.capacity.refresh-seconds:60}") long refreshSeconds) {
+        this(slots, members, engineers, overbooking, Duration.ofSeconds(refreshSeconds));
+    }
+
+    CapacityCalendar(CapacitySlotRepository slots,
+                     TeamMemberRepository members,
+                     FieldEngineerRepository engineers,
+                     Overbooking overbooking,
+                     Duration refreshAfter) {
+        this.slots = slots;
+        this.members = members;
+        this.engineers = engineers;
+        this.overbooking = overbooking;
+        this.refreshAfter = refreshAfter;
+    }
+
+    /** Slots overlapping {@code [from, to]}, in start order. */
+    public List<CapacitySlotDto> slots(Long tenantId, LocalDate from, LocalDate to) {
+        TenantCalendar cal = calendar(tenantId);
+        synchronized (cal) {
+            return cal.tree.overlapping(from.toEpochDay(), to.toEpochDay());
+        }
+    }
+
+    /** Engineers with any slot overlapping {@code [from, to]}. */
+    public Set<Long> busyEngineers(Long tenantId, LocalDate from, LocalDate to) {
+        TenantCalendar cal = calendar(tenantId);
+        Set<Long> busy = new HashSet<>();
+        synchronized (cal) {
+            for (CapacitySlotDto s : cal.tree.overlapping(from.toEpochDay(), to.toEpochDay())) {
+                if (s.feId() != null) busy.add(s.feId());
+                if (s.teamId() != null) busy.addAll(cal.teamMembers.getOrDefault(s.teamId(), Set.of()));
+            }
+        }
+        return busy;
+    }
+
+    /** Available engineers (optionally of one team) with nothing booked for {@code days} days from {@code from}. */
+    public List<FieldEngineerDto> freeEngineers(Long tenantId, LocalDate from, int days, Long teamId) {
+        if (days < 1) throw new BusinessException("days must be at least 1");
+        Set<Long> busy = busyEngineers(tenantId, from, from.plusDays(days - 1L));
+        Set<Long> team = null;
+        if (teamId != null) {
+            TenantCalendar cal = calendar(tenantId);
+            synchronized (cal) {
+                team = new HashSet<>(cal.teamMembers.getOrDefault(teamId, Set.of()));
+            }
+        }
+        List<FieldEngineerDto> out = new ArrayList<>();
+        for (var fe : engineers.findWithUserByTenantId(tenantId)) {
+            if (fe.getStatus() != FEStatus.AVAILABLE || busy.contains(fe.getId())) continue;
+            if (team != null && !team.contains(fe.getId())) continue;
+            out.add(FieldEngineerDto.from(fe));
+        }
+        return out;
+    }
+
+    /** Slots that would overlap booking {@code feId} for {@code [from, to]}, ignoring the given work order's own. */
+    public List<CapacitySlotDto> conflicts(Long tenantId, Long feId, LocalDate from, LocalDate to, Long workOrderId) {
+        TenantCalendar cal = calendar(tenantId);
+        List<CapacitySlotDto> out = new ArrayList<>();
+        synchronized (cal) {
+            Set<Long> teams = cal.teamsOf.getOrDefault(feId, Set.of());
+            for (CapacitySlotDto s : cal.tree.overlapping(from.toEpochDay(), to.toEpochDay())) {
+                if (workOrderId != null && workOrderId.equals(s.workOrderId())) continue;
+                if (feId.equals(s.feId()) || (s.teamId() != null && teams.contains(s.teamId()))) out.add(s);
+            }
+        }
+        return out;
+    }
+
+    /** Conflicts the assignment of {@code feId} to the work order would cause; empty when it has no window. */
+    public List<CapacitySlotDto> conflicts(WorkOrder wo, Long feId) {
+        LocalDate[] window = window(wo);
+        if (window == null) return List.of();
+        return conflicts(wo.getTenantId(), feId, window[0], window[1], wo.getId());
+    }
+
+    /**
+     * Whether {@code feId} is free for the work order's window, i.e. booking
+     * them would overlap nothing. Always true without a window. When
+     * overbooking is refused this makes the same check as {@link #book}, under
+     * the engineer's row lock, so a following book in the same transaction
+     * cannot fail.
+     */
+    @Transactional
+    public boolean isFree(WorkOrder wo, Long feId) {
+        LocalDate[] window = window(wo);
+        if (window == null) return true;
+        Long tenantId = wo.getTenantId();
+        // Memory first: engineers it already shows as busy are not locked at all
+        if (!conflicts(tenantId, feId, window[0], window[1], wo.getId()).isEmpty()) return false;
+        if (overbooking != Overbooking.REFUSE) return true;
+        if (engineers.lockByTenantIdAndId(tenantId, feId).isEmpty()) return false;
+        return slots.findOverlapping(tenantId, feId, window[0], window[1], wo.getId()).isEmpty();
+    }
+
+    /**
+     * Book the work order's window for its new engineer, replacing any earlier
+     * booking of the same work order. Throws when overbooking is refused.
+     */
+    @Transactional
+    public List<CapacitySlotDto> book(WorkOrder wo, Long feId) {
+        Long tenantId = wo.getTenantId();
+        LocalDate[] window = window(wo);
+        release(tenantId, wo.getId());
+        if (window == null) return List.of();
+        List<CapacitySlotDto> conflicts;
+        if (overbooking == Overbooking.REFUSE) {
+            // Check and insert under the engineer's row lock, against the table rather than this node's memory
+            engineers.lockByTenantIdAndId(tenantId, feId)
+                .orElseThrow(() -> new NotFoundException("Field engineer not found"));
+            if (!slots.findOverlapping(tenantId, feId, window[0], window[1], wo.getId()).isEmpty()) {
+                throw new BusinessException("Field engineer is already booked between " + window[0] + " and " + window[1]);
+            }
+            conflicts = List.of();
+        } else {
+            conflicts = conflicts(tenantId, feId, window[0], window[1], wo.getId());
+            if (!conflicts.isEmpty()) {
+                log.info("Work order {} overbooks engineer {} ({} overlapping slots)", wo.getId(), feId, conflicts.size());
+            }
+        }
+        CapacitySlot slot = new CapacitySlot();
+        slot.setTenantId(tenantId);
+        slot.setFeId(feId);
+        slot.setStartDate(window[0]);
+        slot.setEndDate(window[1]);
+        slot.setKind(CapacitySlotKind.WORK_ORDER);
+        slot.setWorkOrderId(wo.getId());
+        slot = slots.save(slot);
+        CapacitySlotDto dto = CapacitySlotDto.from(slot);
+        afterCommit(tenantId, cal -> cal.add(dto));
+        return conflicts;
+    }
+
+    /** Drop the work order's booking, e.g. on completion. */
+    @Transactional
+    public void release(Long tenantId, Long workOrderId) {
+        List<CapacitySlot> existing = slots.findByTenantIdAndWorkOrderId(tenantId, workOrderId);
+        if (existing.isEmpty()) return;
+        slots.deleteAll(existing);
+        List<Long> ids = existing.stream().map(CapacitySlot::getId).toList();
+        afterCommit(tenantId, cal -> ids.forEach(cal::remove));
+    }
+
+    @Transactional
+    public CapacitySlotDto addSlot(Long tenantId, CapacitySlotRequest req) {
+        if ((req.feId == null) == (req.teamId == null)) {
+            throw new BusinessException("Give either feId or teamId");
+        }
+        if (req.endDate.isBefore(req.startDate)) {
+            throw new BusinessException("endDate must not be before startDate");
+        }
+        if (req.kind == CapacitySlotKind.WORK_ORDER) {
+            throw new BusinessException("Work order slots are created by assignment");
+        }
+        CapacitySlot slot = new CapacitySlot();
+        slot.setTenantId(tenantId);
+        slot.setFeId(req.feId);
+        slot.setTeamId(req.teamId);
+        slot.setStartDate(req.startDate);
+        slot.setEndDate(req.endDate);
+        slot.setKind(req.kind != null ? req.kind : CapacitySlotKind.HOLD);
+        slot.setNote(req.note);
+        slot = slots.save(slot);
+        CapacitySlotDto dto = CapacitySlotDto.from(slot);
+        afterCommit(tenantId, cal -> cal.add(dto));
+        return dto;
+    }
+
+    @Transactional
+    public void removeSlot(Long tenantId, Long id) {
+        CapacitySlot slot = slots.findByTenantIdAndId(tenantId, id)
+            .orElseThrow(() -> new NotFoundException("Capacity slot not found"));
+        if (slot.getKind() == CapacitySlotKind.WORK_ORDER) {
+            throw new BusinessException("Work order slots are released by reassigning or completing the work order");
+        }
+        slots.delete(slot);
+        afterCommit(tenantId, cal -> cal.remove(id));
+    }
+
+    /**
+     * Forget a tenant, e.g. after slots or team memberships were changed in
+     * bulk; it is reloaded on next use. Inside a transaction it is dropped
+     * again after commit, so a reload in between cannot keep the old rows.
+     */
+    public void invalidate(Long tenantId) {
+        tenants.remove(tenantId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tenants.remove(tenantId);
+                }
+            });
+        }
+    }
+
+    // Start (or today) through due date; no window without a due date
+    private static LocalDate[] window(WorkOrder wo) {
+        LocalDate due = wo.getDueDate();
+        if (due == null) return null;
+        LocalDate start = wo.getStartDate() != null ? wo.getStartDate() : LocalDate.now();
+        if (start.isAfter(due)) start = due;
+        return new LocalDate[] { start, due };
+    }
+
+    private void afterCommit(Long tenantId, Consumer<TenantCalendar> change) {
+        Runnable apply = () -> {
+            TenantCalendar cal = tenants.get(tenantId);
+            if (cal == null) return;
+            synchronized (cal) {
+                change.accept(cal);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    private TenantCalendar calendar(Long tenantId) {
+        TenantCalendar cal = tenants.get(tenantId);
+        if (cal != null && System.nanoTime() - cal.loadedAt > refreshAfter.toNanos()) {
+            tenants.remove(tenantId, cal);
+        }
+        return tenants.computeIfAbsent(tenantId, this::load);
+    }
+
+    private TenantCalendar load(Long tenantId) {
+        TenantCalendar cal = new TenantCalendar(System.nanoTime());
+        for (TeamMemberRepository.Membership m : members.findMemberships(tenantId)) {
+            cal.teamMembers.computeIfAbsent(m.getTeamId(), t -> new HashSet<>()).add(m.getFeId());
+            cal.teamsOf.computeIfAbsent(m.getFeId(), f -> new HashSet<>()).add(m.getTeamId());
+        }
+        LocalDate horizon = LocalDate.now().minus(HISTORY_DAYS, ChronoUnit.DAYS);
+        for (CapacitySlot s : slots.findByTenantIdAndEndDateGreaterThanEqual(tenantId, horizon)) {
+            cal.add(CapacitySlotDto.from(s));
+        }
+        return cal;
+    }
+
+    private static final class TenantCalendar {
+        final long loadedAt;
+        final IntervalTree<CapacitySlotDto> tree = new IntervalTree<>();
+        final Map<Long, CapacitySlotDto> byId = new HashMap<>();
+        final Map<Long, Set<Long>> teamMembers = new HashMap<>();
+        final Map<Long, Set<Long>> teamsOf = new HashMap<>();
+
+        TenantCalendar(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        void add(CapacitySlotDto s) {
+            if (byId.putIfAbsent(s.id(), s) != null) return;
+            tree.insert(s.startDate().toEpochDay(), s.endDate().toEpochDay(), s.id(), s);
+        }
+
+        void remove(Long id) {
+            CapacitySlotDto s = byId.remove(id);
+            if (s != null) tree.remove(s.startDate().toEpochDay(), s.id());
+        }
+    }
+}
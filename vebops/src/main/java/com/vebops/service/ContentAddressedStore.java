@@ -0,0 +1,254 @@
+package com.vebops.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.StoredObject;
+import com.vebops.repository.StoredBlobRepository;
+import com.vebops.repository.StoredObjectRepository;
+
+/**
+ * Deduplicating, content-addressed storage underneath {@link FileStorageService}.
+ * Every write is hashed with SHA-256 and the bytes are kept exactly once in the
+ * {@link StorageBackend} under {@code blobs/ab/cd/<sha256>}. Logical paths
+ * (tenant/entity/doc) are recorded as {@link StoredObject} rows pointing at the
+ * blob, and the blob carries a reference count so the stored object can be
+ * removed once no logical path refers to it any more. Writing content that
+ * already exists is therefore a metadata-only operation.
+ *
+ * <p>Reference counts change through atomic upserts, and a put takes its
+ * reference before it checks for the blob file. A blob whose count reaches
+ * zero is purged after commit in a transaction of its own that re-reads the
+ * count under a row lock, so a put racing the last release either keeps the
+ * file or writes it again.</p>
+ *
+ * <p>Incoming streams are spooled to a scratch directory below
+ * {@code vebops.storage.root} while they are hashed, whichever backend is
+ * active; the scratch file is then handed to the backend.</p>
+ */
+@Service
+public class ContentAddressedStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentAddressedStore.class);
+
+    private final Path scratch;
+    private final StorageBackend backend;
+    private final StoredBlobRepository blobs;
+    private final StoredObjectRepository objects;
+    private final TransactionTemplate purgeTx;
+
+    public ContentAddressedStore(
+        @Value("${vebops.storage.root:./data/uploads}") String rootDir,
+        StorageBackend backend,
+        StoredBlobRepository blobs,
+        StoredObjectRepository objects,
+        PlatformTransactionManager txManager
+    ) {
+        this.scratch = Paths.get(rootDir).toAbsolutePath().normalize().resolve("tmp").resolve("put");
+        this.backend = backend;
+        this.blobs = blobs;
+        this.objects = objects;
+        this.purgeTx = new TransactionTemplate(txManager);
+        this.purgeTx.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Store {@code content} under the logical {@code key}. When a blob with the
+     * same digest already exists no bytes are written; only the mapping and the
+     * reference count change.
+     */
+    @Transactional
+    public StoredObject put(Long tenantId, String key, byte[] content) throws IOException {
+        byte[] data = content != null ? content : new byte[0];
+        String sha = sha256Hex(data);
+        StoredObject mapping = link(tenantId, key, sha, data.length);
+        if (!backend.exists(blobKey(sha))) {
+            backend.put(blobKey(sha), data);
+        }
+        return mapping;
+    }
+
+    /**
+     * Streaming variant of {@link #put(Long, String, byte[])}. The stream is
+     * spooled to a temporary file while it is hashed, so memory use stays
+     * constant regardless of the upload size. The temporary file is discarded
+     * when the content turns out to be a duplicate.
+     */
+    @Transactional
+    public StoredObject put(Long tenantId, String key, InputStream in) throws IOException {
+        Path tmp = newTempFile();
+        try {
+            MessageDigest digest = newDigest();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), digest)) {
+                in.transferTo(out);
+            }
+            return adopt(tenantId, key, tmp, HexFormat.of().formatHex(digest.digest()));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Adopt an already-spooled file (e.g. a completed chunked upload) under
+     * {@code key}. The file is hashed in place and handed to the backend, which
+     * for local disk is a rename, so its bytes are never copied; duplicates are
+     * simply deleted.
+     */
+    @Transactional
+    public StoredObject put(Long tenantId, String key, Path source) throws IOException {
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return adopt(tenantId, key, source, HexFormat.of().formatHex(digest.digest()));
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    public Optional<StoredObject> find(String key) {
+        return objects.findByStorageKey(key);
+    }
+
+    /**
+     * Drop the logical key and release its reference on the underlying blob.
+     */
+    @Transactional
+    public void release(String key) {
+        objects.findByStorageKey(key).ifPresent(o -> {
+            objects.delete(o);
+            decrement(o.getSha256());
+        });
+    }
+
+    /**
+     * Release every logical key below {@code prefix} except {@code keep}. Used
+     * when a document directory is rewritten under a different filename so the
+     * previous content does not linger.
+     */
+    @Transactional
+    public void releaseUnder(String prefix, String keep) {
+        for (StoredObject o : objects.findByStorageKeyStartingWith(prefix)) {
+            if (o.getStorageKey().equals(keep)) continue;
+            objects.delete(o);
+            decrement(o.getSha256());
+        }
+    }
+
+    public static String blobKey(String sha) {
+        return "blobs/" + sha.substring(0, 2) + "/" + sha.substring(2, 4) + "/" + sha;
+    }
+
+    private StoredObject adopt(Long tenantId, String key, Path file, String sha) throws IOException {
+        StoredObject mapping = link(tenantId, key, sha, Files.size(file));
+        if (!backend.exists(blobKey(sha))) {
+            backend.put(blobKey(sha), file);
+        }
+        return mapping;
+    }
+
+    // Takes the blob reference (and with it the row lock) before the caller
+    // checks for the file, so a concurrent purge cannot delete it underneath
+    private StoredObject link(Long tenantId, String key, String sha, long size) {
+        StoredObject existing = objects.findByStorageKey(key).orElse(null);
+        if (existing != null && sha.equals(existing.getSha256())) {
+            return existing;
+        }
+        increment(sha, size);
+        StoredObject mapping = existing;
+        if (mapping == null) {
+            mapping = new StoredObject();
+            mapping.setTenantId(tenantId);
+            mapping.setStorageKey(key);
+        } else {
+            decrement(mapping.getSha256());
+        }
+        mapping.setSha256(sha);
+        mapping.setSize(size);
+        return objects.save(mapping);
+    }
+
+    private void increment(String sha, long size) {
+        blobs.addReference(sha, size, Instant.now());
+    }
+
+    private void decrement(String sha) {
+        if (blobs.dropReference(sha, Instant.now()) == 0) return;
+        Long remaining = blobs.findRefCount(sha);
+        if (remaining != null && remaining > 0) return;
+        purgeAfterCommit(sha);
+    }
+
+    private void purgeAfterCommit(String sha) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    purge(sha);
+                }
+            });
+        } else {
+            purge(sha);
+        }
+    }
+
+    /**
+     * Delete the blob file and row if the count is still zero. The row lock
+     * makes a concurrent put's reference upsert wait until the file is gone,
+     * after which that put writes it again.
+     */
+    void purge(String sha) {
+        try {
+            purgeTx.executeWithoutResult(status -> blobs.findBySha256(sha).ifPresent(blob -> {
+                if (blob.getRefCount() > 0) return;
+                try {
+                    backend.delete(blobKey(sha));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+                blobs.delete(blob);
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete unreferenced blob {}: {}", blobKey(sha), e.getMessage());
+        }
+    }
+
+    private Path newTempFile() throws IOException {
+        Files.createDirectories(scratch);
+        return Files.createTempFile(scratch, "put-", ".part");
+    }
+
+    public static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -6,7 +6,6 @@ import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Base64;
@@ -16,10 +15,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
@@ -40,7 +37,6 @@ import com.vebops.domain.Customer;
 import com.vebops.domain.CustomerPO;
 import com.vebops.domain.Document;
 import com.vebops.domain.Invoice;
-import com.vebops.domain.InvoiceLine;
 import com.vebops.domain.Proposal;
 import com.vebops.domain.ServiceRequest;
 import com.vebops.domain.WorkOrder;
@@ -48,17 +44,16 @@ import com.vebops.domain.WorkOrderProgress;
 import com.vebops.domain.WorkOrderProgressAttachment;
 import com.vebops.domain.enums.DocumentEntityType;
 import com.vebops.domain.enums.DocumentKind;
-import com.vebops.domain.enums.InvoiceStatus;
 import com.vebops.domain.enums.ProposalStatus;
 import com.vebops.domain.enums.WOStatus;
 import com.vebops.dto.CustomerDashboardSummary;
+import com.vebops.dto.ReceivableAgingDto;
 import com.vebops.exception.BusinessException;
 import com.vebops.exception.NotFoundException;
 import com.vebops.repository.CompanyDetailsRepository;
 import com.vebops.repository.CustomerPORepository;
 import com.vebops.repository.CustomerRepository;
 import com.vebops.repository.DocumentRepository;
-import com.vebops.repository.InvoiceLineRepository;
 import com.vebops.repository.InvoiceRepository;
 import com.vebops.repository.ProposalRepository;
 import com.vebops.repository.WorkOrderProgressAttachmentRepository;
@@ -77,10 +72,10 @@ public class CustomerService {
     private final ProposalRepository proposalRepo;
     private final ProposalService proposals;
     private final InvoiceRepository invoiceRepo;
-    private final InvoiceLineRepository invLineRepo;
     private final DocumentRepository docRepo;
     private final CustomerRepository customerRepo;
     private final FileStorageService fileStorageService;
+    private final FileDownloadService downloads;
     private final CustomerPORepository customerPORepo;
     private final WorkOrderRepository workOrderRepo;
     private final WorkOrderProgressRepository workOrderProgressRepo;
@@ -88,26 +83,31 @@ public class CustomerService {
     private final com.vebops.repository.ServiceRepository serviceRepo;
     private final CompanyDetailsRepository companyRepo;
     private final ObjectMapper objectMapper;
+    private final InvoiceAgingService aging;
+    private final InvoiceService invoices;
 
     public CustomerService(ProposalRepository proposalRepo,
                            ProposalService proposals,
                            InvoiceRepository invoiceRepo,
-                           InvoiceLineRepository invLineRepo, DocumentRepository docRepo,
+                           DocumentRepository docRepo,
                            CustomerRepository customerRepo, FileStorageService fileStorageService,
+                           FileDownloadService downloads,
                            CustomerPORepository customerPORepo,
                            WorkOrderRepository workOrderRepo,
                            WorkOrderProgressRepository workOrderProgressRepo,
                            WorkOrderProgressAttachmentRepository progressAttachmentRepo,
                            com.vebops.repository.ServiceRepository serviceRepo,
                            CompanyDetailsRepository companyRepo,
-                           ObjectMapper objectMapper) {
+                           ObjectMapper objectMapper,
+                           InvoiceAgingService aging,
+                           InvoiceService invoices) {
         this.proposalRepo = proposalRepo;
         this.proposals = proposals;
         this.invoiceRepo = invoiceRepo;
-        this.invLineRepo = invLineRepo;
         this.docRepo = docRepo;
         this.customerRepo = customerRepo;
         this.fileStorageService = fileStorageService;
+        this.downloads = downloads;
         this.customerPORepo = customerPORepo;
         this.workOrderRepo = workOrderRepo;
         this.workOrderProgressRepo = workOrderProgressRepo;
@@ -115,6 +115,8 @@ public class CustomerService {
         this.serviceRepo = serviceRepo;
         this.companyRepo = companyRepo;
         this.objectMapper = objectMapper;
+        this.aging = aging;
+        this.invoices = invoices;
     }
 
     private Long tenant() { return TenantContext.getTenantId(); }
@@ -173,8 +175,6 @@ public class CustomerService {
                 wo.getStatus().name();
             }
         });
-        List<Invoice> invoices = invoiceRepo.findByTenantIdAndCustomer_Id(tid, cid);
-
         long openProposals = proposals.stream()
                 .filter(p -> p.getStatus() == ProposalStatus.DRAFT || p.getStatus() == ProposalStatus.SENT)
                 .count();
@@ -196,23 +196,12 @@ public class CustomerService {
                 .filter(wo -> wo.getStatus() == WOStatus.COMPLETED)
                 .count();
 
-        EnumSet<InvoiceStatus> pendingStatuses = EnumSet.of(
-                InvoiceStatus.DRAFT,
-                InvoiceStatus.SENT,
-                InvoiceStatus.PARTIALLY_PAID,
-                InvoiceStatus.OVERDUE
-        );
-        long pendingInvoices = invoices.stream()
-                .filter(inv -> inv.getStatus() != null && pendingStatuses.contains(inv.getStatus()))
-                .count();
-        BigDecimal outstandingAmount = invoices.stream()
-                .filter(inv -> inv.getStatus() != null && pendingStatuses.contains(inv.getStatus()))
-                .map(inv -> Optional.ofNullable(inv.getTotal()).orElse(BigDecimal.ZERO))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Issued, unpaid invoices from the receivable aging buckets
+        ReceivableAgingDto receivables = aging.forCustomer(tid, cid);
 
         Instant lastProgress = null;
         for (WorkOrder wo : workOrders) {
-            Instant progress = latestProgressInstant(tid, wo.getId());
+            Instant progress = wo.getLastProgressAt();
             if (progress == null) {
                 progress = wo.getUpdatedAt();
             }
@@ -228,9 +217,10 @@ public class CustomerService {
                 activeWorkOrders,
                 inProgressWorkOrders,
                 completedWorkOrders,
-                pendingInvoices,
-                outstandingAmount,
-                lastProgress
+                receivables.invoiceCount(),
+                receivables.total(),
+                lastProgress,
+                receivables
         ));
     }
 
@@ -248,24 +238,21 @@ public class CustomerService {
     }
 
     /**
-     * Generates and returns a PDF invoice. Ensures the invoice belongs to the current tenant and touches
-     * nested associations to avoid lazy proxy issues.
+     * Returns the stored PDF of an invoice, rendered again only when the invoice changed since it was
+     * stored. Ensures the invoice belongs to the current tenant and customer.
      */
-    public ResponseEntity<byte[]> downloadInvoice(Long id) {
+    public ResponseEntity<Resource> downloadInvoice(Long id) {
         Long tid = tenant();
         Customer me = currentCustomerOrThrow();
         Invoice inv = invoiceRepo.findById(id).orElseThrow(() -> new NotFoundException("Invoice not found"));
         if (!tid.equals(inv.getTenantId())) throw new BusinessException("Cross-tenant access");
         if (!inv.getCustomer().getId().equals(me.getId())) throw new BusinessException("Not your invoice");
-        List<InvoiceLine> lines = invLineRepo.findByTenantIdAndInvoice_Id(tid, id);
-        byte[] pdf = PdfUtil.buildInvoicePdf(inv, lines);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=invoice-" + inv.getInvoiceNo() + ".pdf")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+        String key = invoices.storePdf(tid, id);
+        return downloads.file(fileStorageService.loadStored(key), "invoice-" + inv.getInvoiceNo() + ".pdf",
+                MediaType.APPLICATION_PDF, true);
     }
 
-    public ResponseEntity<byte[]> downloadServiceInvoice(Long workOrderId, String type) {
+    public ResponseEntity<Resource> downloadServiceInvoice(Long workOrderId, String type) {
         Long tid = tenant();
         Customer me = currentCustomerOrThrow();
         WorkOrder wo = workOrderRepo.findById(workOrderId)
@@ -285,10 +272,17 @@ public class CustomerService {
         }
 
         Document doc = findServiceDocument(tid, service.getId(), proforma);
-        byte[] pdf = loadServiceDocumentBytes(doc);
-
         Map<String, Object> meta = new LinkedHashMap<>(readServiceMap(service.getMetaJson()));
         String baseName = computeServiceFileName(meta, service.getId(), proforma);
+        String filename = (doc != null && doc.getFilename() != null && !doc.getFilename().isBlank())
+                ? doc.getFilename()
+                : baseName + ".pdf";
+
+        StoredFile stored = storedServiceDocument(doc);
+        if (stored != null) {
+            return downloads.file(stored, filename, MediaType.APPLICATION_PDF, false);
+        }
+        byte[] pdf = loadServiceDocumentBytes(doc);
 
         if (pdf == null || pdf.length == 0) {
             meta.put("docType", proforma ? "PROFORMA" : "INVOICE");
@@ -300,19 +294,7 @@ public class CustomerService {
             throw new BusinessException("Invoice document unavailable");
         }
 
-        String filename = (doc != null && doc.getFilename() != null && !doc.getFilename().isBlank())
-                ? doc.getFilename()
-                : baseName + ".pdf";
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentLength(pdf.length);
-        headers.setContentDisposition(ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build());
-        headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
-        headers.add(HttpHeaders.PRAGMA, "no-cache");
-        headers.add(HttpHeaders.EXPIRES, "0");
-
-        return new ResponseEntity<>(pdf, headers, HttpStatus.OK);
+        return downloads.bytes(pdf, filename, MediaType.APPLICATION_PDF, doc != null ? doc.getUpdatedAt() : null, false);
     }
 
     public ResponseEntity<List<ProposalDocumentRow>> proposalDocuments(Long proposalId, Long customerId) {
@@ -462,10 +444,7 @@ public class CustomerService {
             throw new BusinessException("Not your work order");
         }
 
-        byte[] data = attachment.getData();
-        if (data == null) {
-            data = new byte[0];
-        }
+        byte[] data = attachmentBytes(attachment);
         String filename = attachment.getFilename() != null ? attachment.getFilename() : "progress-photo";
         String contentType = attachment.getContentType();
         if (contentType == null || contentType.isBlank()) {
@@ -474,11 +453,23 @@ public class CustomerService {
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "inline; filename=\"" + filename.replace("\"", "") + "\"")
+                        "inline; filename=\"" + filename.replace("\"", "_") + "\"")
                 .contentType(MediaType.parseMediaType(contentType))
                 .body(data);
     }
 
+    private byte[] attachmentBytes(WorkOrderProgressAttachment attachment) {
+        byte[] data = attachment.getData();
+        if (data == null && attachment.getStorageKey() != null) {
+            try {
+                data = fileStorageService.readStored(attachment.getStorageKey());
+            } catch (java.io.IOException e) {
+                throw new NotFoundException("Attachment file not found");
+            }
+        }
+        return data != null ? data : new byte[0];
+    }
+
     private void touchWorkOrderGraph(WorkOrder wo) {
         if (wo == null) {
             return;
@@ -560,15 +551,6 @@ public class CustomerService {
         return new ProgressAttachmentView(id, filename, contentType, size, uploadedAt, downloadPath);
     }
 
-    private Instant latestProgressInstant(Long tenantId, Long workOrderId) {
-        if (tenantId == null || workOrderId == null) {
-            return null;
-        }
-        return workOrderProgressRepo.findTop1ByTenantIdAndWorkOrder_IdOrderByCreatedAtDesc(tenantId, workOrderId)
-                .map(WorkOrderProgress::getCreatedAt)
-                .orElse(null);
-    }
-
     private String resolveSiteAddress(WorkOrder wo) {
         if (wo == null) {
             return null;
@@ -604,28 +586,22 @@ public class CustomerService {
         if (tenantId == null) {
             return null;
         }
-        List<com.vebops.domain.Service> candidates = serviceRepo.findTop50ByTenantIdOrderByCreatedAtDesc(tenantId);
-        com.vebops.domain.Service srMatch = null;
-        com.vebops.domain.Service woMatch = null;
-        for (com.vebops.domain.Service svc : candidates) {
-            if (svc == null) {
-                continue;
-            }
-            String meta = svc.getMetaJson();
-            String compact = meta != null ? meta.replaceAll("\\s+", "") : null;
-            boolean matchesSr = srId != null && metaContains(compact, srId, "serviceRequestId", "srId");
-            boolean matchesWo = woId != null && metaContains(compact, woId, "workOrderId", "woId");
-            if (matchesSr && matchesWo) {
-                return svc;
-            }
-            if (matchesSr && srMatch == null) {
-                srMatch = svc;
+        if (srId != null && woId != null) {
+            var both = serviceRepo.findFirstByTenantIdAndServiceRequestIdAndWorkOrderIdOrderByCreatedAtDesc(tenantId, srId, woId);
+            if (both.isPresent()) {
+                return both.get();
             }
-            if (matchesWo && woMatch == null) {
-                woMatch = svc;
+        }
+        if (srId != null) {
+            var bySr = serviceRepo.findFirstByTenantIdAndServiceRequestIdOrderByCreatedAtDesc(tenantId, srId);
+            if (bySr.isPresent()) {
+                return bySr.get();
             }
         }
-        return srMatch != null ? srMatch : woMatch;
+        if (woId != null) {
+            return serviceRepo.findFirstByTenantIdAndWorkOrderIdOrderByCreatedAtDesc(tenantId, woId).orElse(null);
+        }
+        return null;
     }
 
     private Document findServiceDocument(Long tenantId, Long serviceId, boolean proforma) {
@@ -654,15 +630,23 @@ public class CustomerService {
             }
         }
         try {
-            java.io.File file = fileStorageService.loadServiceInvoiceDoc(tenant(), doc.getEntityId(), doc.getId(), url);
-            if (file != null && file.exists()) {
-                return Files.readAllBytes(file.toPath());
+            StoredFile file = storedServiceDocument(doc);
+            if (file != null) {
+                return file.readAllBytes();
             }
         } catch (Exception ignored) {
         }
         return null;
     }
 
+    private StoredFile storedServiceDocument(Document doc) {
+        if (doc == null || doc.getUrl() == null || doc.getUrl().startsWith("data:")) {
+            return null;
+        }
+        StoredFile file = fileStorageService.loadServiceInvoiceDoc(tenant(), doc.getEntityId(), doc.getId(), doc.getUrl());
+        return file.exists() ? file : null;
+    }
+
     private byte[] generateServiceInvoicePdf(com.vebops.domain.Service service,
                                              Map<String, Object> meta,
                                              List<Map<String, Object>> items,
@@ -720,22 +704,6 @@ public class CustomerService {
         return code;
     }
 
-    private boolean metaContains(String compactMeta, Long value, String... keys) {
-        if (compactMeta == null || value == null || keys == null || keys.length == 0) {
-            return false;
-        }
-        String str = value.toString();
-        for (String key : keys) {
-            if (key == null) {
-                continue;
-            }
-            String prefix = "\"" + key + "\":";
-            if (compactMeta.contains(prefix + str) || compactMeta.contains(prefix + "\"" + str + "\"")) {
-                return true;
-            }
-        }
-        return false;
-    }
 
     private static BigDecimal sanitizeAmount(BigDecimal value) {
         return value != null ? value : BigDecimal.ZERO;
@@ -805,38 +773,8 @@ public class CustomerService {
             throw new BusinessException("Document does not belong to this proposal");
         }
 
-        Path path = fileStorageService
-            .loadProposalDoc(tid, proposalId, docId, d.getFilename())
-            .toPath();
-        if (!Files.exists(path)) throw new NotFoundException("File not found on disk");
-
-        try {
-            long size = Files.size(path);
-
-            // detect true mime (pdf, png, docx, etc.)
-            String ct = Files.probeContentType(path);
-            if (ct == null || ct.isBlank()) ct = "application/octet-stream";
-            MediaType mediaType = MediaType.parseMediaType(ct);
-
-            InputStreamResource body = new InputStreamResource(Files.newInputStream(path, StandardOpenOption.READ));
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(mediaType);
-            headers.setContentLength(size);
-            headers.setContentDisposition(
-                ContentDisposition.attachment()
-                    .filename(d.getFilename(), StandardCharsets.UTF_8)
-                    .build()
-            );
-            // stop proxies/CDNs from re-encoding or "optimizing"
-            headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate, no-transform");
-            headers.add(HttpHeaders.PRAGMA, "no-cache");
-            headers.add(HttpHeaders.EXPIRES, "0");
-
-            return new ResponseEntity<>(body, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            throw new BusinessException("Failed to read file");
-        }
+        StoredFile file = fileStorageService.loadProposalDoc(tid, proposalId, docId, d.getFilename());
+        return downloads.file(file, d.getFilename(), null, false);
     }
 
     public record CustomerSummary(Long id, String name, String email, String mobile) {
@@ -0,0 +1,161 @@
+package com.vebops.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.Document;
+import com.vebops.repository.DocumentRepository;
+
+/**
+ * Moves legacy service invoice PDFs that were stored inline as
+ * {@code data:application/pdf;base64,...} in {@code documents.url} into
+ * {@link FileStorageService}, rewriting the column to the stored filename the
+ * same way {@code ServiceController.ensureServiceInvoiceDoc} does for new
+ * documents.
+ *
+ * <p>Rows are found with keyset pagination on the primary key and each row is
+ * migrated in its own short transaction, so a run can be interrupted at any
+ * point: migrated rows no longer match the filter and the next run simply picks
+ * up what is left. Batches are separated by a configurable pause to keep the
+ * load on the database and the storage backend low. The pass runs when
+ * {@code vebops.migration.data-urls.enabled} is set or when an administrator
+ * requests it, and progress is available through {@link #progress()}.</p>
+ */
+@Service
+public class DataUrlMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(DataUrlMigrationService.class);
+
+    static final String PDF_DATA_URL = "data:application/pdf;base64,";
+
+    public record MigrationProgress(boolean running, long migrated, long failed, Long lastId,
+                                    Instant startedAt, Instant finishedAt) {}
+
+    private final DocumentRepository documents;
+    private final FileStorageService storage;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile MigrationProgress progress = new MigrationProgress(false, 0, 0, null, null, null);
+
+    public DataUrlMigrationService(DocumentRepository documents,
+                                   FileStorageService storage,
+                                   PlatformTransactionManager txManager,
+                                   @Value("${vebops.migration.data-urls.enabled:false}") boolean enabled,
+                                   @Value("${vebops.migration.data-urls.batch-size:50}") int batchSize,
+                                   @Value("${vebops.migration.data-urls.pause-ms:250}") long pauseMillis) {
+        this.documents = documents;
+        this.storage = storage;
+        this.tx = new TransactionTemplate(txManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    public MigrationProgress progress() {
+        return progress;
+    }
+
+    /** Ask the scheduler to run a pass on its next tick. */
+    public MigrationProgress request() {
+        requested.set(true);
+        return progress;
+    }
+
+    @Scheduled(fixedDelay = 60 * 1000L)
+    public void tick() {
+        if (enabled || requested.getAndSet(false)) {
+            migrateAll();
+        }
+    }
+
+    /**
+     * Run one full pass over the documents table. Returns immediately when a
+     * pass is already in progress.
+     */
+    public MigrationProgress migrateAll() {
+        if (!running.compareAndSet(false, true)) {
+            return progress;
+        }
+        long migrated = 0;
+        long failed = 0;
+        Long lastId = 0L;
+        Instant started = Instant.now();
+        progress = new MigrationProgress(true, 0, 0, null, started, null);
+        try {
+            while (true) {
+                List<Long> ids = documents.findDataUrlIdsAfter(lastId, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) break;
+                for (Long id : ids) {
+                    if (migrateOne(id)) migrated++;
+                    else failed++;
+                    lastId = id;
+                }
+                progress = new MigrationProgress(true, migrated, failed, lastId, started, null);
+                log.info("Data URL migration: {} migrated, {} failed, last document id {}", migrated, failed, lastId);
+                if (ids.size() < batchSize) break;
+                if (!pause()) break;
+            }
+        } finally {
+            progress = new MigrationProgress(false, migrated, failed, lastId, started, Instant.now());
+            running.set(false);
+        }
+        if (migrated > 0 || failed > 0) {
+            log.info("Data URL migration finished: {} migrated, {} failed", migrated, failed);
+        }
+        return progress;
+    }
+
+    private boolean migrateOne(Long id) {
+        try {
+            Boolean ok = tx.execute(status -> {
+                Document doc = documents.findById(id).orElse(null);
+                // Regenerated or removed since the id was read: nothing left to do
+                if (doc == null || doc.getUrl() == null || !doc.getUrl().startsWith(PDF_DATA_URL)) return true;
+                byte[] pdf = Base64.getDecoder().decode(doc.getUrl().substring(PDF_DATA_URL.length()));
+                String filename = doc.getFilename() != null && !doc.getFilename().isBlank()
+                    ? doc.getFilename() : "document-" + doc.getId() + ".pdf";
+                try {
+                    String stored = storage.saveServiceInvoiceDoc(doc.getTenantId(), doc.getEntityId(), doc.getId(), filename, pdf);
+                    doc.setUrl(stored);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                documents.save(doc);
+                return true;
+            });
+            return Boolean.TRUE.equals(ok);
+        } catch (RuntimeException e) {
+            log.warn("Data URL migration skipped document {}: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean pause() {
+        if (pauseMillis == 0) return true;
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
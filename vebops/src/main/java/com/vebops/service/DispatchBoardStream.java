@@ -0,0 +1,248 @@
+package com.vebops.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import com.vebops.domain.enums.WOStatus;
+import com.vebops.dto.DispatchBoardDelta;
+import com.vebops.dto.DispatchBoardRow;
+import com.vebops.exception.BusinessException;
+import com.vebops.repository.WorkOrderRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-tenant Server-Sent Events channel for the dispatch board. Each committed
+ * {@link WorkOrderChangedEvent} is turned into one {@link DispatchBoardDelta}
+ * (a single-row read) and pushed to the tenant's open boards, so they stay
+ * current without refetching the board.
+ *
+ * <p>Every connection has a bounded outbound queue drained by its own virtual
+ * thread. A client that falls {@value #QUEUE_CAPACITY} events behind is
+ * disconnected rather than buffered; the browser reconnects and reloads the
+ * board. Open connections are capped per tenant and overall.</p>
+ *
+ * <p>Subscribers live in this JVM and only hear about commits made on it, which
+ * holds for the single application node this runs as. Behind a load balancer a
+ * board would miss other nodes' changes until its connection is recycled
+ * (every 30 minutes), when the client reloads the board; a shared broker would
+ * be needed before running several nodes.</p>
+ */
+@Component
+public class DispatchBoardStream {
+
+    private static final Logger log = LoggerFactory.getLogger(DispatchBoardStream.class);
+
+    static final int QUEUE_CAPACITY = 64;
+    static final int MAX_PER_TENANT = 50;
+    static final int MAX_TOTAL = 2000;
+    // Connections are recycled periodically; EventSource-style clients reconnect transparently
+    private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long RECONNECT_MS = 5000;
+
+    private static final EnumSet<WOStatus> ACTIVE_WO_STATUSES = EnumSet.of(
+        WOStatus.NEW,
+        WOStatus.ASSIGNED,
+        WOStatus.IN_PROGRESS,
+        WOStatus.ON_HOLD
+    );
+
+    private final WorkOrderRepository workOrders;
+    private final Map<Long, Set<Subscriber>> tenants = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public DispatchBoardStream(WorkOrderRepository workOrders) {
+        this.workOrders = workOrders;
+    }
+
+    /** Open a stream for the tenant's dispatch board. */
+    public SseEmitter subscribe(Long tenantId) {
+        if (open.incrementAndGet() > MAX_TOTAL) {
+            open.decrementAndGet();
+            throw new BusinessException("Too many live dispatch board connections; try again shortly");
+        }
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(tenantId, emitter);
+        // Check and add under the map's per-key lock so concurrent opens cannot overshoot the cap
+        Set<Subscriber> subscribers = tenants.compute(tenantId, (t, current) -> {
+            Set<Subscriber> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            if (set.size() < MAX_PER_TENANT) set.add(subscriber);
+            return set;
+        });
+        if (!subscribers.contains(subscriber)) {
+            open.decrementAndGet();
+            throw new BusinessException("Too many live dispatch boards are open for this tenant");
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscriber.offer(SseEmitter.event().name("ready").reconnectTime(RECONNECT_MS).data("{}", MediaType.APPLICATION_JSON));
+        executor.execute(subscriber::drain);
+        return emitter;
+    }
+
+    /** Open connections for a tenant. */
+    public int connections(Long tenantId) {
+        Set<Subscriber> subscribers = tenants.get(tenantId);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWorkOrderChanged(WorkOrderChangedEvent event) {
+        if (connections(event.tenantId()) == 0) return;
+        // Keep the row read off the committing request thread
+        executor.execute(() -> {
+            try {
+                publish(event);
+            } catch (RuntimeException e) {
+                log.warn("Dispatch board update for WO {} failed: {}", event.workOrderId(), e.getMessage());
+            }
+        });
+    }
+
+    void publish(WorkOrderChangedEvent event) {
+        DispatchBoardDelta delta = delta(event, workOrders.findDispatchView(event.tenantId(), event.workOrderId()));
+        broadcast(event.tenantId(), SseEmitter.event().name("wo").data(delta, MediaType.APPLICATION_JSON));
+    }
+
+    static DispatchBoardDelta delta(WorkOrderChangedEvent event, Optional<WorkOrderRepository.DispatchView> view) {
+        String change = event.change().name();
+        if (view.isEmpty() || !ACTIVE_WO_STATUSES.contains(view.get().getStatus())) {
+            return new DispatchBoardDelta(DispatchBoardDelta.Type.REMOVE, event.workOrderId(), change, null);
+        }
+        return new DispatchBoardDelta(DispatchBoardDelta.Type.UPSERT, event.workOrderId(), change,
+            row(view.get(), LocalDate.now()));
+    }
+
+    /** Board row for a work order; shared with the board's initial load. */
+    public static DispatchBoardRow row(WorkOrderRepository.DispatchView wo, LocalDate today) {
+        String siteAddress = wo.getSiteAddress();
+        if (siteAddress == null || siteAddress.isBlank()) {
+            siteAddress = wo.getCustomerAddress();
+        }
+
+        LocalDate dueDate = wo.getDueDate();
+        Long daysUntilDue = null;
+        boolean overdue = false;
+        if (dueDate != null) {
+            daysUntilDue = ChronoUnit.DAYS.between(today, dueDate);
+            overdue = dueDate.isBefore(today);
+        }
+
+        Instant lastProgress = wo.getLastProgressAt();
+        if (lastProgress == null) {
+            lastProgress = wo.getUpdatedAt();
+        }
+
+        return new DispatchBoardRow(
+            wo.getId(),
+            wo.getWan(),
+            wo.getStatus() != null ? wo.getStatus().name() : null,
+            dueDate,
+            daysUntilDue,
+            overdue,
+            wo.getCustomerName(),
+            wo.getServiceType() != null ? wo.getServiceType().name() : null,
+            siteAddress,
+            wo.getFeName(),
+            wo.getFeEmail(),
+            lastProgress,
+            wo.getUpdatedAt()
+        );
+    }
+
+    // Comment lines keep proxies from idling the connection out and surface dead clients
+    @Scheduled(fixedDelay = 25_000L)
+    public void heartbeat() {
+        tenants.values().forEach(subscribers ->
+            subscribers.forEach(s -> s.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    private void broadcast(Long tenantId, SseEventBuilder event) {
+        Set<Subscriber> subscribers = tenants.get(tenantId);
+        if (subscribers == null) return;
+        subscribers.forEach(s -> s.offer(event));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        tenants.values().forEach(subscribers -> subscribers.forEach(Subscriber::disconnect));
+        executor.shutdownNow();
+    }
+
+    final class Subscriber {
+        private final Long tenantId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEventBuilder> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(Long tenantId, SseEmitter emitter) {
+            this.tenantId = tenantId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEventBuilder event) {
+            if (closed.get()) return;
+            if (!queue.offer(event)) {
+                log.debug("Dropping slow dispatch board client of tenant {}", tenantId);
+                disconnect();
+            }
+        }
+
+        void drain() {
+            try {
+                while (!closed.get()) {
+                    SseEventBuilder event = queue.poll(1, TimeUnit.SECONDS);
+                    if (event != null) emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                disconnect();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                disconnect();
+            }
+        }
+
+        void disconnect() {
+            if (closed.get()) return;
+            close();
+            try {
+                emitter.complete();
+            } catch (RuntimeException ignored) {
+                // already completed by the container
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            queue.clear();
+            Set<Subscriber> subscribers = tenants.get(tenantId);
+            if (subscribers != null) subscribers.remove(this);
+            open.decrementAndGet();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -20,7 +21,7 @@ import com.vebops.domain.FieldEngineer;
 import com.vebops.domain.KitItem;
 import com.vebops.domain.ServiceRequest;
 import com.vebops.domain.WorkOrder;
-import com.vebops.domain.WorkOrderItem;
+import com.vebops.domain.WorkOrderAssignment;
 import com.vebops.domain.WorkOrderProgress;
 import com.vebops.domain.WorkOrderProgressAttachment;
 import com.vebops.domain.enums.WOStatus;
@@ -37,6 +38,8 @@ import com.vebops.repository.WorkOrderProgressAttachmentRepository;
 import com.vebops.repository.WorkOrderQueryRepository;
 import com.vebops.repository.WorkOrderRepository;
 import com.vebops.repository.ServiceRepository;
+import com.vebops.util.Cursors;
+import com.vebops.util.ETags;
 import com.vebops.util.PdfUtil;
 
 /**
@@ -63,6 +66,7 @@ public class FeService {
     private final ServiceRepository serviceRepo;
     private final KitItemRepository kitItemRepo;
     private final WorkOrderProgressAttachmentRepository progressAttachmentRepo;
+    private final FileStorageService fileStorage;
 
     public FeService(WorkOrderService workOrders,
                      WorkOrderQueryRepository woQuery,
@@ -73,7 +77,8 @@ public class FeService {
                      FieldEngineerRepository feRepo,
                      ServiceRepository serviceRepo,
                      KitItemRepository kitItemRepo,
-                     WorkOrderProgressAttachmentRepository progressAttachmentRepo) {
+                     WorkOrderProgressAttachmentRepository progressAttachmentRepo,
+                     FileStorageService fileStorage) {
         this.workOrders = workOrders;
         this.woQuery = woQuery;
         this.woRepo = woRepo;
@@ -84,6 +89,7 @@ public class FeService {
         this.serviceRepo = serviceRepo;
         this.kitItemRepo = kitItemRepo;
         this.progressAttachmentRepo = progressAttachmentRepo;
+        this.fileStorage = fileStorage;
     }
 
     private Long tenant() { return TenantContext.getTenantId(); }
@@ -226,10 +232,7 @@ public class FeService {
             throw new BusinessException("Work order is not assigned to you");
         }
 
-        byte[] data = attachment.getData();
-        if (data == null) {
-            data = new byte[0];
-        }
+        byte[] data = attachmentBytes(attachment);
         String filename = attachment.getFilename() != null ? attachment.getFilename() : "progress-photo";
         String contentType = attachment.getContentType();
         if (contentType == null || contentType.isBlank()) {
@@ -237,18 +240,21 @@ public class FeService {
         }
 
         return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename.replace("\"", "") + "\"")
+            .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename.replace("\"", "_") + "\"")
             .contentType(MediaType.parseMediaType(contentType))
             .body(data);
     }
 
-    private Instant latestProgressInstant(Long tenantId, Long woId) {
-        if (tenantId == null || woId == null) {
-            return null;
+    private byte[] attachmentBytes(WorkOrderProgressAttachment attachment) {
+        byte[] data = attachment.getData();
+        if (data == null && attachment.getStorageKey() != null) {
+            try {
+                data = fileStorage.readStored(attachment.getStorageKey());
+            } catch (java.io.IOException e) {
+                throw new NotFoundException("Attachment file not found");
+            }
         }
-        return woProgressRepo.findTop1ByTenantIdAndWorkOrder_IdOrderByCreatedAtDesc(tenantId, woId)
-                .map(WorkOrderProgress::getCreatedAt)
-                .orElse(null);
+        return data != null ? data : new byte[0];
     }
 
     public ResponseEntity<List<WorkOrder>> assignedForCurrentUser() {
@@ -282,28 +288,31 @@ public class FeService {
                 .filter(wo -> wo.getDueDate() != null && wo.getDueDate().isBefore(today))
                 .count();
 
-        long awaitingMaterials = 0;
+        // Items of all active work orders in one query rather than one per work order
+        List<Long> activeIds = assigned.stream()
+                .filter(wo -> wo.getId() != null && wo.getStatus() != null && ACTIVE_STATUSES.contains(wo.getStatus()))
+                .map(WorkOrder::getId)
+                .toList();
+        java.util.Set<Long> awaiting = activeIds.isEmpty() ? java.util.Set.of()
+                : woItemRepo.findByTenantIdAndWorkOrder_IdIn(tid, activeIds).stream()
+                        .filter(item -> {
+                            BigDecimal planned = item.getQtyPlanned();
+                            BigDecimal issued = item.getQtyIssued();
+                            if (planned == null || issued == null) {
+                                return false;
+                            }
+                            return issued.compareTo(planned) < 0;
+                        })
+                        .map(item -> item.getWorkOrder().getId())
+                        .collect(java.util.stream.Collectors.toSet());
+        long awaitingMaterials = awaiting.size();
+
         Instant lastProgress = null;
         for (WorkOrder wo : assigned) {
             if (wo.getId() == null) {
                 continue;
             }
-            if (wo.getStatus() != null && ACTIVE_STATUSES.contains(wo.getStatus())) {
-                List<WorkOrderItem> items = woItemRepo.findByTenantIdAndWorkOrder_Id(tid, wo.getId());
-                boolean pending = items.stream().anyMatch(item -> {
-                    BigDecimal planned = item.getQtyPlanned();
-                    BigDecimal issued = item.getQtyIssued();
-                    if (planned == null || issued == null) {
-                        return false;
-                    }
-                    return issued.compareTo(planned) < 0;
-                });
-                if (pending) {
-                    awaitingMaterials++;
-                }
-            }
-
-            Instant progress = latestProgressInstant(tid, wo.getId());
+            Instant progress = wo.getLastProgressAt();
             if (progress == null) {
                 progress = wo.getUpdatedAt();
             }
@@ -419,6 +428,69 @@ public class FeService {
         );
 
         List<WorkOrderProgress> progress = woProgressRepo.findByTenantIdAndWorkOrder_IdOrderByCreatedAtAsc(tid, woId);
+        List<ProgressEntry> progressEntries = toProgressEntries(tid, woId, progress);
+
+        var assignments = woAssignRepo.findByTenantIdAndWorkOrder_IdOrderByAssignedAtDesc(tid, woId);
+        var assignment = assignments.stream().findFirst().orElse(null);
+        String instruction = assignment != null ? assignment.getNote() : null;
+        // Starting point for polling /fe/wo/{id}/updates
+        String cursor = Cursors.encodeTimeline(
+            TimelineUpdates.advance(Cursors.TimelinePosition.START, progress, assignments));
+
+        return ResponseEntity.ok(new FeWorkOrderDetail(
+            wo,
+            instruction,
+            dtoItems,
+            summary,
+            progressEntries,
+            cursor
+        ));
+    }
+
+    /**
+     * Field engineer view of a work order's new timeline entries after the
+     * {@code since} cursor, with the cursor to send next time. The latest new
+     * assignment's note is returned as the instruction. Answers 304 when the
+     * work order has not changed since the {@code If-None-Match} tag was issued.
+     */
+    public ResponseEntity<FeTimelineUpdates> detailUpdates(Long woId, String since, String ifNoneMatch) {
+        Long tid = tenant();
+        Long uid = TenantContext.getUserId();
+        var fe = feRepo.findFirstByTenantIdAndUser_Id(tid, uid)
+                .orElseThrow(() -> new NotFoundException("Field engineer profile not found for user"));
+        WorkOrderRepository.TimelineHead head = woRepo.findTimelineHead(tid, woId)
+                .orElseThrow(() -> new NotFoundException("Work order not found"));
+        if (!fe.getId().equals(head.getAssignedFeId())) {
+            throw new BusinessException("Work order is not assigned to you");
+        }
+        Cursors.TimelinePosition from = Cursors.decodeTimeline(since);
+        String etag = TimelineUpdates.etag(head, Cursors.encodeTimeline(from));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, TimelineUpdates.CACHE_CONTROL).build();
+        }
+
+        Cursors.TimelinePosition read = TimelineUpdates.rewind(from);
+        List<WorkOrderProgress> progress = woProgressRepo.findTimelineAfter(tid, woId, read.progressAt(), read.progressId());
+        List<WorkOrderAssignment> assignments = woAssignRepo.findTimelineAfter(tid, woId, read.assignedAt(), read.assignmentId());
+        String cursor = Cursors.encodeTimeline(TimelineUpdates.advance(from, progress, assignments));
+        String instruction = assignments.isEmpty() ? null : assignments.get(assignments.size() - 1).getNote();
+
+        FeTimelineUpdates body = new FeTimelineUpdates(
+            head.getId(),
+            head.getStatus() != null ? head.getStatus().name() : null,
+            head.getUpdatedAt(),
+            instruction,
+            toProgressEntries(tid, woId, progress),
+            cursor
+        );
+        return ResponseEntity.ok()
+                .eTag(TimelineUpdates.etag(head, cursor))
+                .header(HttpHeaders.CACHE_CONTROL, TimelineUpdates.CACHE_CONTROL)
+                .body(body);
+    }
+
+    private List<ProgressEntry> toProgressEntries(Long tid, Long woId, List<WorkOrderProgress> progress) {
         Map<Long, List<WorkOrderProgressAttachment>> attachmentsByProgress = Map.of();
         List<Long> progressIds = progress.stream()
                 .map(WorkOrderProgress::getId)
@@ -461,17 +533,7 @@ public class FeService {
             ));
         }
 
-        var assignment = woAssignRepo.findByTenantIdAndWorkOrder_IdOrderByAssignedAtDesc(tid, woId)
-                .stream().findFirst().orElse(null);
-        String instruction = assignment != null ? assignment.getNote() : null;
-
-        return ResponseEntity.ok(new FeWorkOrderDetail(
-            wo,
-            instruction,
-            dtoItems,
-            summary,
-            progressEntries
-        ));
+        return progressEntries;
     }
 
     private BuyerSummary deriveBuyerSummary(ServiceRequest sr, com.vebops.domain.Service svc) {
@@ -591,47 +653,25 @@ public class FeService {
         if (tenantId == null) {
             return null;
         }
-        List<com.vebops.domain.Service> candidates = serviceRepo.findTop50ByTenantIdOrderByCreatedAtDesc(tenantId);
-        com.vebops.domain.Service srMatch = null;
-        com.vebops.domain.Service woMatch = null;
-        for (com.vebops.domain.Service svc : candidates) {
-            if (svc == null) {
-                continue;
-            }
-            String meta = svc.getMetaJson();
-            String compact = meta != null ? meta.replaceAll("\\s+", "") : null;
-            boolean matchesSr = srId != null && metaContains(compact, srId, "serviceRequestId", "srId");
-            boolean matchesWo = woId != null && metaContains(compact, woId, "workOrderId", "woId");
-            if (matchesSr && matchesWo) {
-                return svc;
-            }
-            if (matchesSr && srMatch == null) {
-                srMatch = svc;
+        if (srId != null && woId != null) {
+            var both = serviceRepo.findFirstByTenantIdAndServiceRequestIdAndWorkOrderIdOrderByCreatedAtDesc(tenantId, srId, woId);
+            if (both.isPresent()) {
+                return both.get();
             }
-            if (matchesWo && woMatch == null) {
-                woMatch = svc;
-            }
-        }
-        return srMatch != null ? srMatch : woMatch;
-    }
-
-    private boolean metaContains(String compactMeta, Long value, String... keys) {
-        if (compactMeta == null || value == null || keys == null || keys.length == 0) {
-            return false;
         }
-        String str = value.toString();
-        for (String key : keys) {
-            if (key == null) {
-                continue;
-            }
-            String prefix = "\"" + key + "\":";
-            if (compactMeta.contains(prefix + str) || compactMeta.contains(prefix + "\"" + str + "\"")) {
-                return true;
+        if (srId != null) {
+            var bySr = serviceRepo.findFirstByTenantIdAndServiceRequestIdOrderByCreatedAtDesc(tenantId, srId);
+            if (bySr.isPresent()) {
+                return bySr.get();
             }
         }
-        return false;
+        if (woId != null) {
+            return serviceRepo.findFirstByTenantIdAndWorkOrderIdOrderByCreatedAtDesc(tenantId, woId).orElse(null);
+        }
+        return null;
     }
 
+
     private static String trimToNull(String value) {
         if (value == null) {
             return null;
@@ -659,7 +699,15 @@ public class FeService {
                                     String instruction,
                                     List<FeWorkOrderItem> items,
                                     ServiceSummary serviceInfo,
-                                    List<ProgressEntry> progress) { }
+                                    List<ProgressEntry> progress,
+                                    String cursor) { }
+
+    public record FeTimelineUpdates(Long workOrderId,
+                                    String status,
+                                    Instant updatedAt,
+                                    String instruction,
+                                    List<ProgressEntry> progress,
+                                    String cursor) { }
 
     public record FeWorkOrderItem(Long id,
                                   String name,
@@ -0,0 +1,196 @@
+package com.vebops.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.FeStats;
+import com.vebops.domain.FieldEngineer;
+import com.vebops.domain.enums.WOStatus;
+import com.vebops.dto.FieldEngineerPerformanceDto;
+import com.vebops.repository.FeStatsRepository;
+import com.vebops.repository.FieldEngineerRepository;
+import com.vebops.repository.WorkOrderRepository;
+import com.vebops.repository.WorkOrderRepository.FeWorkloadView;
+
+/**
+ * Maintains the {@code fe_stats} row of each field engineer. The work order
+ * service calls in whenever an assignment, progress entry or completion can
+ * change an engineer's numbers: status changes recompute that one engineer's
+ * row from their own work orders, plain progress only moves the last-activity
+ * timestamp. A nightly job (and the first start on an empty table) recomputes
+ * every row, which also ages out completions older than 30 days and work
+ * orders that have become overdue.
+ */
+@Service
+public class FeStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(FeStatsService.class);
+
+    private static final EnumSet<WOStatus> ACTIVE_WO_STATUSES = EnumSet.of(
+        WOStatus.NEW,
+        WOStatus.ASSIGNED,
+        WOStatus.IN_PROGRESS,
+        WOStatus.ON_HOLD
+    );
+
+    private final FeStatsRepository stats;
+    private final WorkOrderRepository workOrders;
+    private final FieldEngineerRepository engineers;
+    private final TransactionTemplate tx;
+
+    public FeStatsService(FeStatsRepository stats,
+                          WorkOrderRepository workOrders,
+                          FieldEngineerRepository engineers,
+                          PlatformTransactionManager txManager) {
+        this.stats = stats;
+        this.workOrders = workOrders;
+        this.engineers = engineers;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** Recompute one engineer's row, e.g. after an assignment or completion. */
+    @Transactional
+    public void refresh(Long tenantId, Long feId) {
+        if (tenantId == null || feId == null) return;
+        Instant now = Instant.now();
+        upsert(tenantId, feId, compute(workOrders.findFeWorkloadViews(tenantId, feId), LocalDate.now(), now), now);
+    }
+
+    /** A progress entry that did not change the work order status. */
+    @Transactional
+    public void progressRecorded(Long tenantId, Long feId, Instant at) {
+        if (tenantId == null || feId == null) return;
+        if (stats.touchLastProgress(tenantId, feId, at != null ? at : Instant.now()) == 0
+                && stats.findByTenantIdAndFeId(tenantId, feId).isEmpty()) {
+            refresh(tenantId, feId);
+        }
+    }
+
+    /** Performance rows for the back-office dashboard, busiest engineers as before. */
+    @Transactional(readOnly = true)
+    public List<FieldEngineerPerformanceDto> performance(Long tenantId) {
+        List<FieldEngineerPerformanceDto> rows = new ArrayList<>();
+        for (FeStatsRepository.PerformanceRow r : stats.findPerformanceRows(tenantId)) {
+            rows.add(new FieldEngineerPerformanceDto(
+                r.getFeId(),
+                r.getName(),
+                r.getEmail(),
+                r.getStatus() != null ? r.getStatus().name() : null,
+                r.getActiveCount() != null ? r.getActiveCount() : 0L,
+                r.getOverdueCount() != null ? r.getOverdueCount() : 0L,
+                r.getCompletedLast30() != null ? r.getCompletedLast30() : 0L,
+                r.getAvgCompletionDays(),
+                r.getLastProgressAt()
+            ));
+        }
+        rows.sort(Comparator
+            .comparingLong(FieldEngineerPerformanceDto::activeWorkOrders).reversed()
+            .thenComparingLong(FieldEngineerPerformanceDto::overdueWorkOrders).reversed()
+            .thenComparing(FieldEngineerPerformanceDto::name, Comparator.nullsLast(String::compareToIgnoreCase)));
+        return rows;
+    }
+
+    // First start after the table was added: fill it rather than show empty rows until the night
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIfEmpty() {
+        if (stats.count() > 0) return;
+        nightlyReconcile();
+    }
+
+    @Scheduled(cron = "0 30 2 * * *")
+    public void nightlyReconcile() {
+        try {
+            int tenants = reconcile();
+            log.info("Reconciled field engineer stats for {} tenants", tenants);
+        } catch (RuntimeException e) {
+            log.warn("Field engineer stats reconciliation stopped: {}", e.getMessage());
+        }
+    }
+
+    /** Recompute every engineer's row, one transaction per tenant. */
+    public int reconcile() {
+        List<Long> tenantIds = engineers.findDistinctTenantIds();
+        for (Long tenantId : tenantIds) {
+            tx.executeWithoutResult(status -> reconcileTenant(tenantId));
+        }
+        return tenantIds.size();
+    }
+
+    void reconcileTenant(Long tenantId) {
+        LocalDate today = LocalDate.now();
+        Instant now = Instant.now();
+        Map<Long, List<FeWorkloadView>> byEngineer = workOrders.findFeWorkloadViews(tenantId).stream()
+            .collect(Collectors.groupingBy(FeWorkloadView::getFeId));
+        Map<Long, FeStats> existing = stats.findByTenantId(tenantId).stream()
+            .collect(Collectors.toMap(FeStats::getFeId, Function.identity(), (a, b) -> a));
+        Set<Long> current = engineers.findByTenantId(tenantId).stream()
+            .map(FieldEngineer::getId)
+            .collect(Collectors.toSet());
+
+        for (Long feId : current) {
+            upsert(tenantId, feId, compute(byEngineer.getOrDefault(feId, List.of()), today, now), now);
+        }
+        List<FeStats> orphaned = existing.values().stream().filter(r -> !current.contains(r.getFeId())).toList();
+        if (!orphaned.isEmpty()) {
+            stats.deleteAll(orphaned);
+        }
+    }
+
+    private void upsert(Long tenantId, Long feId, Snapshot s, Instant now) {
+        stats.upsert(tenantId, feId, s.active(), s.overdue(), s.completedLast30(), s.completed(),
+            s.averageCompletionDays(), s.lastProgressAt(), now);
+    }
+
+    /** Numbers for one engineer, computed from the work orders currently assigned to them. */
+    record Snapshot(long active, long overdue, long completedLast30, long completed,
+                    Double averageCompletionDays, Instant lastProgressAt) {}
+
+    static Snapshot compute(List<FeWorkloadView> assigned, LocalDate today, Instant now) {
+        Instant last30 = now.minus(Duration.ofDays(30));
+        long active = 0;
+        long overdue = 0;
+        long completed = 0;
+        long completedLast30 = 0;
+        double completionDays = 0d;
+        Instant lastProgress = null;
+        for (FeWorkloadView wo : assigned) {
+            if (wo.getStatus() != null && ACTIVE_WO_STATUSES.contains(wo.getStatus())) {
+                active++;
+                if (wo.getDueDate() != null && wo.getDueDate().isBefore(today)) overdue++;
+            } else if (wo.getStatus() == WOStatus.COMPLETED) {
+                completed++;
+                Instant end = wo.getUpdatedAt();
+                if (end != null && end.isAfter(last30)) completedLast30++;
+                Instant start = wo.getCreatedAt() != null ? wo.getCreatedAt() : end;
+                if (start != null && end != null) {
+                    completionDays += Duration.between(start, end).toMinutes() / (60d * 24d);
+                }
+            }
+            Instant progress = wo.getLastProgressAt() != null ? wo.getLastProgressAt() : wo.getUpdatedAt();
+            if (progress != null && (lastProgress == null || progress.isAfter(lastProgress))) {
+                lastProgress = progress;
+            }
+        }
+        Double average = completed == 0 ? null : Math.round(completionDays / completed * 10d) / 10d;
+        return new Snapshot(active, overdue, completedLast30, completed, average, lastProgress);
+    }
+}
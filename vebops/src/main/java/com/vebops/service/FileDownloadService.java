@@ -0,0 +1,201 @@
+package com.vebops.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.vebops.exception.BusinessException;
+import com.vebops.exception.NotFoundException;
+import com.vebops.util.ETags;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Shared response builder for every file download endpoint.
+ *
+ * <p>Files on local disk are returned as a {@link FileSystemResource}, so the
+ * container streams straight from the file channel instead of buffering the
+ * whole body, and Spring MVC answers {@code Range} requests with
+ * {@code 206 Partial Content} on its own. For remote backends a single range is
+ * served here with a ranged read, so only the requested bytes are fetched.
+ * Each response carries a strong {@code ETag} (the SHA-256 for content-addressed
+ * blobs) and {@code Last-Modified}; a matching {@code If-None-Match} or
+ * {@code If-Modified-Since} short-circuits to {@code 304 Not Modified} before the
+ * file is opened.</p>
+ */
+@Service
+public class FileDownloadService {
+
+    // Revalidate on every view, but allow the browser to keep its copy.
+    private static final String CACHE_CONTROL = "private, no-cache, no-transform";
+
+    public ResponseEntity<Resource> file(StoredFile file, String filename, MediaType contentType, boolean inline) {
+        StorageBackend.ObjectInfo info = (file != null ? file.stat() : java.util.Optional.<StorageBackend.ObjectInfo>empty())
+            .orElseThrow(() -> new NotFoundException("File not found on disk"));
+        String etag = file.sha256()
+            .orElseGet(() -> Long.toHexString(info.size()) + "-" + Long.toHexString(info.lastModified().toEpochMilli()));
+
+        HttpHeaders headers = validators(etag, info.lastModified());
+        HttpServletRequest request = currentRequest();
+        if (request != null && notModified(request, headers)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        describe(headers, filename, contentType, inline);
+
+        var local = file.localPath();
+        if (local.isPresent()) {
+            return new ResponseEntity<>(new FileSystemResource(local.get()), headers, HttpStatus.OK);
+        }
+        String range = request != null ? request.getHeader(HttpHeaders.RANGE) : null;
+        if (range != null) {
+            ResponseEntity<Resource> partial = partial(file, info.size(), range, headers);
+            if (partial != null) return partial;
+        }
+        return new ResponseEntity<>(new BackendResource(file, info), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Variant for content that only exists in memory (legacy data URLs, inline
+     * database attachments). The ETag is derived from the bytes themselves.
+     */
+    public ResponseEntity<Resource> bytes(byte[] data, String filename, MediaType contentType, Instant lastModified, boolean inline) {
+        byte[] body = data != null ? data : new byte[0];
+        HttpHeaders headers = validators(ContentAddressedStore.sha256Hex(body), lastModified);
+        HttpServletRequest request = currentRequest();
+        if (request != null && notModified(request, headers)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        describe(headers, filename, contentType, inline);
+        return new ResponseEntity<>(new ByteArrayResource(body), headers, HttpStatus.OK);
+    }
+
+    private ResponseEntity<Resource> partial(StoredFile file, long size, String rangeHeader, HttpHeaders headers) {
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException malformed) {
+            return null;
+        }
+        if (ranges.size() != 1) return null; // multipart/byteranges: fall back to Spring's handling
+        HttpRange range = ranges.get(0);
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size);
+        } catch (IllegalArgumentException unsatisfiable) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+        long length = end - start + 1;
+        try {
+            InputStream in = file.open(start, length);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            headers.setContentLength(length);
+            return new ResponseEntity<>(new InputStreamResource(in), headers, HttpStatus.PARTIAL_CONTENT);
+        } catch (IOException e) {
+            throw new BusinessException("Failed to read file");
+        }
+    }
+
+    private static HttpHeaders validators(String tag, Instant lastModified) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETags.strong(tag));
+        if (lastModified != null) headers.setLastModified(lastModified.truncatedTo(ChronoUnit.SECONDS));
+        headers.add(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        headers.add(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Disposition, ETag, Last-Modified, Accept-Ranges, Content-Range");
+        return headers;
+    }
+
+    private static void describe(HttpHeaders headers, String filename, MediaType contentType, boolean inline) {
+        String name = sanitize(filename);
+        headers.setContentType(contentType != null ? contentType
+            : MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM));
+        ContentDisposition.Builder disposition = inline ? ContentDisposition.inline() : ContentDisposition.attachment();
+        headers.setContentDisposition(disposition.filename(name, StandardCharsets.UTF_8).build());
+    }
+
+    private static boolean notModified(HttpServletRequest request, HttpHeaders headers) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since
+            return ETags.matches(ifNoneMatch, headers.getETag());
+        }
+        long modified = headers.getLastModified();
+        if (modified < 0) return false;
+        try {
+            long since = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return since >= 0 && modified <= since;
+        } catch (IllegalArgumentException malformed) {
+            return false;
+        }
+    }
+
+    private static HttpServletRequest currentRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+            return attrs.getRequest();
+        }
+        return null;
+    }
+
+    private static String sanitize(String filename) {
+        if (filename == null || filename.isBlank()) return "download";
+        return filename.replace('"', '_').replace('\r', '_').replace('\n', '_');
+    }
+
+    /** Full-body resource over a remote backend object; opened only when written. */
+    private static final class BackendResource extends AbstractResource {
+        private final StoredFile file;
+        private final StorageBackend.ObjectInfo info;
+
+        BackendResource(StoredFile file, StorageBackend.ObjectInfo info) {
+            this.file = file;
+            this.info = info;
+        }
+
+        @Override
+        public String getDescription() {
+            return "stored file [" + file.key() + "]";
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return file.open();
+        }
+
+        @Override
+        public long contentLength() {
+            return info.size();
+        }
+
+        @Override
+        public long lastModified() {
+            return info.lastModified().toEpochMilli();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+    }
+}
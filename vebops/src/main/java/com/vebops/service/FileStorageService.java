@@ -5,19 +5,49 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.vebops.exception.BusinessException;
+
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 
 // imports unchanged
 
+/**
+ * Logical file storage for proposal documents, service invoices, customer POs
+ * and progress photos. Callers address files by tenant/entity/doc as before,
+ * but the bytes are written through {@link ContentAddressedStore} so identical
+ * content (re-generated invoices, re-shared proposals, re-uploaded POs) is kept
+ * only once. Files written before the content-addressed layer existed still
+ * live at their original key and are served from there. All reads and writes
+ * go through the configured {@link StorageBackend}, including the chunks of
+ * resumable uploads; only short-lived scratch files are kept on local disk
+ * below {@code vebops.storage.root}.
+ */
 @Service
 public class FileStorageService {
+    private static final int UPLOAD_BUFFER_BYTES = 64 * 1024;
+
     private final Path root;
+    private final ContentAddressedStore blobs;
+    private final StorageBackend backend;
 
     public FileStorageService(
-        @Value("${vebops.storage.root:./data/uploads}") String rootDir
+        @Value("${vebops.storage.root:./data/uploads}") String rootDir,
+        ContentAddressedStore blobs,
+        StorageBackend backend
     ) {
         this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.blobs = blobs;
+        this.backend = backend;
     }
 
     public static String sanitizeFilename(String original) {
@@ -31,16 +61,17 @@ public class FileStorageService {
     }
 
     /**
-     * Persist a generated service invoice PDF to the local filesystem.  Invoices
-     * are organised under the storage root by tenant and service identifiers
-     * using the following path pattern:
+     * Persist a generated service invoice PDF.  Invoices are addressed by
+     * tenant and service identifiers using the following logical key:
      * <pre>
-     *   root/t=&lt;tenantId&gt;/service=&lt;serviceId&gt;/doc=&lt;docId&gt;/&lt;filename&gt;
+     *   t=&lt;tenantId&gt;/service=&lt;serviceId&gt;/doc=&lt;docId&gt;/&lt;filename&gt;
      * </pre>
      *
-     * The provided filename will be sanitised to remove any characters which
-     * could lead to directory traversal or other unsafe behaviour.  The
-     * directory hierarchy will be created on demand.
+     * The bytes are stored once per distinct content in the blob store, so
+     * re-generating an unchanged invoice only updates metadata.  Any earlier
+     * file under the same doc directory is released.  The provided filename
+     * will be sanitised to remove any characters which could lead to
+     * directory traversal or other unsafe behaviour.
      *
      * @param tenantId  the tenant ID associated with the invoice
      * @param serviceId the service ID associated with the invoice
@@ -56,19 +87,17 @@ public class FileStorageService {
                                         String filename,
                                         byte[] content) throws IOException {
         String safeName = sanitizeFilename(filename);
-        Path dir = root.resolve("t=" + tenantId)
-                        .resolve("service=" + serviceId)
-                        .resolve("doc=" + docId);
-        Files.createDirectories(dir);
-        Path dest = dir.resolve(safeName);
-        Files.write(dest, content, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        String dir = serviceDocDir(tenantId, serviceId, docId);
+        String key = dir + safeName;
+        blobs.put(tenantId, key, content);
+        blobs.releaseUnder(dir, key);
         return safeName;
     }
 
     /**
-     * Load a previously stored service invoice PDF from the local filesystem.
-     * This helper reconstructs the storage path using the tenant, service and
-     * document identifiers and returns the corresponding File handle.  No
+     * Locate a previously stored service invoice PDF.
+     * This helper reconstructs the storage key using the tenant, service and
+     * document identifiers and returns a handle on the stored file.  No
      * sanitisation is performed on the filename parameter – callers must
      * ensure it contains only a filename (no path separators) and matches
      * the value returned from {@link #saveServiceInvoiceDoc(Long, Long, Long, String, byte[])}.
@@ -77,88 +106,226 @@ public class FileStorageService {
      * @param serviceId the service ID associated with the invoice
      * @param docId     the Document ID associated with the invoice
      * @param filename  the stored filename
-     * @return a File pointing to the stored PDF
+     * @return a handle on the stored PDF
      */
-    public File loadServiceInvoiceDoc(Long tenantId,
+    public StoredFile loadServiceInvoiceDoc(Long tenantId,
                                       Long serviceId,
                                       Long docId,
                                       String filename) {
-        Path p = root.resolve("t=" + tenantId)
-                     .resolve("service=" + serviceId)
-                     .resolve("doc=" + docId)
-                     .resolve(filename);
-        return p.toFile();
+        return resolve(serviceDocDir(tenantId, serviceId, docId) + filename);
     }
 
-   public String saveProposalDoc(Long tenantId, Long proposalId, Long docId, MultipartFile file) throws IOException {
-        String safeName = sanitizeFilename(StringUtils.getFilename(file.getOriginalFilename()));
-        Path dir = root.resolve("t=" + tenantId)
-                        .resolve("proposal=" + proposalId)
-                        .resolve("doc=" + docId);
-        Files.createDirectories(dir);
+    /**
+     * Persist the rendered PDF of a work order invoice under
+     * {@code t=<tenantId>/invoice=<invoiceId>/<filename>}, releasing any
+     * earlier render of the same invoice.
+     *
+     * @return the logical storage key, to be read back with {@link #readStored(String)}
+     */
+    public String saveInvoicePdf(Long tenantId, Long invoiceId, String filename, byte[] content) throws IOException {
+        String dir = "t=" + tenantId + "/invoice=" + invoiceId + "/";
+        String key = dir + safe(sanitizeFilename(filename));
+        blobs.put(tenantId, key, content);
+        blobs.releaseUnder(dir, key);
+        return key;
+    }
 
-        Path dest = dir.resolve(safeName);
+    public String saveProposalDoc(Long tenantId, Long proposalId, Long docId, MultipartFile file) throws IOException {
+        String safeName = sanitizeFilename(StringUtils.getFilename(file.getOriginalFilename()));
+        String dir = proposalDocDir(tenantId, proposalId, docId);
+        String key = dir + safeName;
         try (InputStream in = file.getInputStream()) {
-            Files.copy(in, dest, StandardCopyOption.REPLACE_EXISTING);
+            blobs.put(tenantId, key, in);
+        }
+        blobs.releaseUnder(dir, key);
+        return safeName;
+    }
+
+    public StoredFile loadProposalDoc(Long tenantId, Long proposalId, Long docId, String filename) {
+        return resolve(proposalDocDir(tenantId, proposalId, docId) + filename);
     }
+
+    public String saveProposalDoc(Long tenantId, Long proposalId, Long docId, String originalFilename, byte[] content) throws IOException {
+        String safeName = safe(originalFilename);
+        String dir = proposalDocDir(tenantId, proposalId, docId);
+        String key = dir + safeName;
+        blobs.put(tenantId, key, content);
+        blobs.releaseUnder(dir, key);
         return safeName;
+    }
+
+    // helper: use your existing safe filename method if present, else:
+    private String safe(String name){
+        if (name == null) name = "document.pdf";
+        name = org.springframework.util.StringUtils.getFilename(name);
+        if (name == null || name.isBlank()) name = "document.pdf";
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    // Load previously-saved proposal document
+    public StoredFile loadProposalDocs(Long tenantId, Long proposalId, Long docId, String filename) {
+        return loadProposalDoc(tenantId, proposalId, docId, filename);
+    }
+
+    // Store a PO file uploaded by customer
+    public String saveProposalPo(Long tenantId, Long proposalId, String originalFilename, byte[] content)
+            throws java.io.IOException {
+        String safe = safe(originalFilename);
+        blobs.put(tenantId, "t=" + tenantId + "/proposal=" + proposalId + "/po/" + safe, content);
+        return safe;
+    }
+
+    /**
+     * Write one chunk of a resumable upload at {@code offset}. Every chunk is
+     * its own object in the storage backend, keyed by the offset it starts at,
+     * so the next chunk or the completion can land on any node. The body is
+     * copied through a fixed-size buffer into a scratch file, so memory use per
+     * upload stays constant, and the scratch file is handed to the backend.
+     *
+     * <p>A chunk goes either at {@code received} or at the start of a chunk
+     * already stored (one whose acknowledgement never reached the client); the
+     * chunks it replaces are deleted once it is stored. At most {@code limit}
+     * bytes are accepted in total.</p>
+     *
+     * @param received bytes acknowledged so far
+     * @return the new end offset of the upload
+     */
+    public long writeUploadChunk(Long tenantId, Long uploadId, long offset, long received,
+                                 InputStream in, long limit) throws IOException {
+        if (offset != received && (offset > received || !backend.exists(uploadChunkKey(tenantId, uploadId, offset)))) {
+            throw new BusinessException("Chunk offset " + offset + " is not the start of an uploaded chunk");
         }
+        List<String> replaced = offset < received ? uploadChunks(tenantId, uploadId, offset, received) : List.of();
+        Path scratch = root.resolve("tmp").resolve("put");
+        Files.createDirectories(scratch);
+        Path tmp = Files.createTempFile(scratch, "chunk-", ".part");
+        try {
+            long written = 0;
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE);
+                 ReadableByteChannel src = Channels.newChannel(in)) {
+                ByteBuffer buf = ByteBuffer.allocate(UPLOAD_BUFFER_BYTES);
+                while (src.read(buf) >= 0) {
+                    buf.flip();
+                    if (offset + written + buf.remaining() > limit) {
+                        throw new BusinessException("Upload exceeds its declared size of " + limit + " bytes");
+                    }
+                    while (buf.hasRemaining()) {
+                        written += ch.write(buf);
+                    }
+                    buf.clear();
+                }
+            }
+            String key = uploadChunkKey(tenantId, uploadId, offset);
+            if (written > 0) {
+                backend.put(key, tmp);
+            }
+            for (String stale : replaced) {
+                if (written == 0 || !stale.equals(key)) backend.delete(stale);
+            }
+            return offset + written;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
 
-    public File loadProposalDoc(Long tenantId, Long proposalId, Long docId, String filename) {
-        return root.resolve("t=" + tenantId)
-                    .resolve("proposal=" + proposalId)
-                    .resolve("doc=" + docId)
-                    .resolve(filename)
-                    .toFile();
-    }
-
-    // add into FileStorageService
-public String saveProposalDoc(Long tenantId, Long proposalId, Long docId, String originalFilename, byte[] content) throws IOException {
-    String safeName = safe(originalFilename);
-    Path dir = root.resolve("t=" + tenantId)
-                   .resolve("proposal=" + proposalId)
-                   .resolve("doc=" + docId);
-    Files.createDirectories(dir);
-    Path out = dir.resolve(safeName);
-    Files.write(out, content, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-    return safeName;
-}
+    /**
+     * Copy a completed upload into the blob store as a progress photo of the
+     * given work order. The chunks are streamed in order and left in place;
+     * the caller discards them with {@link #discardUpload} once the progress
+     * entry is committed, so a failed completion can be retried.
+     *
+     * @return the logical storage key of the attachment
+     */
+    public String saveProgressUpload(Long tenantId, Long woId, Long uploadId, String filename, long size) throws IOException {
+        List<String> chunks = uploadChunks(tenantId, uploadId, 0, size);
+        String last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        long stored = last == null ? 0 : chunkOffset(last) + backend.stat(last).map(StorageBackend.ObjectInfo::size).orElse(0L);
+        if (stored != size) {
+            throw new IOException("Upload " + uploadId + " holds " + stored + " of " + size + " bytes");
+        }
+        String key = "t=" + tenantId + "/wo=" + woId + "/upload=" + uploadId + "/" + safe(filename);
+        // Each chunk is opened only when the previous one is used up
+        Iterator<String> next = chunks.iterator();
+        Enumeration<InputStream> parts = new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return next.hasNext();
+            }
 
-// helper: use your existing safe filename method if present, else:
-private String safe(String name){
-    if (name == null) name = "document.pdf";
-    name = org.springframework.util.StringUtils.getFilename(name);
-    if (name == null || name.isBlank()) name = "document.pdf";
-    return name.replaceAll("[^A-Za-z0-9._-]", "_");
-}
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return backend.stream(next.next());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        try (InputStream joined = new SequenceInputStream(parts)) {
+            blobs.put(tenantId, key, joined);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return key;
+    }
 
-// Load previously-saved proposal document as a File
-public java.io.File loadProposalDocs(Long tenantId, Long proposalId, Long docId, String filename) {
-    java.nio.file.Path p = root
-        .resolve("t=" + tenantId)
-        .resolve("proposal=" + proposalId)
-        .resolve("doc=" + docId)
-        .resolve(filename);
-    return p.toFile();
-}
+    /** Delete every chunk of an upload. */
+    public void discardUpload(Long tenantId, Long uploadId) throws IOException {
+        for (String chunk : uploadChunks(tenantId, uploadId, 0, Long.MAX_VALUE)) {
+            backend.delete(chunk);
+        }
+    }
 
-// Store a PO file uploaded by customer
-public String saveProposalPo(Long tenantId, Long proposalId, String originalFilename, byte[] content)
-        throws java.io.IOException {
-    String safe = safe(originalFilename);
-    java.nio.file.Path dir = root.resolve("t=" + tenantId)
-        .resolve("proposal=" + proposalId)
-        .resolve("po");
-    java.nio.file.Files.createDirectories(dir);
-    java.nio.file.Path out = dir.resolve(safe);
-    java.nio.file.Files.write(out, content,
-      java.nio.file.StandardOpenOption.CREATE,
-      java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
-    return safe;
-}
+    /**
+     * Locate the file behind a logical storage key recorded on an entity (e.g.
+     * {@code WorkOrderProgressAttachment.storageKey}).
+     */
+    public StoredFile loadStored(String key) {
+        return resolve(key);
+    }
 
+    public byte[] readStored(String key) throws IOException {
+        return resolve(key).readAllBytes();
+    }
 
+    private static String uploadChunkKey(Long tenantId, Long uploadId, long offset) {
+        return "tmp/uploads/t=" + tenantId + "/upload=" + uploadId + "/" + String.format("%012d", offset);
+    }
 
+    private static long chunkOffset(String chunkKey) {
+        return Long.parseLong(chunkKey.substring(chunkKey.lastIndexOf('/') + 1));
+    }
 
-}
+    // Follow the chunks from one start offset to the next, from {@code from} until {@code end} or a gap
+    private List<String> uploadChunks(Long tenantId, Long uploadId, long from, long end) throws IOException {
+        List<String> chunks = new ArrayList<>();
+        long position = from;
+        while (position < end) {
+            String key = uploadChunkKey(tenantId, uploadId, position);
+            Optional<StorageBackend.ObjectInfo> info = backend.stat(key);
+            if (info.isEmpty() || info.get().size() == 0) break;
+            chunks.add(key);
+            position += info.get().size();
+        }
+        return chunks;
+    }
+
+    /**
+     * Map a logical storage key onto the object holding its bytes: the shared
+     * content-addressed blob when the key was written through the blob store,
+     * otherwise the legacy per-document key.
+     */
+    private StoredFile resolve(String key) {
+        return blobs.find(key)
+            .map(o -> new StoredFile(backend, ContentAddressedStore.blobKey(o.getSha256()), o.getSha256()))
+            .orElseGet(() -> new StoredFile(backend, key, null));
+    }
 
+    private static String serviceDocDir(Long tenantId, Long serviceId, Long docId) {
+        return "t=" + tenantId + "/service=" + serviceId + "/doc=" + docId + "/";
+    }
+
+    private static String proposalDocDir(Long tenantId, Long proposalId, Long docId) {
+        return "t=" + tenantId + "/proposal=" + proposalId + "/doc=" + docId + "/";
+    }
+}
@@ -0,0 +1,68 @@
+package com.vebops.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.BasePooledEntity;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Moves the shared {@link BasePooledEntity} id pool past every id already in
+ * the pooled tables. Those tables used {@code AUTO_INCREMENT} before, and the
+ * pooled generator hands out the block ending at the stored value, so the
+ * stored value must be at least one full block above the current maximum.
+ *
+ * <p>Runs once all singletons exist, which is before the web server accepts
+ * requests and before scheduled jobs start. Idempotent: the pool is only ever
+ * raised.</p>
+ */
+@Component
+public class IdPoolSeeder implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdPoolSeeder.class);
+
+    static final List<String> POOLED_TABLES = List.of(
+        "work_order_items",
+        "invoice_lines",
+        "proposal_items",
+        "purchase_order_lines",
+        "kit_items",
+        "kits"
+    );
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate tx;
+
+    public IdPoolSeeder(PlatformTransactionManager txManager) {
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long floor = tx.execute(status -> {
+            long max = 0;
+            for (String table : POOLED_TABLES) {
+                Number n = (Number) em.createNativeQuery("select coalesce(max(id), 0) from " + table).getSingleResult();
+                max = Math.max(max, n.longValue());
+            }
+            long seed = max + BasePooledEntity.ALLOCATION_SIZE + 1;
+            em.createNativeQuery("insert into " + BasePooledEntity.POOL_TABLE + " (pool, next_val) values (?1, ?2)"
+                    + " on duplicate key update next_val = greatest(next_val, ?2)")
+                .setParameter(1, BasePooledEntity.POOL)
+                .setParameter(2, seed)
+                .executeUpdate();
+            return seed;
+        });
+        log.info("Pooled id generator starts at or above {}", floor);
+    }
+}
@@ -0,0 +1,242 @@
+package com.vebops.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.ReceivableAging;
+import com.vebops.domain.enums.InvoiceStatus;
+import com.vebops.dto.ReceivableAgingDto;
+import com.vebops.repository.InvoiceRepository;
+import com.vebops.repository.InvoiceRepository.ReceivableRow;
+import com.vebops.repository.ReceivableAgingRepository;
+
+/**
+ * Ages unpaid invoices and keeps the {@code receivable_aging} buckets that
+ * the dashboards read. Once a night, SENT invoices older than the payment
+ * terms move to OVERDUE in batches of {@value #BATCH}, each batch in its own
+ * transaction. Every customer's buckets are then recomputed, one transaction
+ * per tenant; a tenant that fails is logged and skipped, not the rest. Between
+ * runs, a status change made by the invoice service recomputes the buckets of
+ * that one customer.
+ *
+ * <p>Every node runs the job. Both steps are idempotent: invoices move only
+ * from SENT, and bucket rows are written with an upsert, so overlapping runs
+ * and refreshes end with the same rows rather than a duplicate-key error.</p>
+ */
+@Service
+public class InvoiceAgingService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceAgingService.class);
+
+    /** Days after the invoice date at which a SENT invoice becomes OVERDUE. */
+    public static final int PAYMENT_TERMS_DAYS = 30;
+    static final int BATCH = 500;
+
+    /** Issued and not yet fully paid. */
+    static final Set<InvoiceStatus> RECEIVABLE =
+        EnumSet.of(InvoiceStatus.SENT, InvoiceStatus.PARTIALLY_PAID, InvoiceStatus.OVERDUE);
+
+    private final ReceivableAgingRepository aging;
+    private final InvoiceRepository invoices;
+    private final TransactionTemplate tx;
+
+    public InvoiceAgingService(ReceivableAgingRepository aging,
+                               InvoiceRepository invoices,
+                               PlatformTransactionManager txManager) {
+        this.aging = aging;
+        this.invoices = invoices;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Recompute one customer's buckets once the current transaction commits.
+     * Runs in a transaction of its own, so a failure here never undoes the
+     * status change; the nightly run repairs the row.
+     */
+    public void customerChanged(Long tenantId, Long customerId) {
+        if (tenantId == null || customerId == null) return;
+        Runnable refresh = () -> {
+            try {
+                tx.executeWithoutResult(status -> refresh(tenantId, customerId, LocalDate.now()));
+            } catch (RuntimeException e) {
+                log.warn("Receivable aging for customer {} not refreshed: {}", customerId, e.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh.run();
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public ReceivableAgingDto forTenant(Long tenantId) {
+        return toDto(aging.sumForTenant(tenantId));
+    }
+
+    @Transactional(readOnly = true)
+    public ReceivableAgingDto forAllTenants() {
+        return toDto(aging.sumAll());
+    }
+
+    @Transactional(readOnly = true)
+    public ReceivableAgingDto forCustomer(Long tenantId, Long customerId) {
+        return aging.findByTenantIdAndCustomerId(tenantId, customerId)
+            .map(InvoiceAgingService::toDto)
+            .orElse(ReceivableAgingDto.EMPTY);
+    }
+
+    // First start after the table was added
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIfEmpty() {
+        if (aging.count() > 0) return;
+        nightly();
+    }
+
+    @Scheduled(cron = "0 15 1 * * *")
+    public void nightly() {
+        try {
+            LocalDate today = LocalDate.now();
+            int overdue = markOverdue(today);
+            int tenants = rebuild(today);
+            log.info("Invoice aging: {} invoices became overdue, buckets rebuilt for {} tenants", overdue, tenants);
+        } catch (RuntimeException e) {
+            log.warn("Invoice aging run stopped: {}", e.getMessage());
+        }
+    }
+
+    /** Move SENT invoices past their payment terms to OVERDUE; returns how many moved. */
+    public int markOverdue(LocalDate today) {
+        LocalDate dueBefore = today.minusDays(PAYMENT_TERMS_DAYS);
+        int moved = 0;
+        List<Long> ids;
+        do {
+            ids = tx.execute(s -> invoices.findIdsDueBefore(InvoiceStatus.SENT, dueBefore, Limit.of(BATCH)));
+            if (ids.isEmpty()) break;
+            List<Long> batch = ids;
+            moved += tx.execute(s -> invoices.moveStatus(batch, InvoiceStatus.SENT, InvoiceStatus.OVERDUE, Instant.now()));
+        } while (ids.size() == BATCH);
+        return moved;
+    }
+
+    /** Recompute every customer's buckets, one transaction per tenant. */
+    public int rebuild(LocalDate today) {
+        Set<Long> tenantIds = new HashSet<>(invoices.findDistinctTenantIdsByStatusIn(RECEIVABLE));
+        tenantIds.addAll(aging.findDistinctTenantIds());
+        int rebuilt = 0;
+        for (Long tenantId : tenantIds) {
+            try {
+                tx.executeWithoutResult(status -> rebuildTenant(tenantId, today));
+                rebuilt++;
+            } catch (RuntimeException e) {
+                log.warn("Receivable aging for tenant {} not rebuilt: {}", tenantId, e.getMessage());
+            }
+        }
+        return rebuilt;
+    }
+
+    void rebuildTenant(Long tenantId, LocalDate today) {
+        Map<Long, List<ReceivableRow>> byCustomer = invoices.findReceivableRows(tenantId, RECEIVABLE).stream()
+            .filter(r -> r.getCustomerId() != null)
+            .collect(Collectors.groupingBy(ReceivableRow::getCustomerId));
+        Instant now = Instant.now();
+        byCustomer.forEach((customerId, rows) -> upsert(tenantId, customerId, rows, today, now));
+        Set<Long> settled = aging.findByTenantId(tenantId).stream()
+            .map(ReceivableAging::getCustomerId)
+            .collect(Collectors.toCollection(HashSet::new));
+        settled.removeAll(byCustomer.keySet());
+        if (!settled.isEmpty()) {
+            aging.deleteCustomers(tenantId, settled);
+        }
+    }
+
+    void refresh(Long tenantId, Long customerId, LocalDate today) {
+        List<ReceivableRow> rows = invoices.findReceivableRows(tenantId, customerId, RECEIVABLE);
+        if (rows.isEmpty()) {
+            aging.deleteCustomers(tenantId, List.of(customerId));
+            return;
+        }
+        upsert(tenantId, customerId, rows, today, Instant.now());
+    }
+
+    private void upsert(Long tenantId, Long customerId, List<ReceivableRow> unpaid, LocalDate today, Instant now) {
+        ReceivableAging row = new ReceivableAging();
+        apply(row, unpaid, today);
+        aging.upsert(tenantId, customerId, row.getDays0To30(), row.getDays31To60(), row.getDays61To90(),
+            row.getDays90Plus(), row.getInvoiceCount(), row.getOverdueCount(), row.getOverdueTotal(), row.getAsOf(), now);
+    }
+
+    static void apply(ReceivableAging row, List<ReceivableRow> unpaid, LocalDate today) {
+        BigDecimal[] buckets = { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO };
+        long overdueCount = 0;
+        BigDecimal overdueTotal = BigDecimal.ZERO;
+        for (ReceivableRow inv : unpaid) {
+            BigDecimal total = inv.getTotal() != null ? inv.getTotal() : BigDecimal.ZERO;
+            long age = inv.getInvoiceDate() != null ? ChronoUnit.DAYS.between(inv.getInvoiceDate(), today) : 0;
+            int bucket = age <= 30 ? 0 : age <= 60 ? 1 : age <= 90 ? 2 : 3;
+            buckets[bucket] = buckets[bucket].add(total);
+            if (inv.getStatus() == InvoiceStatus.OVERDUE) {
+                overdueCount++;
+                overdueTotal = overdueTotal.add(total);
+            }
+        }
+        row.setDays0To30(buckets[0]);
+        row.setDays31To60(buckets[1]);
+        row.setDays61To90(buckets[2]);
+        row.setDays90Plus(buckets[3]);
+        row.setInvoiceCount(unpaid.size());
+        row.setOverdueCount(overdueCount);
+        row.setOverdueTotal(overdueTotal);
+        row.setAsOf(today);
+    }
+
+    private static ReceivableAgingDto toDto(ReceivableAging row) {
+        return dto(row.getDays0To30(), row.getDays31To60(), row.getDays61To90(), row.getDays90Plus(),
+            row.getInvoiceCount(), row.getOverdueCount(), row.getOverdueTotal());
+    }
+
+    private static ReceivableAgingDto toDto(ReceivableAgingRepository.Totals totals) {
+        if (totals == null) return ReceivableAgingDto.EMPTY;
+        return dto(totals.getDays0To30(), totals.getDays31To60(), totals.getDays61To90(), totals.getDays90Plus(),
+            totals.getInvoiceCount() != null ? totals.getInvoiceCount() : 0L,
+            totals.getOverdueCount() != null ? totals.getOverdueCount() : 0L,
+            totals.getOverdueTotal());
+    }
+
+    private static ReceivableAgingDto dto(BigDecimal d30, BigDecimal d60, BigDecimal d90, BigDecimal d90plus,
+                                          long invoiceCount, long overdueCount, BigDecimal overdueTotal) {
+        BigDecimal a = orZero(d30), b = orZero(d60), c = orZero(d90), d = orZero(d90plus);
+        return new ReceivableAgingDto(a, b, c, d, a.add(b).add(c).add(d), invoiceCount, overdueCount, orZero(overdueTotal));
+    }
+
+    private static BigDecimal orZero(BigDecimal v) {
+        return v != null ? v : BigDecimal.ZERO;
+    }
+}
@@ -13,5 +13,28 @@ public interface InvoiceService {
      * updated to SENT.
      */
     void sendInvoiceViaWhatsapp(Long tenantId, Long invoiceId, String toWhatsapp);
+    /**
+     * Make sure a PDF rendered from the invoice as it is now is stored,
+     * recording the storage key in {@link Invoice#getPdfUrl()} and on the
+     * work order's PDF document. Renders only when nothing is stored or the
+     * invoice or its lines changed since the last render. Returns the key.
+     */
+    String storePdf(Long tenantId, Long invoiceId);
+    /**
+     * Mark a draft invoice SENT, then store its PDF as {@link #storePdf} does.
+     * For an invoice that is about to be delivered, so the stored render
+     * already prints its final status and delivery attaches it as is.
+     */
+    String issuePdf(Long tenantId, Long invoiceId);
+    /** The invoice PDF, read from storage unless it has to be rendered again. */
+    byte[] pdf(Long tenantId, Long invoiceId);
+    /**
+     * Email the stored invoice PDF (rendering it first if none is stored) and
+     * mark the invoice SENT. The status and PDF are committed before the
+     * mail is sent, and the mail goes out outside any transaction of this
+     * service. Unlike {@link #sendInvoice} a mail failure is thrown so the
+     * caller can retry.
+     */
+    void deliverInvoice(Long tenantId, Long invoiceId, String toEmail);
     void markPaid(Long tenantId, Long invoiceId);
 }
@@ -0,0 +1,214 @@
+package com.vebops.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.vebops.context.TenantContext;
+import com.vebops.domain.FieldEngineer;
+import com.vebops.domain.ProgressUploadSession;
+import com.vebops.domain.WorkOrder;
+import com.vebops.domain.enums.UploadSessionStatus;
+import com.vebops.domain.enums.WOProgressStatus;
+import com.vebops.domain.enums.WOStatus;
+import com.vebops.dto.ProgressRequest;
+import com.vebops.dto.StartUploadRequest;
+import com.vebops.exception.BusinessException;
+import com.vebops.exception.NotFoundException;
+import com.vebops.repository.FieldEngineerRepository;
+import com.vebops.repository.ProgressUploadSessionRepository;
+import com.vebops.repository.WorkOrderRepository;
+
+/**
+ * Resumable, chunked uploads of field engineer progress photos. A session is
+ * opened with the declared size, chunks are PUT at byte offsets and stored as
+ * objects in the storage backend by {@link FileStorageService}, and completing
+ * the session records a progress entry with the photo attached by storage key.
+ * The session row only tracks the acknowledged offset, so any node can take
+ * the next chunk.
+ * Nothing is buffered beyond a fixed copy buffer, and a client that lost its
+ * connection reads the session to learn the last acknowledged offset.
+ */
+@Service
+public class ProgressUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressUploadService.class);
+
+    // Sessions idle for longer than this are discarded together with their chunks.
+    private static final Duration SESSION_TTL = Duration.ofHours(24);
+
+    private final ProgressUploadSessionRepository sessions;
+    private final FieldEngineerRepository feRepo;
+    private final WorkOrderRepository woRepo;
+    private final WorkOrderService workOrders;
+    private final FileStorageService storage;
+
+    public ProgressUploadService(ProgressUploadSessionRepository sessions,
+                                 FieldEngineerRepository feRepo,
+                                 WorkOrderRepository woRepo,
+                                 WorkOrderService workOrders,
+                                 FileStorageService storage) {
+        this.sessions = sessions;
+        this.feRepo = feRepo;
+        this.woRepo = woRepo;
+        this.workOrders = workOrders;
+        this.storage = storage;
+    }
+
+    public record UploadStatus(Long uploadId, Long workOrderId, String filename, long size,
+                               long offset, UploadSessionStatus status, Instant expiresAt) {
+        static UploadStatus of(ProgressUploadSession s) {
+            return new UploadStatus(s.getId(), s.getWorkOrderId(), s.getFilename(), s.getTotalSize(),
+                s.getReceivedBytes(), s.getStatus(), s.getExpiresAt());
+        }
+    }
+
+    private Long tenant() { return TenantContext.getTenantId(); }
+
+    @Transactional
+    public ResponseEntity<UploadStatus> start(Long woId, StartUploadRequest req) {
+        Long tid = tenant();
+        FieldEngineer fe = currentFe(tid);
+        WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("Work order not found"));
+        if (!tid.equals(wo.getTenantId())) throw new BusinessException("Cross-tenant access");
+        if (wo.getStatus() == WOStatus.COMPLETED) {
+            throw new BusinessException("Work order is already completed and cannot be updated");
+        }
+        if (req.size == null || req.size <= 0) throw new BusinessException("Upload size is required");
+        if (req.size > WorkOrderService.MAX_PROGRESS_ATTACHMENT_BYTES) {
+            throw new BusinessException("Progress attachment exceeds the 8 MB limit");
+        }
+
+        ProgressUploadSession s = new ProgressUploadSession();
+        s.setTenantId(tid);
+        s.setWorkOrderId(woId);
+        s.setFeId(fe.getId());
+        s.setFilename(req.filename != null && !req.filename.isBlank() ? req.filename.trim() : "progress-photo");
+        s.setContentType(req.contentType != null && !req.contentType.isBlank()
+            ? req.contentType.trim() : "application/octet-stream");
+        s.setTotalSize(req.size);
+        s.setExpiresAt(Instant.now().plus(SESSION_TTL));
+        sessions.save(s);
+        return ResponseEntity.ok(UploadStatus.of(s));
+    }
+
+    public ResponseEntity<UploadStatus> status(Long woId, Long uploadId) {
+        return ResponseEntity.ok(UploadStatus.of(ownedSession(woId, uploadId)));
+    }
+
+    /**
+     * Write one chunk at {@code offset}. The offset may be at or before the last
+     * acknowledged position (a chunk whose response was lost is simply sent
+     * again) but never past it. Deliberately not transactional: the chunk is
+     * stored first and the new offset is recorded afterwards.
+     */
+    public ResponseEntity<UploadStatus> chunk(Long woId, Long uploadId, long offset, InputStream body) {
+        ProgressUploadSession s = ownedSession(woId, uploadId);
+        if (s.getStatus() != UploadSessionStatus.OPEN) throw new BusinessException("Upload is already completed");
+        if (offset < 0 || offset > s.getReceivedBytes()) {
+            throw new BusinessException("Chunk offset " + offset + " does not match uploaded bytes " + s.getReceivedBytes());
+        }
+        long end;
+        try {
+            end = storage.writeUploadChunk(s.getTenantId(), s.getId(), offset, s.getReceivedBytes(), body, s.getTotalSize());
+        } catch (IOException e) {
+            throw new BusinessException("Failed to store upload chunk");
+        }
+        s.setReceivedBytes(end);
+        s.setExpiresAt(Instant.now().plus(SESSION_TTL));
+        sessions.save(s);
+        return ResponseEntity.ok(UploadStatus.of(s));
+    }
+
+    /**
+     * Finish the upload and record it as the photo of a new progress entry.
+     * Status and remarks come from the usual {@link ProgressRequest}; its inline
+     * photo fields are ignored. The work order is checked before anything is
+     * stored, the chunks are copied rather than moved, and they are deleted
+     * only after the progress entry commits; a completion that fails can be
+     * sent again.
+     */
+    @Transactional
+    public ResponseEntity<Void> complete(Long woId, Long uploadId, ProgressRequest req) {
+        ProgressUploadSession s = ownedSession(woId, uploadId);
+        if (s.getStatus() != UploadSessionStatus.OPEN) throw new BusinessException("Upload is already completed");
+        if (s.getReceivedBytes() < s.getTotalSize()) {
+            throw new BusinessException("Upload incomplete: received " + s.getReceivedBytes() + " of " + s.getTotalSize() + " bytes");
+        }
+        try {
+            WOProgressStatus.valueOf(req.status);
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            throw new BusinessException("Invalid progress status");
+        }
+        WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("Work order not found"));
+        if (!s.getTenantId().equals(wo.getTenantId())) throw new BusinessException("Cross-tenant access");
+        if (wo.getStatus() == WOStatus.COMPLETED) {
+            throw new BusinessException("Work order is already completed and cannot be updated");
+        }
+
+        String key;
+        try {
+            key = storage.saveProgressUpload(s.getTenantId(), woId, s.getId(), s.getFilename(), s.getTotalSize());
+        } catch (IOException e) {
+            throw new BusinessException("Failed to store file");
+        }
+        workOrders.addProgress(s.getTenantId(), woId, req.status, s.getFeId(), req.remarks, null,
+            new WorkOrderService.ProgressAttachment(s.getFilename(), s.getContentType(), s.getTotalSize(), null, key));
+        s.setStatus(UploadSessionStatus.COMPLETED);
+        sessions.save(s);
+        discardAfterCommit(s.getTenantId(), s.getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    private void discardAfterCommit(Long tenantId, Long uploadId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    storage.discardUpload(tenantId, uploadId);
+                } catch (IOException e) {
+                    // purgeExpired retries once the session expires
+                    log.warn("Failed to discard chunks of upload {}: {}", uploadId, e.getMessage());
+                }
+            }
+        });
+    }
+
+    /** Drop expired sessions and any chunks they left behind. */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L)
+    public void purgeExpired() {
+        for (ProgressUploadSession s : sessions.findTop100ByExpiresAtBefore(Instant.now())) {
+            try {
+                storage.discardUpload(s.getTenantId(), s.getId());
+                sessions.delete(s);
+            } catch (IOException e) {
+                log.warn("Failed to discard upload {}: {}", s.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private ProgressUploadSession ownedSession(Long woId, Long uploadId) {
+        Long tid = tenant();
+        FieldEngineer fe = currentFe(tid);
+        ProgressUploadSession s = sessions.findByTenantIdAndId(tid, uploadId)
+            .orElseThrow(() -> new NotFoundException("Upload not found"));
+        if (!s.getWorkOrderId().equals(woId)) throw new BusinessException("Upload does not belong to the work order");
+        if (!s.getFeId().equals(fe.getId())) throw new BusinessException("Upload belongs to another field engineer");
+        return s;
+    }
+
+    private FieldEngineer currentFe(Long tid) {
+        return feRepo.findFirstByTenantIdAndUser_Id(tid, TenantContext.getUserId())
+            .orElseThrow(() -> new NotFoundException("Field engineer profile not found for user"));
+    }
+}
@@ -1,10 +1,6 @@
 package com.vebops.service;
 
-import java.io.File;
-import java.io.FileInputStream;
-
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -21,18 +17,21 @@ public class ProposalCustomerDocService {
     private final ProposalRepository proposals;
     private final ProposalDocumentService proposalDocs;
     private final FileStorageService storage;
+    private final FileDownloadService downloads;
 
     public ProposalCustomerDocService(
         ProposalRepository proposals,
         ProposalDocumentService proposalDocs,
-        FileStorageService storage
+        FileStorageService storage,
+        FileDownloadService downloads
     ) {
         this.proposals = proposals;
         this.proposalDocs = proposalDocs;
         this.storage = storage;
+        this.downloads = downloads;
     }
 
-    public ResponseEntity<InputStreamResource> latestPdfDownload(Long tenantId, Long customerId, Long proposalId) {
+    public ResponseEntity<Resource> latestPdfDownload(Long tenantId, Long customerId, Long proposalId) {
         Proposal p = proposals.findByTenantIdAndId(tenantId, proposalId)
             .orElseThrow(() -> new NotFoundException("Proposal not found"));
 
@@ -43,19 +42,9 @@ public class ProposalCustomerDocService {
         Document latest = proposalDocs.latestPdf(tenantId, proposalId);
         if (latest == null) throw new NotFoundException("No PDF found for this proposal");
 
-        File file = storage.loadProposalDoc(tenantId, proposalId, latest.getId(), latest.getFilename());
+        StoredFile file = storage.loadProposalDoc(tenantId, proposalId, latest.getId(), latest.getFilename());
         if (!file.exists()) throw new NotFoundException("PDF file missing");
 
-        try {
-            var isr = new InputStreamResource(new FileInputStream(file));
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + latest.getFilename() + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .contentLength(file.length())
-                .body(isr);
-        } catch (Exception e) {
-            throw new BusinessException("Failed to read proposal PDF");
-        }
+        return downloads.file(file, latest.getFilename(), MediaType.APPLICATION_PDF, false);
     }
 }
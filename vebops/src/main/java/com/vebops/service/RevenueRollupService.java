@@ -0,0 +1,141 @@
+package com.vebops.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.Invoice;
+import com.vebops.domain.RevenueMonthly;
+import com.vebops.domain.enums.InvoiceStatus;
+import com.vebops.repository.InvoiceRepository;
+import com.vebops.repository.RevenueMonthlyRepository;
+
+/**
+ * Maintains the {@code revenue_monthly} rollup. The invoice service reports
+ * every status change; moving into PAID adds the invoice total to the month
+ * the invoice was created in, moving out of PAID takes it away again. A
+ * nightly job rebuilds the table from the invoices, which also repairs totals
+ * of invoices changed outside the service (imports, manual fixes).
+ *
+ * <p>Months follow the server time zone, as the admin revenue chart always
+ * has.</p>
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    private final RevenueMonthlyRepository rollup;
+    private final InvoiceRepository invoices;
+    private final TransactionTemplate tx;
+
+    public RevenueRollupService(RevenueMonthlyRepository rollup,
+                                InvoiceRepository invoices,
+                                PlatformTransactionManager txManager) {
+        this.rollup = rollup;
+        this.invoices = invoices;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** Apply an invoice status change made in the current transaction. */
+    @Transactional
+    public void statusChanged(Invoice inv, InvoiceStatus from) {
+        boolean wasPaid = from == InvoiceStatus.PAID;
+        boolean isPaid = inv.getStatus() == InvoiceStatus.PAID;
+        if (wasPaid == isPaid) return;
+        BigDecimal total = inv.getTotal() != null ? inv.getTotal() : BigDecimal.ZERO;
+        int sign = isPaid ? 1 : -1;
+        rollup.addPaid(inv.getTenantId(), monthOf(inv.getCreatedAt()),
+            sign > 0 ? total : total.negate(), sign, Instant.now());
+    }
+
+    /** Paid totals of all tenants for the last {@code months} months, oldest first, gaps filled with zero. */
+    @Transactional(readOnly = true)
+    public Map<YearMonth, BigDecimal> series(int months) {
+        YearMonth first = YearMonth.now().minusMonths(months - 1L);
+        Map<YearMonth, BigDecimal> out = new LinkedHashMap<>();
+        for (int i = 0; i < months; i++) out.put(first.plusMonths(i), BigDecimal.ZERO);
+        for (RevenueMonthlyRepository.MonthTotal row : rollup.sumByMonthFrom(first.atDay(1))) {
+            out.computeIfPresent(YearMonth.from(row.getMonthStart()),
+                (k, v) -> row.getTotal() != null ? row.getTotal() : BigDecimal.ZERO);
+        }
+        return out;
+    }
+
+    /** Paid total of all tenants for the current month. */
+    @Transactional(readOnly = true)
+    public BigDecimal monthToDate() {
+        BigDecimal total = rollup.sumPaidTotal(YearMonth.now().atDay(1));
+        return total != null ? total : BigDecimal.ZERO;
+    }
+
+    // First start after the table was added: fill it rather than show no revenue until the night
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIfEmpty() {
+        if (rollup.count() > 0) return;
+        nightlyRebuild();
+    }
+
+    @Scheduled(cron = "0 45 2 * * *")
+    public void nightlyRebuild() {
+        try {
+            int rows = rebuild();
+            log.info("Rebuilt revenue_monthly with {} rows", rows);
+        } catch (RuntimeException e) {
+            log.warn("Revenue rollup rebuild stopped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute the whole table in one transaction. The rows are deleted
+     * before any invoice is read: a payment committed earlier is in the sums,
+     * one committed later waits on the deleted rows and is added on top once
+     * the rebuild commits. Invoices are summed per tenant in the database, one
+     * query per month, so months follow the server time zone like
+     * {@link #monthOf(Instant)}.
+     */
+    public int rebuild() {
+        return tx.execute(status -> {
+            rollup.deleteAllRows();
+            Instant first = invoices.findFirstCreatedAt(InvoiceStatus.PAID);
+            if (first == null) return 0;
+            ZoneId zone = ZoneId.systemDefault();
+            List<RevenueMonthly> rows = new ArrayList<>();
+            for (YearMonth m = YearMonth.from(first.atZone(zone)); !m.isAfter(YearMonth.now(zone)); m = m.plusMonths(1)) {
+                Instant from = m.atDay(1).atStartOfDay(zone).toInstant();
+                Instant to = m.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant();
+                for (InvoiceRepository.TenantTotal t : invoices.sumByTenantCreatedBetween(InvoiceStatus.PAID, from, to)) {
+                    RevenueMonthly row = new RevenueMonthly();
+                    row.setTenantId(t.getTenantId());
+                    row.setMonthStart(m.atDay(1));
+                    row.setPaidTotal(t.getTotal() != null ? t.getTotal() : BigDecimal.ZERO);
+                    row.setPaidCount(t.getCount() != null ? t.getCount() : 0L);
+                    rows.add(row);
+                }
+            }
+            rollup.saveAll(rows);
+            return rows.size();
+        });
+    }
+
+    static LocalDate monthOf(Instant createdAt) {
+        Instant at = createdAt != null ? createdAt : Instant.now();
+        return YearMonth.from(at.atZone(ZoneId.systemDefault())).atDay(1);
+    }
+}
@@ -0,0 +1,234 @@
+package com.vebops.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vebops.context.TenantContext;
+import com.vebops.domain.Kit;
+import com.vebops.domain.Service;
+import com.vebops.domain.ServiceItem;
+import com.vebops.exception.BusinessException;
+import com.vebops.repository.KitRepository;
+import com.vebops.repository.ServiceItemRepository;
+import com.vebops.repository.ServiceItemRepository.SalesRow;
+import com.vebops.repository.ServiceRepository;
+import com.vebops.util.PayloadFields;
+
+/**
+ * Maintains the {@code service_items} fact table next to
+ * {@code Service.itemsJson} and answers sales breakdowns from it with grouped
+ * queries, so nothing has to load and parse every service's items in Java.
+ * Lines are read with the same key aliases the service controller accepts
+ * ({@link PayloadFields}). Each service records the {@link #FACTS_VERSION}
+ * its rows were written with; services saved before the table existed, or
+ * mapped by an older version, are rewritten at startup in keyset-paged
+ * batches.
+ */
+@org.springframework.stereotype.Service
+public class ServiceItemService {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceItemService.class);
+
+    /** Bump when the mapping from item lines to fact rows changes, to rewrite every service once. */
+    public static final int FACTS_VERSION = 1;
+
+    private static final int BACKFILL_BATCH = 100;
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final ServiceItemRepository items;
+    private final ServiceRepository services;
+    private final KitRepository kits;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+
+    public ServiceItemService(ServiceItemRepository items,
+                              ServiceRepository services,
+                              KitRepository kits,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager txManager) {
+        this.items = items;
+        this.services = services;
+        this.kits = kits;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** Replace the fact rows of {@code svc} with the lines in its items JSON. */
+    @Transactional
+    public void record(Service svc) {
+        if (svc == null || svc.getId() == null) return;
+        items.deleteByServiceId(svc.getId());
+        items.saveAll(toFacts(svc, kitIds(svc.getTenantId())));
+        items.markItemFacts(svc.getId(), FACTS_VERSION);
+        // The caller's copy too, so a later save of it does not clear the mark
+        svc.setItemFactsVersion(FACTS_VERSION);
+    }
+
+    /**
+     * Sales breakdown for the current tenant between {@code from} and
+     * {@code to} (inclusive), grouped by {@code item}, {@code kit},
+     * {@code hsn}, {@code state} or {@code month}.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<SalesRow>> sales(String groupBy, LocalDate from, LocalDate to) {
+        Long tid = TenantContext.getTenantId();
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusYears(1);
+        if (start.isAfter(end)) throw new BusinessException("from must not be after to");
+        String dimension = groupBy == null ? "item" : groupBy.trim().toLowerCase();
+        List<SalesRow> rows = switch (dimension) {
+            case "item" -> items.salesByItem(tid, start, end);
+            case "kit" -> items.salesByKit(tid, start, end);
+            case "hsn" -> items.salesByHsn(tid, start, end);
+            case "state" -> items.salesByState(tid, start, end);
+            case "month" -> items.salesByMonth(tid, start, end);
+            default -> throw new BusinessException("Unsupported groupBy: " + groupBy);
+        };
+        return ResponseEntity.ok(rows);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            log.warn("Service item backfill stopped: {}", e.getMessage());
+        }
+    }
+
+    /** Rewrite the fact rows of services not mapped by the current {@link #FACTS_VERSION}. */
+    public long backfill() {
+        long total = 0;
+        Long afterId = 0L;
+        Map<Long, Map<String, Long>> kitsByTenant = new HashMap<>();
+        while (true) {
+            List<Long> ids = items.findServiceIdsWithStaleItemsAfter(afterId, FACTS_VERSION, PageRequest.of(0, BACKFILL_BATCH));
+            if (ids.isEmpty()) break;
+            tx.executeWithoutResult(status -> {
+                items.deleteByServiceIdIn(ids);
+                for (Service svc : services.findAllById(ids)) {
+                    Map<String, Long> kitIds = kitsByTenant.computeIfAbsent(svc.getTenantId(), this::kitIds);
+                    items.saveAll(toFacts(svc, kitIds));
+                    // Marked even without lines, so an empty service is not picked again
+                    svc.setItemFactsVersion(FACTS_VERSION);
+                }
+            });
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < BACKFILL_BATCH) break;
+        }
+        if (total > 0) {
+            log.info("Backfilled service_items for {} services", total);
+        }
+        return total;
+    }
+
+    List<ServiceItem> toFacts(Service svc, Map<String, Long> kitIds) {
+        List<Map<String, Object>> lines = readItems(svc.getItemsJson());
+        if (lines.isEmpty()) return List.of();
+        LocalDate soldOn = soldOn(svc);
+        List<ServiceItem> out = new ArrayList<>(lines.size());
+        int lineNo = 0;
+        for (Map<String, Object> it : lines) {
+            if (it == null) continue;
+            lineNo++;
+            String code = text(it.get("code"), 64);
+            String name = text(it.get("name"), 255);
+            BigDecimal qty = clamp(PayloadFields.qty(it), null);
+            BigDecimal rate = clamp(PayloadFields.unitPrice(it), null);
+            BigDecimal discount = clamp(PayloadFields.discountPercent(it), HUNDRED);
+            BigDecimal amount = rate.multiply(qty)
+                .multiply(BigDecimal.ONE.subtract(discount.divide(HUNDRED, 4, RoundingMode.HALF_UP)))
+                .setScale(2, RoundingMode.HALF_UP);
+
+            ServiceItem f = new ServiceItem();
+            f.setTenantId(svc.getTenantId());
+            f.setServiceId(svc.getId());
+            f.setLineNo(lineNo);
+            f.setCode(code);
+            f.setName(name);
+            f.setItemKey(code != null ? code : (name != null ? truncate(name, 128) : "-"));
+            f.setKitId(code != null ? kitIds.get(code) : null);
+            f.setHsnSac(text(it.get("hsnSac"), 32));
+            f.setQty(qty);
+            f.setRate(rate);
+            f.setDiscountPct(discount);
+            f.setAmount(amount);
+            f.setBuyerState(text(svc.getBuyerState(), 64));
+            f.setSoldOn(soldOn);
+            f.setSoldMonth(soldOn.getYear() * 100 + soldOn.getMonthValue());
+            out.add(f);
+        }
+        return out;
+    }
+
+    private Map<String, Long> kitIds(Long tenantId) {
+        Map<String, Long> byCode = new HashMap<>();
+        for (Kit k : kits.findByTenantId(tenantId)) {
+            if (k.getCode() != null && !k.getCode().isBlank()) byCode.putIfAbsent(k.getCode().trim(), k.getId());
+        }
+        return byCode;
+    }
+
+    private List<Map<String, Object>> readItems(String json) {
+        if (json == null || json.isBlank()) return List.of();
+        try {
+            List<Map<String, Object>> list = objectMapper.readValue(json, new TypeReference<List<Map<String, Object>>>() {});
+            return list != null ? list : List.of();
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+
+    // Invoice date from meta when given, otherwise the day the service was created
+    private LocalDate soldOn(Service svc) {
+        try {
+            Map<String, Object> meta = svc.getMetaJson() != null
+                ? objectMapper.readValue(svc.getMetaJson(), new TypeReference<Map<String, Object>>() {})
+                : Map.of();
+            Object date = meta.get("invoiceDate");
+            if (date != null && !String.valueOf(date).isBlank()) {
+                return LocalDate.parse(String.valueOf(date).trim());
+            }
+        } catch (Exception ignored) {
+            // fall back to the creation date
+        }
+        return svc.getCreatedAt() != null
+            ? LocalDate.ofInstant(svc.getCreatedAt(), ZoneId.systemDefault())
+            : LocalDate.now();
+    }
+
+    // Missing and negative values count as zero
+    private static BigDecimal clamp(BigDecimal v, BigDecimal max) {
+        if (v == null || v.signum() < 0) return BigDecimal.ZERO;
+        return max != null && v.compareTo(max) > 0 ? max : v;
+    }
+
+    private static String text(Object value, int max) {
+        if (value == null) return null;
+        String s = String.valueOf(value).trim();
+        return s.isEmpty() ? null : truncate(s, max);
+    }
+
+    private static String truncate(String s, int max) {
+        return s.length() > max ? s.substring(0, max) : s;
+    }
+}
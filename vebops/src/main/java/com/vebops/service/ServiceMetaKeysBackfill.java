@@ -0,0 +1,70 @@
+package com.vebops.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.Service;
+import com.vebops.repository.ServiceRepository;
+
+/**
+ * One-off backfill of the columns mirrored from the JSON blobs on
+ * {@code services} (link ids and the list summary) for rows saved before the
+ * columns existed. Runs at startup in small keyset-paged transactions; once
+ * every row carries the current {@code meta_keys_version} the query returns
+ * nothing and the pass is a single empty select. New and updated rows are kept in sync by
+ * {@link Service.MetaKeysListener}.
+ */
+@Component
+public class ServiceMetaKeysBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceMetaKeysBackfill.class);
+
+    private static final int BATCH = 200;
+
+    private final ServiceRepository services;
+    private final TransactionTemplate tx;
+
+    public ServiceMetaKeysBackfill(ServiceRepository services, PlatformTransactionManager txManager) {
+        this.services = services;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            log.warn("Service meta key backfill stopped: {}", e.getMessage());
+        }
+    }
+
+    public long backfill() {
+        long total = 0;
+        Long afterId = 0L;
+        while (true) {
+            final Long from = afterId;
+            List<Long> done = tx.execute(status -> {
+                List<Service> page = services.findUnsyncedMetaKeysAfter(from, Service.META_KEYS_VERSION, PageRequest.of(0, BATCH));
+                page.forEach(Service::syncMetaKeys);
+                services.saveAll(page);
+                return page.stream().map(Service::getId).toList();
+            });
+            if (done == null || done.isEmpty()) break;
+            total += done.size();
+            afterId = done.get(done.size() - 1);
+            if (done.size() < BATCH) break;
+        }
+        if (total > 0) {
+            log.info("Backfilled mirrored meta columns for {} services", total);
+        }
+        return total;
+    }
+}
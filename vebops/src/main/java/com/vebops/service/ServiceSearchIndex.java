@@ -0,0 +1,300 @@
+package com.vebops.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.vebops.domain.Service;
+import com.vebops.repository.ServiceRepository;
+
+/**
+ * Per-tenant in-memory trigram index over the searchable service columns
+ * (buyer name, GSTIN, contact, email and consignee name). It replaces the
+ * {@code LOWER(..) LIKE '%kw%'} scan for the service list: candidates come
+ * from intersecting the posting lists of the query's trigrams, are verified
+ * with a substring check so results match the old LIKE semantics exactly, and
+ * are ranked (exact, prefix, word prefix, substring, weighted by field) before
+ * paging.
+ *
+ * <p>A tenant's index is built from the database on its first search after
+ * startup and kept current by {@link #put(Service)} on every save that can
+ * change the indexed columns. The index only sees saves made on this node, so
+ * once it is older than {@code vebops.search.refresh-seconds} a replacement is
+ * built in the background while searches keep using the current one, and
+ * swapped in when ready; saves made during the build land in both. Services
+ * found missing when a page is read are dropped at once by
+ * {@link #remove(Long, Collection)}, which also starts a rebuild.</p>
+ */
+@Component
+public class ServiceSearchIndex {
+
+    /** Indexed values of one service. */
+    public record Entry(Long id, String buyerName, String buyerGst, String buyerContact, String buyerEmail,
+                        String buyerAddress, String buyerPin, String buyerState, String consigneeName,
+                        Instant createdAt) {
+
+        String[] searchable() {
+            return new String[] { buyerName, consigneeName, buyerGst, buyerContact, buyerEmail };
+        }
+    }
+
+    // Weights line up with Entry.searchable(): buyer name ranks above consignee, then identifiers
+    private static final int[] FIELD_WEIGHTS = { 5, 4, 3, 3, 2 };
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceSearchIndex.class);
+
+    private final ServiceRepository services;
+    private final Duration refreshAfter;
+    private final Executor rebuilds;
+    private final Map<Long, TenantIndex> tenants = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ServiceSearchIndex(ServiceRepository services,
+                              @Value("${vebops.search.refresh-seconds:1800}") long refreshSeconds) {
+        this(services, Duration.ofSeconds(refreshSeconds), Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    ServiceSearchIndex(ServiceRepository services, Duration refreshAfter, Executor rebuilds) {
+        this.services = services;
+        this.refreshAfter = refreshAfter;
+        this.rebuilds = rebuilds;
+    }
+
+    /** Ranked page of matching service ids for {@code query}. */
+    public Page<Long> search(Long tenantId, String query, Pageable pageable) {
+        List<Entry> ranked = index(tenantId).match(normalise(query));
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<Long> ids = ranked.subList(from, to).stream().map(Entry::id).toList();
+        return new PageImpl<>(ids, pageable, ranked.size());
+    }
+
+    /** Index or re-index a saved service. */
+    public void put(Service s) {
+        if (s == null || s.getId() == null || s.getTenantId() == null) return;
+        Entry e = new Entry(s.getId(), s.getBuyerName(), s.getBuyerGst(), s.getBuyerContact(),
+            s.getBuyerEmail(), s.getBuyerAddress(), s.getBuyerPin(), s.getBuyerState(), s.getConsigneeName(),
+            s.getCreatedAt());
+        TenantIndex idx = index(s.getTenantId(), false);
+        idx.put(e, true);
+        TenantIndex next = idx.next;
+        if (next != null) next.put(e, true);
+    }
+
+    /**
+     * Drop services that no longer exist, e.g. ids a search returned but the
+     * database did not. Other nodes' deletes were missed too, so the tenant is
+     * rebuilt in the background.
+     */
+    public void remove(Long tenantId, Collection<Long> ids) {
+        TenantIndex idx = tenants.get(tenantId);
+        if (idx == null || ids.isEmpty()) return;
+        idx.remove(ids);
+        TenantIndex next = idx.next;
+        if (next != null) next.remove(ids);
+        rebuild(tenantId, idx);
+    }
+
+    private TenantIndex index(Long tenantId) {
+        return index(tenantId, true);
+    }
+
+    private TenantIndex index(Long tenantId, boolean load) {
+        TenantIndex idx = tenants.computeIfAbsent(tenantId, t -> new TenantIndex());
+        if (!load) return idx;
+        if (idx.staleAfter(refreshAfter)) {
+            rebuild(tenantId, idx);
+            idx = tenants.get(tenantId);
+        }
+        // Only the first load of a tenant is waited on; rebuilds never block a search
+        idx.ensureLoaded(tenantId);
+        return idx;
+    }
+
+    // Load a replacement off the search path and swap it in; saves meanwhile go to both
+    private void rebuild(Long tenantId, TenantIndex current) {
+        if (!current.loaded || current.next != null) return;
+        TenantIndex fresh = new TenantIndex();
+        synchronized (current) {
+            if (current.next != null) return;
+            current.next = fresh;
+        }
+        rebuilds.execute(() -> {
+            try {
+                fresh.ensureLoaded(tenantId);
+                tenants.replace(tenantId, current, fresh);
+            } catch (RuntimeException ex) {
+                log.warn("Rebuilding the service search index of tenant {} failed: {}", tenantId, ex.getMessage());
+                // Stale again right away, so the next search retries
+                current.loadedAt = System.nanoTime() - refreshAfter.toNanos() - 1;
+                current.next = null;
+            }
+        });
+    }
+
+    private static String normalise(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private final class TenantIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Map<Long, String[]> lowered = new HashMap<>();
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+        private volatile boolean loaded;
+        private volatile long loadedAt;
+        // Replacement being built; saves and removals are applied to it as well
+        private volatile TenantIndex next;
+
+        boolean staleAfter(Duration ttl) {
+            return loaded && System.nanoTime() - loadedAt > ttl.toNanos();
+        }
+
+        void ensureLoaded(Long tenantId) {
+            if (loaded) return;
+            lock.writeLock().lock();
+            try {
+                if (loaded) return;
+                for (ServiceRepository.SearchFields f : services.findSearchFieldsByTenantId(tenantId)) {
+                    // Entries written by put() while we were empty are newer than this snapshot
+                    put(new Entry(f.getId(), f.getBuyerName(), f.getBuyerGst(), f.getBuyerContact(), f.getBuyerEmail(),
+                        f.getBuyerAddress(), f.getBuyerPin(), f.getBuyerState(), f.getConsigneeName(),
+                        f.getCreatedAt()), false);
+                }
+                loadedAt = System.nanoTime();
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void put(Entry e, boolean replace) {
+            lock.writeLock().lock();
+            try {
+                if (entries.containsKey(e.id())) {
+                    if (!replace) return;
+                    unindex(e.id());
+                }
+                String[] values = new String[FIELD_WEIGHTS.length];
+                String[] raw = e.searchable();
+                for (int i = 0; i < raw.length; i++) {
+                    values[i] = normalise(raw[i]);
+                    for (String gram : trigrams(values[i])) {
+                        postings.computeIfAbsent(gram, g -> new HashSet<>()).add(e.id());
+                    }
+                }
+                entries.put(e.id(), e);
+                lowered.put(e.id(), values);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Collection<Long> ids) {
+            lock.writeLock().lock();
+            try {
+                ids.forEach(this::unindex);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void unindex(Long id) {
+            String[] values = lowered.remove(id);
+            entries.remove(id);
+            if (values == null) return;
+            for (String v : values) {
+                for (String gram : trigrams(v)) {
+                    Set<Long> ids = postings.get(gram);
+                    if (ids == null) continue;
+                    ids.remove(id);
+                    if (ids.isEmpty()) postings.remove(gram);
+                }
+            }
+        }
+
+        List<Entry> match(String q) {
+            if (q.isEmpty()) return List.of();
+            lock.readLock().lock();
+            try {
+                Collection<Long> candidates = candidates(q);
+                List<Scored> hits = new ArrayList<>();
+                for (Long id : candidates) {
+                    int score = score(lowered.get(id), q);
+                    if (score > 0) hits.add(new Scored(entries.get(id), score));
+                }
+                hits.sort(Comparator.comparingInt(Scored::score).reversed()
+                    .thenComparing(h -> h.entry().createdAt(), Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(h -> h.entry().id(), Comparator.reverseOrder()));
+                return hits.stream().map(Scored::entry).toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Intersect posting lists, rarest first; queries shorter than a trigram check every entry
+        private Collection<Long> candidates(String q) {
+            Set<String> grams = trigrams(q);
+            if (grams.isEmpty()) return entries.keySet();
+            List<Set<Long>> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) return List.of();
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<Long> out = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !out.isEmpty(); i++) {
+                out.retainAll(lists.get(i));
+            }
+            return out;
+        }
+    }
+
+    private record Scored(Entry entry, int score) {}
+
+    static int score(String[] values, String q) {
+        if (values == null) return 0;
+        int score = 0;
+        for (int i = 0; i < values.length; i++) {
+            String v = values[i];
+            if (v.isEmpty()) continue;
+            int w = FIELD_WEIGHTS[i];
+            if (v.equals(q)) score += 4 * w;
+            else if (v.startsWith(q)) score += 3 * w;
+            else if (v.contains(" " + q)) score += 2 * w;
+            else if (v.contains(q)) score += w;
+        }
+        return score;
+    }
+
+    static Set<String> trigrams(String v) {
+        if (v == null || v.length() < 3) return Set.of();
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= v.length(); i++) {
+            grams.add(v.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
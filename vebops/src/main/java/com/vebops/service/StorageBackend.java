@@ -0,0 +1,61 @@
+package com.vebops.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where stored bytes physically live. Keys are relative, slash-separated paths
+ * such as {@code blobs/ab/cd/<sha256>} or a legacy
+ * {@code t=<tenantId>/proposal=<id>/doc=<id>/<file>}. The active backend is
+ * selected with {@code vebops.storage.backend} ({@code local} by default, or
+ * {@code s3} for any S3-compatible object store), so several application nodes
+ * can share one store.
+ */
+public interface StorageBackend {
+
+    record ObjectInfo(long size, Instant lastModified) {}
+
+    record Entry(String key, ObjectInfo info) {}
+
+    /** Store the contents of a local file under {@code key}; the source file is consumed. */
+    void put(String key, Path source) throws IOException;
+
+    void put(String key, byte[] data) throws IOException;
+
+    byte[] get(String key) throws IOException;
+
+    InputStream stream(String key) throws IOException;
+
+    /** Stream {@code length} bytes starting at {@code offset}. */
+    InputStream stream(String key, long offset, long length) throws IOException;
+
+    Optional<ObjectInfo> stat(String key) throws IOException;
+
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Every object whose key starts with {@code prefix}, in no particular order.
+     * Remote listings are paged lazily, so failures while iterating surface as
+     * unchecked exceptions. The stream must be closed.
+     */
+    Stream<Entry> list(String prefix) throws IOException;
+
+    /** Re-key an object, replacing anything already stored under {@code to}. */
+    void move(String from, String to) throws IOException;
+
+    /**
+     * A file on the local file system holding the object, when the backend has
+     * one. Lets downloads hand the file to the container for zero-copy transfer.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
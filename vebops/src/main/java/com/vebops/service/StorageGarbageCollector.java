@@ -0,0 +1,523 @@
+package com.vebops.service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.vebops.domain.StoredObject;
+import com.vebops.repository.DocumentRepository;
+import com.vebops.repository.ProposalRepository;
+import com.vebops.repository.StoredBlobRepository;
+import com.vebops.repository.StoredObjectRepository;
+import com.vebops.repository.WorkOrderProgressAttachmentRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mark-and-sweep collector for files that outlived their database rows.
+ * Tenant and entity deletion remove documents, proposals and attachments with
+ * native SQL, so nothing releases the files behind them.
+ *
+ * <p>A pass has three phases:</p>
+ * <ol>
+ *   <li>Logical keys in {@code stored_objects} whose owner (document, proposal
+ *       or progress attachment, parsed from the {@code t=<id>/...} key) is gone
+ *       are released, which drops the blob once nothing else refers to it.</li>
+ *   <li>The local storage tree is streamed with {@link Files#walk} and checked
+ *       against the database in batches: blobs without a {@code stored_blobs}
+ *       row, legacy per-document files whose owner is gone or which were
+ *       superseded by a blob, and stale scratch files are moved into
+ *       {@code quarantine/<date>/} instead of being deleted outright. With a
+ *       remote backend only scratch files live on disk; blob and legacy keys
+ *       are read from {@link StorageBackend#list} and quarantined under the same
+ *       key layout inside the store.</li>
+ *   <li>Quarantine entries older than the retention period are deleted, on disk
+ *       and in the remote store.</li>
+ * </ol>
+ *
+ * <p>Anything younger than {@code min-age-hours} is left alone so in-flight
+ * writes are never touched, keys that cannot be parsed are treated as live, and
+ * a dry run only reports what would happen. File and row operations are rate
+ * limited, and bytes reclaimed are published as metrics.</p>
+ */
+@Service
+public class StorageGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageGarbageCollector.class);
+
+    static final String QUARANTINE_DIR = "quarantine";
+    private static final int BATCH = 500;
+    private static final int MAX_REPORTED = 200;
+
+    public record GcReport(boolean dryRun, boolean running, long filesScanned, long releasedKeys,
+                           long orphanFiles, long orphanBytes, long quarantinedFiles,
+                           long deletedFiles, long bytesReclaimed, List<String> orphans,
+                           Instant startedAt, Instant finishedAt) {}
+
+    private final Path root;
+    private final StorageBackend backend;
+    private final boolean localBackend;
+    private final ContentAddressedStore blobs;
+    private final StoredObjectRepository objectRepo;
+    private final StoredBlobRepository blobRepo;
+    private final DocumentRepository documentRepo;
+    private final ProposalRepository proposalRepo;
+    private final WorkOrderProgressAttachmentRepository attachmentRepo;
+
+    private final boolean enabled;
+    private final boolean defaultDryRun;
+    private final Duration minAge;
+    private final Duration quarantineRetention;
+    private final int maxOpsPerSecond;
+
+    private final Counter bytesReclaimed;
+    private final Counter filesQuarantined;
+    private final Counter filesDeleted;
+    private final Counter keysReleased;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Boolean requestedDryRun;
+    private volatile Instant lastRun;
+    private volatile GcReport report = new GcReport(true, false, 0, 0, 0, 0, 0, 0, 0, List.of(), null, null);
+
+    public StorageGarbageCollector(@Value("${vebops.storage.root:./data/uploads}") String rootDir,
+                                   StorageBackend backend,
+                                   ContentAddressedStore blobs,
+                                   StoredObjectRepository objectRepo,
+                                   StoredBlobRepository blobRepo,
+                                   DocumentRepository documentRepo,
+                                   ProposalRepository proposalRepo,
+                                   WorkOrderProgressAttachmentRepository attachmentRepo,
+                                   MeterRegistry meters,
+                                   @Value("${vebops.storage.gc.enabled:false}") boolean enabled,
+                                   @Value("${vebops.storage.gc.dry-run:true}") boolean dryRun,
+                                   @Value("${vebops.storage.gc.min-age-hours:24}") long minAgeHours,
+                                   @Value("${vebops.storage.gc.quarantine-days:7}") long quarantineDays,
+                                   @Value("${vebops.storage.gc.max-ops-per-second:100}") int maxOpsPerSecond) {
+        this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.backend = backend;
+        // Blob and legacy keys only live on this disk when the local backend is active
+        this.localBackend = backend.localPath(ContentAddressedStore.blobKey("0000")).isPresent();
+        this.blobs = blobs;
+        this.objectRepo = objectRepo;
+        this.blobRepo = blobRepo;
+        this.documentRepo = documentRepo;
+        this.proposalRepo = proposalRepo;
+        this.attachmentRepo = attachmentRepo;
+        this.enabled = enabled;
+        this.defaultDryRun = dryRun;
+        this.minAge = Duration.ofHours(Math.max(0, minAgeHours));
+        this.quarantineRetention = Duration.ofDays(Math.max(0, quarantineDays));
+        this.maxOpsPerSecond = Math.max(1, maxOpsPerSecond);
+        this.bytesReclaimed = meters.counter("vebops.storage.gc.bytes.reclaimed");
+        this.filesQuarantined = meters.counter("vebops.storage.gc.files.quarantined");
+        this.filesDeleted = meters.counter("vebops.storage.gc.files.deleted");
+        this.keysReleased = meters.counter("vebops.storage.gc.keys.released");
+    }
+
+    public GcReport report() {
+        return report;
+    }
+
+    /** Ask the scheduler to run a pass on its next tick. */
+    public GcReport request(boolean dryRun) {
+        requestedDryRun = dryRun;
+        return report;
+    }
+
+    @Scheduled(fixedDelay = 60 * 1000L)
+    public void tick() {
+        Boolean requested = requestedDryRun;
+        if (requested != null) {
+            requestedDryRun = null;
+            collect(requested);
+        } else if (enabled && (lastRun == null || lastRun.isBefore(Instant.now().minus(Duration.ofDays(1))))) {
+            collect(defaultDryRun);
+        }
+    }
+
+    /**
+     * Run one full pass. Returns the current report immediately when a pass is
+     * already in progress.
+     */
+    public GcReport collect(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            return report;
+        }
+        Tally tally = new Tally(dryRun);
+        report = tally.toReport(true);
+        try {
+            releaseOrphanKeys(tally);
+            sweepTree(tally);
+            if (!localBackend) sweepBackend(tally);
+            purgeQuarantine(tally);
+            if (!localBackend) purgeBackendQuarantine(tally);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Storage GC aborted: {}", e.getMessage());
+        } finally {
+            lastRun = Instant.now();
+            report = tally.toReport(false);
+            running.set(false);
+        }
+        log.info("Storage GC{}: scanned {} files, released {} keys, {} orphan files ({} bytes), quarantined {}, deleted {}, reclaimed {} bytes",
+            dryRun ? " (dry run)" : "", tally.scanned, tally.released, tally.orphanFiles, tally.orphanBytes,
+            tally.quarantined, tally.deleted, tally.reclaimed);
+        return report;
+    }
+
+    // ---- phase 1: logical keys ----
+
+    private void releaseOrphanKeys(Tally tally) {
+        Instant cutoff = Instant.now().minus(minAge);
+        Long afterId = 0L;
+        while (true) {
+            List<StoredObject> page = objectRepo.findPageAfter(afterId, PageRequest.of(0, BATCH));
+            if (page.isEmpty()) return;
+            List<String> keys = new ArrayList<>();
+            for (StoredObject o : page) {
+                if (o.getCreatedAt() == null || o.getCreatedAt().isBefore(cutoff)) keys.add(o.getStorageKey());
+            }
+            for (String key : deadOwners(keys)) {
+                tally.orphan(key);
+                tally.released++;
+                if (!tally.dryRun) {
+                    tally.throttle.acquire();
+                    blobs.release(key);
+                    keysReleased.increment();
+                }
+            }
+            if (page.size() < BATCH) return;
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    // ---- phase 2: files on disk ----
+
+    private void sweepTree(Tally tally) throws IOException {
+        if (!Files.isDirectory(root)) return;
+        Instant cutoff = Instant.now().minus(minAge);
+        try (Stream<Path> walk = Files.walk(root)) {
+            Iterator<Path> it = walk.iterator();
+            List<Candidate> batch = new ArrayList<>(BATCH);
+            while (it.hasNext()) {
+                Path p = it.next();
+                String key = root.relativize(p).toString().replace('\\', '/');
+                if (key.startsWith(QUARANTINE_DIR + "/") || key.startsWith("tmp/uploads/")) continue;
+                if (!key.startsWith("tmp/put/") && !localBackend) continue;
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                } catch (IOException gone) {
+                    continue;
+                }
+                if (!attrs.isRegularFile()) continue;
+                tally.scanned++;
+                if (attrs.lastModifiedTime().toInstant().isAfter(cutoff)) continue;
+                batch.add(new Candidate(p, key, attrs.size()));
+                if (batch.size() == BATCH) {
+                    sweepBatch(batch, tally);
+                    batch.clear();
+                }
+            }
+            sweepBatch(batch, tally);
+        }
+    }
+
+    // ---- phase 2b: objects in a remote store ----
+
+    private void sweepBackend(Tally tally) throws IOException {
+        Instant cutoff = Instant.now().minus(minAge);
+        List<Candidate> batch = new ArrayList<>(BATCH);
+        for (String prefix : List.of("blobs/", "t=")) {
+            try (Stream<StorageBackend.Entry> listing = backend.list(prefix)) {
+                Iterator<StorageBackend.Entry> it = listing.iterator();
+                while (it.hasNext()) {
+                    StorageBackend.Entry e = it.next();
+                    tally.scanned++;
+                    if (e.info().lastModified().isAfter(cutoff)) continue;
+                    batch.add(new Candidate(null, e.key(), e.info().size()));
+                    if (batch.size() == BATCH) {
+                        sweepBatch(batch, tally);
+                        batch.clear();
+                    }
+                }
+            }
+        }
+        sweepBatch(batch, tally);
+    }
+
+    private void sweepBatch(List<Candidate> batch, Tally tally) {
+        if (batch.isEmpty()) return;
+        Set<String> shas = new HashSet<>();
+        Set<String> legacyKeys = new HashSet<>();
+        for (Candidate c : batch) {
+            if (c.key.startsWith("blobs/")) shas.add(c.name());
+            else if (c.key.startsWith("t=")) legacyKeys.add(c.key);
+        }
+        Set<String> liveShas = shas.isEmpty() ? Set.of() : new HashSet<>(blobRepo.findExistingShas(shas));
+        Set<String> superseded = legacyKeys.isEmpty() ? Set.of() : new HashSet<>(objectRepo.findExistingKeys(legacyKeys));
+        Set<String> deadLegacy = deadOwners(legacyKeys);
+
+        for (Candidate c : batch) {
+            boolean orphan;
+            if (c.key.startsWith("tmp/put/")) {
+                orphan = true;
+            } else if (c.key.startsWith("blobs/")) {
+                orphan = !liveShas.contains(c.name());
+            } else if (c.key.startsWith("t=")) {
+                orphan = superseded.contains(c.key) || deadLegacy.contains(c.key);
+            } else {
+                orphan = false;
+            }
+            if (!orphan) continue;
+            tally.orphan(c.key);
+            tally.orphanFiles++;
+            tally.orphanBytes += c.size;
+            if (!tally.dryRun) quarantine(c, tally);
+        }
+    }
+
+    private void quarantine(Candidate c, Tally tally) {
+        tally.throttle.acquire();
+        if (c.path == null) {
+            try {
+                backend.move(c.key, QUARANTINE_DIR + "/" + LocalDate.now(ZoneOffset.UTC) + "/" + c.key);
+                tally.quarantined++;
+                filesQuarantined.increment();
+            } catch (IOException e) {
+                log.warn("Storage GC could not quarantine {}: {}", c.key, e.getMessage());
+            }
+            return;
+        }
+        Path target = root.resolve(QUARANTINE_DIR).resolve(LocalDate.now(ZoneOffset.UTC).toString()).resolve(c.key);
+        try {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(c.path, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(c.path, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tally.quarantined++;
+            filesQuarantined.increment();
+        } catch (IOException e) {
+            log.warn("Storage GC could not quarantine {}: {}", c.key, e.getMessage());
+        }
+    }
+
+    // ---- phase 3: quarantine expiry ----
+
+    private void purgeQuarantine(Tally tally) throws IOException {
+        Path dir = root.resolve(QUARANTINE_DIR);
+        if (!Files.isDirectory(dir)) return;
+        LocalDate expiry = LocalDate.now(ZoneOffset.UTC).minusDays(quarantineRetention.toDays());
+        List<Path> days;
+        try (Stream<Path> list = Files.list(dir)) {
+            days = list.filter(Files::isDirectory).toList();
+        }
+        for (Path day : days) {
+            LocalDate date = parseDay(day.getFileName().toString());
+            if (date == null || !date.isBefore(expiry)) continue;
+            List<Path> entries;
+            try (Stream<Path> walk = Files.walk(day)) {
+                entries = walk.sorted(Comparator.reverseOrder()).toList();
+            }
+            for (Path p : entries) {
+                if (Files.isDirectory(p)) {
+                    if (!tally.dryRun) Files.deleteIfExists(p);
+                    continue;
+                }
+                long size = Files.size(p);
+                tally.deleted++;
+                tally.reclaimed += size;
+                if (tally.dryRun) continue;
+                tally.throttle.acquire();
+                Files.deleteIfExists(p);
+                filesDeleted.increment();
+                bytesReclaimed.increment(size);
+            }
+        }
+    }
+
+    private void purgeBackendQuarantine(Tally tally) throws IOException {
+        LocalDate expiry = LocalDate.now(ZoneOffset.UTC).minusDays(quarantineRetention.toDays());
+        String prefix = QUARANTINE_DIR + "/";
+        try (Stream<StorageBackend.Entry> listing = backend.list(prefix)) {
+            Iterator<StorageBackend.Entry> it = listing.iterator();
+            while (it.hasNext()) {
+                StorageBackend.Entry e = it.next();
+                int slash = e.key().indexOf('/', prefix.length());
+                LocalDate date = slash < 0 ? null : parseDay(e.key().substring(prefix.length(), slash));
+                if (date == null || !date.isBefore(expiry)) continue;
+                long size = e.info().size();
+                tally.deleted++;
+                tally.reclaimed += size;
+                if (tally.dryRun) continue;
+                tally.throttle.acquire();
+                backend.delete(e.key());
+                filesDeleted.increment();
+                bytesReclaimed.increment(size);
+            }
+        }
+    }
+
+    /** The date of a {@code quarantine/<date>/} folder, or {@code null} for anything else. */
+    private static LocalDate parseDay(String name) {
+        try {
+            return LocalDate.parse(name);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // ---- owner checks ----
+
+    private enum OwnerKind { DOCUMENT, PROPOSAL, ATTACHMENT }
+
+    private record Owner(OwnerKind kind, Long id) {}
+
+    /**
+     * Owner of a logical key, or {@code null} when the layout is not recognised
+     * (such keys are always treated as live).
+     */
+    private static Owner parse(String key) {
+        String[] s = key.split("/");
+        if (s.length < 4 || !s[0].startsWith("t=")) return null;
+        try {
+            if ((s[1].startsWith("service=") || s[1].startsWith("proposal=")) && s[2].startsWith("doc=")) {
+                return new Owner(OwnerKind.DOCUMENT, Long.valueOf(s[2].substring(4)));
+            }
+            if (s[1].startsWith("proposal=") && s[2].equals("po")) {
+                return new Owner(OwnerKind.PROPOSAL, Long.valueOf(s[1].substring(9)));
+            }
+            if (s[1].startsWith("wo=") && s[2].startsWith("upload=")) {
+                return new Owner(OwnerKind.ATTACHMENT, null);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return null;
+    }
+
+    /** The subset of {@code keys} whose owning row no longer exists. */
+    private Set<String> deadOwners(Collection<String> keys) {
+        if (keys.isEmpty()) return Set.of();
+        Set<Long> docIds = new HashSet<>();
+        Set<Long> proposalIds = new HashSet<>();
+        Set<String> attachmentKeys = new HashSet<>();
+        for (String key : keys) {
+            Owner o = parse(key);
+            if (o == null) continue;
+            switch (o.kind) {
+                case DOCUMENT -> docIds.add(o.id);
+                case PROPOSAL -> proposalIds.add(o.id);
+                case ATTACHMENT -> attachmentKeys.add(key);
+            }
+        }
+        Set<Long> liveDocs = docIds.isEmpty() ? Set.of() : new HashSet<>(documentRepo.findExistingIds(docIds));
+        Set<Long> liveProposals = proposalIds.isEmpty() ? Set.of() : new HashSet<>(proposalRepo.findExistingIds(proposalIds));
+        Set<String> liveAttachments = attachmentKeys.isEmpty() ? Set.of()
+            : new HashSet<>(attachmentRepo.findExistingStorageKeys(attachmentKeys));
+
+        Set<String> dead = new HashSet<>();
+        for (String key : keys) {
+            Owner o = parse(key);
+            if (o == null) continue;
+            boolean live = switch (o.kind) {
+                case DOCUMENT -> liveDocs.contains(o.id);
+                case PROPOSAL -> liveProposals.contains(o.id);
+                case ATTACHMENT -> liveAttachments.contains(key);
+            };
+            if (!live) dead.add(key);
+        }
+        return dead;
+    }
+
+    /** A file on local disk, or an object in the remote store when {@code path} is null. */
+    private record Candidate(Path path, String key, long size) {
+        String name() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+    }
+
+    private final class Tally {
+        final boolean dryRun;
+        final Instant startedAt = Instant.now();
+        final Throttle throttle = new Throttle(maxOpsPerSecond);
+        final List<String> orphans = new ArrayList<>();
+        long scanned;
+        long released;
+        long orphanFiles;
+        long orphanBytes;
+        long quarantined;
+        long deleted;
+        long reclaimed;
+
+        Tally(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        void orphan(String key) {
+            if (orphans.size() < MAX_REPORTED) orphans.add(key);
+        }
+
+        GcReport toReport(boolean inProgress) {
+            return new GcReport(dryRun, inProgress, scanned, released, orphanFiles, orphanBytes, quarantined,
+                deleted, reclaimed, List.copyOf(orphans), startedAt, inProgress ? null : Instant.now());
+        }
+    }
+
+    /** Fixed-window limiter: at most {@code perSecond} operations per second. */
+    private static final class Throttle {
+        private final int perSecond;
+        private long windowStart = System.nanoTime();
+        private int used;
+
+        Throttle(int perSecond) {
+            this.perSecond = perSecond;
+        }
+
+        void acquire() {
+            long elapsed = System.nanoTime() - windowStart;
+            if (elapsed >= 1_000_000_000L) {
+                windowStart = System.nanoTime();
+                used = 0;
+            } else if (used >= perSecond) {
+                try {
+                    Thread.sleep((1_000_000_000L - elapsed) / 1_000_000L + 1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Storage GC interrupted");
+                }
+                windowStart = System.nanoTime();
+                used = 0;
+            }
+            used++;
+        }
+    }
+}
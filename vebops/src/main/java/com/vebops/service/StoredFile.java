@@ -0,0 +1,57 @@
+package com.vebops.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Handle on a stored file returned by {@link FileStorageService}. Nothing is
+ * read until one of the accessors is called, and every access goes through the
+ * configured {@link StorageBackend}.
+ */
+public final class StoredFile {
+
+    private final StorageBackend backend;
+    private final String key;
+    private final String sha256;
+
+    StoredFile(StorageBackend backend, String key, String sha256) {
+        this.backend = backend;
+        this.key = key;
+        this.sha256 = sha256;
+    }
+
+    public String key() { return key; }
+
+    /** SHA-256 of the content when the file lives in the content-addressed store. */
+    public Optional<String> sha256() { return Optional.ofNullable(sha256); }
+
+    public Optional<StorageBackend.ObjectInfo> stat() {
+        try {
+            return backend.stat(key);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public boolean exists() {
+        return stat().isPresent();
+    }
+
+    public byte[] readAllBytes() throws IOException {
+        return backend.get(key);
+    }
+
+    public InputStream open() throws IOException {
+        return backend.stream(key);
+    }
+
+    public InputStream open(long offset, long length) throws IOException {
+        return backend.stream(key, offset, length);
+    }
+
+    public Optional<Path> localPath() {
+        return backend.localPath(key);
+    }
+}
@@ -0,0 +1,10 @@
+package com.vebops.service;
+
+/**
+ * Published by the work order service whenever a work order's dispatch
+ * details change. Listeners run after the surrounding transaction commits.
+ */
+public record WorkOrderChangedEvent(Long tenantId, Long workOrderId, Change change) {
+
+    public enum Change { CREATED, ASSIGNED, PROGRESS, COMPLETED }
+}
@@ -0,0 +1,272 @@
+package com.vebops.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.Invoice;
+import com.vebops.domain.WorkOrder;
+import com.vebops.domain.enums.CompletionStage;
+import com.vebops.exception.BusinessException;
+import com.vebops.exception.NotFoundException;
+import com.vebops.repository.InvoiceRepository;
+import com.vebops.repository.WorkOrderRepository;
+
+/**
+ * Runs the work that follows a work order completion (invoice generation, PDF
+ * render, delivery to the customer) after the completing request has
+ * committed. The pending {@link CompletionStage} is stored on the work order,
+ * so it survives restarts and is visible to the back office.
+ *
+ * <p>Each stage commits together with the move to the next stage, so a stage
+ * that fails is retried on its own with exponential backoff, up to
+ * {@value #MAX_ATTEMPTS} attempts; after that the work order keeps its stage
+ * and {@code completionError} until someone calls {@link #retry}. A worker
+ * leases a work order by pushing {@code completionNextAt} forward before
+ * running it, so a crashed run is picked up again once the lease expires.
+ * Delivery sends the mail with no transaction open and then commits the move
+ * to DONE, so it is at-least-once: a commit failure after the mail went out
+ * sends it again on retry.</p>
+ */
+@Component
+public class WorkOrderCompletionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkOrderCompletionPipeline.class);
+
+    static final int BATCH = 20;
+    static final int MAX_ATTEMPTS = 8;
+    static final Duration LEASE = Duration.ofMinutes(10);
+    static final Duration FIRST_RETRY = Duration.ofSeconds(30);
+    static final Duration MAX_RETRY = Duration.ofHours(1);
+
+    private static final Set<CompletionStage> PENDING =
+        EnumSet.of(CompletionStage.INVOICE, CompletionStage.PDF, CompletionStage.DELIVERY);
+
+    private final WorkOrderRepository woRepo;
+    private final InvoiceRepository invRepo;
+    private final InvoiceService invoices;
+    private final TransactionTemplate tx;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean again = new AtomicBoolean();
+
+    public WorkOrderCompletionPipeline(WorkOrderRepository woRepo,
+                                       InvoiceRepository invRepo,
+                                       InvoiceService invoices,
+                                       PlatformTransactionManager txManager) {
+        this.woRepo = woRepo;
+        this.invRepo = invRepo;
+        this.invoices = invoices;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /**
+     * Queue the completion stages of a work order that was just marked
+     * COMPLETED. Must be called inside the completing transaction; the first
+     * stage starts once it commits.
+     */
+    public void enqueue(WorkOrder wo) {
+        schedule(wo, CompletionStage.INVOICE);
+        afterCommit();
+    }
+
+    /** Re-run the pending stage of a work order now, resetting its attempts. */
+    @Transactional
+    public void retry(Long tenantId, Long woId) {
+        WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("WO not found"));
+        if (!tenantId.equals(wo.getTenantId())) throw new BusinessException("Cross-tenant access");
+        CompletionStage stage = wo.getCompletionStage();
+        if (stage == null || stage == CompletionStage.DONE) {
+            throw new BusinessException("Work order has no pending completion stage");
+        }
+        schedule(wo, stage);
+        afterCommit();
+    }
+
+    // Catches retries that came due and anything a missed kick left behind
+    @Scheduled(fixedDelay = 30 * 1000L)
+    public void tick() {
+        drain();
+    }
+
+    /** Run every due stage. Concurrent calls fold into the one already running. */
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            again.set(true);
+            return;
+        }
+        try {
+            do {
+                again.set(false);
+                runDue();
+            } while (again.get());
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private void runDue() {
+        List<Long> due;
+        do {
+            due = tx.execute(s -> woRepo.findCompletionDue(PENDING, Instant.now(), Limit.of(BATCH)));
+            for (Long id : due) {
+                run(id);
+            }
+        } while (due.size() == BATCH);
+    }
+
+    /** Lease one work order and run its stages until done or one fails. */
+    void run(Long woId) {
+        Instant now = Instant.now();
+        Boolean claimed = tx.execute(s -> woRepo.claimCompletion(woId, now, now.plus(LEASE)) == 1);
+        if (!Boolean.TRUE.equals(claimed)) return;
+        try {
+            CompletionStage stage;
+            do {
+                stage = tx.execute(s -> step(woId));
+                if (stage == CompletionStage.DELIVERY) stage = deliver(woId);
+            } while (stage != CompletionStage.DONE);
+        } catch (RuntimeException e) {
+            tx.executeWithoutResult(s -> failed(woId, e));
+        }
+    }
+
+    /**
+     * Run the pending stage and move to the next one; returns the new stage.
+     * A pending delivery is left to {@link #deliver}.
+     */
+    CompletionStage step(Long woId) {
+        WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("WO not found"));
+        Long tenantId = wo.getTenantId();
+        CompletionStage stage = wo.getCompletionStage();
+        if (stage == null || stage == CompletionStage.DONE) return CompletionStage.DONE;
+        if (stage == CompletionStage.DELIVERY) return CompletionStage.DELIVERY;
+        CompletionStage next = switch (stage) {
+            case INVOICE -> {
+                // An invoice from an earlier, half-finished run is reused
+                if (invRepo.findByTenantIdAndWorkOrder_Id(tenantId, woId).isEmpty()) {
+                    invoices.generateForWorkOrder(tenantId, woId);
+                }
+                yield CompletionStage.PDF;
+            }
+            case PDF -> {
+                Long invoiceId = invoice(tenantId, woId).getId();
+                // Issued before rendering, so delivery attaches this file instead of rendering a SENT copy
+                if (customerEmail(wo) != null) {
+                    invoices.issuePdf(tenantId, invoiceId);
+                } else {
+                    invoices.storePdf(tenantId, invoiceId);
+                }
+                yield CompletionStage.DELIVERY;
+            }
+            case DELIVERY, DONE -> CompletionStage.DONE;
+        };
+        advance(wo, next);
+        return next;
+    }
+
+    /**
+     * Send the invoice and finish. Runs outside the stage transactions: the
+     * invoice status and PDF were committed by the PDF stage, and no row is
+     * held locked while the mail server answers.
+     */
+    CompletionStage deliver(Long woId) {
+        Delivery delivery = tx.execute(s -> {
+            WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("WO not found"));
+            String to = customerEmail(wo);
+            Long invoiceId = to != null ? invoice(wo.getTenantId(), woId).getId() : null;
+            return new Delivery(wo.getTenantId(), invoiceId, to);
+        });
+        if (delivery.to() != null) {
+            invoices.deliverInvoice(delivery.tenantId(), delivery.invoiceId(), delivery.to());
+        }
+        return tx.execute(s -> {
+            WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("WO not found"));
+            advance(wo, CompletionStage.DONE);
+            return CompletionStage.DONE;
+        });
+    }
+
+    private record Delivery(Long tenantId, Long invoiceId, String to) {}
+
+    private static void advance(WorkOrder wo, CompletionStage next) {
+        wo.setCompletionStage(next);
+        wo.setCompletionAttempts(0);
+        wo.setCompletionError(null);
+        // Still leased by this run until the next stage commits
+        wo.setCompletionNextAt(next == CompletionStage.DONE ? null : Instant.now().plus(LEASE));
+    }
+
+    void failed(Long woId, RuntimeException e) {
+        WorkOrder wo = woRepo.findById(woId).orElse(null);
+        if (wo == null) return;
+        int attempts = wo.getCompletionAttempts() + 1;
+        wo.setCompletionAttempts(attempts);
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        wo.setCompletionError(message.length() > 500 ? message.substring(0, 500) : message);
+        if (attempts >= MAX_ATTEMPTS) {
+            wo.setCompletionNextAt(null);
+            log.error("WO {} completion stage {} gave up after {} attempts: {}",
+                woId, wo.getCompletionStage(), attempts, message);
+        } else {
+            wo.setCompletionNextAt(Instant.now().plus(backoff(attempts)));
+            log.warn("WO {} completion stage {} failed (attempt {}): {}",
+                woId, wo.getCompletionStage(), attempts, message);
+        }
+    }
+
+    /** Delay before retry number {@code attempts}: 30s, 1m, 2m, … capped at one hour. */
+    static Duration backoff(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration delay = FIRST_RETRY.multipliedBy(1L << shift);
+        return delay.compareTo(MAX_RETRY) > 0 ? MAX_RETRY : delay;
+    }
+
+    private Invoice invoice(Long tenantId, Long woId) {
+        return invRepo.findByTenantIdAndWorkOrder_Id(tenantId, woId)
+            .orElseThrow(() -> new NotFoundException("Invoice not found for WO " + woId));
+    }
+
+    private static String customerEmail(WorkOrder wo) {
+        if (wo.getServiceRequest() == null || wo.getServiceRequest().getCustomer() == null) return null;
+        String to = wo.getServiceRequest().getCustomer().getEmail();
+        return to != null && !to.isBlank() ? to : null;
+    }
+
+    private static void schedule(WorkOrder wo, CompletionStage stage) {
+        wo.setCompletionStage(stage);
+        wo.setCompletionAttempts(0);
+        wo.setCompletionError(null);
+        wo.setCompletionNextAt(Instant.now());
+    }
+
+    // Start right after the commit instead of waiting for the next tick
+    private void afterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            executor.execute(this::drain);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                executor.execute(WorkOrderCompletionPipeline.this::drain);
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package com.vebops.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.repository.WorkOrderProgressRepository;
+import com.vebops.repository.WorkOrderProgressRepository.TimelineEntry;
+import com.vebops.repository.WorkOrderRepository;
+
+/**
+ * One-off backfill of {@code work_orders.last_progress_at/last_progress_status}
+ * for work orders whose progress was recorded before the columns existed.
+ * Runs at startup in keyset-paged transactions; afterwards
+ * {@link WorkOrderService#addProgress} keeps the columns current.
+ */
+@Component
+public class WorkOrderProgressBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkOrderProgressBackfill.class);
+
+    private static final int BATCH = 200;
+
+    private final WorkOrderRepository workOrders;
+    private final WorkOrderProgressRepository progress;
+    private final TransactionTemplate tx;
+
+    public WorkOrderProgressBackfill(WorkOrderRepository workOrders,
+                                     WorkOrderProgressRepository progress,
+                                     PlatformTransactionManager txManager) {
+        this.workOrders = workOrders;
+        this.progress = progress;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            log.warn("Work order progress backfill stopped: {}", e.getMessage());
+        }
+    }
+
+    public long backfill() {
+        long total = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = workOrders.findIdsMissingLastProgressAfter(afterId, PageRequest.of(0, BATCH));
+            if (ids.isEmpty()) break;
+            tx.executeWithoutResult(status -> {
+                // Entries arrive newest first per work order, so the first one seen is the head
+                Map<Long, TimelineEntry> heads = new HashMap<>();
+                for (TimelineEntry e : progress.findTimelineNewestFirst(ids)) {
+                    heads.putIfAbsent(e.getWorkOrderId(), e);
+                }
+                heads.values().forEach(e -> workOrders.updateLastProgress(e.getWorkOrderId(), e.getCreatedAt(), e.getStatus()));
+            });
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < BATCH) break;
+        }
+        if (total > 0) {
+            log.info("Backfilled latest progress for {} work orders", total);
+        }
+        return total;
+    }
+}
@@ -4,21 +4,49 @@ import java.math.BigDecimal;
 import com.vebops.domain.WorkOrder;
 
 public interface WorkOrderService {
-    record ProgressAttachment(String filename, String contentType, Long size, byte[] data) {
+    long MAX_PROGRESS_ATTACHMENT_BYTES = 8L * 1024 * 1024;
+    int MAX_BATCH_ASSIGN = 500;
+
+    /**
+     * Photo attached to a progress update: either inline {@code data} or a
+     * {@code storageKey} pointing at a file already in storage (chunked upload).
+     */
+    record ProgressAttachment(String filename, String contentType, Long size, byte[] data, String storageKey) {
+        public ProgressAttachment(String filename, String contentType, Long size, byte[] data) {
+            this(filename, contentType, size, data, null);
+        }
+
         public boolean hasContent() {
-            return data != null && data.length > 0;
+            return (data != null && data.length > 0) || storageKey != null;
         }
     }
 
     WorkOrder createForServiceRequest(Long tenantId, Long srId);
     void autoAssignIfInstallation(Long tenantId, Long woId);
+
+    /**
+     * Assign each work order to the least-loaded available engineer who is free
+     * for its window, one at a time so the batch spreads out. Work orders nobody
+     * is free for stay unassigned. With no ids, takes the unassigned NEW
+     * backlog, earliest due first. At most {@link #MAX_BATCH_ASSIGN} per call.
+     *
+     * @return work order id to assigned engineer id, in assignment order
+     */
+    java.util.Map<Long, Long> autoAssignBacklog(Long tenantId, java.util.List<Long> woIds);
     void issueItem(Long tenantId, Long woId, Long itemId, Long storeId, BigDecimal qty);
     default void addProgress(Long tenantId, Long woId, String status, Long byFeId, String remarks, String photoUrl) {
         addProgress(tenantId, woId, status, byFeId, remarks, photoUrl, null);
     }
     void addProgress(Long tenantId, Long woId, String status, Long byFeId, String remarks, String photoUrl, ProgressAttachment attachment);
     void complete(Long tenantId, Long woId);
-    void assignFe(Long tenantId, Long woId, Long feId, String note);
+    default void assignFe(Long tenantId, Long woId, Long feId, String note) {
+        assignFe(tenantId, woId, feId, note, null, null);
+    }
+    /**
+     * Assign the work order to an engineer. A given start and due date replace
+     * the work order's own; the engineer is booked for that window.
+     */
+    void assignFe(Long tenantId, Long woId, Long feId, String note, java.time.LocalDate startDate, java.time.LocalDate dueDate);
     void returnItem(Long tenantId, Long woId, Long itemId, Long storeId, java.math.BigDecimal qty);
 
 }
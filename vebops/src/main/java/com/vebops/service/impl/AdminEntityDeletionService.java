@@ -2,6 +2,7 @@ package com.vebops.service.impl;
 
 import com.vebops.context.TenantContext;
 import com.vebops.exception.NotFoundException;
+import com.vebops.service.CapacityCalendar;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Service;
@@ -13,6 +14,12 @@ public class AdminEntityDeletionService {
     @PersistenceContext
     private EntityManager em;
 
+    private final CapacityCalendar capacity;
+
+    public AdminEntityDeletionService(CapacityCalendar capacity) {
+        this.capacity = capacity;
+    }
+
     /* --------------------------- helpers --------------------------- */
 
     private long count(String sql, Long tid, Long id) {
@@ -46,7 +53,7 @@ public class AdminEntityDeletionService {
      * Deletes a customer and ONLY their data in this tenant:
      * - SR → WO → invoice graph (and child rows)
      * - proposal items, proposal docs, PO docs
-     * - work order items/progress/assignments, SR/WO/INV/PROPOSAL/PO documents, invoice lines, email logs
+     * - work order items/progress/assignments/capacity slots, SR/WO/INV/PROPOSAL/PO documents, invoice lines, email logs
      * - CUSTOMER role binding in this tenant
      * Preserves global users, other tenants, inventory, teams, FEs, etc.
      */
@@ -142,6 +149,16 @@ public class AdminEntityDeletionService {
                )
         """).setParameter("tid", tid).setParameter("id", customerId).executeUpdate();
 
+        em.createNativeQuery("""
+            DELETE FROM capacity_slots
+             WHERE tenant_id=:tid
+               AND wo_id IN (
+                   SELECT id FROM work_orders WHERE tenant_id=:tid
+                    AND sr_id IN (SELECT id FROM service_requests WHERE tenant_id=:tid AND customer_id=:id)
+               )
+        """).setParameter("tid", tid).setParameter("id", customerId).executeUpdate();
+        capacity.invalidate(tid);
+
         // Proposal items
         em.createNativeQuery("""
             DELETE FROM proposal_items
@@ -207,7 +224,7 @@ public class AdminEntityDeletionService {
     /**
      * Deletes a field engineer in this tenant:
      * - Nulls references in work_orders.assigned_fe_id and work_order_progress.by_fe_id
-     * - Deletes work_order_assignments and team_members for this FE
+     * - Deletes work_order_assignments, team_members and capacity_slots for this FE
      * - Removes FE role binding in this tenant
      * - Deletes the FE row
      * Preserves user (unless optional orphan cleanup is requested).
@@ -231,6 +248,8 @@ public class AdminEntityDeletionService {
         // Remove assignment rows and team membership
         exec("DELETE FROM work_order_assignments WHERE tenant_id=:tid AND fe_id=:id", tid, feId);
         exec("DELETE FROM team_members WHERE tenant_id=:tid AND fe_id=:id", tid, feId);
+        exec("DELETE FROM capacity_slots WHERE tenant_id=:tid AND fe_id=:id", tid, feId);
+        capacity.invalidate(tid);
 
         // Remove FE role binding (keep user)
         em.createNativeQuery("""
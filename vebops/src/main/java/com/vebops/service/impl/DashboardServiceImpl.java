@@ -2,7 +2,6 @@ package com.vebops.service.impl;
 
 import java.math.BigDecimal;
 
-import java.time.LocalDate;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,11 +11,13 @@ import com.vebops.domain.enums.ProposalStatus;
 import com.vebops.domain.enums.SRStatus;
 import com.vebops.domain.enums.WOStatus;
 import com.vebops.dto.DashboardSummary;
+import com.vebops.dto.ReceivableAgingDto;
 import com.vebops.repository.ServiceRequestRepository;
 import com.vebops.repository.InvoiceRepository;
 import com.vebops.repository.ProposalRepository;
 import com.vebops.repository.WorkOrderRepository;
 import com.vebops.service.DashboardService;
+import com.vebops.service.InvoiceAgingService;
 
 /**
  * Implementation of {@link DashboardService} that aggregates counts and revenue
@@ -31,15 +32,18 @@ public class DashboardServiceImpl implements DashboardService {
     private final ProposalRepository proposals;
     private final WorkOrderRepository workOrders;
     private final InvoiceRepository invoices;
+    private final InvoiceAgingService aging;
 
     public DashboardServiceImpl(ServiceRequestRepository serviceRequests,
                                 ProposalRepository proposals,
                                 WorkOrderRepository workOrders,
-                                InvoiceRepository invoices) {
+                                InvoiceRepository invoices,
+                                InvoiceAgingService aging) {
         this.serviceRequests = serviceRequests;
         this.proposals = proposals;
         this.workOrders = workOrders;
         this.invoices = invoices;
+        this.aging = aging;
     }
 
     @Override
@@ -64,13 +68,10 @@ public class DashboardServiceImpl implements DashboardService {
         summary.draftInvoices = invoices.countByStatus(InvoiceStatus.DRAFT);
         summary.sentInvoices = invoices.countByStatus(InvoiceStatus.SENT);
         summary.paidInvoices = invoices.countByStatus(InvoiceStatus.PAID);
-        summary.overdueInvoices = invoices.countByStatusAndInvoiceDateBefore(
-                InvoiceStatus.SENT, LocalDate.now().minusDays(30));
         // revenue
         BigDecimal revenue = invoices.sumTotalByStatus(InvoiceStatus.PAID);
         summary.totalRevenue = revenue != null ? revenue : BigDecimal.ZERO;
-        BigDecimal outstanding = invoices.sumTotalByStatus(InvoiceStatus.SENT);
-        summary.outstandingReceivables = outstanding != null ? outstanding : BigDecimal.ZERO;
+        applyAging(summary, aging.forAllTenants());
         return summary;
     }
 
@@ -96,13 +97,17 @@ public class DashboardServiceImpl implements DashboardService {
         summary.draftInvoices = invoices.countByTenantIdAndStatus(tenantId, InvoiceStatus.DRAFT);
         summary.sentInvoices = invoices.countByTenantIdAndStatus(tenantId, InvoiceStatus.SENT);
         summary.paidInvoices = invoices.countByTenantIdAndStatus(tenantId, InvoiceStatus.PAID);
-        summary.overdueInvoices = invoices.countByTenantIdAndStatusAndInvoiceDateBefore(
-                tenantId, InvoiceStatus.SENT, LocalDate.now().minusDays(30));
         // revenue
         BigDecimal revenue = invoices.sumTotalByTenantAndStatus(tenantId, InvoiceStatus.PAID);
         summary.totalRevenue = revenue != null ? revenue : BigDecimal.ZERO;
-        BigDecimal outstanding = invoices.sumTotalByTenantAndStatus(tenantId, InvoiceStatus.SENT);
-        summary.outstandingReceivables = outstanding != null ? outstanding : BigDecimal.ZERO;
+        applyAging(summary, aging.forTenant(tenantId));
         return summary;
     }
-}
\ No newline at end of file
+
+    // Overdue and outstanding figures come from the receivable aging buckets
+    private static void applyAging(DashboardSummary summary, ReceivableAgingDto aging) {
+        summary.overdueInvoices = aging.overdueCount();
+        summary.outstandingReceivables = aging.total();
+        summary.receivablesAging = aging;
+    }
+}
@@ -1,18 +1,32 @@
 package com.vebops.service.impl;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.function.Predicate;
 
 import com.vebops.service.InvoiceService;
 import com.vebops.service.TenantGuard;
 import com.vebops.service.EmailService;
+import com.vebops.service.FileStorageService;
+import com.vebops.service.RevenueRollupService;
+import com.vebops.service.InvoiceAgingService;
+import com.vebops.exception.NotFoundException;
 import com.vebops.repository.*;
 import com.vebops.domain.*;
 import com.vebops.domain.enums.*;
@@ -28,9 +42,15 @@ public class InvoiceServiceImpl implements InvoiceService {
     private final WorkOrderRepository woRepo;
     private final WorkOrderItemRepository woItemRepo;
     private final ProposalItemRepository propItemRepo;
+    private final ItemRepository itemRepo;
+    private final DocumentRepository docRepo;
 
     // Mail sender to deliver PDF invoices via email
     private final JavaMailSender mailSender;
+    private final FileStorageService storage;
+    private final RevenueRollupService revenue;
+    private final InvoiceAgingService aging;
+    private final TransactionTemplate tx;
 
     public InvoiceServiceImpl(TenantGuard tenantGuard,
                               EmailService emailService,
@@ -39,7 +59,13 @@ public class InvoiceServiceImpl implements InvoiceService {
                               WorkOrderRepository woRepo,
                               WorkOrderItemRepository woItemRepo,
                               ProposalItemRepository propItemRepo,
-                              JavaMailSender mailSender) {
+                              ItemRepository itemRepo,
+                              DocumentRepository docRepo,
+                              JavaMailSender mailSender,
+                              FileStorageService storage,
+                              RevenueRollupService revenue,
+                              InvoiceAgingService aging,
+                              PlatformTransactionManager txManager) {
         this.tenantGuard = tenantGuard;
         this.emailService = emailService;
         this.invRepo = invRepo;
@@ -47,7 +73,13 @@ public class InvoiceServiceImpl implements InvoiceService {
         this.woRepo = woRepo;
         this.woItemRepo = woItemRepo;
         this.propItemRepo = propItemRepo;
+        this.itemRepo = itemRepo;
+        this.docRepo = docRepo;
         this.mailSender = mailSender;
+        this.storage = storage;
+        this.revenue = revenue;
+        this.aging = aging;
+        this.tx = new TransactionTemplate(txManager);
     }
 
     @Override
@@ -69,33 +101,28 @@ public class InvoiceServiceImpl implements InvoiceService {
         invRepo.save(inv);
 
         BigDecimal subtotal = BigDecimal.ZERO;
+        List<InvoiceLine> lines = new ArrayList<>();
 
-        // Material lines from issued quantities
-        List<WorkOrderItem> items = woItemRepo.findByTenantIdAndWorkOrder_Id(tenantId, woId);
-        for (WorkOrderItem it : items) {
-            if (it.getQtyIssued().compareTo(BigDecimal.ZERO) > 0) {
-                InvoiceLine line = new InvoiceLine();
-                line.setTenantId(tenantId);
-                line.setInvoice(inv);
-                line.setItem(it.getItem());
-                line.setDescription(it.getItem().getName());
-                line.setQty(it.getQtyIssued());
-                line.setRate(it.getItem().getRate());
-                line.setAmount(it.getItem().getRate().multiply(it.getQtyIssued()));
-                line.setSource("WO_ITEM");
-                line.setSourceId(it.getId());
-                invLineRepo.save(line);
-                subtotal = subtotal.add(line.getAmount());
-            }
+        // Material lines from issued quantities, read in one query; items are
+        // referenced by id so no Item row is loaded
+        for (WorkOrderItemRepository.IssuedLine it : woItemRepo.findIssuedLines(tenantId, woId)) {
+            BigDecimal rate = it.getRate() != null ? it.getRate() : BigDecimal.ZERO;
+            InvoiceLine line = new InvoiceLine();
+            line.setTenantId(tenantId);
+            line.setInvoice(inv);
+            line.setItem(itemRepo.getReferenceById(it.getItemId()));
+            line.setDescription(it.getItemName());
+            line.setQty(it.getQtyIssued());
+            line.setRate(rate);
+            line.setAmount(rate.multiply(it.getQtyIssued()));
+            line.setSource("WO_ITEM");
+            line.setSourceId(it.getId());
+            lines.add(line);
+            subtotal = subtotal.add(line.getAmount());
         }
 
         // Service charge heuristic: proposal total - material-only proposal lines
-        BigDecimal proposalMaterials = BigDecimal.ZERO;
-        for (ProposalItem pi : propItemRepo.findByTenantIdAndProposal_Id(tenantId, proposal.getId())) {
-            if (pi.getItem() != null) {
-                proposalMaterials = proposalMaterials.add(pi.getAmount());
-            }
-        }
+        BigDecimal proposalMaterials = propItemRepo.sumMaterialAmount(tenantId, proposal.getId());
         BigDecimal serviceCharge = proposal.getTotal() != null ? proposal.getTotal().subtract(proposalMaterials) : BigDecimal.ZERO;
         if (serviceCharge.compareTo(BigDecimal.ZERO) > 0) {
             InvoiceLine svc = new InvoiceLine();
@@ -106,9 +133,11 @@ public class InvoiceServiceImpl implements InvoiceService {
             svc.setRate(serviceCharge);
             svc.setAmount(serviceCharge);
             svc.setSource("SERVICE_CHARGE");
-            invLineRepo.save(svc);
+            lines.add(svc);
             subtotal = subtotal.add(serviceCharge);
         }
+        // Pooled ids let Hibernate send these as batched multi-row inserts
+        invLineRepo.saveAll(lines);
 
         inv.setSubtotal(subtotal);
         inv.setTax(BigDecimal.ZERO);
@@ -121,21 +150,13 @@ public class InvoiceServiceImpl implements InvoiceService {
     public void sendInvoice(Long tenantId, Long invoiceId, String toEmail) {
         tenantGuard.assertActive(tenantId);
         Invoice inv = invRepo.findById(invoiceId).orElseThrow(() -> new RuntimeException("Invoice not found"));
-        inv.setStatus(InvoiceStatus.SENT);
-        // Build the invoice PDF
-        List<InvoiceLine> lines = invLineRepo.findByTenantIdAndInvoice_Id(tenantId, invoiceId);
-        byte[] pdfBytes = com.vebops.util.PdfUtil.buildInvoicePdf(inv, lines);
+        markSent(inv);
+        // Stored invoice PDF; re-sends reuse it
+        byte[] pdfBytes = currentPdf(tenantId, inv);
         // Send email with PDF attachment using JavaMailSender
         if (mailSender != null && toEmail != null && !toEmail.isBlank()) {
             try {
-                MimeMessage message = mailSender.createMimeMessage();
-                MimeMessageHelper helper = new MimeMessageHelper(message, true);
-                helper.setTo(toEmail);
-                helper.setSubject("Invoice " + inv.getInvoiceNo());
-                helper.setText("Please find attached invoice.");
-                helper.addAttachment("invoice-" + inv.getInvoiceNo() + ".pdf",
-                    new org.springframework.core.io.ByteArrayResource(pdfBytes));
-                mailSender.send(message);
+                mailSender.send(invoiceMessage(toEmail, inv.getInvoiceNo(), pdfBytes));
             } catch (Exception ex) {
                 // swallow exceptions to avoid disrupting business flow
             }
@@ -149,10 +170,9 @@ public class InvoiceServiceImpl implements InvoiceService {
     public void sendInvoiceViaWhatsapp(Long tenantId, Long invoiceId, String toWhatsapp) {
         tenantGuard.assertActive(tenantId);
         Invoice inv = invRepo.findById(invoiceId).orElseThrow(() -> new RuntimeException("Invoice not found"));
-        inv.setStatus(InvoiceStatus.SENT);
-        // Build the invoice PDF
-        List<InvoiceLine> lines = invLineRepo.findByTenantIdAndInvoice_Id(tenantId, invoiceId);
-        byte[] pdfBytes = com.vebops.util.PdfUtil.buildInvoicePdf(inv, lines);
+        markSent(inv);
+        // Make sure the stored invoice PDF is current
+        currentPdf(tenantId, inv);
         // TODO: integrate with a WhatsApp messaging service (e.g. Twilio) to deliver the PDF.
         // For now we simply log the delivery. A real implementation would upload the PDF
         // to a public URL or attach it directly in the WhatsApp message.
@@ -163,11 +183,162 @@ public class InvoiceServiceImpl implements InvoiceService {
         emailService.send(tenantId, toWhatsapp, "Invoice " + inv.getInvoiceNo(), "Please find attached invoice.", "INVOICE", inv.getId(), false);
     }
 
+    @Override
+    @Transactional
+    public String storePdf(Long tenantId, Long invoiceId) {
+        tenantGuard.assertActive(tenantId);
+        Invoice inv = invRepo.findById(invoiceId).orElseThrow(() -> new NotFoundException("Invoice not found"));
+        currentPdf(tenantId, inv);
+        return inv.getPdfUrl();
+    }
+
+    @Override
+    @Transactional
+    public String issuePdf(Long tenantId, Long invoiceId) {
+        tenantGuard.assertActive(tenantId);
+        Invoice inv = invRepo.findById(invoiceId).orElseThrow(() -> new NotFoundException("Invoice not found"));
+        markSent(inv);
+        currentPdf(tenantId, inv);
+        return inv.getPdfUrl();
+    }
+
+    @Override
+    @Transactional
+    public byte[] pdf(Long tenantId, Long invoiceId) {
+        Invoice inv = invRepo.findById(invoiceId).orElseThrow(() -> new NotFoundException("Invoice not found"));
+        if (!tenantId.equals(inv.getTenantId())) throw new NotFoundException("Invoice not found");
+        return currentPdf(tenantId, inv);
+    }
+
+    @Override
+    public void deliverInvoice(Long tenantId, Long invoiceId, String toEmail) {
+        // Status and PDF commit first; no invoice row stays locked while the mail server is slow
+        Outgoing out = tx.execute(status -> {
+            tenantGuard.assertActive(tenantId);
+            Invoice inv = invRepo.findById(invoiceId).orElseThrow(() -> new NotFoundException("Invoice not found"));
+            // Status first, so the attached PDF prints it rather than reusing a DRAFT render
+            markSent(inv);
+            return new Outgoing(inv.getInvoiceNo(), currentPdf(tenantId, inv));
+        });
+        if (mailSender != null && toEmail != null && !toEmail.isBlank()) {
+            try {
+                mailSender.send(invoiceMessage(toEmail, out.invoiceNo(), out.pdf()));
+            } catch (MessagingException ex) {
+                throw new IllegalStateException("Could not build invoice email: " + ex.getMessage(), ex);
+            }
+        }
+        emailService.send(tenantId, toEmail, "Invoice " + out.invoiceNo(), "Please find attached invoice.", "INVOICE", invoiceId, false);
+    }
+
+    private record Outgoing(String invoiceNo, byte[] pdf) {}
+
+    private MimeMessage invoiceMessage(String toEmail, String invoiceNo, byte[] pdfBytes) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setTo(toEmail);
+        helper.setSubject("Invoice " + invoiceNo);
+        helper.setText("Please find attached invoice.");
+        helper.addAttachment("invoice-" + invoiceNo + ".pdf", new org.springframework.core.io.ByteArrayResource(pdfBytes));
+        return message;
+    }
+
+    // The stored PDF when it was rendered from the invoice and lines as they
+    // are now; otherwise render again and replace it
+    private byte[] currentPdf(Long tenantId, Invoice inv) {
+        List<InvoiceLine> lines = invLineRepo.findByTenantIdAndInvoice_Id(tenantId, inv.getId());
+        String hash = fingerprint(inv, lines);
+        if (inv.getPdfUrl() != null && hash.equals(inv.getPdfHash())) {
+            try {
+                return storage.readStored(inv.getPdfUrl());
+            } catch (IOException | RuntimeException missing) {
+                // fall through and render again
+            }
+        }
+        byte[] pdfBytes = com.vebops.util.PdfUtil.buildInvoicePdf(inv, lines);
+        store(tenantId, inv, pdfBytes, hash);
+        return pdfBytes;
+    }
+
+    private void store(Long tenantId, Invoice inv, byte[] pdfBytes, String hash) {
+        String filename = "invoice-" + inv.getInvoiceNo() + ".pdf";
+        String key;
+        try {
+            key = storage.saveInvoicePdf(tenantId, inv.getId(), filename, pdfBytes);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not store invoice PDF: " + ex.getMessage(), ex);
+        }
+        inv.setPdfUrl(key);
+        inv.setPdfHash(hash);
+
+        // One PDF document per invoice on its work order, named after the invoice number
+        Long woId = inv.getWorkOrder() != null ? inv.getWorkOrder().getId() : null;
+        if (woId == null) return;
+        Document doc = docRepo.findByEntityTypeAndEntityIdAndTenantId(DocumentEntityType.WO, woId, tenantId).stream()
+            .filter(d -> d.getKind() == DocumentKind.PDF && filename.equals(d.getFilename()))
+            .findFirst()
+            .orElseGet(() -> {
+                Document d = new Document();
+                d.setTenantId(tenantId);
+                d.setKind(DocumentKind.PDF);
+                d.setEntityType(DocumentEntityType.WO);
+                d.setEntityId(woId);
+                d.setFilename(filename);
+                return d;
+            });
+        doc.setUrl(key);
+        doc.setUploadedAt(Instant.now());
+        docRepo.save(doc);
+    }
+
+    /** Hash of every invoice and line field the PDF prints that this service can change. */
+    static String fingerprint(Invoice inv, List<InvoiceLine> lines) {
+        StringBuilder sb = new StringBuilder()
+            .append(inv.getInvoiceNo()).append('|')
+            .append(inv.getInvoiceDate()).append('|')
+            .append(inv.getStatus()).append('|')
+            .append(plain(inv.getSubtotal())).append('|')
+            .append(plain(inv.getTax())).append('|')
+            .append(plain(inv.getTotal()));
+        for (InvoiceLine l : lines) {
+            sb.append('\n')
+                .append(l.getId()).append('|')
+                .append(l.getDescription()).append('|')
+                .append(plain(l.getQty())).append('|')
+                .append(plain(l.getRate())).append('|')
+                .append(plain(l.getAmount()));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Scale-insensitive, so 10 and 10.00 read back from the database hash alike
+    private static String plain(BigDecimal v) {
+        return v != null ? v.stripTrailingZeros().toPlainString() : "";
+    }
+
     @Override
     @Transactional
     public void markPaid(Long tenantId, Long invoiceId) {
         tenantGuard.assertActive(tenantId);
         Invoice inv = invRepo.findById(invoiceId).orElseThrow(() -> new RuntimeException("Invoice not found"));
-        inv.setStatus(InvoiceStatus.PAID);
+        changeStatus(inv, InvoiceStatus.PAID);
+    }
+
+    // Only a draft becomes SENT. Re-sending anything later is a copy or a reminder and must not move
+    // a paid, part-paid, overdue or void invoice back into SENT (and back into receivables)
+    private void markSent(Invoice inv) {
+        if (inv.getStatus() == null || inv.getStatus() == InvoiceStatus.DRAFT) changeStatus(inv, InvoiceStatus.SENT);
+    }
+
+    // Every status change after creation goes through here so the revenue and aging rollups follow it
+    private void changeStatus(Invoice inv, InvoiceStatus status) {
+        InvoiceStatus from = inv.getStatus();
+        inv.setStatus(status);
+        revenue.statusChanged(inv, from);
+        aging.customerChanged(inv.getTenantId(), inv.getCustomer() != null ? inv.getCustomer().getId() : null);
     }
 }
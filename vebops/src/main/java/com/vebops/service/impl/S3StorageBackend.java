@@ -0,0 +1,231 @@
+package com.vebops.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.vebops.service.StorageBackend;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Stores objects in an S3-compatible bucket (AWS S3, MinIO, ...). Enable with
+ * {@code vebops.storage.backend=s3}. Files larger than the part size are sent
+ * with a multipart upload, reading one part at a time so memory use is bounded
+ * by the part size; ranged reads map onto HTTP {@code Range} GETs so partial
+ * downloads never fetch the whole object. For MinIO set
+ * {@code vebops.storage.s3.endpoint} and {@code vebops.storage.s3.path-style=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "vebops.storage.backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend, DisposableBean {
+
+    // S3 requires every part except the last to be at least 5 MB.
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+    private final long partSize;
+
+    @Autowired
+    public S3StorageBackend(
+        @Value("${vebops.storage.s3.bucket}") String bucket,
+        @Value("${vebops.storage.s3.prefix:}") String prefix,
+        @Value("${vebops.storage.s3.region:us-east-1}") String region,
+        @Value("${vebops.storage.s3.endpoint:}") String endpoint,
+        @Value("${vebops.storage.s3.path-style:false}") boolean pathStyle,
+        @Value("${vebops.storage.s3.access-key:}") String accessKey,
+        @Value("${vebops.storage.s3.secret-key:}") String secretKey,
+        @Value("${vebops.storage.s3.part-size:8388608}") long partSize
+    ) {
+        AwsCredentialsProvider credentials = (accessKey != null && !accessKey.isBlank())
+            ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+            : DefaultCredentialsProvider.create();
+        S3ClientBuilder builder = S3Client.builder()
+            .region(Region.of(region))
+            .credentialsProvider(credentials)
+            .forcePathStyle(pathStyle);
+        if (endpoint != null && !endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        this.s3 = builder.build();
+        this.bucket = bucket;
+        this.prefix = (prefix == null || prefix.isBlank()) ? "" : prefix.replaceAll("/+$", "") + "/";
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+    }
+
+    S3StorageBackend(S3Client s3, String bucket, String prefix, long partSize) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.partSize = partSize;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        try {
+            long size = Files.size(source);
+            if (size <= partSize) {
+                s3.putObject(b -> b.bucket(bucket).key(objectKey(key)), RequestBody.fromFile(source));
+            } else {
+                multipartUpload(objectKey(key), source, size);
+            }
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload " + key + " to bucket " + bucket, e);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] data) throws IOException {
+        try {
+            s3.putObject(b -> b.bucket(bucket).key(objectKey(key)), RequestBody.fromBytes(data));
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload " + key + " to bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        try {
+            return s3.getObjectAsBytes(b -> b.bucket(bucket).key(objectKey(key))).asByteArray();
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public InputStream stream(String key) throws IOException {
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public InputStream stream(String key, long offset, long length) throws IOException {
+        if (length <= 0) return InputStream.nullInputStream();
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey(key)).range(range));
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(b -> b.bucket(bucket).key(objectKey(key)));
+            return Optional.of(new ObjectInfo(head.contentLength(), head.lastModified()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return Optional.empty();
+            throw new IOException("Failed to stat " + key + " in bucket " + bucket, e);
+        } catch (SdkException e) {
+            throw new IOException("Failed to stat " + key + " in bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (SdkException e) {
+            throw new IOException("Failed to delete " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public Stream<Entry> list(String keyPrefix) throws IOException {
+        try {
+            return s3.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(objectKey(keyPrefix))).contents().stream()
+                .map(o -> new Entry(o.key().substring(prefix.length()), new ObjectInfo(o.size(), o.lastModified())));
+        } catch (SdkException e) {
+            throw new IOException("Failed to list " + keyPrefix + " in bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public void move(String from, String to) throws IOException {
+        // single-request copy, so objects above 5 GB cannot be moved
+        try {
+            s3.copyObject(b -> b.sourceBucket(bucket).sourceKey(objectKey(from))
+                .destinationBucket(bucket).destinationKey(objectKey(to)));
+        } catch (SdkException e) {
+            throw new IOException("Failed to move " + from + " to " + to + " in bucket " + bucket, e);
+        }
+        delete(from);
+    }
+
+    @Override
+    public void destroy() {
+        s3.close();
+    }
+
+    private void multipartUpload(String objectKey, Path source, long size) throws IOException {
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(objectKey)).uploadId();
+        try (FileChannel ch = FileChannel.open(source, StandardOpenOption.READ)) {
+            List<CompletedPart> parts = new ArrayList<>();
+            ByteBuffer buf = ByteBuffer.allocate((int) partSize);
+            int partNumber = 1;
+            for (long position = 0; position < size; position += partSize, partNumber++) {
+                buf.clear();
+                while (buf.hasRemaining() && ch.read(buf, position + buf.position()) > 0) {
+                    // fill the part buffer
+                }
+                buf.flip();
+                final int n = partNumber;
+                String etag = s3.uploadPart(
+                    b -> b.bucket(bucket).key(objectKey).uploadId(uploadId).partNumber(n).contentLength((long) buf.remaining()),
+                    RequestBody.fromByteBuffer(buf)).eTag();
+                parts.add(CompletedPart.builder().partNumber(n).eTag(etag).build());
+            }
+            s3.completeMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()));
+        } catch (IOException | RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId));
+            } catch (SdkException ignored) {
+                // the bucket lifecycle rule cleans up abandoned parts
+            }
+            throw e;
+        }
+    }
+
+    private String objectKey(String key) {
+        return prefix + key;
+    }
+}
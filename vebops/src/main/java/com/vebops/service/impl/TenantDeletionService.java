@@ -31,12 +31,17 @@ public class TenantDeletionService {
 
         // --- children first (mirror delete order) ---
         m.put("documents",              count("SELECT COUNT(*) FROM documents WHERE tenant_id=:tid", tenantId));
+        m.put("stored_objects",         count("SELECT COUNT(*) FROM stored_objects WHERE tenant_id=:tid", tenantId));
         m.put("email_log",              count("SELECT COUNT(*) FROM email_log WHERE tenant_id=:tid", tenantId));
         m.put("email_templates",        count("SELECT COUNT(*) FROM email_templates WHERE tenant_id=:tid", tenantId));
         m.put("team_members",           count("SELECT COUNT(*) FROM team_members WHERE tenant_id=:tid", tenantId));
+        m.put("progress_upload_sessions", count("SELECT COUNT(*) FROM progress_upload_sessions WHERE tenant_id=:tid", tenantId));
+        m.put("fe_stats",               count("SELECT COUNT(*) FROM fe_stats WHERE tenant_id=:tid", tenantId));
+        m.put("capacity_slots",         count("SELECT COUNT(*) FROM capacity_slots WHERE tenant_id=:tid", tenantId));
         m.put("work_order_progress",    count("SELECT COUNT(*) FROM work_order_progress WHERE tenant_id=:tid", tenantId));
         m.put("work_order_assignments", count("SELECT COUNT(*) FROM work_order_assignments WHERE tenant_id=:tid", tenantId));
         m.put("work_order_items",       count("SELECT COUNT(*) FROM work_order_items WHERE tenant_id=:tid", tenantId));
+        m.put("service_items",          count("SELECT COUNT(*) FROM service_items WHERE tenant_id=:tid", tenantId));
         m.put("invoice_lines",          count("SELECT COUNT(*) FROM invoice_lines WHERE tenant_id=:tid", tenantId));
         m.put("procurement_requests",   count("SELECT COUNT(*) FROM procurement_requests WHERE tenant_id=:tid", tenantId));
         m.put("stock_ledger",           count("SELECT COUNT(*) FROM stock_ledger WHERE tenant_id=:tid", tenantId));
@@ -101,12 +106,26 @@ public class TenantDeletionService {
 
         // --- children first ---
         exec("DELETE FROM documents WHERE tenant_id=:tid", tenantId);
+        // Give back the tenant's blob references; unreferenced blob rows go and
+        // the storage GC sweeps their files
+        exec("""
+            UPDATE stored_blobs b
+            JOIN (SELECT sha256, COUNT(*) AS refs FROM stored_objects WHERE tenant_id = :tid GROUP BY sha256) o
+              ON o.sha256 = b.sha256
+            SET b.ref_count = GREATEST(b.ref_count - o.refs, 0)
+        """, tenantId);
+        exec("DELETE FROM stored_objects WHERE tenant_id=:tid", tenantId);
+        em.createNativeQuery("DELETE FROM stored_blobs WHERE ref_count <= 0").executeUpdate();
         exec("DELETE FROM email_log WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM email_templates WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM team_members WHERE tenant_id=:tid", tenantId);
+        exec("DELETE FROM progress_upload_sessions WHERE tenant_id=:tid", tenantId);
+        exec("DELETE FROM fe_stats WHERE tenant_id=:tid", tenantId);
+        exec("DELETE FROM capacity_slots WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM work_order_progress WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM work_order_assignments WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM work_order_items WHERE tenant_id=:tid", tenantId);
+        exec("DELETE FROM service_items WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM invoice_lines WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM procurement_requests WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM stock_ledger WHERE tenant_id=:tid", tenantId);
@@ -116,6 +135,8 @@ public class TenantDeletionService {
 
         // --- parents ---
         exec("DELETE FROM invoices WHERE tenant_id=:tid", tenantId);
+        exec("DELETE FROM revenue_monthly WHERE tenant_id=:tid", tenantId);
+        exec("DELETE FROM receivable_aging WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM work_orders WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM service_requests WHERE tenant_id=:tid", tenantId);
         exec("DELETE FROM proposals WHERE tenant_id=:tid", tenantId);
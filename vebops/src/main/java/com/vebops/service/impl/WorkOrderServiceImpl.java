@@ -1,18 +1,29 @@
 package com.vebops.service.impl;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Predicate;
 
 import com.vebops.service.WorkOrderService;
 import com.vebops.service.WorkOrderService.ProgressAttachment;
 import com.vebops.service.TenantGuard;
 import com.vebops.service.InventoryService;
-import com.vebops.service.InvoiceService;
+import com.vebops.service.FeStatsService;
+import com.vebops.service.AssignmentEngine;
+import com.vebops.service.CapacityCalendar;
+import com.vebops.service.WorkOrderCompletionPipeline;
+import com.vebops.service.WorkOrderChangedEvent;
+import com.vebops.service.WorkOrderChangedEvent.Change;
 import com.vebops.repository.*;
 import com.vebops.domain.*;
 import com.vebops.domain.enums.*;
@@ -24,7 +35,11 @@ public class WorkOrderServiceImpl implements WorkOrderService {
 
     private final TenantGuard tenantGuard;
     private final InventoryService inventoryService;
-    private final InvoiceService invoiceService;
+    private final FeStatsService feStats;
+    private final ApplicationEventPublisher events;
+    private final AssignmentEngine assignmentEngine;
+    private final CapacityCalendar capacity;
+    private final WorkOrderCompletionPipeline completion;
 
     private final WorkOrderRepository woRepo;
     private final ServiceRequestRepository srRepo;
@@ -38,12 +53,9 @@ public class WorkOrderServiceImpl implements WorkOrderService {
     // Repository for linking the most recent customer purchase order to a work order
     private final CustomerPORepository customerPORepo;
 
-    private static final long MAX_PROGRESS_ATTACHMENT_BYTES = 8L * 1024 * 1024;
-
     public WorkOrderServiceImpl(
         TenantGuard tenantGuard,
         InventoryService inventoryService,
-        InvoiceService invoiceService,
         WorkOrderRepository woRepo,
         ServiceRequestRepository srRepo,
         FieldEngineerRepository feRepo,
@@ -52,11 +64,15 @@ public class WorkOrderServiceImpl implements WorkOrderService {
         WorkOrderProgressRepository woProgRepo,
         CustomerPORepository customerPORepo,
         WorkOrderAssignmentRepository woAssignRepo,
-        WorkOrderProgressAttachmentRepository woProgAttachmentRepo
+        WorkOrderProgressAttachmentRepository woProgAttachmentRepo,
+        FeStatsService feStats,
+        ApplicationEventPublisher events,
+        AssignmentEngine assignmentEngine,
+        CapacityCalendar capacity,
+        WorkOrderCompletionPipeline completion
     ) {
         this.tenantGuard = tenantGuard;
         this.inventoryService = inventoryService;
-        this.invoiceService = invoiceService;
         this.woRepo = woRepo;
         this.srRepo = srRepo;
         this.feRepo = feRepo;
@@ -66,6 +82,11 @@ public class WorkOrderServiceImpl implements WorkOrderService {
         this.customerPORepo = customerPORepo;
         this.woAssignRepo = woAssignRepo;
         this.woProgAttachmentRepo = woProgAttachmentRepo;
+        this.feStats = feStats;
+        this.events = events;
+        this.assignmentEngine = assignmentEngine;
+        this.capacity = capacity;
+        this.completion = completion;
     }
 
     @Override
@@ -143,6 +164,7 @@ public class WorkOrderServiceImpl implements WorkOrderService {
             }
         }
 
+        events.publishEvent(new WorkOrderChangedEvent(tenantId, wo.getId(), Change.CREATED));
         return wo;
     }
 
@@ -153,12 +175,48 @@ public class WorkOrderServiceImpl implements WorkOrderService {
         WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("WO not found"));
         ServiceRequest sr = wo.getServiceRequest();
         if (sr.getServiceType() == ServiceTypeCode.SUPPLY_INSTALL || sr.getServiceType() == ServiceTypeCode.INSTALL_ONLY) {
-            var available = feRepo.findByTenantIdAndStatus(tenantId, FEStatus.AVAILABLE);
-            if (!available.isEmpty()) {
-                wo.setAssignedFE(available.get(0));
-                wo.setStatus(WOStatus.ASSIGNED);
+            // Least-loaded free engineer rather than whichever the repository returns first
+            pickFree(wo).ifPresent(fe -> assign(wo, fe, null));
+        }
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, Long> autoAssignBacklog(Long tenantId, List<Long> woIds) {
+        tenantGuard.assertActive(tenantId);
+        List<WorkOrder> backlog = (woIds == null || woIds.isEmpty())
+            ? woRepo.findUnassignedBacklog(tenantId, PageRequest.of(0, MAX_BATCH_ASSIGN))
+            : woRepo.findAllById(woIds).stream()
+                .filter(wo -> tenantId.equals(wo.getTenantId()))
+                // Same backlog as findUnassignedBacklog: never re-route work someone already holds
+                .filter(wo -> wo.getStatus() == WOStatus.NEW && wo.getAssignedFE() == null)
+                .limit(MAX_BATCH_ASSIGN)
+                .toList();
+        // Each pick sees the previous assignments of this batch, so work is spread out
+        Map<Long, Long> assigned = new LinkedHashMap<>();
+        for (WorkOrder wo : backlog) {
+            // Nobody free for this window stays in the backlog; the next work order may have another window
+            FieldEngineer fe = pickFree(wo).orElse(null);
+            if (fe == null) continue;
+            assign(wo, fe, "Auto-assigned");
+            assigned.put(wo.getId(), fe.getId());
+        }
+        return assigned;
+    }
+
+    // Least-loaded available engineer who is free for the work order's window. Auto-assignment
+    // never overbooks, so booking the pick cannot be refused and roll back the caller's transaction
+    private Optional<FieldEngineer> pickFree(WorkOrder wo) {
+        Long tenantId = wo.getTenantId();
+        for (Long feId : assignmentEngine.ranked(tenantId)) {
+            Optional<FieldEngineer> fe = feRepo.findById(feId);
+            if (fe.isEmpty()) {
+                assignmentEngine.invalidate(tenantId);
+                continue;
             }
+            if (capacity.isFree(wo, feId)) return fe;
         }
+        return Optional.empty();
     }
 
     @Override
@@ -221,10 +279,11 @@ public class WorkOrderServiceImpl implements WorkOrderService {
         p.setPhotoUrl(photoUrl);
         p.setRemarks(remarks);
         woProgRepo.save(p);
+        wo.recordProgress(p.getCreatedAt(), progressStatus);
 
         if (attachment != null && attachment.hasContent()) {
-            byte[] data = attachment.data();
-            long actualSize = data.length;
+            byte[] data = attachment.storageKey() != null ? null : attachment.data();
+            long actualSize = data != null ? data.length : attachment.size();
             long declared = attachment.size() != null ? attachment.size() : actualSize;
             long effectiveSize = Math.max(actualSize, declared);
             if (effectiveSize > MAX_PROGRESS_ATTACHMENT_BYTES) {
@@ -237,6 +296,7 @@ public class WorkOrderServiceImpl implements WorkOrderService {
             photo.setContentType(normaliseContentType(attachment.contentType()));
             photo.setSize(actualSize);
             photo.setData(data);
+            photo.setStorageKey(attachment.storageKey());
             woProgAttachmentRepo.save(photo);
             p.addAttachment(photo);
         }
@@ -282,6 +342,19 @@ public class WorkOrderServiceImpl implements WorkOrderService {
                 // modify the high‑level work order status.
             }
         }
+
+        // Only a completion changes the engineer's counters; other steps just mark activity
+        if (wo.getAssignedFE() != null) {
+            if (progressStatus == WOProgressStatus.COMPLETED) {
+                assignmentEngine.completed(tenantId, woId);
+                capacity.release(tenantId, woId);
+                feStats.refresh(tenantId, wo.getAssignedFE().getId());
+            } else {
+                feStats.progressRecorded(tenantId, wo.getAssignedFE().getId(), p.getCreatedAt());
+            }
+        }
+        events.publishEvent(new WorkOrderChangedEvent(tenantId, woId,
+            progressStatus == WOProgressStatus.COMPLETED ? Change.COMPLETED : Change.PROGRESS));
     }
 
     private String sanitiseFilename(String original) {
@@ -304,21 +377,21 @@ public class WorkOrderServiceImpl implements WorkOrderService {
         tenantGuard.assertActive(tenantId);
         WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("WO not found"));
         wo.setStatus(WOStatus.COMPLETED);
-        Invoice inv =invoiceService.generateForWorkOrder(tenantId, woId);
-
-        // Auto-email to customer (if email present)
-        String to = null;
-        if (wo.getServiceRequest() != null && wo.getServiceRequest().getCustomer() != null) {
-            to = wo.getServiceRequest().getCustomer().getEmail();
+        if (wo.getAssignedFE() != null) {
+            assignmentEngine.completed(tenantId, woId);
+            capacity.release(tenantId, woId);
+            feStats.refresh(tenantId, wo.getAssignedFE().getId());
         }
-        if (to != null && !to.isBlank()) {
-            invoiceService.sendInvoice(tenantId, inv.getId(), to);
+        // Invoice, PDF and delivery run after commit, off the request thread
+        if (wo.getCompletionStage() == null) {
+            completion.enqueue(wo);
         }
+        events.publishEvent(new WorkOrderChangedEvent(tenantId, woId, Change.COMPLETED));
     }
 
     @Override
     @Transactional
-    public void assignFe(Long tenantId, Long woId, Long feId, String note) {
+    public void assignFe(Long tenantId, Long woId, Long feId, String note, LocalDate startDate, LocalDate dueDate) {
         tenantGuard.assertActive(tenantId);
 
         WorkOrder wo = woRepo.findById(woId).orElseThrow(() -> new NotFoundException("WO not found"));
@@ -326,9 +399,35 @@ public class WorkOrderServiceImpl implements WorkOrderService {
 
         FieldEngineer fe = feRepo.findById(feId).orElseThrow(() -> new NotFoundException("FE not found"));
 
+        // The window the engineer is booked for; without a due date nothing is booked
+        LocalDate start = startDate != null ? startDate : wo.getStartDate();
+        LocalDate due = dueDate != null ? dueDate : wo.getDueDate();
+        if (start != null && due != null && due.isBefore(start)) {
+            throw new BusinessException("dueDate must not be before startDate");
+        }
+        wo.setStartDate(start);
+        wo.setDueDate(due);
+
+        assign(wo, fe, note);
+    }
+
+    private void assign(WorkOrder wo, FieldEngineer fe, String note) {
+        Long tenantId = wo.getTenantId();
+        FieldEngineer previous = wo.getAssignedFE();
+        // Books the work order's window; refuses first if the tenant does not allow overbooking
+        capacity.book(wo, fe.getId());
+
         // set current assignment & status
         wo.setAssignedFE(fe);
         wo.setStatus(WOStatus.ASSIGNED);
+        // Reassigning to the same engineer changes no column; the timeline ETag still has to move
+        wo.setUpdatedAt(Instant.now());
+        assignmentEngine.assigned(tenantId, wo.getId(), fe.getId(), wo.getDueDate());
+        feStats.refresh(tenantId, fe.getId());
+        if (previous != null && !previous.getId().equals(fe.getId())) {
+            feStats.refresh(tenantId, previous.getId());
+        }
+        events.publishEvent(new WorkOrderChangedEvent(tenantId, wo.getId(), Change.ASSIGNED));
 
         // record assignment history
         WorkOrderAssignment a = new WorkOrderAssignment();
@@ -0,0 +1,151 @@
+package com.vebops.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import com.vebops.dto.CursorPage;
+import com.vebops.exception.BusinessException;
+
+/**
+ * Opaque keyset cursors for the list endpoints' cursor mode. A cursor holds
+ * the sort property, its direction, the last row's sort value and its id, so
+ * the next page is a seek ({@code WHERE (key, id) < (:key, :id)}) on the
+ * tenant/created index instead of an OFFSET, and no COUNT is run.
+ *
+ * <p>Only {@code createdAt} and {@code id} can be used as cursor sort keys:
+ * both are non-null and indexed per tenant, which keyset seeks require.</p>
+ */
+public final class Cursors {
+
+    private static final String VERSION = "c1";
+    private static final String TIMELINE_VERSION = "t1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private Cursors() {}
+
+    /** Decoded cursor; {@code createdAt} is null when the sort key is the id. */
+    public record Position(String property, Sort.Direction direction, Instant createdAt, Long id) {}
+
+    /**
+     * Parse a {@code "field,direction"} sort parameter for cursor mode. The
+     * property must be one of {@code allowed}; the result always ends with
+     * {@code id} in the same direction so the order is total.
+     */
+    public static Sort sort(String sort, String defaultProperty, String... allowed) {
+        String property = defaultProperty;
+        Sort.Direction direction = Sort.Direction.DESC;
+        if (sort != null && !sort.isBlank()) {
+            String[] parts = sort.split(",");
+            if (parts.length > 0 && !parts[0].isBlank()) property = parts[0].trim();
+            if (parts.length > 1 && "asc".equalsIgnoreCase(parts[1].trim())) direction = Sort.Direction.ASC;
+        }
+        if (!Arrays.asList(allowed).contains(property)) {
+            throw new BusinessException("Cursor paging supports sort by " + String.join(" or ", allowed));
+        }
+        Sort spec = Sort.by(direction, property);
+        return "id".equals(property) ? spec : spec.and(Sort.by(direction, "id"));
+    }
+
+    /** Decode {@code cursor}; a blank cursor means the first page and yields null. */
+    public static Position decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) return null;
+        Sort.Order order = sort.iterator().next();
+        try {
+            String[] parts = new String(DECODER.decode(cursor.trim()), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 5 || !VERSION.equals(parts[0])) throw new IllegalArgumentException();
+            if (!order.getProperty().equals(parts[1]) || !order.getDirection().name().equals(parts[2])) {
+                throw new BusinessException("Cursor does not match the requested sort");
+            }
+            Instant createdAt = parts[3].isEmpty() ? null : Instant.parse(parts[3]);
+            return new Position(parts[1], order.getDirection(), createdAt, Long.parseLong(parts[4]));
+        } catch (BusinessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+    public static String encode(Sort sort, Instant createdAt, Long id) {
+        Sort.Order order = sort.iterator().next();
+        boolean byId = "id".equals(order.getProperty());
+        String raw = String.join("|", VERSION, order.getProperty(), order.getDirection().name(),
+            byId || createdAt == null ? "" : createdAt.toString(), String.valueOf(id));
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Where a client is in a work order's timeline: the {@code (createdAt, id)}
+     * of the last progress entry and of the last assignment it has seen.
+     */
+    public record TimelinePosition(Instant progressAt, long progressId, Instant assignedAt, long assignmentId) {
+        public static final TimelinePosition START = new TimelinePosition(Instant.EPOCH, 0L, Instant.EPOCH, 0L);
+    }
+
+    /** Decode a timeline {@code since} cursor; blank means the whole history. */
+    public static TimelinePosition decodeTimeline(String cursor) {
+        if (cursor == null || cursor.isBlank()) return TimelinePosition.START;
+        try {
+            String[] parts = new String(DECODER.decode(cursor.trim()), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 5 || !TIMELINE_VERSION.equals(parts[0])) throw new IllegalArgumentException();
+            return new TimelinePosition(Instant.parse(parts[1]), Long.parseLong(parts[2]),
+                Instant.parse(parts[3]), Long.parseLong(parts[4]));
+        } catch (RuntimeException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+    public static String encodeTimeline(TimelinePosition p) {
+        String raw = String.join("|", TIMELINE_VERSION, p.progressAt().toString(), String.valueOf(p.progressId()),
+            p.assignedAt().toString(), String.valueOf(p.assignmentId()));
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Spring Data keyset position for {@code cursor}; the initial position when it is blank. */
+    public static ScrollPosition scrollPosition(String cursor, Sort sort) {
+        Position p = decode(cursor, sort);
+        if (p == null) return ScrollPosition.keyset();
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (p.createdAt() != null) keys.put("createdAt", p.createdAt());
+        keys.put("id", p.id());
+        return ScrollPosition.forward(keys);
+    }
+
+    /** Wrap a keyset window, deriving the next cursor from its last row. */
+    public static <T> CursorPage<T> page(Window<T> window, Sort sort, int size,
+                                         Function<T, Instant> createdAt, Function<T, Long> id) {
+        List<T> content = window.getContent();
+        String next = null;
+        if (window.hasNext() && !content.isEmpty()) {
+            T last = content.get(content.size() - 1);
+            next = encode(sort, createdAt.apply(last), id.apply(last));
+        }
+        return new CursorPage<>(content, next, next != null, size);
+    }
+
+    /**
+     * Build a page from rows fetched with a limit of {@code size + 1}: the
+     * extra row only signals that more rows exist.
+     */
+    public static <T> CursorPage<T> page(List<T> rows, Sort sort, int size,
+                                         Function<T, Instant> createdAt, Function<T, Long> id) {
+        boolean more = rows.size() > size;
+        List<T> content = more ? rows.subList(0, size) : rows;
+        String next = null;
+        if (more) {
+            T last = content.get(content.size() - 1);
+            next = encode(sort, createdAt.apply(last), id.apply(last));
+        }
+        return new CursorPage<>(List.copyOf(content), next, more, size);
+    }
+}
@@ -0,0 +1,29 @@
+package com.vebops.util;
+
+/**
+ * Entity tag helpers for conditional GETs.
+ */
+public final class ETags {
+
+    private ETags() {}
+
+    /** Quote {@code tag} as a strong entity tag. */
+    public static String strong(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches {@code etag}. Uses the
+     * weak comparison required for If-None-Match (RFC 9110 13.1.2), so
+     * {@code W/} prefixes added by proxies are ignored.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,141 @@
+package com.vebops.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed intervals {@code [start, end]} over longs (e.g. epoch days), each
+ * carrying a value and a unique id. Backed by a treap ordered by
+ * {@code (start, id)} where every node also records the largest end in its
+ * subtree, so inserts and removals are O(log n) expected and an overlap query
+ * is O(log n + k) for k hits. Not thread-safe.
+ */
+public final class IntervalTree<T> {
+
+    private static final class Node<T> {
+        final long start;
+        final long end;
+        final long id;
+        final T value;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        long maxEnd;
+        Node<T> left;
+        Node<T> right;
+
+        Node(long start, long end, long id, T value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<T> root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(long start, long end, long id, T value) {
+        if (end < start) throw new IllegalArgumentException("Interval ends before it starts");
+        root = insert(root, new Node<>(start, end, id, value));
+        size++;
+    }
+
+    /** Remove the interval identified by its start and id; returns whether it was present. */
+    public boolean remove(long start, long id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /** Values of every interval that overlaps {@code [from, to]}, in start order. */
+    public List<T> overlapping(long from, long to) {
+        List<T> out = new ArrayList<>();
+        collect(root, from, to, out);
+        return out;
+    }
+
+    private static <T> int compare(long startA, long idA, Node<T> b) {
+        int c = Long.compare(startA, b.start);
+        return c != 0 ? c : Long.compare(idA, b.id);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> fresh) {
+        if (node == null) return fresh;
+        if (compare(fresh.start, fresh.id, node) < 0) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> remove(Node<T> node, long start, long id) {
+        if (node == null) return null;
+        int c = compare(start, id, node);
+        if (c < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (c > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    // Every key in a is below every key in b
+    private Node<T> merge(Node<T> a, Node<T> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private void collect(Node<T> node, long from, long to, List<T> out) {
+        if (node == null || node.maxEnd < from) return;
+        collect(node.left, from, to, out);
+        if (node.start > to) return;
+        if (node.end >= from) out.add(node.value);
+        collect(node.right, from, to, out);
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> l = node.left;
+        node.left = l.right;
+        l.right = node;
+        update(node);
+        update(l);
+        return l;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> r = node.right;
+        node.right = r.left;
+        r.left = node;
+        update(node);
+        update(r);
+        return r;
+    }
+
+    private static <T> void update(Node<T> node) {
+        long max = node.end;
+        if (node.left != null && node.left.maxEnd > max) max = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd > max) max = node.right.maxEnd;
+        node.maxEnd = max;
+    }
+}
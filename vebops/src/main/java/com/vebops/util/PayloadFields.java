@@ -0,0 +1,78 @@
+package com.vebops.util;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Readers for the loosely typed JSON maps of a service payload (items, meta,
+ * totals). Clients name the same field differently (the service form sends
+ * {@code basePrice}, the purchase order utilities {@code rate}, older screens
+ * {@code unitPrice}), so values are looked up under a list of aliases.
+ */
+public final class PayloadFields {
+
+    private PayloadFields() {}
+
+    /** Quantity of an item line. */
+    public static BigDecimal qty(Map<String, Object> line) {
+        return number(firstValue(line, "qty", "quantity", "qtyOrdered", "qtyOrderedUnits"));
+    }
+
+    /** Unit price of an item line, before discount. */
+    public static BigDecimal unitPrice(Map<String, Object> line) {
+        return number(firstValue(line, "unitPrice", "price", "rate", "basePrice"));
+    }
+
+    /** Discount of an item line, in percent. */
+    public static BigDecimal discountPercent(Map<String, Object> line) {
+        return number(firstValue(line, "discountPercent", "discountRate", "discount"));
+    }
+
+    /** Value of the first key present and not blank, or null. */
+    public static Object firstValue(Map<String, Object> map, String... keys) {
+        if (map == null || keys == null) {
+            return null;
+        }
+        for (String key : keys) {
+            if (key == null) continue;
+            Object value = map.get(key);
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof String str && str.trim().isEmpty()) {
+                continue;
+            }
+            return value;
+        }
+        return null;
+    }
+
+    /** A number, or a string holding one (currency signs and separators are dropped); null otherwise. */
+    public static BigDecimal number(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigDecimal bd) {
+            return bd;
+        }
+        if (value instanceof Number num) {
+            return new BigDecimal(num.toString());
+        }
+        if (value instanceof String str) {
+            String cleaned = str.trim();
+            if (cleaned.isEmpty()) {
+                return null;
+            }
+            cleaned = cleaned.replaceAll("[^0-9.+-]", "");
+            if (cleaned.isEmpty() || cleaned.equals("+") || cleaned.equals("-") || cleaned.equals(".")) {
+                return null;
+            }
+            try {
+                return new BigDecimal(cleaned);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
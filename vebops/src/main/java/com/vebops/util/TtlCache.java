@@ -0,0 +1,72 @@
+package com.vebops.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Small keyed cache for expensive read models such as dashboard summaries.
+ * Values live for a fixed time-to-live. Loading is single-flight: when a key
+ * is missing or expired, the first caller runs the loader and concurrent
+ * callers for the same key wait for that result instead of loading again.
+ * A failed load is not cached.
+ */
+public final class TtlCache<K, V> {
+
+    private record Slot<V>(CompletableFuture<V> value, long expiresAt) {}
+
+    private final Map<K, Slot<V>> slots = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final Clock clock;
+
+    public TtlCache(Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    public TtlCache(Duration ttl, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        Slot<V> slot = slots.compute(key, (k, current) -> {
+            // A slot still loading is shared regardless of age; a loaded one only until it expires
+            if (current != null && (!current.value().isDone() || clock.millis() < current.expiresAt())) {
+                return current;
+            }
+            return new Slot<>(mine, Long.MAX_VALUE);
+        });
+        if (slot.value() != mine) {
+            return join(slot.value());
+        }
+        try {
+            V value = loader.get();
+            slots.replace(key, slot, new Slot<>(mine, clock.millis() + ttlMillis));
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            slots.remove(key, slot);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(K key) {
+        slots.remove(key);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
@@ -45,6 +45,8 @@ import com.vebops.domain.User;
 import com.vebops.domain.enums.RoleCode;
 import com.vebops.dto.DashboardSummary;
 import com.vebops.service.AdminService;
+import com.vebops.service.DataUrlMigrationService;
+import com.vebops.service.StorageGarbageCollector;
 
 /**
  * Thin REST controller delegating all business logic to {@link AdminService}.
@@ -58,9 +60,14 @@ import com.vebops.service.AdminService;
 public class AdminController {
 
     private final AdminService adminService;
+    private final DataUrlMigrationService dataUrlMigration;
+    private final StorageGarbageCollector storageGc;
 
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, DataUrlMigrationService dataUrlMigration,
+                           StorageGarbageCollector storageGc) {
         this.adminService = adminService;
+        this.dataUrlMigration = dataUrlMigration;
+        this.storageGc = storageGc;
     }
 
     // ---------- User management ----------
@@ -124,6 +131,29 @@ public class AdminController {
         return adminService.systemHealth();
     }
 
+    // ---------- Storage maintenance ----------
+
+    @GetMapping("/storage/data-url-migration")
+    public ResponseEntity<DataUrlMigrationService.MigrationProgress> dataUrlMigrationProgress() {
+        return ResponseEntity.ok(dataUrlMigration.progress());
+    }
+
+    @PostMapping("/storage/data-url-migration")
+    public ResponseEntity<DataUrlMigrationService.MigrationProgress> startDataUrlMigration() {
+        return ResponseEntity.accepted().body(dataUrlMigration.request());
+    }
+
+    @GetMapping("/storage/gc")
+    public ResponseEntity<StorageGarbageCollector.GcReport> storageGcReport() {
+        return ResponseEntity.ok(storageGc.report());
+    }
+
+    @PostMapping("/storage/gc")
+    public ResponseEntity<StorageGarbageCollector.GcReport> startStorageGc(
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.accepted().body(storageGc.request(dryRun));
+    }
+
     // ---------- Admin Utilities ----------
 
     @PostMapping("/users/invite")
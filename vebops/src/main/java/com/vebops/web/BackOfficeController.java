@@ -1,13 +1,16 @@
 package com.vebops.web;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -17,11 +20,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.vebops.domain.Document;
 import com.vebops.domain.Invoice;
@@ -42,6 +47,9 @@ import com.vebops.domain.enums.WOStatus;
 import com.vebops.dto.AddKitItemRequest;
 import com.vebops.dto.ApproveProposalRequest;
 import com.vebops.dto.AssignFERequest;
+import com.vebops.dto.AutoAssignRequest;
+import com.vebops.dto.CapacitySlotDto;
+import com.vebops.dto.CapacitySlotRequest;
 import com.vebops.dto.CreateCustomerRequest;
 import com.vebops.dto.CreateCustomerResponse;
 import com.vebops.dto.CreateFERequest;
@@ -160,12 +168,17 @@ public class BackOfficeController {
 
     // ----- Service Requests -----
     @GetMapping({"/requests","/service-requests"})
-    public ResponseEntity<Page<ServiceRequest>> listServiceRequests(
+    public ResponseEntity<?> listServiceRequests(
             @RequestParam(required = false) SRStatus status,
             @RequestParam(name = "customerId", required = false) Long customerId,
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "size", defaultValue = "20") int size,
-            @RequestParam(defaultValue = "createdAt,desc") String sort) {
+            @RequestParam(defaultValue = "createdAt,desc") String sort,
+            @RequestParam(required = false) String cursor) {
+        // Passing cursor (empty for the first page) switches to keyset paging without a total count
+        if (cursor != null) {
+            return bo.scrollServiceRequests(status, customerId, size, sort, cursor);
+        }
         return bo.listServiceRequests(status, customerId, page, size, sort);
     }
 
@@ -181,12 +194,16 @@ public class BackOfficeController {
 
     // ----- Proposals -----
     @GetMapping("/proposals")
-    public ResponseEntity<Page<Proposal>> listProposals(
+    public ResponseEntity<?> listProposals(
             @RequestParam(required = false) ProposalStatus status,
             @RequestParam(required = false) Long customerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
-            @RequestParam(defaultValue = "id,desc") String sort) {
+            @RequestParam(defaultValue = "id,desc") String sort,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return bo.scrollProposals(status, customerId, size, sort, cursor);
+        }
         return bo.listProposals(status, customerId, page, size, sort);
     }
 
@@ -227,13 +244,17 @@ public class BackOfficeController {
 
     // ----- Work Orders -----
     @GetMapping("/wo")
-    public ResponseEntity<Page<WorkOrder>> listWOs(
+    public ResponseEntity<?> listWOs(
             @RequestParam(required = false) WOStatus status,
             @RequestParam(required = false) Long feId,
             @RequestParam(required = false) Long srId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
-            @RequestParam(defaultValue = "id,desc") String sort) {
+            @RequestParam(defaultValue = "id,desc") String sort,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return bo.scrollWOs(status, feId, srId, size, sort, cursor);
+        }
         return bo.listWOs(status, feId, srId, page, size, sort);
     }
 
@@ -247,6 +268,13 @@ public class BackOfficeController {
         return bo.woTimeline(id);
     }
 
+    @GetMapping("/wo/{id}/timeline/updates")
+    public ResponseEntity<Map<String, Object>> woTimelineUpdates(@PathVariable Long id,
+                                                                 @RequestParam(required = false) String since,
+                                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return bo.woTimelineUpdates(id, since, ifNoneMatch);
+    }
+
     @GetMapping(value = "/wo/{id}/completion-report.pdf", produces = MediaType.APPLICATION_PDF_VALUE)
     public ResponseEntity<byte[]> woCompletionReport(@PathVariable Long id) {
         return bo.completionReport(id);
@@ -264,6 +292,36 @@ public class BackOfficeController {
         return bo.assignFe(id, body);
     }
 
+    @GetMapping("/capacity/free")
+    public ResponseEntity<List<FieldEngineerDto>> freeEngineers(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "1") int days,
+            @RequestParam(required = false) Long teamId) {
+        return bo.freeEngineers(from, days, teamId);
+    }
+
+    @GetMapping("/capacity/slots")
+    public ResponseEntity<List<CapacitySlotDto>> capacitySlots(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return bo.capacitySlots(from, to);
+    }
+
+    @PostMapping("/capacity/slots")
+    public ResponseEntity<CapacitySlotDto> addCapacitySlot(@RequestBody @Valid CapacitySlotRequest req) {
+        return bo.addCapacitySlot(req);
+    }
+
+    @DeleteMapping("/capacity/slots/{id}")
+    public ResponseEntity<Void> removeCapacitySlot(@PathVariable Long id) {
+        return bo.removeCapacitySlot(id);
+    }
+
+    @PostMapping("/wo/auto-assign")
+    public ResponseEntity<Map<Long, Long>> autoAssign(@RequestBody(required = false) AutoAssignRequest body) {
+        return bo.autoAssign(body);
+    }
+
     @PostMapping("/wo/{id}/progress")
     public ResponseEntity<Void> addProgress(@PathVariable Long id, @RequestBody @Valid ProgressRequest req) {
         return bo.addProgress(id, req);
@@ -280,6 +338,11 @@ public class BackOfficeController {
         return bo.complete(woId);
     }
 
+    @PostMapping("/wo/{woId}/completion/retry")
+    public ResponseEntity<Void> retryCompletion(@PathVariable Long woId) {
+        return bo.retryCompletion(woId);
+    }
+
     // ----- Invoices -----
     @PostMapping("/invoice/{invoiceId}/send")
     public ResponseEntity<Void> sendInvoice(@PathVariable Long invoiceId, @RequestBody SendInvoiceRequest req) {
@@ -293,12 +356,16 @@ public class BackOfficeController {
     }
 
     @GetMapping("/purchase-orders")
-    public ResponseEntity<Page<PurchaseOrderDtos.ListItem>> listPurchaseOrders(
+    public ResponseEntity<?> listPurchaseOrders(
             @RequestParam(required = false) Long serviceId,
             @RequestParam(name = "q", required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
-            @RequestParam(defaultValue = "createdAt,desc") String sort) {
+            @RequestParam(defaultValue = "createdAt,desc") String sort,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return bo.scrollPurchaseOrders(serviceId, keyword, size, sort, cursor);
+        }
         return bo.listPurchaseOrders(serviceId, keyword, page, size, sort);
     }
 
@@ -532,4 +599,9 @@ public class BackOfficeController {
         return bo.dispatchBoard(limit);
     }
 
+    @GetMapping(value = "/wo/dispatch-board/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> dispatchBoardStream() {
+        return bo.dispatchBoardStream();
+    }
+
 }
\ No newline at end of file
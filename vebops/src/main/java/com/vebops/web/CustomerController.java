@@ -53,7 +53,7 @@ public class CustomerController {
     }
 
     @GetMapping(value = "/invoices/{id}/pdf", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> downloadInvoice(@PathVariable Long id) {
+    public ResponseEntity<Resource> downloadInvoice(@PathVariable Long id) {
         return svc.downloadInvoice(id);
     }
 
@@ -83,7 +83,7 @@ public class CustomerController {
     }
 
     @GetMapping(value = "/work-orders/{id}/service-invoice", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> downloadServiceInvoice(@PathVariable Long id,
+    public ResponseEntity<Resource> downloadServiceInvoice(@PathVariable Long id,
                                                          @RequestParam(name = "type", required = false) String type) {
         return svc.downloadServiceInvoice(id, type);
     }
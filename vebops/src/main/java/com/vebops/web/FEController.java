@@ -1,7 +1,9 @@
 package com.vebops.web;
 
+import java.io.IOException;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -9,7 +11,9 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,7 +21,12 @@ import org.springframework.web.bind.annotation.RestController;
 import com.vebops.domain.WorkOrder;
 import com.vebops.dto.FeDashboardSummary;
 import com.vebops.dto.ProgressRequest;
+import com.vebops.dto.StartUploadRequest;
 import com.vebops.service.FeService;
+import com.vebops.service.ProgressUploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 /**
  * Thin controller delegating field engineer operations to {@link FeService}.
@@ -30,9 +39,11 @@ import com.vebops.service.FeService;
 public class FEController {
 
     private final FeService svc;
+    private final ProgressUploadService uploads;
 
-    public FEController(FeService svc) {
+    public FEController(FeService svc, ProgressUploadService uploads) {
         this.svc = svc;
+        this.uploads = uploads;
     }
 
     // change the endpoint to accept optional feId and fallback to current user
@@ -51,6 +62,13 @@ public class FEController {
         return svc.detail(id);
     }
 
+    @GetMapping("/wo/{id}/updates")
+    public ResponseEntity<FeService.FeTimelineUpdates> detailUpdates(@PathVariable Long id,
+                                                                     @RequestParam(required = false) String since,
+                                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return svc.detailUpdates(id, since, ifNoneMatch);
+    }
+
 
     @PostMapping("/wo/{woId}/progress")
     public ResponseEntity<Void> progress(@PathVariable Long woId, @RequestBody ProgressRequest req) {
@@ -68,4 +86,32 @@ public class FEController {
                                                               @PathVariable Long attachmentId) {
         return svc.downloadProgressAttachment(woId, progressId, attachmentId);
     }
+
+    // ----- Resumable progress photo uploads -----
+    @PostMapping("/wo/{woId}/uploads")
+    public ResponseEntity<ProgressUploadService.UploadStatus> startUpload(@PathVariable Long woId,
+                                                                         @Valid @RequestBody StartUploadRequest req) {
+        return uploads.start(woId, req);
+    }
+
+    @GetMapping("/wo/{woId}/uploads/{uploadId}")
+    public ResponseEntity<ProgressUploadService.UploadStatus> uploadStatus(@PathVariable Long woId,
+                                                                          @PathVariable Long uploadId) {
+        return uploads.status(woId, uploadId);
+    }
+
+    @PutMapping(value = "/wo/{woId}/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ProgressUploadService.UploadStatus> uploadChunk(@PathVariable Long woId,
+                                                                         @PathVariable Long uploadId,
+                                                                         @RequestParam long offset,
+                                                                         HttpServletRequest request) throws IOException {
+        return uploads.chunk(woId, uploadId, offset, request.getInputStream());
+    }
+
+    @PostMapping("/wo/{woId}/uploads/{uploadId}/complete")
+    public ResponseEntity<Void> completeUpload(@PathVariable Long woId,
+                                               @PathVariable Long uploadId,
+                                               @RequestBody ProgressRequest req) {
+        return uploads.complete(woId, uploadId, req);
+    }
 }
@@ -17,6 +17,9 @@ import com.vebops.domain.WorkOrder;
 import com.vebops.domain.WorkOrderAssignment;
 import com.vebops.domain.WorkOrderProgress;
 import com.vebops.domain.WorkOrderProgressAttachment;
+import com.vebops.dto.CursorPage;
+import com.vebops.dto.ServiceListItem;
+import com.vebops.repository.ServiceItemRepository;
 import com.vebops.repository.ServiceRepository;
 import com.vebops.repository.ServiceRequestRepository;
 import com.vebops.repository.WorkOrderAssignmentRepository;
@@ -26,7 +29,8 @@ import com.vebops.repository.WorkOrderRepository;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -46,7 +50,15 @@ import java.util.Map;
 import java.util.Optional;
 
 import com.vebops.service.DocumentSequenceService;
+import com.vebops.service.FileDownloadService;
 import com.vebops.service.FileStorageService;
+import com.vebops.service.ServiceItemService;
+import com.vebops.service.BuyerDirectory;
+import com.vebops.service.ServiceSearchIndex;
+import com.vebops.service.StoredFile;
+import com.vebops.exception.BusinessException;
+import com.vebops.util.Cursors;
+import com.vebops.util.PayloadFields;
 
 
 /**
@@ -83,6 +95,10 @@ public class ServiceController {
     // disk rather than encoded into the database.  Injected via the
     // constructor.
     private final FileStorageService fileStorage;
+    private final FileDownloadService downloads;
+    private final ServiceItemService serviceItems;
+    private final ServiceSearchIndex searchIndex;
+    private final BuyerDirectory buyers;
 
     public ServiceController(ServiceRepository repository,
                              ObjectMapper objectMapper,
@@ -98,7 +114,11 @@ public class ServiceController {
                              org.springframework.mail.javamail.JavaMailSender mailSender,
                              com.vebops.service.EmailService emailService,
                              DocumentSequenceService sequenceService,
-                             FileStorageService fileStorage) {
+                             FileStorageService fileStorage,
+                             FileDownloadService downloads,
+                             ServiceItemService serviceItems,
+                             ServiceSearchIndex searchIndex,
+                             BuyerDirectory buyers) {
         this.repository = repository;
         this.objectMapper = objectMapper;
         this.customerRepo = customerRepo;
@@ -114,6 +134,10 @@ public class ServiceController {
         this.emailService = emailService;
         this.sequenceService = sequenceService;
         this.fileStorage = fileStorage;
+        this.downloads = downloads;
+        this.serviceItems = serviceItems;
+        this.searchIndex = searchIndex;
+        this.buyers = buyers;
     }
 
     private void normaliseServicePayload(Service service) {
@@ -147,14 +171,13 @@ public class ServiceController {
             BigDecimal tax = BigDecimal.ZERO;
 
             for (Map<String, Object> line : items) {
-                BigDecimal qty = number(firstValue(line, "qty", "quantity", "qtyOrdered", "qtyOrderedUnits"));
-                BigDecimal unit = number(firstValue(line, "unitPrice", "price", "rate", "basePrice"));
-                BigDecimal explicitLine = number(firstValue(line, "lineTotal", "total", "amount", "lineAmount"));
-                BigDecimal explicitPre = number(firstValue(line, "preDiscount", "gross", "grossAmount", "beforeDiscount"));
-                BigDecimal discountAmount = number(firstValue(line,
+                BigDecimal qty = PayloadFields.qty(line);
+                BigDecimal unit = PayloadFields.unitPrice(line);
+                BigDecimal explicitLine = PayloadFields.number(PayloadFields.firstValue(line, "lineTotal", "total", "amount", "lineAmount"));
+                BigDecimal explicitPre = PayloadFields.number(PayloadFields.firstValue(line, "preDiscount", "gross", "grossAmount", "beforeDiscount"));
+                BigDecimal discountAmount = PayloadFields.number(PayloadFields.firstValue(line,
                         "discountAmount", "discountValue", "discountComponent"));
-                BigDecimal discountPercent = number(firstValue(line,
-                        "discountPercent", "discountRate", "discount"));
+                BigDecimal discountPercent = PayloadFields.discountPercent(line);
 
                 BigDecimal preDiscount = explicitPre;
                 if (preDiscount == null && qty != null && unit != null) {
@@ -183,8 +206,8 @@ public class ServiceController {
                     lineTotal = preDiscount.subtract(less);
                 }
 
-                BigDecimal taxRate = number(firstValue(line, "taxRate", "tax_percent", "gstRate", "igstRate"));
-                BigDecimal taxAmount = number(firstValue(line, "taxAmount", "tax", "gstAmount", "igstAmount"));
+                BigDecimal taxRate = PayloadFields.number(PayloadFields.firstValue(line, "taxRate", "tax_percent", "gstRate", "igstRate"));
+                BigDecimal taxAmount = PayloadFields.number(PayloadFields.firstValue(line, "taxAmount", "tax", "gstAmount", "igstAmount"));
                 if (taxAmount == null && taxRate != null && lineTotal != null) {
                     taxAmount = lineTotal.multiply(taxRate).divide(ONE_HUNDRED, 2, RoundingMode.HALF_UP);
                 }
@@ -205,16 +228,16 @@ public class ServiceController {
                 }
             }
 
-            BigDecimal existingSubtotal = number(firstValue(totals,
+            BigDecimal existingSubtotal = PayloadFields.number(PayloadFields.firstValue(totals,
                     "subtotal", "subTotal", "beforeTax", "totalBeforeTax"));
-            BigDecimal existingDiscount = number(firstValue(totals,
+            BigDecimal existingDiscount = PayloadFields.number(PayloadFields.firstValue(totals,
                     "discount", "discountAmount", "discountValue", "discountSavings"));
-            BigDecimal existingTransport = number(firstValue(totals,
+            BigDecimal existingTransport = PayloadFields.number(PayloadFields.firstValue(totals,
                     "transport", "transportation", "freight", "deliveryCharge"));
-            BigDecimal cgstAmount = number(firstValue(totals, "cgst", "cgstAmount"));
-            BigDecimal sgstAmount = number(firstValue(totals, "sgst", "sgstAmount"));
-            BigDecimal igstAmount = number(firstValue(totals, "igst", "igstAmount"));
-            BigDecimal totalTaxField = number(firstValue(totals, "tax", "totalTax", "gstTotal"));
+            BigDecimal cgstAmount = PayloadFields.number(PayloadFields.firstValue(totals, "cgst", "cgstAmount"));
+            BigDecimal sgstAmount = PayloadFields.number(PayloadFields.firstValue(totals, "sgst", "sgstAmount"));
+            BigDecimal igstAmount = PayloadFields.number(PayloadFields.firstValue(totals, "igst", "igstAmount"));
+            BigDecimal totalTaxField = PayloadFields.number(PayloadFields.firstValue(totals, "tax", "totalTax", "gstTotal"));
 
             if (shouldReplace(existingSubtotal, subtotal)) {
                 totals.put("subtotal", scale(subtotal));
@@ -229,7 +252,7 @@ public class ServiceController {
 
             BigDecimal transport = existingTransport;
             if (transport == null) {
-                transport = number(firstValue(meta, "transport", "transportation", "freight", "deliveryCharge"));
+                transport = PayloadFields.number(PayloadFields.firstValue(meta, "transport", "transportation", "freight", "deliveryCharge"));
                 if (transport != null) {
                     totals.put("transport", scale(transport));
                     totalsChanged = true;
@@ -275,7 +298,7 @@ public class ServiceController {
 
             BigDecimal effectiveDiscount = discountToPersist;
             BigDecimal computedGrand = subtotal.subtract(effectiveDiscount).add(transport).add(taxForGrand);
-            BigDecimal existingGrand = number(firstValue(totals,
+            BigDecimal existingGrand = PayloadFields.number(PayloadFields.firstValue(totals,
                     "grandTotal", "grand", "total", "netTotal"));
 
             if (shouldReplace(existingGrand, computedGrand)) {
@@ -334,52 +357,6 @@ public class ServiceController {
         }
     }
 
-    private Object firstValue(Map<String, Object> map, String... keys) {
-        if (map == null || keys == null) {
-            return null;
-        }
-        for (String key : keys) {
-            if (key == null) continue;
-            Object value = map.get(key);
-            if (value == null) {
-                continue;
-            }
-            if (value instanceof String str && str.trim().isEmpty()) {
-                continue;
-            }
-            return value;
-        }
-        return null;
-    }
-
-    private BigDecimal number(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof BigDecimal bd) {
-            return bd;
-        }
-        if (value instanceof Number num) {
-            return new BigDecimal(num.toString());
-        }
-        if (value instanceof String str) {
-            String cleaned = str.trim();
-            if (cleaned.isEmpty()) {
-                return null;
-            }
-            cleaned = cleaned.replaceAll("[^0-9.+-]", "");
-            if (cleaned.isEmpty() || cleaned.equals("+") || cleaned.equals("-") || cleaned.equals(".")) {
-                return null;
-            }
-            try {
-                return new BigDecimal(cleaned);
-            } catch (NumberFormatException ex) {
-                return null;
-            }
-        }
-        return null;
-    }
-
     private String firstText(Map<String, Object> map, String... keys) {
         if (map == null || keys == null) {
             return null;
@@ -441,17 +418,23 @@ public class ServiceController {
      * @param size   page size (defaults to 20)
      * @param sort   comma‑separated sort field and direction (e.g. "createdAt,desc")
      * @param q      optional search keyword
-     * @return a page of services belonging to the current tenant
+     * @param cursor opt-in keyset paging: empty for the first page, then the
+     *               previous response's {@code nextCursor}; no total is counted
+     * @return a page of grid rows; the JSON blobs are only returned by {@code GET /{id}}
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('OFFICE','BACK_OFFICE')")
-    public ResponseEntity<org.springframework.data.domain.Page<Service>> listServices(
+    public ResponseEntity<?> listServices(
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "size", defaultValue = "20") int size,
             @RequestParam(name = "sort", defaultValue = "createdAt,desc") String sort,
-            @RequestParam(name = "q", required = false) String q
+            @RequestParam(name = "q", required = false) String q,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
         Long tenantId = TenantContext.getTenantId();
+        if (cursor != null) {
+            return scrollServices(tenantId, size, sort, q, cursor);
+        }
         // Parse sort parameter into Sort instance. Format: "field,direction".
         org.springframework.data.domain.Sort sortSpec;
         if (sort != null && !sort.isBlank()) {
@@ -467,16 +450,56 @@ public class ServiceController {
         // Constrain page size to a sensible maximum to prevent excessive loads.
         int pageSize = Math.max(1, Math.min(size, 100));
         org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, pageSize, sortSpec);
-        org.springframework.data.domain.Page<Service> result;
+        org.springframework.data.domain.Page<ServiceListItem> result;
         if (q != null && !q.isBlank()) {
-            result = repository.searchByTenantIdAndKeyword(tenantId, q, pageable);
+            // Keyword searches are matched and ranked by the in-memory index;
+            // only the requested page of rows is read from the database.
+            org.springframework.data.domain.Page<Long> ids;
+            Map<Long, ServiceListItem> byId = new HashMap<>();
+            int attempt = 0;
+            while (true) {
+                ids = searchIndex.search(tenantId, q, pageable);
+                byId.clear();
+                if (!ids.isEmpty()) {
+                    repository.findListItemsByTenantIdAndIdIn(tenantId, ids.getContent()).forEach(r -> byId.put(r.id(), r));
+                }
+                List<Long> gone = ids.getContent().stream().filter(id -> !byId.containsKey(id)).toList();
+                // Services deleted behind the index's back: drop them and read the page again,
+                // so it is full and the total no longer counts them
+                if (gone.isEmpty() || ++attempt > 3) break;
+                searchIndex.remove(tenantId, gone);
+                // Their buyers may be gone from the autocomplete as well
+                if (attempt == 1) buyers.refresh(tenantId);
+            }
+            List<ServiceListItem> rows = ids.getContent().stream().map(byId::get).filter(java.util.Objects::nonNull).toList();
+            result = new org.springframework.data.domain.PageImpl<>(rows, pageable, ids.getTotalElements());
         } else {
-            result = repository.findByTenantId(tenantId, pageable);
+            result = repository.findListItemsByTenantId(tenantId, pageable);
         }
-        result.forEach(this::normaliseServicePayload);
         return ResponseEntity.ok(result);
     }
 
+    private ResponseEntity<CursorPage<ServiceListItem>> scrollServices(Long tenantId, int size, String sort,
+                                                                      String q, String cursor) {
+        if (q != null && !q.isBlank()) {
+            throw new BusinessException("Cursor paging is not available for keyword search");
+        }
+        org.springframework.data.domain.Sort sortSpec = Cursors.sort(sort, "createdAt", "createdAt");
+        Cursors.Position from = Cursors.decode(cursor, sortSpec);
+        int pageSize = Math.max(1, Math.min(size, 100));
+        // Fetch one extra row to learn whether another page exists
+        org.springframework.data.domain.Pageable limit = org.springframework.data.domain.PageRequest.of(0, pageSize + 1);
+        boolean desc = sortSpec.iterator().next().isDescending();
+        List<ServiceListItem> rows = desc
+                ? repository.findListItemsBefore(tenantId,
+                        from != null ? from.createdAt() : Instant.parse("9999-12-31T23:59:59Z"),
+                        from != null ? from.id() : Long.MAX_VALUE, limit)
+                : repository.findListItemsAfter(tenantId,
+                        from != null ? from.createdAt() : Instant.EPOCH,
+                        from != null ? from.id() : 0L, limit);
+        return ResponseEntity.ok(Cursors.page(rows, sortSpec, pageSize, ServiceListItem::createdAt, ServiceListItem::id));
+    }
+
     /**
      * Retrieve the details of a single service by ID. Ensures the service
      * belongs to the current tenant. Returns a 404 response if the service
@@ -507,11 +530,26 @@ public class ServiceController {
     }
 
     /**
-     * Suggest buyer profiles for the autocomplete field on the service form. This
-     * endpoint performs a keyword search across existing services and returns
-     * basic buyer details such as name, GSTIN, address, pin, state and contact.
-     * The number of results is capped by the {@code limit} parameter. Duplicates
-     * are removed based on buyer name and contact to avoid spamming the UI.
+     * Sales breakdown over invoiced service lines. {@code groupBy} is one of
+     * item, kit, hsn, state or month; the range defaults to the last year.
+     */
+    @GetMapping("/analytics/sales")
+    @PreAuthorize("hasAnyRole('OFFICE','BACK_OFFICE')")
+    public ResponseEntity<List<ServiceItemRepository.SalesRow>> salesAnalytics(
+            @RequestParam(name = "groupBy", defaultValue = "item") String groupBy,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) java.time.LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) java.time.LocalDate to
+    ) {
+        return serviceItems.sales(groupBy, from, to);
+    }
+
+    /**
+     * Suggest buyer profiles for the autocomplete field on the service form.
+     * Buyers are looked up by prefix of their name (or any word in it), GSTIN,
+     * contact or email in the tenant's {@link BuyerDirectory}, which already
+     * holds one profile per distinct buyer, so a frequently repeated buyer
+     * takes a single slot. Results are ordered by most recent use and capped
+     * by the {@code limit} parameter.
      */
     @GetMapping("/autocomplete")
     @PreAuthorize("hasAnyRole('OFFICE','BACK_OFFICE')")
@@ -525,45 +563,30 @@ public class ServiceController {
 
         Long tenantId = TenantContext.getTenantId();
         int max = Math.max(1, Math.min(limit, 50));
-        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, max);
-        org.springframework.data.domain.Page<Service> page = repository.searchByTenantIdAndKeyword(tenantId, q, pageable);
         List<Map<String, Object>> out = new ArrayList<>();
-        java.util.Set<String> seenKeys = new java.util.HashSet<>();
-        for (Service s : page.getContent()) {
-            String key = (s.getBuyerName() != null ? s.getBuyerName().toLowerCase() : "") + "|"
-                    + (s.getBuyerContact() != null ? s.getBuyerContact().toLowerCase() : "");
-            if (seenKeys.contains(key)) continue;
-            seenKeys.add(key);
+        for (BuyerDirectory.Profile p : buyers.lookup(tenantId, q, max)) {
             Map<String, Object> m = new HashMap<>();
-            m.put("buyerName", s.getBuyerName());
-            m.put("buyerGst", s.getBuyerGst());
-            m.put("buyerAddress", s.getBuyerAddress());
-            m.put("buyerPin", s.getBuyerPin());
-            m.put("buyerState", s.getBuyerState());
-            m.put("buyerContact", s.getBuyerContact());
-            m.put("buyerEmail", s.getBuyerEmail());
+            m.put("buyerName", p.buyerName());
+            m.put("buyerGst", p.buyerGst());
+            m.put("buyerAddress", p.buyerAddress());
+            m.put("buyerPin", p.buyerPin());
+            m.put("buyerState", p.buyerState());
+            m.put("buyerContact", p.buyerContact());
+            m.put("buyerEmail", p.buyerEmail());
             out.add(m);
-            if (out.size() >= max) break;
         }
         return ResponseEntity.ok(out);
     }
 
     private Map<String, Object> resolveServiceContext(Long tenantId, Service svc) {
         Map<String, Object> out = new LinkedHashMap<>();
-        Map<String, Object> meta = safeReadMap(svc.getMetaJson());
-
-        Long workOrderId = coerceLong(meta.get("workOrderId"));
-        if (workOrderId == null) {
-            workOrderId = coerceLong(meta.get("woId"));
-        }
-        Long serviceRequestId = coerceLong(meta.get("serviceRequestId"));
-        if (serviceRequestId == null) {
-            serviceRequestId = coerceLong(meta.get("srId"));
-        }
-        Long proposalId = coerceLong(meta.get("proposalId"));
-        if (proposalId == null) {
-            proposalId = coerceLong(meta.get("proposalID"));
+        // Link keys live in indexed columns; rows not yet backfilled are parsed once here
+        if (!svc.isMetaKeysSynced()) {
+            svc.syncMetaKeys();
         }
+        Long workOrderId = svc.getWorkOrderId();
+        Long serviceRequestId = svc.getServiceRequestId();
+        Long proposalId = svc.getProposalId();
 
         ServiceRequest sr = null;
         WorkOrder wo = null;
@@ -832,22 +855,6 @@ public class ServiceController {
         return list;
     }
 
-    private Long coerceLong(Object value) {
-        if (value == null) return null;
-        if (value instanceof Number n) {
-            return n.longValue();
-        }
-        if (value instanceof String s) {
-            String trimmed = s.trim();
-            if (trimmed.isEmpty()) return null;
-            try {
-                return Long.parseLong(trimmed);
-            } catch (NumberFormatException ignored) {
-                return null;
-            }
-        }
-        return null;
-    }
     /**
      * Create a new service. Expects a JSON body with the following
      * structure:
@@ -922,6 +929,8 @@ public class ServiceController {
         svc.setMetaJson(!meta.isEmpty() ? objectMapper.writeValueAsString(meta) : null);
         svc.setTotalsJson(totals != null ? objectMapper.writeValueAsString(totals) : null);
         Service saved = repository.save(svc);
+        searchIndex.put(saved);
+        buyers.record(saved);
 
         // Attempt to automatically create a draft proposal when a service is created.
         // We wrap this in a try/catch to avoid interfering with the primary
@@ -989,6 +998,13 @@ public class ServiceController {
             // a real application.
         }
 
+        // Mirror the invoiced lines into service_items for sales analytics.
+        // Rows missed here are picked up by the startup backfill.
+        try {
+            serviceItems.record(saved);
+        } catch (Exception ignored) {
+        }
+
         // Attempt to generate and attach a PDF invoice for the new service. This
         // PDF is stored as a Document with entity type SR so that it can be
         // downloaded and emailed later. Any errors here should be suppressed
@@ -1109,28 +1125,31 @@ public class ServiceController {
      * Download the stored invoice PDF for a service. Looks up a Document of
      * type PDF attached to the service (entityType SR) and returns the binary
      * content. Responds with 404 if no invoice is stored. The Content-Disposition
-     * header forces a download in the browser with the stored filename.
+     * header forces a download in the browser with the stored filename. Files on
+     * disk are streamed with ETag/Last-Modified validators and Range support, so
+     * repeated views of an unchanged invoice are answered with 304.
      */
     // ---------- DOWNLOAD: /office/services/{id}/invoice ----------
     @GetMapping(value="/{id}/invoice", produces = MediaType.APPLICATION_PDF_VALUE)
     @PreAuthorize("hasAnyRole('OFFICE','BACK_OFFICE','ADMIN')") // include ADMIN if needed
-    public ResponseEntity<byte[]> downloadServiceInvoice(@PathVariable("id") Long id,
-                                                         @RequestParam(name = "type", required = false) String type) {
+    public ResponseEntity<Resource> downloadServiceInvoice(@PathVariable("id") Long id,
+                                                           @RequestParam(name = "type", required = false) String type) {
         Long tid = com.vebops.context.TenantContext.getTenantId();
         boolean proforma = type != null && !type.isBlank() && (
                 "PROFORMA".equalsIgnoreCase(type) || "PINV".equalsIgnoreCase(type));
         var doc = ensureServiceInvoiceDoc(tid, id, proforma);
         if (doc == null) return ResponseEntity.notFound().build();
-        // Load the stored bytes from disk or decode base64
-        byte[] bytes = loadDocumentBytes(doc);
-        if (bytes == null || bytes.length == 0) return ResponseEntity.notFound().build();
 
         String fallback = proforma ? "service-" + id + "-proforma.pdf" : "service-" + id + ".pdf";
         String fname = (doc.getFilename() == null || doc.getFilename().isBlank()) ? fallback : doc.getFilename();
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fname.replace("\"", "") + "\"")
-            .contentType(MediaType.APPLICATION_PDF)
-            .body(bytes);
+        StoredFile stored = storedDocumentFile(doc);
+        if (stored != null) {
+            return downloads.file(stored, fname, MediaType.APPLICATION_PDF, false);
+        }
+        // Legacy base64 data URL
+        byte[] bytes = loadDocumentBytes(doc);
+        if (bytes == null || bytes.length == 0) return ResponseEntity.notFound().build();
+        return downloads.bytes(bytes, fname, MediaType.APPLICATION_PDF, doc.getUpdatedAt(), false);
     }
 
     /**
@@ -1349,12 +1368,9 @@ public class ServiceController {
         }
         // Otherwise treat url as an on‑disk filename
         try {
-            Long tid = com.vebops.context.TenantContext.getTenantId();
-            Long serviceId = doc.getEntityId();
-            Long docId = doc.getId();
-            java.io.File f = fileStorage.loadServiceInvoiceDoc(tid, serviceId, docId, url);
-            if (f != null && f.exists()) {
-                return java.nio.file.Files.readAllBytes(f.toPath());
+            StoredFile f = storedDocumentFile(doc);
+            if (f != null) {
+                return f.readAllBytes();
             }
         } catch (Exception e) {
             // fall through and return null
@@ -1362,6 +1378,17 @@ public class ServiceController {
         return null;
     }
 
+    /**
+     * Locate the stored file behind a Document without reading it.
+     * Returns {@code null} for legacy data URLs or when the file is missing.
+     */
+    private StoredFile storedDocumentFile(com.vebops.domain.Document doc) {
+        if (doc == null || doc.getUrl() == null || doc.getUrl().startsWith("data:")) return null;
+        Long tid = com.vebops.context.TenantContext.getTenantId();
+        StoredFile f = fileStorage.loadServiceInvoiceDoc(tid, doc.getEntityId(), doc.getId(), doc.getUrl());
+        return f.stat().filter(info -> info.size() > 0).isPresent() ? f : null;
+    }
+
     // ---- Helper: parse JSON safely ----
     private Map<String,Object> readMap(String json) {
         if (json == null || json.isBlank()) return Collections.emptyMap();
@@ -1447,6 +1474,9 @@ public class ServiceController {
         DocumentEntityType desiredType = proforma ? DocumentEntityType.PROFORMA : DocumentEntityType.INVOICE;
 
         if (doc != null && doc.getEntityType() == desiredType) {
+            if (storedDocumentFile(doc) != null) {
+                return doc;
+            }
             byte[] existing = loadDocumentBytes(doc);
             if (existing != null && existing.length > 0) {
                 return doc;
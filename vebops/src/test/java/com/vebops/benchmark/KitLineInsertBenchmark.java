@@ -0,0 +1,151 @@
+package com.vebops.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vebops.domain.Item;
+import com.vebops.domain.Kit;
+import com.vebops.domain.KitItem;
+import com.vebops.domain.enums.ServiceTypeCode;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Round-trips needed to write a 200-line kit, with pooled ids and JDBC
+ * batching versus one INSERT per row (what {@code IDENTITY} ids force, since
+ * Hibernate must insert a row to learn its id). Needs the MySQL database
+ * from application.properties, so it only runs when asked for:
+ *
+ * <pre>mvn test -Dtest=KitLineInsertBenchmark -Dvebops.benchmark=true</pre>
+ *
+ * Every statement execution ({@code execute*}, including one
+ * {@code executeBatch}) is counted as a round-trip; with
+ * {@code rewriteBatchedStatements=true} the driver sends a batch as one
+ * multi-row INSERT. The rows are rolled back afterwards.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "vebops.benchmark", matches = "true")
+class KitLineInsertBenchmark {
+
+    private static final int LINES = 200;
+    private static final long TENANT = -1L;
+    private static final AtomicLong ROUND_TRIPS = new AtomicLong();
+
+    @TestConfiguration
+    static class CountingDataSource {
+        @Bean
+        static BeanPostProcessor countRoundTrips() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String name) {
+                    return bean instanceof DataSource ds ? counting(ds, DataSource.class) : bean;
+                }
+            };
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Test
+    void pooledIdsBatchKitLines() {
+        long perRow = measure(true);
+        long batched = measure(false);
+        System.out.printf("%d kit lines: %d round-trips one row at a time, %d with pooled ids and batching (%.1fx fewer)%n",
+            LINES, perRow, batched, (double) perRow / batched);
+        assertTrue(batched * 10 < perRow, "batched insert should need far fewer round-trips");
+    }
+
+    private long measure(boolean flushEachRow) {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        long[] result = new long[1];
+        tx.executeWithoutResult(status -> {
+            Kit kit = new Kit();
+            kit.setTenantId(TENANT);
+            kit.setName("benchmark kit");
+            kit.setServiceType(ServiceTypeCode.SUPPLY);
+            kit.setPrice(BigDecimal.ZERO);
+            em.persist(kit);
+            List<Item> items = new ArrayList<>(LINES);
+            for (int i = 0; i < LINES; i++) {
+                Item item = new Item();
+                item.setTenantId(TENANT);
+                item.setCode("BENCH-" + i);
+                item.setName("Benchmark item " + i);
+                item.setUom("NOS");
+                item.setRate(BigDecimal.ONE);
+                em.persist(item);
+                items.add(item);
+            }
+            em.flush();
+
+            long before = ROUND_TRIPS.get();
+            for (Item item : items) {
+                KitItem line = new KitItem();
+                line.setTenantId(TENANT);
+                line.setKit(kit);
+                line.setItem(item);
+                line.setQty(BigDecimal.ONE);
+                em.persist(line);
+                if (flushEachRow) em.flush();
+            }
+            em.flush();
+            result[0] = ROUND_TRIPS.get() - before;
+            status.setRollbackOnly();
+        });
+        return result[0];
+    }
+
+    private static final Set<String> EXECUTIONS = Set.of(
+        "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    // Wraps DataSource -> Connection -> Statement, counting statement executions
+    @SuppressWarnings("unchecked")
+    private static <T> T counting(T target, Class<T> type) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (target instanceof Statement && EXECUTIONS.contains(method.getName())) {
+                ROUND_TRIPS.incrementAndGet();
+            }
+            Object out;
+            try {
+                out = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (out instanceof Connection c && method.getName().equals("getConnection")) {
+                return counting(c, Connection.class);
+            }
+            if (out instanceof Statement s && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return counting(s, (Class<Statement>) method.getReturnType());
+            }
+            return out;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
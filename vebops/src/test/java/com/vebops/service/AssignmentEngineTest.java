@@ -0,0 +1,111 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.vebops.domain.FieldEngineer;
+import com.vebops.domain.Store;
+import com.vebops.domain.enums.FEStatus;
+import com.vebops.repository.FieldEngineerRepository;
+import com.vebops.repository.WorkOrderRepository;
+
+class AssignmentEngineTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-05-10T08:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDate TODAY = LocalDate.of(2026, 5, 10);
+
+    private final FieldEngineerRepository engineers = mock(FieldEngineerRepository.class);
+    private final WorkOrderRepository workOrders = mock(WorkOrderRepository.class);
+    private final AssignmentEngine engine = new AssignmentEngine(engineers, workOrders, CLOCK);
+
+    @Test
+    void picksLeastLoadedAvailableEngineerAndSpreadsABatch() {
+        when(engineers.findByTenantId(1L)).thenReturn(List.of(
+            fe(1L, FEStatus.AVAILABLE, false),
+            fe(2L, FEStatus.AVAILABLE, true),
+            fe(3L, FEStatus.AVAILABLE, true),
+            fe(4L, FEStatus.INACTIVE, true)));
+        when(workOrders.findActiveAssignments(eq(1L), any())).thenReturn(List.of(
+            active(10L, 1L, null),
+            active(11L, 3L, TODAY.minusDays(2))));
+
+        // 2 is idle; 4 is idle too but not available
+        assertEquals(Optional.of(2L), engine.pick(1L));
+        engine.assigned(1L, 20L, 2L, TODAY.plusDays(1));
+        // 1 and 3 carry one job each, but 3's is overdue
+        assertEquals(Optional.of(1L), engine.pick(1L));
+        engine.assigned(1L, 21L, 1L, null);
+        // 2 and 3 now carry one job each and 1 two; 3's is overdue
+        assertEquals(Optional.of(2L), engine.pick(1L));
+        assertEquals(List.of(2L, 3L, 1L), engine.ranked(1L));
+
+        engine.completed(1L, 11L);
+        assertEquals(Optional.of(3L), engine.pick(1L));
+        // Reassigning moves the load off the previous engineer
+        engine.assigned(1L, 20L, 3L, TODAY.plusDays(1));
+        assertEquals(Optional.of(2L), engine.pick(1L));
+        verify(engineers, times(1)).findByTenantId(1L);
+    }
+
+    @Test
+    void invalidatedTenantIsReloaded() {
+        when(engineers.findByTenantId(1L)).thenReturn(List.of(fe(1L, FEStatus.AVAILABLE, false)));
+        assertEquals(Optional.of(1L), engine.pick(1L));
+        when(engineers.findByTenantId(1L)).thenReturn(List.of(fe(1L, FEStatus.INACTIVE, false)));
+        engine.invalidate(1L);
+        assertEquals(Optional.empty(), engine.pick(1L));
+    }
+
+    @Test
+    void committedAssignmentSurvivesARebuildThatMissedIt() {
+        when(engineers.findByTenantId(1L)).thenReturn(List.of(
+            fe(1L, FEStatus.AVAILABLE, false),
+            fe(2L, FEStatus.AVAILABLE, false)));
+        assertEquals(Optional.of(1L), engine.pick(1L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.assigned(1L, 20L, 1L, null);
+            // Rebuilt from rows read before the assignment committed
+            engine.invalidate(1L);
+            assertEquals(Optional.of(1L), engine.pick(1L));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(Optional.of(2L), engine.pick(1L));
+    }
+
+    private static FieldEngineer fe(Long id, FEStatus status, boolean van) {
+        FieldEngineer fe = new FieldEngineer();
+        fe.setId(id);
+        fe.setStatus(status);
+        if (van) fe.setHomeStore(new Store());
+        return fe;
+    }
+
+    private static WorkOrderRepository.ActiveAssignment active(Long id, Long feId, LocalDate due) {
+        return new WorkOrderRepository.ActiveAssignment() {
+            public Long getId() { return id; }
+            public Long getFeId() { return feId; }
+            public LocalDate getDueDate() { return due; }
+        };
+    }
+}
@@ -104,10 +104,15 @@ class BackOfficeServiceDownloadAttachmentTest {
                 mock(DocumentSequenceService.class),
                 mock(DocumentRepository.class),
                 mock(FileStorageService.class),
+                mock(FileDownloadService.class),
                 mock(ProposalDocumentService.class),
                 mock(ProposalSharingService.class),
                 mock(TenantGuard.class),
-                mock(EmailTemplateRepository.class));
+                mock(EmailTemplateRepository.class),
+                mock(FeStatsService.class),
+                mock(DispatchBoardStream.class),
+                mock(AssignmentEngine.class),
+                mock(CapacityCalendar.class), mock(WorkOrderCompletionPipeline.class));
 
         TenantContext.setTenantId(1L);
     }
@@ -0,0 +1,100 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.vebops.domain.Service;
+import com.vebops.repository.ServiceRepository;
+
+class BuyerDirectoryTest {
+
+    private final ServiceRepository repo = mock(ServiceRepository.class);
+    private final BuyerDirectory directory = new BuyerDirectory(repo, Duration.ofMinutes(1), Runnable::run);
+
+    @Test
+    void repeatedBuyerTakesOneSlotAndRecentBuyersComeFirst() {
+        List<ServiceRepository.SearchFields> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(row("Sri Power Systems", "98400", "Chennai", 100 + i));
+        }
+        rows.add(row("Power Grid Corp", "91100", "Delhi", 500));
+        rows.add(row("Lakshmi Textiles", "power@lakshmi.in", "Erode", 50));
+        rows.add(row("Unrelated Traders", null, "Madurai", 900));
+        when(repo.findSearchFieldsByTenantId(1L)).thenReturn(rows);
+
+        List<BuyerDirectory.Profile> hits = directory.lookup(1L, "Pow", 5);
+
+        assertEquals(List.of("Power Grid Corp", "Sri Power Systems", "Lakshmi Textiles"),
+            hits.stream().map(BuyerDirectory.Profile::buyerName).toList());
+        // details come from the buyer's most recent service
+        assertEquals(Instant.ofEpochSecond(119), hits.get(1).lastUsedAt());
+        assertEquals(List.of(), directory.lookup(1L, "ower", 5));
+    }
+
+    @Test
+    void savedServicePromotesBuyer() {
+        when(repo.findSearchFieldsByTenantId(1L)).thenReturn(List.of(
+            row("Alpha Engineering", "1", "Salem", 100),
+            row("Alpine Agencies", "2", "Trichy", 200)));
+        assertEquals("Alpine Agencies", directory.lookup(1L, "alp", 1).get(0).buyerName());
+
+        Service s = new Service();
+        s.setTenantId(1L);
+        s.setBuyerName("Alpha Engineering");
+        s.setBuyerContact("1");
+        s.setBuyerState("Coimbatore");
+        s.setCreatedAt(Instant.ofEpochSecond(300));
+        directory.record(s);
+
+        BuyerDirectory.Profile top = directory.lookup(1L, "alp", 1).get(0);
+        assertEquals("Alpha Engineering", top.buyerName());
+        assertEquals("Coimbatore", top.buyerState());
+    }
+
+    @Test
+    void refreshRebuildsInTheBackgroundAndDropsDeletedBuyers() {
+        List<Runnable> queued = new ArrayList<>();
+        BuyerDirectory rebuilding = new BuyerDirectory(repo, Duration.ofMinutes(1), queued::add);
+        when(repo.findSearchFieldsByTenantId(1L))
+            .thenReturn(List.of(row("Alpha Engineering", "1", "Salem", 100), row("Alpine Agencies", "2", "Trichy", 200)))
+            .thenReturn(List.of(row("Alpha Engineering", "1", "Salem", 100)));
+        assertEquals(2, rebuilding.lookup(1L, "alp", 5).size());
+
+        // Alpine's only service was deleted; lookups keep the old directory until the rebuild is done
+        rebuilding.refresh(1L);
+        assertEquals(2, rebuilding.lookup(1L, "alp", 5).size());
+        Service s = new Service();
+        s.setTenantId(1L);
+        s.setBuyerName("Alps Trading");
+        s.setBuyerContact("3");
+        s.setCreatedAt(Instant.ofEpochSecond(300));
+        rebuilding.record(s);
+
+        queued.get(0).run();
+        assertEquals(List.of("Alps Trading", "Alpha Engineering"),
+            rebuilding.lookup(1L, "alp", 5).stream().map(BuyerDirectory.Profile::buyerName).toList());
+    }
+
+    private static ServiceRepository.SearchFields row(String buyer, String contact, String state, long created) {
+        return new ServiceRepository.SearchFields() {
+            public Long getId() { return created; }
+            public String getBuyerName() { return buyer; }
+            public String getBuyerGst() { return null; }
+            public String getBuyerContact() { return contact; }
+            public String getBuyerEmail() { return null; }
+            public String getBuyerAddress() { return null; }
+            public String getBuyerPin() { return null; }
+            public String getBuyerState() { return state; }
+            public String getConsigneeName() { return null; }
+            public Instant getCreatedAt() { return Instant.ofEpochSecond(created); }
+        };
+    }
+}
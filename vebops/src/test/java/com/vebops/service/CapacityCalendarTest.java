@@ -0,0 +1,113 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.vebops.domain.CapacitySlot;
+import com.vebops.domain.FieldEngineer;
+import com.vebops.domain.WorkOrder;
+import com.vebops.domain.enums.CapacitySlotKind;
+import com.vebops.exception.BusinessException;
+import com.vebops.repository.CapacitySlotRepository;
+import com.vebops.repository.FieldEngineerRepository;
+import com.vebops.repository.TeamMemberRepository;
+
+class CapacityCalendarTest {
+
+    private static final LocalDate MONDAY = LocalDate.now().plusWeeks(1).with(java.time.DayOfWeek.MONDAY);
+
+    private final CapacitySlotRepository slots = mock(CapacitySlotRepository.class);
+    private final TeamMemberRepository members = mock(TeamMemberRepository.class);
+    private final FieldEngineerRepository engineers = mock(FieldEngineerRepository.class);
+
+    @Test
+    void teamSlotsBlockMembersAndOverlapsAreFound() {
+        when(members.findMemberships(1L)).thenReturn(List.of(membership(9L, 2L), membership(9L, 3L)));
+        when(slots.findByTenantIdAndEndDateGreaterThanEqual(eq(1L), any())).thenReturn(List.of(
+            slot(100L, 1L, null, MONDAY.minusDays(2), MONDAY, null),
+            slot(101L, null, 9L, MONDAY.plusDays(3), MONDAY.plusDays(4), null),
+            slot(102L, 4L, null, MONDAY.plusDays(1), MONDAY.plusDays(1), 55L)));
+        CapacityCalendar calendar = calendar(CapacityCalendar.Overbooking.WARN);
+
+        // Free for two days starting Monday: 1 is on leave Monday, 4 is booked Tuesday
+        assertEquals(Set.of(1L, 4L), calendar.busyEngineers(1L, MONDAY, MONDAY.plusDays(1)));
+        assertEquals(Set.of(2L, 3L), calendar.busyEngineers(1L, MONDAY.plusDays(2), MONDAY.plusDays(3)));
+        assertEquals(1, calendar.conflicts(1L, 3L, MONDAY.plusDays(4), MONDAY.plusDays(6), null).size());
+        // A work order never conflicts with its own booking
+        assertEquals(0, calendar.conflicts(1L, 4L, MONDAY, MONDAY.plusDays(2), 55L).size());
+    }
+
+    @Test
+    void refusesOverbookingWhenConfigured() {
+        when(slots.findByTenantIdAndEndDateGreaterThanEqual(eq(1L), any())).thenReturn(List.of(
+            slot(100L, 1L, null, MONDAY, MONDAY.plusDays(1), null)));
+        WorkOrder wo = new WorkOrder();
+        wo.setId(7L);
+        wo.setTenantId(1L);
+        wo.setStartDate(MONDAY.plusDays(1));
+        wo.setDueDate(MONDAY.plusDays(2));
+        when(slots.save(any(CapacitySlot.class))).thenAnswer(inv -> {
+            CapacitySlot saved = inv.getArgument(0);
+            saved.setId(200L);
+            return saved;
+        });
+
+        // REFUSE decides on the table under the engineer's lock, not on the in-memory calendar
+        when(engineers.lockByTenantIdAndId(1L, 1L)).thenReturn(Optional.of(new FieldEngineer()));
+        when(slots.findOverlapping(1L, 1L, MONDAY.plusDays(1), MONDAY.plusDays(2), 7L)).thenReturn(List.of(
+            slot(100L, 1L, null, MONDAY, MONDAY.plusDays(1), null)));
+        assertThrows(BusinessException.class, () -> calendar(CapacityCalendar.Overbooking.REFUSE).book(wo, 1L));
+        verify(engineers).lockByTenantIdAndId(1L, 1L);
+        assertEquals(1, calendar(CapacityCalendar.Overbooking.WARN).book(wo, 1L).size());
+    }
+
+    @Test
+    void staleCalendarIsReloaded() {
+        when(slots.findByTenantIdAndEndDateGreaterThanEqual(eq(1L), any())).thenReturn(List.of(
+            slot(100L, 1L, null, MONDAY, MONDAY, null)));
+        CapacityCalendar calendar = new CapacityCalendar(slots, members, engineers,
+            CapacityCalendar.Overbooking.WARN, Duration.ZERO);
+        assertEquals(Set.of(1L), calendar.busyEngineers(1L, MONDAY, MONDAY));
+
+        // The slot was removed outside this node's calendar
+        when(slots.findByTenantIdAndEndDateGreaterThanEqual(eq(1L), any())).thenReturn(List.of());
+        assertEquals(Set.of(), calendar.busyEngineers(1L, MONDAY, MONDAY));
+    }
+
+    private CapacityCalendar calendar(CapacityCalendar.Overbooking mode) {
+        return new CapacityCalendar(slots, members, engineers, mode, Duration.ofMinutes(1));
+    }
+
+    private static CapacitySlot slot(Long id, Long feId, Long teamId, LocalDate start, LocalDate end, Long woId) {
+        CapacitySlot s = new CapacitySlot();
+        s.setId(id);
+        s.setTenantId(1L);
+        s.setFeId(feId);
+        s.setTeamId(teamId);
+        s.setStartDate(start);
+        s.setEndDate(end);
+        s.setKind(woId != null ? CapacitySlotKind.WORK_ORDER : CapacitySlotKind.LEAVE);
+        s.setWorkOrderId(woId);
+        return s;
+    }
+
+    private static TeamMemberRepository.Membership membership(Long teamId, Long feId) {
+        return new TeamMemberRepository.Membership() {
+            public Long getTeamId() { return teamId; }
+            public Long getFeId() { return feId; }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.StoredBlob;
+import com.vebops.domain.StoredObject;
+import com.vebops.repository.StoredBlobRepository;
+import com.vebops.repository.StoredObjectRepository;
+import com.vebops.service.impl.LocalStorageBackend;
+
+class ContentAddressedStoreTest {
+
+    @TempDir
+    Path root;
+
+    private final Map<String, StoredBlob> blobRows = new HashMap<>();
+    private final Map<String, StoredObject> objectRows = new HashMap<>();
+    private ContentAddressedStore store;
+
+    @BeforeEach
+    void setUp() {
+        StoredBlobRepository blobs = mock(StoredBlobRepository.class);
+        when(blobs.findBySha256(anyString())).thenAnswer(inv -> Optional.ofNullable(blobRows.get(inv.<String>getArgument(0))));
+        when(blobs.save(any(StoredBlob.class))).thenAnswer(inv -> {
+            StoredBlob b = inv.getArgument(0);
+            blobRows.put(b.getSha256(), b);
+            return b;
+        });
+        doAnswer(inv -> blobRows.remove(inv.<StoredBlob>getArgument(0).getSha256())).when(blobs).delete(any(StoredBlob.class));
+        when(blobs.addReference(anyString(), anyLong(), any())).thenAnswer(inv -> {
+            StoredBlob b = blobRows.computeIfAbsent(inv.getArgument(0), sha -> {
+                StoredBlob fresh = new StoredBlob();
+                fresh.setSha256(sha);
+                fresh.setSize(inv.getArgument(1));
+                return fresh;
+            });
+            b.setRefCount(b.getRefCount() + 1);
+            return 1;
+        });
+        when(blobs.dropReference(anyString(), any())).thenAnswer(inv -> {
+            StoredBlob b = blobRows.get(inv.<String>getArgument(0));
+            if (b == null || b.getRefCount() == 0) return 0;
+            b.setRefCount(b.getRefCount() - 1);
+            return 1;
+        });
+        when(blobs.findRefCount(anyString())).thenAnswer(inv -> {
+            StoredBlob b = blobRows.get(inv.<String>getArgument(0));
+            return b != null ? b.getRefCount() : null;
+        });
+
+        StoredObjectRepository objects = mock(StoredObjectRepository.class);
+        when(objects.findByStorageKey(anyString())).thenAnswer(inv -> Optional.ofNullable(objectRows.get(inv.<String>getArgument(0))));
+        when(objects.findByStorageKeyStartingWith(anyString())).thenAnswer(inv -> new ArrayList<>(objectRows.values().stream()
+                .filter(o -> o.getStorageKey().startsWith(inv.<String>getArgument(0)))
+                .toList()));
+        when(objects.save(any(StoredObject.class))).thenAnswer(inv -> {
+            StoredObject o = inv.getArgument(0);
+            objectRows.put(o.getStorageKey(), o);
+            return o;
+        });
+        doAnswer(inv -> objectRows.remove(inv.<StoredObject>getArgument(0).getStorageKey())).when(objects).delete(any(StoredObject.class));
+
+        store = new ContentAddressedStore(root.toString(), new LocalStorageBackend(root.toString()), blobs, objects,
+            mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void identicalContentIsStoredOnceAndReferenceCounted() throws Exception {
+        byte[] pdf = {37, 80, 68, 70, 1, 2, 3};
+        store.put(1L, "t=1/service=5/doc=10/INV-001.pdf", pdf);
+        store.put(1L, "t=1/proposal=7/doc=11/INV-001-proposal.pdf", new ByteArrayInputStream(pdf));
+
+        String sha = ContentAddressedStore.sha256Hex(pdf);
+        assertEquals(1, blobRows.size());
+        assertEquals(2L, blobRows.get(sha).getRefCount());
+        Path blob = blobPath(sha);
+        assertArrayEquals(pdf, Files.readAllBytes(blob));
+        assertEquals(sha, store.find("t=1/proposal=7/doc=11/INV-001-proposal.pdf").orElseThrow().getSha256());
+
+        store.release("t=1/service=5/doc=10/INV-001.pdf");
+        assertTrue(Files.exists(blob));
+        assertEquals(1L, blobRows.get(sha).getRefCount());
+
+        store.release("t=1/proposal=7/doc=11/INV-001-proposal.pdf");
+        assertFalse(Files.exists(blob));
+        assertTrue(blobRows.isEmpty());
+    }
+
+    @Test
+    void rewritingKeyWithSameContentIsMetadataOnly() throws Exception {
+        byte[] pdf = {1, 1, 2, 3, 5, 8};
+        store.put(1L, "t=1/service=5/doc=10/a.pdf", pdf);
+        store.put(1L, "t=1/service=5/doc=10/a.pdf", pdf);
+
+        assertEquals(1L, blobRows.get(ContentAddressedStore.sha256Hex(pdf)).getRefCount());
+    }
+
+    @Test
+    void rewritingKeyWithNewContentReleasesPreviousBlob() throws Exception {
+        byte[] first = {1, 2, 3};
+        byte[] second = {4, 5, 6};
+        store.put(1L, "t=1/service=5/doc=10/a.pdf", first);
+        store.put(1L, "t=1/service=5/doc=10/a.pdf", second);
+
+        assertFalse(blobRows.containsKey(ContentAddressedStore.sha256Hex(first)));
+        assertFalse(Files.exists(blobPath(ContentAddressedStore.sha256Hex(first))));
+        String current = store.find("t=1/service=5/doc=10/a.pdf").orElseThrow().getSha256();
+        assertArrayEquals(second, Files.readAllBytes(blobPath(current)));
+    }
+
+    @Test
+    void purgeKeepsBlobThatWasReferencedAgainBeforeItRan() throws Exception {
+        byte[] pdf = {9, 9, 9};
+        String sha = ContentAddressedStore.sha256Hex(pdf);
+        store.put(1L, "t=1/service=5/doc=10/a.pdf", pdf);
+        // The last release committed, then a put re-referenced the content before the purge ran
+        blobRows.get(sha).setRefCount(0L);
+        store.put(1L, "t=1/service=6/doc=12/b.pdf", pdf);
+
+        store.purge(sha);
+
+        assertTrue(Files.exists(blobPath(sha)));
+        assertEquals(1L, blobRows.get(sha).getRefCount());
+    }
+
+    private Path blobPath(String sha) {
+        return root.resolve(ContentAddressedStore.blobKey(sha));
+    }
+}
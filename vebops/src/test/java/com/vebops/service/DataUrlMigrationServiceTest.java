@@ -0,0 +1,63 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.Document;
+import com.vebops.repository.DocumentRepository;
+
+class DataUrlMigrationServiceTest {
+
+    private final DocumentRepository documents = mock(DocumentRepository.class);
+    private final FileStorageService storage = mock(FileStorageService.class);
+    private final DataUrlMigrationService migration =
+        new DataUrlMigrationService(documents, storage, mock(PlatformTransactionManager.class), false, 2, 0);
+
+    @Test
+    void rewritesDataUrlsToStoredFilenamesPageByPage() throws Exception {
+        byte[] pdf = {37, 80, 68, 70};
+        Document first = doc(3L, "INV-1.pdf", DataUrlMigrationService.PDF_DATA_URL + Base64.getEncoder().encodeToString(pdf));
+        Document broken = doc(8L, null, DataUrlMigrationService.PDF_DATA_URL + "%%%");
+        Document third = doc(12L, null, DataUrlMigrationService.PDF_DATA_URL + Base64.getEncoder().encodeToString(pdf));
+
+        when(documents.findDataUrlIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(3L, 8L));
+        when(documents.findDataUrlIdsAfter(eq(8L), any(Pageable.class))).thenReturn(List.of(12L));
+        when(documents.findById(3L)).thenReturn(Optional.of(first));
+        when(documents.findById(8L)).thenReturn(Optional.of(broken));
+        when(documents.findById(12L)).thenReturn(Optional.of(third));
+        when(storage.saveServiceInvoiceDoc(1L, 40L, 3L, "INV-1.pdf", pdf)).thenReturn("INV-1.pdf");
+        when(storage.saveServiceInvoiceDoc(1L, 40L, 12L, "document-12.pdf", pdf)).thenReturn("document-12.pdf");
+
+        DataUrlMigrationService.MigrationProgress progress = migration.migrateAll();
+
+        assertEquals(2, progress.migrated());
+        assertEquals(1, progress.failed());
+        assertEquals(12L, progress.lastId());
+        assertEquals("INV-1.pdf", first.getUrl());
+        assertEquals("document-12.pdf", third.getUrl());
+        verify(documents, never()).save(broken);
+    }
+
+    private static Document doc(Long id, String filename, String url) {
+        Document d = new Document();
+        d.setId(id);
+        d.setTenantId(1L);
+        d.setEntityId(40L);
+        d.setFilename(filename);
+        d.setUrl(url);
+        return d;
+    }
+}
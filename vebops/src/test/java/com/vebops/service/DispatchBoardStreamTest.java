@@ -0,0 +1,100 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.vebops.domain.enums.ServiceTypeCode;
+import com.vebops.domain.enums.WOStatus;
+import com.vebops.dto.DispatchBoardDelta;
+import com.vebops.exception.BusinessException;
+import com.vebops.repository.WorkOrderRepository;
+
+class DispatchBoardStreamTest {
+
+    @Test
+    void completedWorkOrdersLeaveTheBoard() {
+        WorkOrderChangedEvent assigned = new WorkOrderChangedEvent(1L, 7L, WorkOrderChangedEvent.Change.ASSIGNED);
+        DispatchBoardDelta upsert = DispatchBoardStream.delta(assigned, Optional.of(view(WOStatus.ASSIGNED)));
+        assertEquals(DispatchBoardDelta.Type.UPSERT, upsert.type());
+        assertEquals("WAN-7", upsert.row().wan());
+        assertEquals("Site 4", upsert.row().siteAddress());
+
+        WorkOrderChangedEvent completed = new WorkOrderChangedEvent(1L, 7L, WorkOrderChangedEvent.Change.COMPLETED);
+        DispatchBoardDelta remove = DispatchBoardStream.delta(completed, Optional.of(view(WOStatus.COMPLETED)));
+        assertEquals(DispatchBoardDelta.Type.REMOVE, remove.type());
+        assertNull(remove.row());
+    }
+
+    @Test
+    void capsConnectionsPerTenant() {
+        DispatchBoardStream stream = new DispatchBoardStream(mock(WorkOrderRepository.class));
+        for (int i = 0; i < DispatchBoardStream.MAX_PER_TENANT; i++) {
+            stream.subscribe(1L);
+        }
+        assertThrows(BusinessException.class, () -> stream.subscribe(1L));
+        assertEquals(DispatchBoardStream.MAX_PER_TENANT, stream.connections(1L));
+        stream.subscribe(2L);
+        assertEquals(1, stream.connections(2L));
+        stream.shutdown();
+        assertEquals(0, stream.connections(1L));
+    }
+
+    @Test
+    void concurrentOpensDoNotOvershootTheTenantCap() throws Exception {
+        DispatchBoardStream stream = new DispatchBoardStream(mock(WorkOrderRepository.class));
+        int attempts = DispatchBoardStream.MAX_PER_TENANT * 2;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < attempts; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    stream.subscribe(1L);
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(DispatchBoardStream.MAX_PER_TENANT, stream.connections(1L));
+        assertEquals(attempts - DispatchBoardStream.MAX_PER_TENANT, rejected.get());
+        stream.shutdown();
+    }
+
+    private static WorkOrderRepository.DispatchView view(WOStatus status) {
+        return new WorkOrderRepository.DispatchView() {
+            public Long getId() { return 7L; }
+            public String getWan() { return "WAN-7"; }
+            public WOStatus getStatus() { return status; }
+            public LocalDate getDueDate() { return null; }
+            public Instant getUpdatedAt() { return Instant.EPOCH; }
+            public Instant getLastProgressAt() { return null; }
+            public String getCustomerName() { return "Acme"; }
+            public String getCustomerAddress() { return "Site 4"; }
+            public String getSiteAddress() { return " "; }
+            public ServiceTypeCode getServiceType() { return null; }
+            public String getFeName() { return null; }
+            public String getFeEmail() { return null; }
+        };
+    }
+}
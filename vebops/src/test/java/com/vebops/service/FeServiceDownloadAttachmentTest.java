@@ -52,7 +52,8 @@ class FeServiceDownloadAttachmentTest {
                 feRepository,
                 mock(ServiceRepository.class),
                 mock(KitItemRepository.class),
-                attachmentRepository);
+                attachmentRepository,
+                mock(FileStorageService.class));
 
         TenantContext.setTenantId(1L);
         TenantContext.setUserId(10L);
@@ -0,0 +1,89 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.FeStats;
+import com.vebops.domain.FieldEngineer;
+import com.vebops.domain.enums.WOStatus;
+import com.vebops.repository.FeStatsRepository;
+import com.vebops.repository.FieldEngineerRepository;
+import com.vebops.repository.WorkOrderRepository;
+import com.vebops.repository.WorkOrderRepository.FeWorkloadView;
+
+class FeStatsServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-31T12:00:00Z");
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 31);
+
+    @Test
+    void computesCountersFromAssignedWorkOrders() {
+        FeStatsService.Snapshot s = FeStatsService.compute(List.of(
+            view(1L, WOStatus.ASSIGNED, TODAY.minusDays(1), 40, 40, null),
+            view(1L, WOStatus.IN_PROGRESS, TODAY.plusDays(3), 30, 20, NOW.minus(Duration.ofHours(2))),
+            view(1L, WOStatus.COMPLETED, null, 12, 10, null),
+            view(1L, WOStatus.COMPLETED, null, 50, 45, null)), TODAY, NOW);
+
+        assertEquals(2, s.active());
+        assertEquals(1, s.overdue());
+        assertEquals(2, s.completed());
+        assertEquals(1, s.completedLast30());
+        assertEquals(3.5, s.averageCompletionDays());
+        assertEquals(NOW.minus(Duration.ofHours(2)), s.lastProgressAt());
+        assertNull(FeStatsService.compute(List.of(), TODAY, NOW).averageCompletionDays());
+    }
+
+    @Test
+    void reconcileRebuildsRowsAndDropsRemovedEngineers() {
+        FeStatsRepository stats = mock(FeStatsRepository.class);
+        WorkOrderRepository workOrders = mock(WorkOrderRepository.class);
+        FieldEngineerRepository engineers = mock(FieldEngineerRepository.class);
+        FeStats stale = new FeStats();
+        stale.setTenantId(1L);
+        stale.setFeId(9L);
+        when(stats.findByTenantId(1L)).thenReturn(List.of(stale));
+        when(engineers.findByTenantId(1L)).thenReturn(List.of(engineer(5L)));
+        when(workOrders.findFeWorkloadViews(1L)).thenReturn(List.of(view(5L, WOStatus.NEW, null, 1, 1, null)));
+
+        new FeStatsService(stats, workOrders, engineers, mock(PlatformTransactionManager.class)).reconcileTenant(1L);
+
+        verify(stats).upsert(eq(1L), eq(5L), eq(1L), eq(0L), eq(0L), eq(0L), isNull(), any(Instant.class), any(Instant.class));
+        verify(stats, never()).upsert(any(), eq(9L), anyLong(), anyLong(), anyLong(), anyLong(), any(), any(), any());
+        verify(stats).deleteAll(List.of(stale));
+    }
+
+    private static FieldEngineer engineer(Long id) {
+        FieldEngineer fe = new FieldEngineer();
+        fe.setId(id);
+        return fe;
+    }
+
+    // created/updated are given in days before NOW
+    private static FeWorkloadView view(Long feId, WOStatus status, LocalDate due, long createdDaysAgo,
+                                       long updatedDaysAgo, Instant lastProgress) {
+        return new FeWorkloadView() {
+            public Long getFeId() { return feId; }
+            public WOStatus getStatus() { return status; }
+            public LocalDate getDueDate() { return due; }
+            public Instant getCreatedAt() { return NOW.minus(Duration.ofDays(createdDaysAgo)); }
+            public Instant getUpdatedAt() { return NOW.minus(Duration.ofDays(updatedDaysAgo)); }
+            public Instant getLastProgressAt() { return lastProgress; }
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.vebops.service.impl.LocalStorageBackend;
+
+class FileDownloadServiceTest {
+
+    @TempDir
+    java.nio.file.Path dir;
+
+    private final FileDownloadService downloads = new FileDownloadService();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void blobDownloadUsesDigestAsStrongEtag() throws Exception {
+        byte[] pdf = {37, 80, 68, 70};
+        StoredFile blob = localBlob(pdf);
+
+        ResponseEntity<Resource> response = downloads.file(blob, "INV \"1\".pdf", MediaType.APPLICATION_PDF, false);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"" + ContentAddressedStore.sha256Hex(pdf) + "\"", response.getHeaders().getETag());
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("INV _1_.pdf", response.getHeaders().getContentDisposition().getFilename());
+        assertNotNull(response.getBody());
+        assertEquals(pdf.length, response.getBody().contentLength());
+    }
+
+    @Test
+    void matchingIfNoneMatchAnswersNotModified() throws Exception {
+        byte[] pdf = {1, 2, 3};
+        String sha = ContentAddressedStore.sha256Hex(pdf);
+        StoredFile blob = localBlob(pdf);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/office/services/1/invoice");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"other\", \"" + sha + "\"");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        ResponseEntity<Resource> response = downloads.file(blob, "a.pdf", MediaType.APPLICATION_PDF, false);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"" + sha + "\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void inMemoryContentHonoursIfModifiedSince() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customer/work-orders/1/service-invoice");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, 2_000_000L);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        ResponseEntity<Resource> response = downloads.bytes(new byte[] {9}, "a.pdf", MediaType.APPLICATION_PDF,
+                Instant.ofEpochMilli(1_000_000L), false);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    }
+
+    @Test
+    void remoteBackendServesSingleRangeWithRangedRead() throws Exception {
+        StorageBackend remote = mock(StorageBackend.class);
+        when(remote.stat(anyString())).thenReturn(Optional.of(new StorageBackend.ObjectInfo(10, Instant.EPOCH)));
+        when(remote.stream("blobs/x", 2, 4)).thenReturn(new ByteArrayInputStream(new byte[] {2, 3, 4, 5}));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/office/proposals/1/documents/2/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        ResponseEntity<Resource> response = downloads.file(new StoredFile(remote, "blobs/x", null), "a.pdf", null, false);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 2-5/10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getHeaders().getContentLength());
+        assertArrayEquals(new byte[] {2, 3, 4, 5}, response.getBody().getInputStream().readAllBytes());
+    }
+
+    private StoredFile localBlob(byte[] content) throws Exception {
+        LocalStorageBackend backend = new LocalStorageBackend(dir.toString());
+        String sha = ContentAddressedStore.sha256Hex(content);
+        backend.put(ContentAddressedStore.blobKey(sha), content);
+        return new StoredFile(backend, ContentAddressedStore.blobKey(sha), sha);
+    }
+}
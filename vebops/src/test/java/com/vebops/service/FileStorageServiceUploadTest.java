@@ -0,0 +1,80 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vebops.exception.BusinessException;
+import com.vebops.service.impl.LocalStorageBackend;
+
+class FileStorageServiceUploadTest {
+
+    @TempDir
+    Path root;
+
+    private final ContentAddressedStore blobs = mock(ContentAddressedStore.class);
+    private FileStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorageService(root.toString(), blobs, new LocalStorageBackend(root.toString()));
+    }
+
+    @Test
+    void resentChunkReplacesUnacknowledgedTail() throws Exception {
+        assertEquals(3, storage.writeUploadChunk(1L, 5L, 0, 0, new ByteArrayInputStream(new byte[] {1, 2, 3}), 6));
+        assertEquals(5, storage.writeUploadChunk(1L, 5L, 3, 3, new ByteArrayInputStream(new byte[] {9, 9}), 6));
+        // the acknowledgement for offset 5 was lost, so the client sends from 3 again
+        assertEquals(6, storage.writeUploadChunk(1L, 5L, 3, 5, new ByteArrayInputStream(new byte[] {4, 5, 6}), 6));
+
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6}, completed(5L, 6));
+        assertTrue(Files.exists(chunk(5L, 0)), "chunks stay until the progress entry commits");
+
+        storage.discardUpload(1L, 5L);
+        assertFalse(Files.exists(chunk(5L, 0)));
+        assertFalse(Files.exists(chunk(5L, 3)));
+    }
+
+    @Test
+    void chunkPastDeclaredSizeOrOffChunkBoundaryIsRejected() throws Exception {
+        storage.writeUploadChunk(1L, 6L, 0, 0, new ByteArrayInputStream(new byte[] {1, 2}), 3);
+
+        assertThrows(BusinessException.class,
+            () -> storage.writeUploadChunk(1L, 6L, 2, 2, new ByteArrayInputStream(new byte[] {3, 4}), 3));
+        assertThrows(BusinessException.class,
+            () -> storage.writeUploadChunk(1L, 6L, 1, 2, new ByteArrayInputStream(new byte[] {3}), 3));
+        assertThrows(BusinessException.class,
+            () -> storage.writeUploadChunk(1L, 6L, 5, 2, new ByteArrayInputStream(new byte[] {3}), 3));
+        assertArrayEquals(new byte[] {1, 2}, Files.readAllBytes(chunk(6L, 0)));
+    }
+
+    private byte[] completed(Long uploadId, long size) throws Exception {
+        AtomicReference<byte[]> content = new AtomicReference<>();
+        when(blobs.put(eq(1L), any(String.class), any(InputStream.class))).thenAnswer(inv -> {
+            content.set(inv.<InputStream>getArgument(2).readAllBytes());
+            return null;
+        });
+        storage.saveProgressUpload(1L, 7L, uploadId, "photo.jpg", size);
+        return content.get();
+    }
+
+    private Path chunk(Long uploadId, long offset) {
+        return root.resolve("tmp/uploads/t=1/upload=" + uploadId + "/" + String.format("%012d", offset));
+    }
+}
@@ -0,0 +1,92 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.ReceivableAging;
+import com.vebops.domain.enums.InvoiceStatus;
+import com.vebops.repository.InvoiceRepository;
+import com.vebops.repository.ReceivableAgingRepository;
+
+class InvoiceAgingServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 30);
+
+    private final InvoiceRepository invoices = mock(InvoiceRepository.class);
+    private final ReceivableAgingRepository aging = mock(ReceivableAgingRepository.class);
+    private final InvoiceAgingService service = new InvoiceAgingService(
+        aging, invoices, mock(PlatformTransactionManager.class));
+
+    @Test
+    void bucketsByDaysSinceInvoiceDate() {
+        ReceivableAging row = new ReceivableAging();
+        InvoiceAgingService.apply(row, List.of(
+            unpaid(TODAY, "10", InvoiceStatus.SENT),
+            unpaid(TODAY.minusDays(30), "20", InvoiceStatus.SENT),
+            unpaid(TODAY.minusDays(31), "40", InvoiceStatus.OVERDUE),
+            unpaid(TODAY.minusDays(90), "80", InvoiceStatus.OVERDUE),
+            unpaid(TODAY.minusDays(91), "160", InvoiceStatus.PARTIALLY_PAID)), TODAY);
+
+        assertEquals(new BigDecimal("30"), row.getDays0To30());
+        assertEquals(new BigDecimal("40"), row.getDays31To60());
+        assertEquals(new BigDecimal("80"), row.getDays61To90());
+        assertEquals(new BigDecimal("160"), row.getDays90Plus());
+        assertEquals(5, row.getInvoiceCount());
+        assertEquals(2, row.getOverdueCount());
+        assertEquals(new BigDecimal("120"), row.getOverdueTotal());
+        assertEquals(TODAY, row.getAsOf());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void marksOverdueInBatchesUntilNoneAreLeft() {
+        List<Long> fullBatch = new ArrayList<>(LongStream.rangeClosed(1, InvoiceAgingService.BATCH).boxed().toList());
+        List<Long> lastBatch = List.of(9001L, 9002L);
+        when(invoices.findIdsDueBefore(eq(InvoiceStatus.SENT), eq(TODAY.minusDays(30)), any(Limit.class)))
+            .thenReturn(fullBatch, lastBatch);
+        when(invoices.moveStatus(eq(fullBatch), eq(InvoiceStatus.SENT), eq(InvoiceStatus.OVERDUE), any()))
+            .thenReturn(InvoiceAgingService.BATCH);
+        when(invoices.moveStatus(eq(lastBatch), eq(InvoiceStatus.SENT), eq(InvoiceStatus.OVERDUE), any()))
+            .thenReturn(2);
+
+        assertEquals(InvoiceAgingService.BATCH + 2, service.markOverdue(TODAY));
+        verify(invoices, times(2)).findIdsDueBefore(any(), any(), any(Limit.class));
+    }
+
+    @Test
+    void aFailingTenantDoesNotStopTheRebuild() {
+        when(invoices.findDistinctTenantIdsByStatusIn(InvoiceAgingService.RECEIVABLE)).thenReturn(List.of(1L, 2L));
+        when(invoices.findReceivableRows(1L, InvoiceAgingService.RECEIVABLE))
+            .thenThrow(new IllegalStateException("lock wait timeout"));
+        when(invoices.findReceivableRows(2L, InvoiceAgingService.RECEIVABLE))
+            .thenReturn(List.of(unpaid(TODAY, "10", InvoiceStatus.SENT)));
+
+        assertEquals(1, service.rebuild(TODAY));
+        verify(aging).upsert(eq(2L), eq(3L), eq(new BigDecimal("10")), eq(BigDecimal.ZERO), eq(BigDecimal.ZERO),
+            eq(BigDecimal.ZERO), eq(1L), eq(0L), eq(BigDecimal.ZERO), eq(TODAY), any());
+    }
+
+    private static InvoiceRepository.ReceivableRow unpaid(LocalDate invoiceDate, String total, InvoiceStatus status) {
+        return new InvoiceRepository.ReceivableRow() {
+            @Override public Long getCustomerId() { return 3L; }
+            @Override public LocalDate getInvoiceDate() { return invoiceDate; }
+            @Override public BigDecimal getTotal() { return new BigDecimal(total); }
+            @Override public InvoiceStatus getStatus() { return status; }
+        };
+    }
+}
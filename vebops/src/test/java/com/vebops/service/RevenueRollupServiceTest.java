@@ -0,0 +1,123 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.Invoice;
+import com.vebops.domain.RevenueMonthly;
+import com.vebops.domain.enums.InvoiceStatus;
+import com.vebops.repository.InvoiceRepository;
+import com.vebops.repository.RevenueMonthlyRepository;
+
+class RevenueRollupServiceTest {
+
+    private final RevenueMonthlyRepository rollup = mock(RevenueMonthlyRepository.class);
+    private final InvoiceRepository invoices = mock(InvoiceRepository.class);
+    private final RevenueRollupService service =
+        new RevenueRollupService(rollup, invoices, mock(PlatformTransactionManager.class));
+
+    @Test
+    void onlyMovesInAndOutOfPaidTouchTheRollup() {
+        Instant created = LocalDate.of(2025, 3, 14).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        Invoice inv = invoice(created, "250.00");
+
+        inv.setStatus(InvoiceStatus.SENT);
+        service.statusChanged(inv, InvoiceStatus.DRAFT);
+        verify(rollup, never()).addPaid(any(), any(), any(), anyLong(), any());
+
+        inv.setStatus(InvoiceStatus.PAID);
+        service.statusChanged(inv, InvoiceStatus.SENT);
+        verify(rollup).addPaid(eq(1L), eq(LocalDate.of(2025, 3, 1)), eq(new BigDecimal("250.00")), eq(1L), any());
+
+        // Leaving PAID (e.g. a correction) takes it back out
+        inv.setStatus(InvoiceStatus.SENT);
+        service.statusChanged(inv, InvoiceStatus.PAID);
+        verify(rollup).addPaid(eq(1L), eq(LocalDate.of(2025, 3, 1)), eq(new BigDecimal("-250.00")), eq(-1L), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildDeletesFirstThenSumsEachMonthInTheDatabase() {
+        ZoneId zone = ZoneId.systemDefault();
+        YearMonth now = YearMonth.now(zone);
+        YearMonth last = now.minusMonths(1);
+        when(invoices.findFirstCreatedAt(InvoiceStatus.PAID)).thenReturn(last.atDay(5).atStartOfDay(zone).toInstant());
+        when(invoices.sumByTenantCreatedBetween(InvoiceStatus.PAID, start(last), start(now))).thenReturn(List.of(
+            tenantTotal(1L, "150", 2L),
+            tenantTotal(2L, null, 1L)));
+        when(invoices.sumByTenantCreatedBetween(InvoiceStatus.PAID, start(now), start(now.plusMonths(1)))).thenReturn(List.of(
+            tenantTotal(1L, "10", 1L)));
+
+        assertEquals(3, service.rebuild());
+
+        InOrder order = inOrder(rollup, invoices);
+        order.verify(rollup).deleteAllRows();
+        order.verify(invoices).findFirstCreatedAt(InvoiceStatus.PAID);
+        ArgumentCaptor<List<RevenueMonthly>> saved = ArgumentCaptor.forClass(List.class);
+        order.verify(rollup).saveAll(saved.capture());
+        List<RevenueMonthly> rows = saved.getValue();
+        assertEquals(new BigDecimal("150"), rows.get(0).getPaidTotal());
+        assertEquals(2, rows.get(0).getPaidCount());
+        assertEquals(BigDecimal.ZERO, rows.get(1).getPaidTotal());
+        assertEquals(now.atDay(1), rows.get(2).getMonthStart());
+    }
+
+    @Test
+    void seriesFillsMonthsWithoutRows() {
+        YearMonth now = YearMonth.now();
+        when(rollup.sumByMonthFrom(now.minusMonths(2).atDay(1))).thenReturn(List.of(
+            monthTotal(now.minusMonths(1).atDay(1), "75")));
+
+        Map<YearMonth, BigDecimal> series = service.series(3);
+
+        assertEquals(List.of(now.minusMonths(2), now.minusMonths(1), now), List.copyOf(series.keySet()));
+        assertEquals(List.of(BigDecimal.ZERO, new BigDecimal("75"), BigDecimal.ZERO), List.copyOf(series.values()));
+    }
+
+    private static Invoice invoice(Instant createdAt, String total) {
+        Invoice inv = new Invoice();
+        inv.setTenantId(1L);
+        inv.setCreatedAt(createdAt);
+        inv.setTotal(new BigDecimal(total));
+        return inv;
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static InvoiceRepository.TenantTotal tenantTotal(Long tenantId, String total, Long count) {
+        return new InvoiceRepository.TenantTotal() {
+            @Override public Long getTenantId() { return tenantId; }
+            @Override public BigDecimal getTotal() { return total != null ? new BigDecimal(total) : null; }
+            @Override public Long getCount() { return count; }
+        };
+    }
+
+    private static RevenueMonthlyRepository.MonthTotal monthTotal(LocalDate month, String total) {
+        return new RevenueMonthlyRepository.MonthTotal() {
+            @Override public LocalDate getMonthStart() { return month; }
+            @Override public BigDecimal getTotal() { return new BigDecimal(total); }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vebops.domain.Service;
+import com.vebops.domain.ServiceItem;
+import com.vebops.repository.KitRepository;
+import com.vebops.repository.ServiceItemRepository;
+import com.vebops.repository.ServiceRepository;
+
+class ServiceItemServiceTest {
+
+    private final ServiceItemRepository items = mock(ServiceItemRepository.class);
+    private final ServiceRepository services = mock(ServiceRepository.class);
+    private final ServiceItemService facts = new ServiceItemService(items, services, mock(KitRepository.class),
+        new ObjectMapper(), mock(PlatformTransactionManager.class));
+
+    @Test
+    void linesAreNormalisedIntoFactRows() {
+        Service svc = new Service();
+        svc.setId(9L);
+        svc.setTenantId(1L);
+        svc.setBuyerState("Tamil Nadu");
+        svc.setMetaJson("{\"invoiceDate\":\"2026-02-14\"}");
+        svc.setItemsJson("""
+            [{"code":"CBL-11KV","name":"11 kV XLPE cable","hsnSac":"854460","basePrice":"1200","qty":3,"discount":10},
+             {"code":"","name":"Installation charges","hsnSac":"995461","basePrice":500,"qty":"","discount":""},
+             {"name":"Bad discount","basePrice":100,"qty":1,"discount":250}]
+            """);
+
+        List<ServiceItem> rows = facts.toFacts(svc, Map.of("CBL-11KV", 77L));
+
+        assertEquals(3, rows.size());
+        ServiceItem cable = rows.get(0);
+        assertEquals("CBL-11KV", cable.getItemKey());
+        assertEquals(77L, cable.getKitId());
+        assertEquals(0, new BigDecimal("3240.00").compareTo(cable.getAmount()));
+        assertEquals(LocalDate.of(2026, 2, 14), cable.getSoldOn());
+        assertEquals(202602, cable.getSoldMonth());
+        assertEquals("Tamil Nadu", cable.getBuyerState());
+
+        ServiceItem install = rows.get(1);
+        assertEquals("Installation charges", install.getItemKey());
+        assertNull(install.getKitId());
+        assertEquals(0, BigDecimal.ZERO.compareTo(install.getAmount()));
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(rows.get(2).getAmount()));
+        assertEquals(3, rows.get(2).getLineNo());
+    }
+
+    @Test
+    void linesUseTheSameKeyAliasesAsTheServiceForm() {
+        Service svc = new Service();
+        svc.setId(9L);
+        svc.setTenantId(1L);
+        svc.setItemsJson("""
+            [{"name":"Purchase order line","rate":"₹1,000","quantity":2,"discountPercent":5},
+             {"name":"Legacy line","unitPrice":250,"qtyOrdered":"4","discountRate":"10"}]
+            """);
+
+        List<ServiceItem> rows = facts.toFacts(svc, Map.of());
+
+        assertEquals(0, new BigDecimal("1900.00").compareTo(rows.get(0).getAmount()));
+        assertEquals(0, new BigDecimal("900.00").compareTo(rows.get(1).getAmount()));
+    }
+
+    @Test
+    void servicesWithoutLinesAreMarkedSoTheBackfillSkipsThemNextTime() {
+        Service empty = new Service();
+        empty.setId(5L);
+        empty.setTenantId(1L);
+        empty.setItemsJson("[]");
+        when(items.findServiceIdsWithStaleItemsAfter(eq(0L), eq(ServiceItemService.FACTS_VERSION), any()))
+            .thenReturn(List.of(5L));
+        when(services.findAllById(List.of(5L))).thenReturn(List.of(empty));
+
+        assertEquals(1, facts.backfill());
+
+        assertEquals(ServiceItemService.FACTS_VERSION, empty.getItemFactsVersion());
+        verify(items).deleteByServiceIdIn(List.of(5L));
+    }
+}
@@ -0,0 +1,52 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.Service;
+import com.vebops.repository.ServiceRepository;
+
+class ServiceMetaKeysBackfillTest {
+
+    @Test
+    void copiesLinkKeysAndAliasesOutOfMetaJson() {
+        ServiceRepository repo = mock(ServiceRepository.class);
+        Service canonical = service(1L, "{\"workOrderId\": 42, \"serviceRequestId\": \"7\", \"proposalId\": 3, \"invNo\": \"INV-12\"}");
+        canonical.setTotalsJson("{\"grand\": \"1180.5\"}");
+        Service aliased = service(2L, "{\"workOrderId\": \"n/a\", \"woId\": \"43\", \"srId\": 8, \"proposalID\": \" 4 \"}");
+        Service broken = service(3L, "{not json");
+        when(repo.findUnsyncedMetaKeysAfter(eq(0L), eq(Service.META_KEYS_VERSION), any(Pageable.class))).thenReturn(List.of(canonical, aliased, broken));
+
+        long done = new ServiceMetaKeysBackfill(repo, mock(PlatformTransactionManager.class)).backfill();
+
+        assertEquals(3, done);
+        assertEquals(42L, canonical.getWorkOrderId());
+        assertEquals(7L, canonical.getServiceRequestId());
+        assertEquals(3L, canonical.getProposalId());
+        assertEquals("INV-12", canonical.getInvoiceNo());
+        assertEquals(new java.math.BigDecimal("1180.50"), canonical.getGrandTotal());
+        assertEquals(43L, aliased.getWorkOrderId());
+        assertEquals(8L, aliased.getServiceRequestId());
+        assertEquals(4L, aliased.getProposalId());
+        assertNull(broken.getWorkOrderId());
+        assertTrue(broken.isMetaKeysSynced());
+    }
+
+    private static Service service(Long id, String meta) {
+        Service s = new Service();
+        s.setId(id);
+        s.setMetaJson(meta);
+        return s;
+    }
+}
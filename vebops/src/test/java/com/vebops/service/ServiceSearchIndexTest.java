@@ -0,0 +1,125 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.vebops.domain.Service;
+import com.vebops.repository.ServiceRepository;
+
+class ServiceSearchIndexTest {
+
+    private final ServiceRepository repo = mock(ServiceRepository.class);
+    private final ServiceSearchIndex index = new ServiceSearchIndex(repo, Duration.ofMinutes(1), Runnable::run);
+
+    @Test
+    void ranksAndPagesWithoutRequeryingTheDatabase() {
+        when(repo.findSearchFieldsByTenantId(1L)).thenReturn(List.of(
+            row(1L, "Sri Power Systems", "33AAAAA0000A1Z5", 100),
+            row(2L, "Power Grid Corp", null, 200),
+            row(3L, "Lakshmi Textiles", "power@lakshmi.in", 300),
+            row(4L, "Unrelated Traders", null, 400)));
+
+        Page<Long> first = index.search(1L, "power", PageRequest.of(0, 2));
+        Page<Long> second = index.search(1L, "POWER", PageRequest.of(1, 2));
+
+        assertEquals(3, first.getTotalElements());
+        // prefix on buyer name beats word prefix, which beats a match in the contact
+        assertEquals(List.of(2L, 1L), first.getContent());
+        assertEquals(List.of(3L), second.getContent());
+        assertEquals(List.of(4L), index.search(1L, "ad", PageRequest.of(0, 10)).getContent());
+        verify(repo, times(1)).findSearchFieldsByTenantId(1L);
+    }
+
+    @Test
+    void savedServicesAreReindexed() {
+        when(repo.findSearchFieldsByTenantId(1L)).thenReturn(List.of(row(1L, "Old Name", null, 100)));
+        assertEquals(1, index.search(1L, "old", PageRequest.of(0, 5)).getTotalElements());
+
+        Service s = new Service();
+        s.setId(1L);
+        s.setTenantId(1L);
+        s.setBuyerName("New Name");
+        index.put(s);
+
+        assertEquals(0, index.search(1L, "old", PageRequest.of(0, 5)).getTotalElements());
+        assertEquals(List.of(1L), index.search(1L, "new n", PageRequest.of(0, 5)).getContent());
+    }
+
+    @Test
+    void staleIndexIsRebuiltSoRowsRemovedElsewhereDisappear() {
+        ServiceSearchIndex expiring = new ServiceSearchIndex(repo, Duration.ZERO, Runnable::run);
+        when(repo.findSearchFieldsByTenantId(1L))
+            .thenReturn(List.of(row(1L, "Sri Power Systems", null, 100), row(2L, "Power Grid Corp", null, 200)))
+            .thenReturn(List.of(row(2L, "Power Grid Corp", null, 200)));
+
+        assertEquals(2, expiring.search(1L, "power", PageRequest.of(0, 5)).getTotalElements());
+        assertEquals(List.of(2L), expiring.search(1L, "power", PageRequest.of(0, 5)).getContent());
+        verify(repo, times(2)).findSearchFieldsByTenantId(1L);
+    }
+
+    @Test
+    void searchesKeepTheOldIndexWhileTheRebuildRunsAndSavesReachBoth() {
+        List<Runnable> queued = new ArrayList<>();
+        ServiceSearchIndex expiring = new ServiceSearchIndex(repo, Duration.ZERO, queued::add);
+        when(repo.findSearchFieldsByTenantId(1L))
+            .thenReturn(List.of(row(1L, "Sri Power Systems", null, 100)))
+            .thenReturn(List.of(row(2L, "Power Grid Corp", null, 200)));
+        assertEquals(List.of(1L), expiring.search(1L, "power", PageRequest.of(0, 5)).getContent());
+
+        // Stale: the rebuild is only queued, and the current index answers
+        assertEquals(List.of(1L), expiring.search(1L, "power", PageRequest.of(0, 5)).getContent());
+        assertEquals(1, queued.size());
+        Service saved = new Service();
+        saved.setId(3L);
+        saved.setTenantId(1L);
+        saved.setBuyerName("Power House");
+        expiring.put(saved);
+        assertEquals(List.of(3L, 1L), expiring.search(1L, "power", PageRequest.of(0, 5)).getContent());
+
+        queued.get(0).run();
+        assertEquals(List.of(3L, 2L), expiring.search(1L, "power", PageRequest.of(0, 5)).getContent());
+    }
+
+    @Test
+    void removedServicesLeaveTheResultsAndTheTotal() {
+        when(repo.findSearchFieldsByTenantId(1L)).thenReturn(
+            List.of(row(1L, "Sri Power Systems", null, 100), row(2L, "Power Grid Corp", null, 200)),
+            List.of(row(2L, "Power Grid Corp", null, 200)));
+        assertEquals(2, index.search(1L, "power", PageRequest.of(0, 5)).getTotalElements());
+
+        index.remove(1L, List.of(1L));
+
+        Page<Long> page = index.search(1L, "power", PageRequest.of(0, 5));
+        assertEquals(1, page.getTotalElements());
+        assertEquals(List.of(2L), page.getContent());
+        // The removal also rebuilt the tenant, for deletes this node never saw
+        verify(repo, times(2)).findSearchFieldsByTenantId(1L);
+    }
+
+    private static ServiceRepository.SearchFields row(Long id, String buyer, String contact, long created) {
+        return new ServiceRepository.SearchFields() {
+            public Long getId() { return id; }
+            public String getBuyerName() { return buyer; }
+            public String getBuyerGst() { return null; }
+            public String getBuyerContact() { return contact; }
+            public String getBuyerEmail() { return null; }
+            public String getBuyerAddress() { return null; }
+            public String getBuyerPin() { return null; }
+            public String getBuyerState() { return null; }
+            public String getConsigneeName() { return null; }
+            public Instant getCreatedAt() { return Instant.ofEpochSecond(created); }
+        };
+    }
+}
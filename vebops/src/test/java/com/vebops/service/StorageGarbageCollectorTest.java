@@ -0,0 +1,152 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vebops.repository.DocumentRepository;
+import com.vebops.repository.ProposalRepository;
+import com.vebops.repository.StoredBlobRepository;
+import com.vebops.repository.StoredObjectRepository;
+import com.vebops.repository.WorkOrderProgressAttachmentRepository;
+import com.vebops.service.impl.LocalStorageBackend;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StorageGarbageCollectorTest {
+
+    @TempDir
+    Path root;
+
+    private final StoredBlobRepository blobRepo = mock(StoredBlobRepository.class);
+    private final DocumentRepository documentRepo = mock(DocumentRepository.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private StorageGarbageCollector gc;
+
+    private final String liveSha = "aa11" + "0".repeat(60);
+    private final String deadSha = "bb22" + "0".repeat(60);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gc = new StorageGarbageCollector(root.toString(), new LocalStorageBackend(root.toString()),
+            mock(ContentAddressedStore.class), mock(StoredObjectRepository.class), blobRepo, documentRepo,
+            mock(ProposalRepository.class), mock(WorkOrderProgressAttachmentRepository.class), meters,
+            false, true, 24, 7, 1000);
+        when(blobRepo.findExistingShas(anyCollection())).thenReturn(List.of(liveSha));
+        when(documentRepo.findExistingIds(anyCollection())).thenReturn(List.of(10L));
+
+        old(ContentAddressedStore.blobKey(liveSha), 4);
+        old(ContentAddressedStore.blobKey(deadSha), 6);
+        old("t=1/service=5/doc=10/INV-1.pdf", 3);
+        old("t=1/service=5/doc=11/INV-2.pdf", 5);
+        write(ContentAddressedStore.blobKey("cc33" + "0".repeat(60)), 7); // fresh, no row yet
+    }
+
+    @Test
+    void dryRunReportsOrphansWithoutTouchingThem() {
+        StorageGarbageCollector.GcReport report = gc.collect(true);
+
+        assertEquals(5, report.filesScanned());
+        assertEquals(2, report.orphanFiles());
+        assertEquals(11, report.orphanBytes());
+        assertEquals(0, report.quarantinedFiles());
+        assertTrue(report.orphans().contains("t=1/service=5/doc=11/INV-2.pdf"));
+        assertTrue(Files.exists(root.resolve(ContentAddressedStore.blobKey(deadSha))));
+    }
+
+    @Test
+    void orphansAreQuarantinedThenDeletedAfterRetention() throws Exception {
+        StorageGarbageCollector.GcReport report = gc.collect(false);
+
+        assertEquals(2, report.quarantinedFiles());
+        assertFalse(Files.exists(root.resolve(ContentAddressedStore.blobKey(deadSha))));
+        assertTrue(Files.exists(root.resolve(ContentAddressedStore.blobKey(liveSha))));
+        assertTrue(Files.exists(root.resolve("t=1/service=5/doc=10/INV-1.pdf")));
+        Path quarantined = root.resolve(StorageGarbageCollector.QUARANTINE_DIR)
+            .resolve(LocalDate.now(ZoneOffset.UTC).toString()).resolve("t=1/service=5/doc=11/INV-2.pdf");
+        assertTrue(Files.exists(quarantined));
+
+        Path expired = root.resolve(StorageGarbageCollector.QUARANTINE_DIR)
+            .resolve(LocalDate.now(ZoneOffset.UTC).minusDays(8).toString()).resolve("blobs/x");
+        Files.createDirectories(expired.getParent());
+        Files.write(expired, new byte[9]);
+
+        report = gc.collect(false);
+
+        assertEquals(1, report.deletedFiles());
+        assertEquals(9, report.bytesReclaimed());
+        assertFalse(Files.exists(expired));
+        assertTrue(Files.exists(quarantined));
+        assertEquals(9.0, meters.counter("vebops.storage.gc.bytes.reclaimed").count());
+    }
+
+    @Test
+    void remoteBackendIsSweptThroughItsListing() throws Exception {
+        StorageBackend remote = mock(StorageBackend.class);
+        Instant old = Instant.now().minus(Duration.ofDays(3));
+        String today = LocalDate.now(ZoneOffset.UTC).toString();
+        String expired = StorageGarbageCollector.QUARANTINE_DIR + "/"
+            + LocalDate.now(ZoneOffset.UTC).minusDays(8) + "/blobs/x";
+        List<StorageBackend.Entry> objects = List.of(
+            entry(ContentAddressedStore.blobKey(liveSha), 4, old),
+            entry(ContentAddressedStore.blobKey(deadSha), 6, old),
+            entry("t=1/service=5/doc=11/INV-2.pdf", 5, old),
+            entry(ContentAddressedStore.blobKey("cc33" + "0".repeat(60)), 7, Instant.now()),
+            entry(expired, 9, old));
+        when(remote.list(anyString())).thenAnswer(inv -> objects.stream()
+            .filter(e -> e.key().startsWith(inv.<String>getArgument(0))));
+        gc = new StorageGarbageCollector(root.toString(), remote,
+            mock(ContentAddressedStore.class), mock(StoredObjectRepository.class), blobRepo, documentRepo,
+            mock(ProposalRepository.class), mock(WorkOrderProgressAttachmentRepository.class), meters,
+            false, true, 24, 7, 1000);
+
+        StorageGarbageCollector.GcReport report = gc.collect(false);
+
+        // the blob and legacy files on local disk belong to no backend and are left alone
+        assertTrue(Files.exists(root.resolve(ContentAddressedStore.blobKey(deadSha))));
+        assertEquals(4, report.filesScanned());
+        assertEquals(2, report.quarantinedFiles());
+        verify(remote).move(ContentAddressedStore.blobKey(deadSha),
+            "quarantine/" + today + "/" + ContentAddressedStore.blobKey(deadSha));
+        verify(remote).move("t=1/service=5/doc=11/INV-2.pdf", "quarantine/" + today + "/t=1/service=5/doc=11/INV-2.pdf");
+        verify(remote, never()).move(ContentAddressedStore.blobKey(liveSha), "quarantine/" + today + "/"
+            + ContentAddressedStore.blobKey(liveSha));
+        assertEquals(1, report.deletedFiles());
+        assertEquals(9, report.bytesReclaimed());
+        verify(remote).delete(expired);
+    }
+
+    private static StorageBackend.Entry entry(String key, long size, Instant modified) {
+        return new StorageBackend.Entry(key, new StorageBackend.ObjectInfo(size, modified));
+    }
+
+    private void old(String key, int size) throws Exception {
+        Path p = write(key, size);
+        Files.setLastModifiedTime(p, FileTime.from(Instant.now().minus(Duration.ofDays(3))));
+    }
+
+    private Path write(String key, int size) throws Exception {
+        Path p = root.resolve(key);
+        Files.createDirectories(p.getParent());
+        return Files.write(p, new byte[size]);
+    }
+}
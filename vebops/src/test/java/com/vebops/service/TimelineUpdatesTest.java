@@ -0,0 +1,74 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.vebops.domain.WorkOrderAssignment;
+import com.vebops.domain.WorkOrderProgress;
+import com.vebops.domain.enums.WOStatus;
+import com.vebops.repository.WorkOrderRepository;
+import com.vebops.util.Cursors;
+import com.vebops.util.Cursors.TimelinePosition;
+
+class TimelineUpdatesTest {
+
+    @Test
+    void advanceMovesOnlyTheStreamsThatHadEntries() {
+        WorkOrderProgress p1 = progress(10L, Instant.ofEpochSecond(100));
+        WorkOrderProgress p2 = progress(12L, Instant.ofEpochSecond(100));
+
+        TimelinePosition next = TimelineUpdates.advance(TimelinePosition.START, List.of(p1, p2), List.of());
+
+        assertEquals(new TimelinePosition(Instant.ofEpochSecond(100), 12L, Instant.EPOCH, 0L), next);
+        WorkOrderAssignment a = new WorkOrderAssignment();
+        a.setId(3L);
+        a.setCreatedAt(Instant.ofEpochSecond(200));
+        assertEquals(new TimelinePosition(Instant.ofEpochSecond(100), 12L, Instant.ofEpochSecond(200), 3L),
+            TimelineUpdates.advance(next, List.of(), List.of(a)));
+    }
+
+    @Test
+    void readsStartAGracePeriodBeforeTheCursor() {
+        TimelinePosition cursor = new TimelinePosition(Instant.ofEpochSecond(1000), 12L, Instant.ofEpochSecond(10), 3L);
+
+        TimelinePosition read = TimelineUpdates.rewind(cursor);
+
+        // An entry stamped just before the newest one the client has, but committed after it, is read again
+        assertEquals(new TimelinePosition(Instant.ofEpochSecond(1000).minus(TimelineUpdates.COMMIT_GRACE), 0L,
+            Instant.EPOCH, 0L), read);
+        assertEquals(TimelinePosition.START, TimelineUpdates.rewind(TimelinePosition.START));
+    }
+
+    @Test
+    void etagFollowsUpdatedAtAndCursor() {
+        String start = Cursors.encodeTimeline(TimelinePosition.START);
+        String later = Cursors.encodeTimeline(new TimelinePosition(Instant.ofEpochSecond(5), 1L, Instant.EPOCH, 0L));
+        Instant updated = Instant.parse("2024-05-01T10:00:00.000001Z");
+
+        assertEquals(TimelineUpdates.etag(head(updated), start), TimelineUpdates.etag(head(updated), start));
+        assertNotEquals(TimelineUpdates.etag(head(updated), start), TimelineUpdates.etag(head(updated), later));
+        assertNotEquals(TimelineUpdates.etag(head(updated), start),
+            TimelineUpdates.etag(head(updated.plusNanos(1000)), start));
+    }
+
+    private static WorkOrderProgress progress(Long id, Instant createdAt) {
+        WorkOrderProgress p = new WorkOrderProgress();
+        p.setId(id);
+        p.setCreatedAt(createdAt);
+        return p;
+    }
+
+    private static WorkOrderRepository.TimelineHead head(Instant updatedAt) {
+        return new WorkOrderRepository.TimelineHead() {
+            public Long getId() { return 9L; }
+            public WOStatus getStatus() { return WOStatus.IN_PROGRESS; }
+            public Instant getUpdatedAt() { return updatedAt; }
+            public Long getAssignedFeId() { return 4L; }
+        };
+    }
+}
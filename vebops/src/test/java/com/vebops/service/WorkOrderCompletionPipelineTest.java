@@ -0,0 +1,156 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.Customer;
+import com.vebops.domain.Invoice;
+import com.vebops.domain.ServiceRequest;
+import com.vebops.domain.WorkOrder;
+import com.vebops.domain.enums.CompletionStage;
+import com.vebops.repository.InvoiceRepository;
+import com.vebops.repository.WorkOrderRepository;
+
+class WorkOrderCompletionPipelineTest {
+
+    private final WorkOrderRepository woRepo = mock(WorkOrderRepository.class);
+    private final InvoiceRepository invRepo = mock(InvoiceRepository.class);
+    private final InvoiceService invoices = mock(InvoiceService.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final WorkOrderCompletionPipeline pipeline =
+        new WorkOrderCompletionPipeline(woRepo, invRepo, invoices, txManager);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void runsEveryStageInOrder() {
+        WorkOrder wo = completedWorkOrder();
+        Invoice inv = new Invoice();
+        inv.setId(70L);
+        when(woRepo.claimCompletion(eq(7L), any(), any())).thenReturn(1);
+        when(invRepo.findByTenantIdAndWorkOrder_Id(1L, 7L)).thenReturn(Optional.empty(), Optional.of(inv));
+        when(invoices.generateForWorkOrder(1L, 7L)).thenReturn(inv);
+
+        pipeline.run(7L);
+
+        verify(invoices).generateForWorkOrder(1L, 7L);
+        verify(invoices).issuePdf(1L, 70L);
+        verify(invoices).deliverInvoice(1L, 70L, "buyer@example.com");
+        assertEquals(CompletionStage.DONE, wo.getCompletionStage());
+        assertNull(wo.getCompletionNextAt());
+    }
+
+    @Test
+    void failedDeliveryIsRetriedWithoutRegeneratingTheInvoice() {
+        WorkOrder wo = completedWorkOrder();
+        wo.setCompletionStage(CompletionStage.DELIVERY);
+        Invoice inv = new Invoice();
+        inv.setId(70L);
+        when(woRepo.claimCompletion(eq(7L), any(), any())).thenReturn(1);
+        when(invRepo.findByTenantIdAndWorkOrder_Id(1L, 7L)).thenReturn(Optional.of(inv));
+        doThrow(new IllegalStateException("SMTP timeout")).when(invoices).deliverInvoice(eq(1L), eq(70L), anyString());
+
+        Instant before = Instant.now();
+        pipeline.run(7L);
+
+        verify(invoices, never()).generateForWorkOrder(any(), any());
+        verify(invoices, never()).storePdf(any(), any());
+        verify(invoices, never()).issuePdf(any(), any());
+        assertEquals(CompletionStage.DELIVERY, wo.getCompletionStage());
+        assertEquals(1, wo.getCompletionAttempts());
+        assertEquals("SMTP timeout", wo.getCompletionError());
+        assertNotNull(wo.getCompletionNextAt());
+        assertEquals(false, wo.getCompletionNextAt().isBefore(before.plus(WorkOrderCompletionPipeline.FIRST_RETRY)));
+    }
+
+    @Test
+    void deliveryRunsOutsideTheStageTransactions() {
+        WorkOrder wo = completedWorkOrder();
+        wo.setCompletionStage(CompletionStage.DELIVERY);
+        Invoice inv = new Invoice();
+        inv.setId(70L);
+        when(woRepo.claimCompletion(eq(7L), any(), any())).thenReturn(1);
+        when(invRepo.findByTenantIdAndWorkOrder_Id(1L, 7L)).thenReturn(Optional.of(inv));
+        AtomicInteger open = new AtomicInteger();
+        when(txManager.getTransaction(any())).thenAnswer(call -> {
+            open.incrementAndGet();
+            return null;
+        });
+        doAnswer(call -> open.decrementAndGet()).when(txManager).commit(any());
+        doAnswer(call -> {
+            assertEquals(0, open.get());
+            return null;
+        }).when(invoices).deliverInvoice(1L, 70L, "buyer@example.com");
+
+        pipeline.run(7L);
+
+        verify(invoices).deliverInvoice(1L, 70L, "buyer@example.com");
+        assertEquals(CompletionStage.DONE, wo.getCompletionStage());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        WorkOrder wo = completedWorkOrder();
+        wo.setCompletionAttempts(WorkOrderCompletionPipeline.MAX_ATTEMPTS - 1);
+        when(woRepo.claimCompletion(eq(7L), any(), any())).thenReturn(1);
+        when(invRepo.findByTenantIdAndWorkOrder_Id(1L, 7L)).thenReturn(Optional.empty());
+        when(invoices.generateForWorkOrder(1L, 7L)).thenThrow(new IllegalStateException("boom"));
+
+        pipeline.run(7L);
+
+        assertEquals(CompletionStage.INVOICE, wo.getCompletionStage());
+        assertNull(wo.getCompletionNextAt());
+        assertEquals("boom", wo.getCompletionError());
+    }
+
+    @Test
+    void skipsWorkOrdersLeasedElsewhere() {
+        completedWorkOrder();
+        when(woRepo.claimCompletion(eq(7L), any(), any())).thenReturn(0);
+
+        pipeline.run(7L);
+
+        verify(woRepo, times(0)).findById(7L);
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertEquals(Duration.ofSeconds(30), WorkOrderCompletionPipeline.backoff(1));
+        assertEquals(Duration.ofMinutes(1), WorkOrderCompletionPipeline.backoff(2));
+        assertEquals(Duration.ofMinutes(4), WorkOrderCompletionPipeline.backoff(4));
+        assertEquals(Duration.ofHours(1), WorkOrderCompletionPipeline.backoff(40));
+    }
+
+    private WorkOrder completedWorkOrder() {
+        Customer customer = new Customer();
+        customer.setEmail("buyer@example.com");
+        ServiceRequest sr = new ServiceRequest();
+        sr.setCustomer(customer);
+        WorkOrder wo = new WorkOrder();
+        wo.setId(7L);
+        wo.setTenantId(1L);
+        wo.setServiceRequest(sr);
+        wo.setCompletionStage(CompletionStage.INVOICE);
+        wo.setCompletionNextAt(Instant.now());
+        when(woRepo.findById(7L)).thenReturn(Optional.of(wo));
+        return wo;
+    }
+}
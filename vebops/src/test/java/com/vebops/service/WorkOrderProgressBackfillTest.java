@@ -0,0 +1,51 @@
+package com.vebops.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.enums.WOProgressStatus;
+import com.vebops.repository.WorkOrderProgressRepository;
+import com.vebops.repository.WorkOrderProgressRepository.TimelineEntry;
+import com.vebops.repository.WorkOrderRepository;
+
+class WorkOrderProgressBackfillTest {
+
+    @Test
+    void writesTheNewestEntryOfEachTimeline() {
+        WorkOrderRepository workOrders = mock(WorkOrderRepository.class);
+        WorkOrderProgressRepository progress = mock(WorkOrderProgressRepository.class);
+        when(workOrders.findIdsMissingLastProgressAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(4L, 7L));
+        when(progress.findTimelineNewestFirst(List.of(4L, 7L))).thenReturn(List.of(
+            entry(4L, WOProgressStatus.STARTED, 300),
+            entry(4L, WOProgressStatus.ACCEPTED, 200),
+            entry(7L, WOProgressStatus.COMPLETED, 500)));
+
+        long done = new WorkOrderProgressBackfill(workOrders, progress, mock(PlatformTransactionManager.class)).backfill();
+
+        assertEquals(2, done);
+        verify(workOrders).updateLastProgress(4L, Instant.ofEpochSecond(300), WOProgressStatus.STARTED);
+        verify(workOrders).updateLastProgress(7L, Instant.ofEpochSecond(500), WOProgressStatus.COMPLETED);
+        verify(workOrders, never()).updateLastProgress(anyLong(), eq(Instant.ofEpochSecond(200)), any());
+    }
+
+    private static TimelineEntry entry(Long woId, WOProgressStatus status, long at) {
+        return new TimelineEntry() {
+            public Long getWorkOrderId() { return woId; }
+            public WOProgressStatus getStatus() { return status; }
+            public Instant getCreatedAt() { return Instant.ofEpochSecond(at); }
+        };
+    }
+}
@@ -0,0 +1,245 @@
+package com.vebops.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.vebops.domain.Invoice;
+import com.vebops.domain.InvoiceLine;
+import com.vebops.domain.Item;
+import com.vebops.domain.Proposal;
+import com.vebops.domain.ServiceRequest;
+import com.vebops.domain.Document;
+import com.vebops.domain.WorkOrder;
+import com.vebops.domain.enums.InvoiceStatus;
+import com.vebops.repository.DocumentRepository;
+import com.vebops.repository.InvoiceLineRepository;
+import com.vebops.repository.InvoiceRepository;
+import com.vebops.repository.ItemRepository;
+import com.vebops.repository.ProposalItemRepository;
+import com.vebops.repository.WorkOrderItemRepository;
+import com.vebops.repository.WorkOrderRepository;
+import com.vebops.service.EmailService;
+import com.vebops.service.FileStorageService;
+import com.vebops.service.InvoiceAgingService;
+import com.vebops.service.RevenueRollupService;
+import com.vebops.service.TenantGuard;
+
+class InvoiceServiceImplTest {
+
+    private final InvoiceRepository invRepo = mock(InvoiceRepository.class);
+    private final InvoiceLineRepository invLineRepo = mock(InvoiceLineRepository.class);
+    private final WorkOrderRepository woRepo = mock(WorkOrderRepository.class);
+    private final WorkOrderItemRepository woItemRepo = mock(WorkOrderItemRepository.class);
+    private final ProposalItemRepository propItemRepo = mock(ProposalItemRepository.class);
+    private final ItemRepository itemRepo = mock(ItemRepository.class);
+    private final DocumentRepository docRepo = mock(DocumentRepository.class);
+    private final FileStorageService storage = mock(FileStorageService.class);
+
+    private final RevenueRollupService revenue = mock(RevenueRollupService.class);
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+
+    private final InvoiceServiceImpl service = new InvoiceServiceImpl(mock(TenantGuard.class), mock(EmailService.class),
+        invRepo, invLineRepo, woRepo, woItemRepo, propItemRepo, itemRepo, docRepo, mailSender,
+        storage, revenue, mock(InvoiceAgingService.class), txManager);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void linesComeFromOneIssuedItemReadAndAreSavedTogether() {
+        Proposal proposal = new Proposal();
+        proposal.setId(5L);
+        proposal.setTotal(new BigDecimal("1000"));
+        ServiceRequest sr = new ServiceRequest();
+        sr.setProposal(proposal);
+        WorkOrder wo = new WorkOrder();
+        wo.setId(7L);
+        wo.setServiceRequest(sr);
+        when(woRepo.findById(7L)).thenReturn(Optional.of(wo));
+        when(invRepo.findByTenantIdAndInvoiceNo(any(), any())).thenReturn(Optional.empty());
+        when(woItemRepo.findIssuedLines(1L, 7L)).thenReturn(List.of(
+            issued(11L, 100L, "Cable", "50", "4"),
+            issued(12L, 101L, "Switch", "120", "1")));
+        when(itemRepo.getReferenceById(anyLong())).thenAnswer(inv -> {
+            Item item = new Item();
+            item.setId(inv.getArgument(0));
+            return item;
+        });
+        when(propItemRepo.sumMaterialAmount(1L, 5L)).thenReturn(new BigDecimal("700"));
+
+        Invoice inv = service.generateForWorkOrder(1L, 7L);
+
+        ArgumentCaptor<List<InvoiceLine>> saved = ArgumentCaptor.forClass(List.class);
+        verify(invLineRepo, times(1)).saveAll(saved.capture());
+        verify(invLineRepo, never()).save(any());
+        verify(propItemRepo, never()).findByTenantIdAndProposal_Id(any(), any());
+        List<InvoiceLine> lines = saved.getValue();
+        assertEquals(3, lines.size());
+        assertEquals(new BigDecimal("200"), lines.get(0).getAmount());
+        assertEquals(100L, lines.get(0).getItem().getId());
+        assertEquals("SERVICE_CHARGE", lines.get(2).getSource());
+        assertEquals(new BigDecimal("300"), lines.get(2).getAmount());
+        assertEquals(new BigDecimal("620"), inv.getTotal());
+    }
+
+    @Test
+    void resendingReusesTheStoredPdfUntilALineChanges() throws Exception {
+        WorkOrder wo = new WorkOrder();
+        wo.setId(7L);
+        Invoice inv = new Invoice();
+        inv.setId(9L);
+        inv.setTenantId(1L);
+        inv.setInvoiceNo("INV-1");
+        inv.setInvoiceDate(LocalDate.of(2025, 6, 1));
+        inv.setWorkOrder(wo);
+        inv.setTotal(new BigDecimal("100"));
+        InvoiceLine line = new InvoiceLine();
+        line.setId(21L);
+        line.setDescription("Cable");
+        line.setQty(BigDecimal.ONE);
+        line.setRate(new BigDecimal("100"));
+        line.setAmount(new BigDecimal("100"));
+        when(invRepo.findById(9L)).thenReturn(Optional.of(inv));
+        when(invLineRepo.findByTenantIdAndInvoice_Id(1L, 9L)).thenReturn(List.of(line));
+        when(storage.saveInvoicePdf(eq(1L), eq(9L), eq("invoice-INV-1.pdf"), any())).thenReturn("t=1/invoice=9/invoice-INV-1.pdf");
+        when(storage.readStored("t=1/invoice=9/invoice-INV-1.pdf")).thenReturn(new byte[] { 1 });
+
+        service.sendInvoice(1L, 9L, null);
+        service.sendInvoice(1L, 9L, null);
+        verify(storage, times(1)).saveInvoicePdf(any(), any(), any(), any());
+        verify(storage, times(1)).readStored(any());
+        ArgumentCaptor<Document> doc = ArgumentCaptor.forClass(Document.class);
+        verify(docRepo).save(doc.capture());
+        assertEquals(7L, doc.getValue().getEntityId());
+        assertEquals("t=1/invoice=9/invoice-INV-1.pdf", doc.getValue().getUrl());
+
+        line.setQty(new BigDecimal("2"));
+        line.setAmount(new BigDecimal("200"));
+        service.sendInvoice(1L, 9L, null);
+        verify(storage, times(2)).saveInvoicePdf(any(), any(), any(), any());
+    }
+
+    @Test
+    void deliveryRendersThePdfAfterMarkingTheInvoiceSent() throws Exception {
+        Invoice inv = new Invoice();
+        inv.setId(9L);
+        inv.setTenantId(1L);
+        inv.setInvoiceNo("INV-1");
+        inv.setInvoiceDate(LocalDate.of(2025, 6, 1));
+        inv.setStatus(InvoiceStatus.DRAFT);
+        inv.setTotal(new BigDecimal("100"));
+        when(invRepo.findById(9L)).thenReturn(Optional.of(inv));
+        when(invLineRepo.findByTenantIdAndInvoice_Id(1L, 9L)).thenReturn(List.of());
+        List<InvoiceStatus> rendered = new ArrayList<>();
+        when(storage.saveInvoicePdf(eq(1L), eq(9L), eq("invoice-INV-1.pdf"), any())).thenAnswer(call -> {
+            rendered.add(inv.getStatus());
+            return "t=1/invoice=9/invoice-INV-1.pdf";
+        });
+        when(storage.readStored("t=1/invoice=9/invoice-INV-1.pdf")).thenReturn(new byte[] { 1 });
+
+        // A preview while still a draft stores a DRAFT render
+        service.pdf(1L, 9L);
+        service.deliverInvoice(1L, 9L, null);
+
+        assertEquals(List.of(InvoiceStatus.DRAFT, InvoiceStatus.SENT), rendered);
+        assertEquals(InvoiceServiceImpl.fingerprint(inv, List.of()), inv.getPdfHash());
+    }
+
+    @Test
+    void deliveryAttachesThePdfIssuedBeforeIt() throws Exception {
+        Invoice inv = new Invoice();
+        inv.setId(9L);
+        inv.setTenantId(1L);
+        inv.setInvoiceNo("INV-1");
+        inv.setStatus(InvoiceStatus.DRAFT);
+        inv.setTotal(new BigDecimal("100"));
+        when(invRepo.findById(9L)).thenReturn(Optional.of(inv));
+        when(invLineRepo.findByTenantIdAndInvoice_Id(1L, 9L)).thenReturn(List.of());
+        List<InvoiceStatus> rendered = new ArrayList<>();
+        when(storage.saveInvoicePdf(eq(1L), eq(9L), eq("invoice-INV-1.pdf"), any())).thenAnswer(call -> {
+            rendered.add(inv.getStatus());
+            return "t=1/invoice=9/invoice-INV-1.pdf";
+        });
+        when(storage.readStored("t=1/invoice=9/invoice-INV-1.pdf")).thenReturn(new byte[] { 1 });
+
+        service.issuePdf(1L, 9L);
+        service.deliverInvoice(1L, 9L, null);
+
+        assertEquals(List.of(InvoiceStatus.SENT), rendered);
+        verify(storage).readStored("t=1/invoice=9/invoice-INV-1.pdf");
+    }
+
+    @Test
+    void deliveryCommitsTheStatusAndPdfBeforeTheMailGoesOut() throws Exception {
+        Invoice inv = new Invoice();
+        inv.setId(9L);
+        inv.setTenantId(1L);
+        inv.setInvoiceNo("INV-1");
+        inv.setStatus(InvoiceStatus.DRAFT);
+        inv.setTotal(new BigDecimal("100"));
+        when(invRepo.findById(9L)).thenReturn(Optional.of(inv));
+        when(invLineRepo.findByTenantIdAndInvoice_Id(1L, 9L)).thenReturn(List.of());
+        when(storage.saveInvoicePdf(any(), any(), any(), any())).thenReturn("t=1/invoice=9/invoice-INV-1.pdf");
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+
+        service.deliverInvoice(1L, 9L, "buyer@example.com");
+
+        InOrder order = inOrder(storage, txManager, mailSender);
+        order.verify(storage).saveInvoicePdf(any(), any(), any(), any());
+        order.verify(txManager).commit(any());
+        order.verify(mailSender).send(any(MimeMessage.class));
+        assertEquals(InvoiceStatus.SENT, inv.getStatus());
+    }
+
+    @Test
+    void resendingASettledInvoiceLeavesItsStatusAndRevenueAlone() throws Exception {
+        Invoice inv = new Invoice();
+        inv.setId(9L);
+        inv.setTenantId(1L);
+        inv.setInvoiceNo("INV-1");
+        inv.setTotal(new BigDecimal("100"));
+        when(invRepo.findById(9L)).thenReturn(Optional.of(inv));
+        when(invLineRepo.findByTenantIdAndInvoice_Id(1L, 9L)).thenReturn(List.of());
+        when(storage.saveInvoicePdf(any(), any(), any(), any())).thenReturn("t=1/invoice=9/invoice-INV-1.pdf");
+
+        for (InvoiceStatus settled : List.of(InvoiceStatus.PAID, InvoiceStatus.PARTIALLY_PAID, InvoiceStatus.OVERDUE)) {
+            inv.setStatus(settled);
+            service.sendInvoice(1L, 9L, null);
+            service.sendInvoiceViaWhatsapp(1L, 9L, "+910000000000");
+            assertEquals(settled, inv.getStatus());
+        }
+        verify(revenue, never()).statusChanged(any(), any());
+    }
+
+    private static WorkOrderItemRepository.IssuedLine issued(Long id, Long itemId, String name, String rate, String qty) {
+        return new WorkOrderItemRepository.IssuedLine() {
+            @Override public Long getId() { return id; }
+            @Override public Long getItemId() { return itemId; }
+            @Override public String getItemName() { return name; }
+            @Override public BigDecimal getRate() { return new BigDecimal(rate); }
+            @Override public BigDecimal getQtyIssued() { return new BigDecimal(qty); }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package com.vebops.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+
+import com.vebops.service.StorageBackend;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Runs {@link S3StorageBackend} against a real S3-compatible server, so
+ * multipart uploads, ranged GETs and HEAD on missing keys are checked against
+ * actual S3 semantics rather than a mocked client. Needs Docker, so it only
+ * runs when asked for:
+ *
+ * <pre>mvn test -Dtest=S3StorageBackendMinioTest -Dvebops.minio=true</pre>
+ */
+@EnabledIfSystemProperty(named = "vebops.minio", matches = "true")
+class S3StorageBackendMinioTest {
+
+    private static final String BUCKET = "vebops-test";
+
+    private static MinIOContainer minio;
+    private static StorageBackend backend;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void start() {
+        minio = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+        minio.start();
+        try (S3Client admin = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .forcePathStyle(true)
+                .build()) {
+            admin.createBucket(b -> b.bucket(BUCKET));
+        }
+        // Configured the way application.properties would for MinIO; 5 MB is the smallest part size
+        backend = new S3StorageBackend(BUCKET, "vebops", "us-east-1", minio.getS3URL(), true,
+            minio.getUserName(), minio.getPassword(), 5L * 1024 * 1024);
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (backend instanceof S3StorageBackend s3) s3.destroy();
+        if (minio != null) minio.stop();
+    }
+
+    @Test
+    void largeFileRoundTripsThroughMultipartUpload() throws Exception {
+        byte[] data = new byte[11 * 1024 * 1024 + 7];
+        new Random(42).nextBytes(data);
+        Path source = Files.write(dir.resolve("big.part"), data);
+
+        backend.put("blobs/ab/cd/big", source);
+
+        assertFalse(Files.exists(source));
+        assertEquals(data.length, backend.stat("blobs/ab/cd/big").orElseThrow().size());
+        assertArrayEquals(data, backend.get("blobs/ab/cd/big"));
+    }
+
+    @Test
+    void rangedReadReturnsOnlyTheRequestedBytes() throws Exception {
+        byte[] data = new byte[4096];
+        new Random(7).nextBytes(data);
+        backend.put("t=1/proposal=2/doc=3/range.pdf", data);
+
+        try (InputStream in = backend.stream("t=1/proposal=2/doc=3/range.pdf", 1000, 24)) {
+            assertArrayEquals(Arrays.copyOfRange(data, 1000, 1024), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void statOnMissingKeyIsEmptyAndDeleteRemovesTheObject() throws Exception {
+        assertTrue(backend.stat("blobs/00/00/missing").isEmpty());
+
+        backend.put("blobs/00/00/gone", new byte[] {1, 2, 3});
+        assertTrue(backend.exists("blobs/00/00/gone"));
+        backend.delete("blobs/00/00/gone");
+        assertFalse(backend.exists("blobs/00/00/gone"));
+    }
+
+    @Test
+    void listingStripsThePrefixAndMoveReKeysTheObject() throws Exception {
+        backend.put("t=9/wo=1/upload=2/a.jpg", new byte[] {1, 2});
+        backend.put("t=9/wo=1/upload=2/b.jpg", new byte[] {3});
+
+        try (Stream<StorageBackend.Entry> listing = backend.list("t=9/")) {
+            assertEquals(List.of("t=9/wo=1/upload=2/a.jpg", "t=9/wo=1/upload=2/b.jpg"),
+                listing.map(StorageBackend.Entry::key).sorted().toList());
+        }
+
+        backend.move("t=9/wo=1/upload=2/a.jpg", "quarantine/2024-01-01/t=9/wo=1/upload=2/a.jpg");
+        assertFalse(backend.exists("t=9/wo=1/upload=2/a.jpg"));
+        assertArrayEquals(new byte[] {1, 2}, backend.get("quarantine/2024-01-01/t=9/wo=1/upload=2/a.jpg"));
+    }
+}
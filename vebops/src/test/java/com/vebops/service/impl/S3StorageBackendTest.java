@@ -0,0 +1,94 @@
+package com.vebops.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+class S3StorageBackendTest {
+
+    private static final long PART = 5L * 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void largeFilesAreSentAsMultipartUpload() throws Exception {
+        S3Client s3 = mock(S3Client.class);
+        when(s3.createMultipartUpload(any(Consumer.class)))
+            .thenReturn(CreateMultipartUploadResponse.builder().uploadId("u-1").build());
+        when(s3.uploadPart(any(Consumer.class), any(RequestBody.class)))
+            .thenReturn(UploadPartResponse.builder().eTag("e").build());
+        S3StorageBackend backend = new S3StorageBackend(s3, "bucket", "vebops/", PART);
+
+        Path source = dir.resolve("big.part");
+        Files.write(source, new byte[(int) (PART * 2 + 10)]);
+        backend.put("blobs/ab/cd/abcd", source);
+
+        ArgumentCaptor<Consumer<CreateMultipartUploadRequest.Builder>> create = ArgumentCaptor.forClass(Consumer.class);
+        verify(s3).createMultipartUpload(create.capture());
+        CreateMultipartUploadRequest.Builder req = CreateMultipartUploadRequest.builder();
+        create.getValue().accept(req);
+        assertEquals("vebops/blobs/ab/cd/abcd", req.build().key());
+
+        verify(s3, times(3)).uploadPart(any(Consumer.class), any(RequestBody.class));
+        verify(s3).completeMultipartUpload(any(Consumer.class));
+        verify(s3, never()).putObject(any(Consumer.class), any(RequestBody.class));
+        assertFalse(Files.exists(source));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void smallFilesUseSinglePut() throws Exception {
+        S3Client s3 = mock(S3Client.class);
+        S3StorageBackend backend = new S3StorageBackend(s3, "bucket", "", PART);
+
+        Path source = Files.write(dir.resolve("small.part"), new byte[] {1, 2, 3});
+        backend.put("t=1/proposal=2/po/po.pdf", source);
+
+        ArgumentCaptor<Consumer<PutObjectRequest.Builder>> put = ArgumentCaptor.forClass(Consumer.class);
+        verify(s3).putObject(put.capture(), any(RequestBody.class));
+        PutObjectRequest.Builder req = PutObjectRequest.builder();
+        put.getValue().accept(req);
+        assertEquals("t=1/proposal=2/po/po.pdf", req.build().key());
+        verify(s3, never()).createMultipartUpload(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rangedStreamRequestsOnlyTheRange() throws Exception {
+        S3Client s3 = mock(S3Client.class);
+        S3StorageBackend backend = new S3StorageBackend(s3, "bucket", "", PART);
+
+        backend.stream("blobs/x", 100, 50);
+
+        ArgumentCaptor<Consumer<GetObjectRequest.Builder>> get = ArgumentCaptor.forClass(Consumer.class);
+        verify(s3).getObject(get.capture());
+        GetObjectRequest.Builder req = GetObjectRequest.builder();
+        get.getValue().accept(req);
+        assertEquals("bytes=100-149", req.build().range());
+        assertTrue(req.build().key().endsWith("blobs/x"));
+    }
+}
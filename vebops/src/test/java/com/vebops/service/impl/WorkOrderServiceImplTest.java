@@ -0,0 +1,146 @@
+package com.vebops.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.vebops.domain.CapacitySlot;
+import com.vebops.domain.FieldEngineer;
+import com.vebops.domain.WorkOrder;
+import com.vebops.domain.enums.WOStatus;
+import com.vebops.exception.BusinessException;
+import com.vebops.repository.CapacitySlotRepository;
+import com.vebops.repository.CustomerPORepository;
+import com.vebops.repository.FieldEngineerRepository;
+import com.vebops.repository.KitItemRepository;
+import com.vebops.repository.ServiceRequestRepository;
+import com.vebops.repository.TeamMemberRepository;
+import com.vebops.repository.WorkOrderAssignmentRepository;
+import com.vebops.repository.WorkOrderItemRepository;
+import com.vebops.repository.WorkOrderProgressAttachmentRepository;
+import com.vebops.repository.WorkOrderProgressRepository;
+import com.vebops.repository.WorkOrderRepository;
+import com.vebops.service.AssignmentEngine;
+import com.vebops.service.CapacityCalendar;
+import com.vebops.service.FeStatsService;
+import com.vebops.service.InventoryService;
+import com.vebops.service.TenantGuard;
+import com.vebops.service.WorkOrderCompletionPipeline;
+
+class WorkOrderServiceImplTest {
+
+    private static final LocalDate MONDAY = LocalDate.now().plusWeeks(1).with(java.time.DayOfWeek.MONDAY);
+
+    private final WorkOrderRepository woRepo = mock(WorkOrderRepository.class);
+    private final FieldEngineerRepository feRepo = mock(FieldEngineerRepository.class);
+    private final CapacitySlotRepository slots = mock(CapacitySlotRepository.class);
+    private final AssignmentEngine engine = mock(AssignmentEngine.class);
+
+    @Test
+    void assigningWithAWindowBooksTheEngineer() {
+        WorkOrder wo = workOrder();
+        service(CapacityCalendar.Overbooking.WARN).assignFe(1L, 7L, 3L, null, MONDAY, MONDAY.plusDays(2));
+
+        ArgumentCaptor<CapacitySlot> saved = ArgumentCaptor.forClass(CapacitySlot.class);
+        verify(slots).save(saved.capture());
+        assertEquals(3L, saved.getValue().getFeId());
+        assertEquals(7L, saved.getValue().getWorkOrderId());
+        assertEquals(MONDAY, saved.getValue().getStartDate());
+        assertEquals(MONDAY.plusDays(2), saved.getValue().getEndDate());
+        assertEquals(MONDAY.plusDays(2), wo.getDueDate());
+        assertEquals(WOStatus.ASSIGNED, wo.getStatus());
+        verify(engine).assigned(1L, 7L, 3L, MONDAY.plusDays(2));
+    }
+
+    @Test
+    void refusedOverbookingLeavesTheWorkOrderUnassigned() {
+        WorkOrder wo = workOrder();
+        when(feRepo.lockByTenantIdAndId(1L, 3L)).thenReturn(Optional.of(engineer(3L)));
+        when(slots.findOverlapping(1L, 3L, MONDAY, MONDAY.plusDays(2), 7L)).thenReturn(List.of(new CapacitySlot()));
+
+        assertThrows(BusinessException.class, () ->
+            service(CapacityCalendar.Overbooking.REFUSE).assignFe(1L, 7L, 3L, null, MONDAY, MONDAY.plusDays(2)));
+        verify(slots, never()).save(any());
+        assertNull(wo.getAssignedFE());
+    }
+
+    @Test
+    void dueDateBeforeStartIsRejected() {
+        workOrder();
+        assertThrows(BusinessException.class, () ->
+            service(CapacityCalendar.Overbooking.WARN).assignFe(1L, 7L, 3L, null, MONDAY, MONDAY.minusDays(1)));
+        verify(slots, never()).save(any());
+    }
+
+    @Test
+    void autoAssignmentSkipsBookedEngineersInsteadOfFailingTheBatch() {
+        WorkOrder wo = workOrder();
+        wo.setStartDate(MONDAY);
+        wo.setDueDate(MONDAY.plusDays(2));
+        WorkOrder other = new WorkOrder();
+        other.setId(8L);
+        other.setTenantId(1L);
+        other.setStatus(WOStatus.NEW);
+        other.setStartDate(MONDAY);
+        other.setDueDate(MONDAY.plusDays(2));
+        when(woRepo.findAllById(List.of(7L, 8L))).thenReturn(List.of(wo, other));
+        when(engine.ranked(1L)).thenReturn(List.of(3L, 4L));
+        when(feRepo.findById(4L)).thenReturn(Optional.of(engineer(4L)));
+        when(feRepo.lockByTenantIdAndId(eq(1L), any())).thenAnswer(inv -> Optional.of(engineer(inv.getArgument(1))));
+        // 3 is on leave; 4 is free for work order 7 but already booked when 8 comes up
+        when(slots.findOverlapping(1L, 3L, MONDAY, MONDAY.plusDays(2), 7L)).thenReturn(List.of(new CapacitySlot()));
+        when(slots.findOverlapping(1L, 3L, MONDAY, MONDAY.plusDays(2), 8L)).thenReturn(List.of(new CapacitySlot()));
+        when(slots.findOverlapping(1L, 4L, MONDAY, MONDAY.plusDays(2), 8L)).thenReturn(List.of(new CapacitySlot()));
+
+        assertEquals(java.util.Map.of(7L, 4L),
+            service(CapacityCalendar.Overbooking.REFUSE).autoAssignBacklog(1L, List.of(7L, 8L)));
+        assertEquals(4L, wo.getAssignedFE().getId());
+        assertNull(other.getAssignedFE());
+        verify(engine, never()).assigned(eq(1L), eq(8L), any(), any());
+    }
+
+    private WorkOrder workOrder() {
+        WorkOrder wo = new WorkOrder();
+        wo.setId(7L);
+        wo.setTenantId(1L);
+        wo.setStatus(WOStatus.NEW);
+        when(woRepo.findById(7L)).thenReturn(Optional.of(wo));
+        when(feRepo.findById(3L)).thenReturn(Optional.of(engineer(3L)));
+        when(slots.save(any(CapacitySlot.class))).thenAnswer(inv -> {
+            CapacitySlot slot = inv.getArgument(0);
+            slot.setId(200L);
+            return slot;
+        });
+        when(slots.findByTenantIdAndEndDateGreaterThanEqual(eq(1L), any())).thenReturn(List.of());
+        return wo;
+    }
+
+    private static FieldEngineer engineer(Long id) {
+        FieldEngineer fe = new FieldEngineer();
+        fe.setId(id);
+        return fe;
+    }
+
+    private WorkOrderServiceImpl service(CapacityCalendar.Overbooking overbooking) {
+        CapacityCalendar capacity = new CapacityCalendar(slots, mock(TeamMemberRepository.class), feRepo, overbooking, 60);
+        return new WorkOrderServiceImpl(mock(TenantGuard.class), mock(InventoryService.class), woRepo,
+            mock(ServiceRequestRepository.class), feRepo, mock(WorkOrderItemRepository.class), mock(KitItemRepository.class),
+            mock(WorkOrderProgressRepository.class), mock(CustomerPORepository.class), mock(WorkOrderAssignmentRepository.class),
+            mock(WorkOrderProgressAttachmentRepository.class), mock(FeStatsService.class), mock(ApplicationEventPublisher.class),
+            engine, capacity, mock(WorkOrderCompletionPipeline.class));
+    }
+}
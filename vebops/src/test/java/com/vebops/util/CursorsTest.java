@@ -0,0 +1,63 @@
+package com.vebops.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import com.vebops.dto.CursorPage;
+import com.vebops.exception.BusinessException;
+
+class CursorsTest {
+
+    private record Row(Long id, Instant createdAt) {}
+
+    @Test
+    void pageUsesTheExtraRowOnlyToSignalMore() {
+        Sort sort = Cursors.sort("createdAt,desc", "createdAt", "createdAt", "id");
+        List<Row> fetched = List.of(new Row(9L, Instant.ofEpochSecond(300)), new Row(7L, Instant.ofEpochSecond(200)),
+            new Row(5L, Instant.ofEpochSecond(100)));
+
+        CursorPage<Row> page = Cursors.page(fetched, sort, 2, Row::createdAt, Row::id);
+
+        assertEquals(List.of(9L, 7L), page.content().stream().map(Row::id).toList());
+        assertTrue(page.hasMore());
+        Cursors.Position next = Cursors.decode(page.nextCursor(), sort);
+        assertEquals(Instant.ofEpochSecond(200), next.createdAt());
+        assertEquals(7L, next.id());
+
+        CursorPage<Row> last = Cursors.page(fetched.subList(2, 3), sort, 2, Row::createdAt, Row::id);
+        assertFalse(last.hasMore());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void cursorIsBoundToItsSort() {
+        Sort desc = Cursors.sort("createdAt,desc", "createdAt", "createdAt", "id");
+        String cursor = Cursors.encode(desc, Instant.ofEpochSecond(1), 3L);
+
+        assertNull(Cursors.decode("", desc));
+        assertThrows(BusinessException.class,
+            () -> Cursors.decode(cursor, Cursors.sort("createdAt,asc", "createdAt", "createdAt", "id")));
+        assertThrows(BusinessException.class, () -> Cursors.decode("not-a-cursor", desc));
+        assertThrows(BusinessException.class, () -> Cursors.sort("buyerName,asc", "createdAt", "createdAt", "id"));
+    }
+
+    @Test
+    void timelineCursorKeepsSubMillisecondTimestamps() {
+        Cursors.TimelinePosition at = new Cursors.TimelinePosition(
+            Instant.parse("2024-05-01T10:00:00.123456Z"), 41L, Instant.parse("2024-04-30T08:00:00Z"), 7L);
+
+        assertEquals(at, Cursors.decodeTimeline(Cursors.encodeTimeline(at)));
+        assertEquals(Cursors.TimelinePosition.START, Cursors.decodeTimeline(null));
+        assertThrows(BusinessException.class,
+            () -> Cursors.decodeTimeline(Cursors.encode(Sort.by("id"), null, 3L)));
+    }
+}
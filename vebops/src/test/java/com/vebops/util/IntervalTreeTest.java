@@ -0,0 +1,44 @@
+package com.vebops.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IntervalTreeTest {
+
+    @Test
+    void overlapQueriesMatchALinearScan() {
+        Random random = new Random(7);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        List<long[]> all = new ArrayList<>();
+        for (long id = 0; id < 2000; id++) {
+            long start = random.nextInt(1000);
+            long end = start + random.nextInt(20);
+            tree.insert(start, end, id, id);
+            all.add(new long[] { start, end, id });
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            long[] gone = all.remove(i);
+            assertTrue(tree.remove(gone[0], gone[2]));
+        }
+        assertEquals(all.size(), tree.size());
+
+        for (int q = 0; q < 200; q++) {
+            long from = random.nextInt(1050);
+            long to = from + random.nextInt(10);
+            List<Long> expected = all.stream()
+                .filter(iv -> iv[0] <= to && iv[1] >= from)
+                .sorted((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[2], b[2]))
+                .map(iv -> iv[2])
+                .toList();
+            assertEquals(expected, tree.overlapping(from, to));
+        }
+        assertFalse(tree.remove(5, 99999));
+    }
+}
@@ -0,0 +1,74 @@
+package com.vebops.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TtlCacheTest {
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        TtlCache<Long, Integer> cache = new TtlCache<>(Duration.ofSeconds(30));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<Integer> first = pool.submit(() -> cache.get(1L, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return 42;
+            }));
+            while (loads.get() == 0) Thread.onSpinWait();
+            Future<Integer> second = pool.submit(() -> cache.get(1L, loads::incrementAndGet));
+            Future<Integer> third = pool.submit(() -> cache.get(1L, loads::incrementAndGet));
+            release.countDown();
+
+            assertEquals(42, first.get(5, TimeUnit.SECONDS));
+            assertEquals(42, second.get(5, TimeUnit.SECONDS));
+            assertEquals(42, third.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredAndFailedLoadsAreRetried() {
+        MutableClock clock = new MutableClock();
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofSeconds(10), clock);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("t", () -> { throw new IllegalStateException(); }));
+        assertEquals("a", cache.get("t", () -> "a"));
+        clock.now = clock.now.plusSeconds(9);
+        assertEquals("a", cache.get("t", () -> "b"));
+        clock.now = clock.now.plusSeconds(2);
+        assertEquals("c", cache.get("t", () -> "c"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        public ZoneOffset getZone() { return ZoneOffset.UTC; }
+        public Clock withZone(java.time.ZoneId zone) { return this; }
+        public Instant instant() { return now; }
+    }
+}